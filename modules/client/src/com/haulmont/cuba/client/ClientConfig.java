@@ -83,6 +83,22 @@ public interface ClientConfig extends Config {
     @DefaultBoolean(false)
     boolean getRemoteMessagesSearchEnabled();
 
+    /**
+     * @return If true, client loads all messages of a pack and locale from the server at once, instead of
+     * requesting each missing message separately. Used only if {@link #getRemoteMessagesSearchEnabled()} is true.
+     */
+    @Property("cuba.remoteMessagesBulkSearchEnabled")
+    @DefaultBoolean(true)
+    boolean getRemoteMessagesBulkSearchEnabled();
+
+    /**
+     * @return List of message packs loaded from the server together with the first pack requested for a locale.
+     * Used only if {@link #getRemoteMessagesBulkSearchEnabled()} is true.
+     */
+    @Property("cuba.remoteMessagesPreloadPacks")
+    @Factory(factory = CommaSeparatedStringListTypeFactory.class)
+    List<String> getRemoteMessagesPreloadPacks();
+
     /**
      * List of screen aliases for which saving screen history is enabled.
      * <p>Obsolete. Recommended way to specify this information is entity annotations
@@ -436,4 +452,12 @@ public interface ClientConfig extends Config {
     @Source(type = SourceType.DATABASE)
     @DefaultBoolean(true)
     boolean getReloadUnfetchedAttributesFromLookupScreens();
-}
\ No newline at end of file
+
+    /**
+     * If true, DataContext sends to the middleware only changed attributes of modified instances, together with
+     * their identifiers and versions. Instances with changed collections or embedded attributes are sent completely.
+     */
+    @Property("cuba.gui.dataContextDeltaCommit")
+    @DefaultBoolean(false)
+    boolean getDataContextDeltaCommit();
+}
@@ -35,8 +35,9 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.net.SocketException;
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Component(Messages.NAME)
 public class MessagesClientImpl extends AbstractMessages {
@@ -51,6 +52,12 @@ public class MessagesClientImpl extends AbstractMessages {
 
     protected ClientConfig clientConfig;
 
+    // messages loaded from the server by locale and pack
+    protected ConcurrentMap<Locale, ConcurrentMap<String, Map<String, String>>> remotePacks = new ConcurrentHashMap<>();
+
+    // messages of the server main message pack by locale, used if a loaded pack does not contain a message
+    protected ConcurrentMap<Locale, Map<String, String>> remoteMainPacks = new ConcurrentHashMap<>();
+
     private static final Logger log = LoggerFactory.getLogger(MessagesClientImpl.class);
 
     @Inject
@@ -79,6 +86,10 @@ public class MessagesClientImpl extends AbstractMessages {
 
         StopWatch stopWatch = new Slf4JStopWatch("Messages.searchRemotely");
         try {
+            if (clientConfig.getRemoteMessagesBulkSearchEnabled()) {
+                return searchRemotePacks(pack, key, locale);
+            }
+
             String message = localizedMessageService.getMessage(pack, key, locale);
             if (key.equals(message))
                 return null;
@@ -98,6 +109,68 @@ public class MessagesClientImpl extends AbstractMessages {
         }
     }
 
+    /**
+     * Searches the message in the pack loaded from the server, then in the server main message pack, so the result
+     * is the same as of {@link LocalizedMessageService#getMessage}.
+     */
+    @Nullable
+    protected String searchRemotePacks(String pack, String key, Locale locale) {
+        String message = getRemotePack(pack, locale).get(key);
+        if (message == null) {
+            message = getRemoteMainPack(locale).get(key);
+        }
+        return message;
+    }
+
+    protected Map<String, String> getRemoteMainPack(Locale locale) {
+        Map<String, String> messages = remoteMainPacks.get(locale);
+        if (messages == null) {
+            log.debug("Loading main message pack for locale {}", locale);
+
+            remoteMainPacks.putIfAbsent(locale, localizedMessageService.getMainPackMessages(locale));
+            messages = remoteMainPacks.get(locale);
+        }
+        return messages;
+    }
+
+    protected Map<String, String> getRemotePack(String pack, Locale locale) {
+        ConcurrentMap<String, Map<String, String>> localePacks =
+                remotePacks.computeIfAbsent(locale, k -> new ConcurrentHashMap<>());
+
+        Map<String, String> messages = localePacks.get(pack);
+        if (messages == null) {
+            List<String> packs = new ArrayList<>();
+            packs.add(pack);
+            if (localePacks.isEmpty()) {
+                // first request for the locale, load also the packs used by most screens
+                List<String> preloadPacks = clientConfig.getRemoteMessagesPreloadPacks();
+                if (preloadPacks != null) {
+                    for (String preloadPack : preloadPacks) {
+                        if (!packs.contains(preloadPack)) {
+                            packs.add(preloadPack);
+                        }
+                    }
+                }
+            }
+
+            log.debug("Loading message packs {} for locale {}", packs, locale);
+
+            Map<String, Map<String, String>> loaded = localizedMessageService.getPackMessages(packs, locale);
+            for (String loadedPack : packs) {
+                localePacks.putIfAbsent(loadedPack, loaded.getOrDefault(loadedPack, Collections.emptyMap()));
+            }
+            messages = localePacks.get(pack);
+        }
+        return messages;
+    }
+
+    @Override
+    public void clearCache() {
+        super.clearCache();
+        remotePacks.clear();
+        remoteMainPacks.clear();
+    }
+
     public boolean isRemoteSearch() {
         return remoteSearch;
     }
@@ -24,6 +24,7 @@ import org.springframework.mail.MailSendException;
 
 import javax.mail.internet.MimeMessage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -36,8 +37,18 @@ public class TestMailSender extends CubaMailSender {
 
     private boolean mustFail;
 
+    private int batchCount;
+
     public void clearBuffer() {
         myMessages.clear();
+        batchCount = 0;
+    }
+
+    /**
+     * @return number of calls sending several messages through one connection
+     */
+    public int getBatchCount() {
+        return batchCount;
     }
 
     public int getBufferSize() {
@@ -57,6 +68,15 @@ public class TestMailSender extends CubaMailSender {
         myMessages.add(mimeMessage);
     }
 
+    @Override
+    public void send(MimeMessage... mimeMessages) throws MailException {
+        if (mustFail) {
+            throw new MailSendException("Smtp server not available");
+        }
+        batchCount++;
+        Collections.addAll(myMessages, mimeMessages);
+    }
+
     public boolean isEmpty() {
         return myMessages.isEmpty();
     }
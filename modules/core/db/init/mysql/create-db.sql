@@ -66,6 +66,23 @@ create table SYS_LOCK_CONFIG (
 
 /**********************************************************************************************/
 
+create table SYS_ENTITY_LOCK (
+    ENTITY_NAME varchar(100) not null,
+    ENTITY_ID varchar(190) not null,
+    --
+    USER_ID varchar(32) not null,
+    USER_LOGIN varchar(50),
+    USER_NAME varchar(255),
+    SINCE datetime(3) not null,
+    EXPIRES datetime(3),
+    --
+    primary key (ENTITY_NAME, ENTITY_ID)
+)^
+
+create index IDX_SYS_ENTITY_LOCK_EXPIRES on SYS_ENTITY_LOCK (EXPIRES)^
+
+/**********************************************************************************************/
+
 create table SYS_ENTITY_STATISTICS (
     ID varchar(32),
     CREATE_TS datetime(3),
@@ -0,0 +1,14 @@
+create table SYS_ENTITY_LOCK (
+    ENTITY_NAME varchar(100) not null,
+    ENTITY_ID varchar(255) not null,
+    --
+    USER_ID varchar(36) not null,
+    USER_LOGIN varchar(50),
+    USER_NAME varchar(255),
+    SINCE timestamp not null,
+    EXPIRES timestamp,
+    --
+    primary key (ENTITY_NAME, ENTITY_ID)
+)^
+
+create index IDX_SYS_ENTITY_LOCK_EXPIRES on SYS_ENTITY_LOCK (EXPIRES)^
@@ -0,0 +1,12 @@
+create table SYS_ENTITY_LOCK (
+    ENTITY_NAME varchar2(100 char) not null,
+    ENTITY_ID varchar2(255 char) not null,
+    USER_ID varchar2(32) not null,
+    USER_LOGIN varchar2(50 char),
+    USER_NAME varchar2(255 char),
+    SINCE timestamp not null,
+    EXPIRES timestamp,
+    primary key(ENTITY_NAME, ENTITY_ID)
+)^
+
+create index IDX_SYS_ENTITY_LOCK_EXPIRES on SYS_ENTITY_LOCK (EXPIRES)^
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.Transaction;
+import com.haulmont.cuba.core.entity.AppFolder;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.core.global.Resources;
+import com.haulmont.cuba.core.global.Scripting;
+import com.haulmont.cuba.core.global.TimeSource;
+import com.haulmont.cuba.security.global.UserSession;
+import groovy.lang.Binding;
+import org.apache.commons.lang3.StringUtils;
+import org.perf4j.StopWatch;
+import org.perf4j.slf4j.Slf4JStopWatch;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates quantity scripts of {@link AppFolder}s and caches the results for
+ * {@link ServerConfig#getAppFolderQuantityCacheTtlSec()}. Caching is disabled by default.
+ * <p>
+ * Results are cached separately for each user, because a script can depend on the user session in many ways:
+ * session attributes, row-level constraints and permissions of the user, the substituted user or the locale.
+ * <p>
+ * Since entries are not shared between users, an expired entry is evaluated again only when it is requested,
+ * re-evaluating it in background would run count queries nobody may ask for. Entries that are not requested
+ * for {@link ServerConfig#getAppFolderQuantityCacheIdleTimeoutSec()} are removed by {@link #removeIdleEntries()}.
+ */
+@Component(AppFolderQuantityCache.NAME)
+public class AppFolderQuantityCache {
+
+    public static final String NAME = "cuba_AppFolderQuantityCache";
+
+    protected static final String STYLE_VARIABLE = "style";
+
+    @Inject
+    protected Persistence persistence;
+
+    @Inject
+    protected Metadata metadata;
+
+    @Inject
+    protected Scripting scripting;
+
+    @Inject
+    protected Resources resources;
+
+    @Inject
+    protected TimeSource timeSource;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    protected ConcurrentMap<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+
+    protected ConcurrentMap<UUID, FolderStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Result of a quantity script.
+     */
+    public static class Quantity {
+
+        protected final Integer quantity;
+        protected final String style;
+
+        public Quantity(@Nullable Integer quantity, @Nullable String style) {
+            this.quantity = quantity;
+            this.style = style;
+        }
+
+        @Nullable
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        @Nullable
+        public String getStyle() {
+            return style;
+        }
+    }
+
+    protected static class Entry {
+
+        protected final AppFolder folder;
+        protected final String script;
+
+        protected volatile Quantity quantity;
+        protected volatile long loadedTs;
+        protected volatile long lastAccessTs;
+
+        protected Entry(AppFolder folder, String script) {
+            this.folder = folder;
+            this.script = script;
+        }
+    }
+
+    /**
+     * Timing metrics of the quantity script of a folder.
+     */
+    public static class FolderStatistics {
+
+        protected final String folderName;
+
+        protected final AtomicLong hits = new AtomicLong();
+        protected final AtomicLong evaluations = new AtomicLong();
+        protected final AtomicLong failures = new AtomicLong();
+        protected final AtomicLong totalTime = new AtomicLong();
+        protected final AtomicLong maxTime = new AtomicLong();
+
+        public FolderStatistics(String folderName) {
+            this.folderName = folderName;
+        }
+
+        public String getFolderName() {
+            return folderName;
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getEvaluations() {
+            return evaluations.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getTotalTime() {
+            return totalTime.get();
+        }
+
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        protected void registerEvaluation(long time) {
+            evaluations.incrementAndGet();
+            totalTime.addAndGet(time);
+            maxTime.accumulateAndGet(time, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            long count = evaluations.get();
+            return folderName + ": hits=" + hits.get()
+                    + ", evaluations=" + count
+                    + ", failures=" + failures.get()
+                    + ", avgTime=" + (count == 0 ? 0 : totalTime.get() / count) + "ms"
+                    + ", maxTime=" + maxTime.get() + "ms";
+        }
+    }
+
+    /**
+     * @return true if quantities are cached
+     */
+    public boolean isEnabled() {
+        return serverConfig.getAppFolderQuantityCacheTtlSec() > 0;
+    }
+
+    /**
+     * Returns the cached quantity of the folder or evaluates its quantity script.
+     *
+     * @param folder      app folder with not empty quantity script
+     * @param userSession session of the user the quantity is requested for
+     * @return quantity and style of the folder
+     * @throws RuntimeException if the script cannot be evaluated
+     */
+    public Quantity getQuantity(AppFolder folder, UserSession userSession) {
+        String script = loadScript(folder.getQuantityScript());
+        List<Object> key = createKey(folder, script, userSession);
+        long now = timeSource.currentTimeMillis();
+
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry(folder, script));
+        entry.lastAccessTs = now;
+
+        Quantity quantity = entry.quantity;
+        if (quantity != null && now - entry.loadedTs < getTtl()) {
+            getStatistics(folder).hits.incrementAndGet();
+            return quantity;
+        }
+
+        quantity = evaluate(folder, script, userSession);
+        entry.quantity = quantity;
+        entry.loadedTs = now;
+        return quantity;
+    }
+
+    /**
+     * Removes entries that were not requested during the idle timeout. Invoked by the scheduler.
+     */
+    public void removeIdleEntries() {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        long now = timeSource.currentTimeMillis();
+        long idleTimeout = Math.max(serverConfig.getAppFolderQuantityCacheIdleTimeoutSec() * 1000L, getTtl());
+
+        entries.values().removeIf(entry -> now - entry.lastAccessTs > idleTimeout);
+    }
+
+    /**
+     * Removes all cached quantities.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Resets timing metrics of all folders.
+     */
+    public void clearStatistics() {
+        statistics.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return timing metrics by folder id
+     */
+    public Map<UUID, FolderStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    protected long getTtl() {
+        return serverConfig.getAppFolderQuantityCacheTtlSec() * 1000L;
+    }
+
+    protected FolderStatistics getStatistics(AppFolder folder) {
+        return statistics.computeIfAbsent(folder.getId(), id -> new FolderStatistics(folder.getName()));
+    }
+
+    protected String loadScript(String script) {
+        script = StringUtils.trim(script);
+        if (script.endsWith(".groovy")) {
+            script = resources.getResourceAsString(script);
+        }
+        return script;
+    }
+
+    /**
+     * Creates a cache key containing the folder, the script text and the user the quantity is evaluated for.
+     * The key contains both the logged in and the substituted user, because the substitution changes the
+     * roles and constraints of the session, and the locale, because the script can produce localized styles.
+     */
+    protected List<Object> createKey(AppFolder folder, String script, UserSession userSession) {
+        List<Object> key = new ArrayList<>(6);
+        key.add(folder.getId());
+        key.add(script);
+        key.add(userSession.getUser().getId());
+        key.add(userSession.getCurrentOrSubstitutedUser().getId());
+        key.add(userSession.getLocale());
+
+        Set<String> attributeNames = new TreeSet<>(userSession.getAttributeNames());
+        for (String name : attributeNames) {
+            key.add(name);
+            key.add(userSession.getAttribute(name));
+        }
+        return key;
+    }
+
+    protected Quantity evaluate(AppFolder folder, String script, UserSession userSession) {
+        FolderStatistics folderStatistics = getStatistics(folder);
+
+        StopWatch stopWatch = new Slf4JStopWatch("AppFolderQuantity");
+        stopWatch.start();
+        try (Transaction tx = persistence.getTransaction()) {
+            Binding binding = new Binding();
+            binding.setVariable("persistence", persistence);
+            binding.setVariable("metadata", metadata);
+            binding.setVariable("userSession", userSession);
+            binding.setVariable("folder", folder);
+            binding.setVariable(STYLE_VARIABLE, null);
+
+            Number qty = scripting.evaluateGroovy(script, binding);
+            Quantity quantity = new Quantity(qty == null ? null : qty.intValue(),
+                    (String) binding.getVariable(STYLE_VARIABLE));
+
+            tx.commit();
+            return quantity;
+        } catch (RuntimeException e) {
+            folderStatistics.failures.incrementAndGet();
+            throw e;
+        } finally {
+            stopWatch.stop();
+            folderStatistics.registerEvaluation(stopWatch.getElapsedTime());
+        }
+    }
+}
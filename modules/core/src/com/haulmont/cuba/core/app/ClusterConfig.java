@@ -66,4 +66,20 @@ public interface ClusterConfig extends Config {
     @Property("cuba.cluster.messageSendingQueueCapacity")
     @DefaultInt(Integer.MAX_VALUE)
     int getClusterMessageSendingQueueCapacity();
+
+    /**
+     * @return time in milliseconds during which cache invalidations are collected before sending them to the
+     * cluster in one message. If 0, each invalidation is sent immediately.
+     */
+    @Property("cuba.cluster.invalidationWindow")
+    @DefaultInt(100)
+    int getInvalidationWindow();
+
+    /**
+     * @return maximum number of keys of a cache region sent in one invalidation message. If more keys are
+     * invalidated during a window, the whole region is invalidated on other nodes.
+     */
+    @Property("cuba.cluster.invalidationMaxKeys")
+    @DefaultInt(1000)
+    int getInvalidationMaxKeys();
 }
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.haulmont.cuba.core.global.Events;
+import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends invalidations of node-local caches to the cluster.
+ * <p>
+ * A cache registers a {@link Handler} for its region and reports changed keys, e.g. property names or entity ids,
+ * by {@link #invalidate(String, Collection)}. Keys reported during {@link ClusterConfig#getInvalidationWindow()}
+ * are de-duplicated and sent to other nodes in a single message, so a burst of changes produces a few messages
+ * instead of a message per change.
+ * <p>
+ * Each invalidation, local or received from the cluster, increments the version of the region. A cache can
+ * compare versions obtained before and after loading data to avoid storing data that has been invalidated
+ * while it was being loaded.
+ */
+@Component(ClusterInvalidationBus.NAME)
+public class ClusterInvalidationBus {
+
+    public static final String NAME = "cuba_ClusterInvalidationBus";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterInvalidationBus.class);
+
+    @Inject
+    protected ClusterConfig clusterConfig;
+
+    protected ClusterManagerAPI clusterManager;
+
+    protected Map<String, Handler> handlers = new ConcurrentHashMap<>();
+
+    protected ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    protected ScheduledExecutorService executor;
+
+    // guarded by this
+    protected Map<String, Set<Serializable>> pendingKeys = new HashMap<>();
+    protected Set<String> pendingRegions = new HashSet<>();
+    protected boolean flushScheduled;
+
+    protected AtomicLong reportedKeysCount = new AtomicLong();
+    protected AtomicLong sentKeysCount = new AtomicLong();
+    protected AtomicLong sentMessagesCount = new AtomicLong();
+
+    /**
+     * Applies invalidations received from other cluster nodes to a node-local cache.
+     */
+    public interface Handler {
+
+        /**
+         * Discards cached data for the keys.
+         */
+        void invalidate(Collection<Serializable> keys);
+
+        /**
+         * Discards all cached data of the region.
+         */
+        void invalidateAll();
+    }
+
+    public static class InvalidationMsg implements Serializable {
+
+        private static final long serialVersionUID = 5863307180232218544L;
+
+        protected final Map<String, Set<Serializable>> keys;
+        protected final Set<String> allRegions;
+
+        public InvalidationMsg(Map<String, Set<Serializable>> keys, Set<String> allRegions) {
+            this.keys = keys;
+            this.allRegions = allRegions;
+        }
+
+        public Map<String, Set<Serializable>> getKeys() {
+            return keys;
+        }
+
+        public Set<String> getAllRegions() {
+            return allRegions;
+        }
+
+        @Override
+        public String toString() {
+            return "InvalidationMsg{keys=" + keys + ", allRegions=" + allRegions + '}';
+        }
+    }
+
+    @PostConstruct
+    protected void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("ClusterInvalidationBus-%d").setDaemon(true).build());
+    }
+
+    @Inject
+    public void setClusterManager(ClusterManagerAPI clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.addListener(InvalidationMsg.class, new ClusterListenerAdapter<InvalidationMsg>() {
+            @Override
+            public void receive(InvalidationMsg message) {
+                apply(message);
+            }
+        });
+    }
+
+    @EventListener(AppContextStoppedEvent.class)
+    @Order(Events.HIGHEST_PLATFORM_PRECEDENCE)
+    protected void applicationStopped() {
+        flush();
+        executor.shutdown();
+    }
+
+    /**
+     * Registers the handler applying invalidations of the region received from the cluster.
+     *
+     * @param region  name of the cache region
+     * @param handler handler
+     */
+    public void addHandler(String region, Handler handler) {
+        handlers.put(region, handler);
+    }
+
+    /**
+     * Reports the key invalidated in the node-local cache to other cluster nodes.
+     *
+     * @param region name of the cache region
+     * @param key    invalidated key
+     */
+    public void invalidate(String region, Serializable key) {
+        invalidate(region, Collections.singleton(key));
+    }
+
+    /**
+     * Reports the keys invalidated in the node-local cache to other cluster nodes.
+     *
+     * @param region name of the cache region
+     * @param keys   invalidated keys
+     */
+    public void invalidate(String region, Collection<? extends Serializable> keys) {
+        if (keys.isEmpty())
+            return;
+
+        incrementVersion(region);
+        if (!clusterManager.isStarted())
+            return;
+
+        reportedKeysCount.addAndGet(keys.size());
+        if (isSendImmediately()) {
+            send(Collections.singletonMap(region, new HashSet<>(keys)), Collections.emptySet());
+            return;
+        }
+        synchronized (this) {
+            if (!pendingRegions.contains(region)) {
+                Set<Serializable> regionKeys = pendingKeys.computeIfAbsent(region, r -> new HashSet<>());
+                regionKeys.addAll(keys);
+                if (regionKeys.size() > clusterConfig.getInvalidationMaxKeys()) {
+                    // the message would be too large, invalidate the whole region instead
+                    pendingKeys.remove(region);
+                    pendingRegions.add(region);
+                }
+            }
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Reports that all data of the region is invalidated in the node-local cache to other cluster nodes.
+     *
+     * @param region name of the cache region
+     */
+    public void invalidateAll(String region) {
+        incrementVersion(region);
+        if (!clusterManager.isStarted())
+            return;
+
+        if (isSendImmediately()) {
+            send(Collections.emptyMap(), Collections.singleton(region));
+            return;
+        }
+        synchronized (this) {
+            pendingKeys.remove(region);
+            pendingRegions.add(region);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * @param region name of the cache region
+     * @return number of invalidations of the region applied on this node
+     */
+    public long getVersion(String region) {
+        AtomicLong version = versions.get(region);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Sends pending invalidations without waiting for the end of the current window.
+     */
+    public void flush() {
+        Map<String, Set<Serializable>> keys;
+        Set<String> regions;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pendingKeys.isEmpty() && pendingRegions.isEmpty())
+                return;
+
+            keys = pendingKeys;
+            regions = pendingRegions;
+            pendingKeys = new HashMap<>();
+            pendingRegions = new HashSet<>();
+        }
+        send(keys, regions);
+    }
+
+    public long getReportedKeysCount() {
+        return reportedKeysCount.get();
+    }
+
+    public long getSentKeysCount() {
+        return sentKeysCount.get();
+    }
+
+    public long getSentMessagesCount() {
+        return sentMessagesCount.get();
+    }
+
+    protected boolean isSendImmediately() {
+        return clusterConfig.getInvalidationWindow() <= 0 || clusterManager.getSyncSendingForCurrentThread();
+    }
+
+    protected void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flush, clusterConfig.getInvalidationWindow(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected void send(Map<String, Set<Serializable>> keys, Set<String> regions) {
+        for (Set<Serializable> regionKeys : keys.values()) {
+            sentKeysCount.addAndGet(regionKeys.size());
+        }
+        sentMessagesCount.incrementAndGet();
+
+        InvalidationMsg message = new InvalidationMsg(keys, regions);
+        log.debug("Sending {}", message);
+        try {
+            clusterManager.send(message);
+        } catch (RuntimeException e) {
+            log.error("Unable to send cache invalidations to the cluster", e);
+        }
+    }
+
+    protected void apply(InvalidationMsg message) {
+        log.debug("Received {}", message);
+        for (String region : message.getAllRegions()) {
+            incrementVersion(region);
+            Handler handler = handlers.get(region);
+            if (handler != null) {
+                handler.invalidateAll();
+            }
+        }
+        for (Map.Entry<String, Set<Serializable>> entry : message.getKeys().entrySet()) {
+            incrementVersion(entry.getKey());
+            Handler handler = handlers.get(entry.getKey());
+            if (handler != null) {
+                handler.invalidate(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Registers an invalidation of the node-local cache that is not sent to the cluster.
+     *
+     * @param region name of the cache region
+     */
+    public void incrementVersion(String region) {
+        versions.computeIfAbsent(region, r -> new AtomicLong()).incrementAndGet();
+    }
+}
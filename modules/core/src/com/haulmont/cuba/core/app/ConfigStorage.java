@@ -31,9 +31,7 @@ import javax.inject.Inject;
 import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -48,41 +46,68 @@ public class ConfigStorage implements ConfigStorageAPI {
     @Inject
     protected Persistence persistence;
 
-    protected ClusterManagerAPI clusterManager;
+    protected ClusterInvalidationBus invalidationBus;
 
     protected Map<String, String> cache;
 
+    /**
+     * Names of properties changed after the cache has been loaded.
+     */
+    protected Set<String> staleNames = new HashSet<>();
+
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
     protected Lock readLock = lock.readLock();
     protected Lock writeLock = lock.writeLock();
 
+    protected static final String CACHE_REGION = "cuba.config";
+
     private static final Logger log = LoggerFactory.getLogger(ConfigStorage.class);
 
-    private static class InvalidateCacheMsg implements Serializable {
-        private static final long serialVersionUID = -3116358584797500962L;
-    }
-    
     @Inject
-    public void setClusterManager(ClusterManagerAPI clusterManager) {
-        this.clusterManager = clusterManager;
-        clusterManager.addListener(InvalidateCacheMsg.class, new ClusterListenerAdapter<InvalidateCacheMsg>() {
+    public void setInvalidationBus(ClusterInvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.addHandler(CACHE_REGION, new ClusterInvalidationBus.Handler() {
+            @Override
+            public void invalidate(Collection<Serializable> keys) {
+                internalInvalidate(keys);
+            }
+
             @Override
-            public void receive(InvalidateCacheMsg message) {
+            public void invalidateAll() {
                 internalClearCache();
             }
         });
     }
-    
+
     @Override
     public void clearCache() {
         internalClearCache();
-        clusterManager.send(new InvalidateCacheMsg());
+        invalidationBus.invalidateAll(CACHE_REGION);
     }
 
     private void internalClearCache() {
         writeLock.lock();
         try {
             cache = null;
+            staleNames.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    protected void invalidate(String name) {
+        internalInvalidate(Collections.singleton(name));
+        invalidationBus.invalidate(CACHE_REGION, name);
+    }
+
+    protected void internalInvalidate(Collection<? extends Serializable> names) {
+        writeLock.lock();
+        try {
+            if (cache != null) {
+                for (Serializable name : names) {
+                    staleNames.add((String) name);
+                }
+            }
         } finally {
             writeLock.unlock();
         }
@@ -111,14 +136,14 @@ public class ConfigStorage implements ConfigStorageAPI {
     }
 
     protected void loadCache() {
-        if (cache == null) {
+        if (cache == null || !staleNames.isEmpty()) {
             lock.readLock().unlock();
             lock.writeLock().lock();
             try {
+                // Don't use transactions here because of loop possibility from EntityLog
+                QueryRunner queryRunner = new QueryRunner(persistence.getDataSource());
                 if (cache == null) {
                     log.info("Loading DB-stored app properties cache");
-                    // Don't use transactions here because of loop possibility from EntityLog
-                    QueryRunner queryRunner = new QueryRunner(persistence.getDataSource());
                     try {
                         cache = queryRunner.query("select NAME, VALUE_ from SYS_CONFIG",
                                 new ResultSetHandler<Map<String, String>>() {
@@ -131,9 +156,27 @@ public class ConfigStorage implements ConfigStorageAPI {
                                         return map;
                                     }
                                 });
+                        staleNames.clear();
                     } catch (SQLException e) {
                         throw new RuntimeException("Error loading DB-stored app properties cache", e);
                     }
+                } else if (!staleNames.isEmpty()) {
+                    log.debug("Reloading DB-stored app properties {}", staleNames);
+                    try {
+                        for (Iterator<String> it = staleNames.iterator(); it.hasNext(); ) {
+                            String name = it.next();
+                            String value = queryRunner.query("select VALUE_ from SYS_CONFIG where NAME = ?", name,
+                                    rs -> rs.next() ? rs.getString(1) : null);
+                            if (value != null) {
+                                cache.put(name, value);
+                            } else {
+                                cache.remove(name);
+                            }
+                            it.remove();
+                        }
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Error loading DB-stored app properties", e);
+                    }
                 }
             } finally {
                 lock.readLock().lock();
@@ -168,7 +211,7 @@ public class ConfigStorage implements ConfigStorageAPI {
         } finally {
             tx.end();
         }
-        clearCache();
+        invalidate(name.trim());
     }
 
     private Config getConfigInstance(String name) {
@@ -28,6 +28,8 @@ import org.perf4j.StopWatch;
 import org.perf4j.slf4j.Slf4JStopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Component;
 
@@ -42,6 +44,10 @@ import javax.mail.internet.*;
 import java.io.*;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component(EmailSenderAPI.NAME)
 public class EmailSender implements EmailSenderAPI {
@@ -72,6 +78,56 @@ public class EmailSender implements EmailSenderAPI {
         log.info("Email '{}' to '{}' has been sent successfully", msg.getSubject(), sendingMessage.getAddress());
     }
 
+    @Override
+    public Map<SendingMessage, Exception> sendEmails(List<SendingMessage> sendingMessages) {
+        Map<SendingMessage, Exception> failedMessages = new LinkedHashMap<>();
+        Map<MimeMessage, SendingMessage> mimeMessages = new IdentityHashMap<>();
+        for (SendingMessage sendingMessage : sendingMessages) {
+            try {
+                mimeMessages.put(createMimeMessage(sendingMessage), sendingMessage);
+            } catch (Exception e) {
+                failedMessages.put(sendingMessage, e);
+            }
+        }
+        if (mimeMessages.isEmpty()) {
+            return failedMessages;
+        }
+
+        StopWatch sw = new Slf4JStopWatch("EmailSender.sendBatch");
+        try {
+            // JavaMailSender sends all messages through one transport connection
+            mailSender.send(mimeMessages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                for (SendingMessage sendingMessage : mimeMessages.values()) {
+                    failedMessages.put(sendingMessage, e);
+                }
+            } else {
+                for (Map.Entry<Object, Exception> entry : failed.entrySet()) {
+                    SendingMessage sendingMessage = mimeMessages.get(entry.getKey());
+                    if (sendingMessage != null) {
+                        Exception cause = entry.getValue();
+                        failedMessages.put(sendingMessage, new MailSendException(cause.getMessage(), cause));
+                    }
+                }
+            }
+        } catch (MailException e) {
+            for (SendingMessage sendingMessage : mimeMessages.values()) {
+                failedMessages.put(sendingMessage, e);
+            }
+        }
+        sw.stop();
+
+        for (SendingMessage sendingMessage : mimeMessages.values()) {
+            if (!failedMessages.containsKey(sendingMessage)) {
+                log.info("Email '{}' to '{}' has been sent successfully",
+                        sendingMessage.getCaption(), sendingMessage.getAddress());
+            }
+        }
+        return failedMessages;
+    }
+
     @Override
     public void updateSession() {
         if (mailSender instanceof CubaMailSender)
@@ -20,6 +20,9 @@ package com.haulmont.cuba.core.app;
 import com.haulmont.cuba.core.entity.SendingMessage;
 
 import javax.mail.MessagingException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Adapter to javax.mail email sending API.
@@ -39,5 +42,23 @@ public interface EmailSenderAPI {
      */
     void sendEmail(SendingMessage sendingMessage) throws MessagingException;
 
+    /**
+     * Sends several emails reusing the connection to the SMTP server.
+     * Message bodies and attachments' content must be loaded from file storage.
+     *
+     * @return exceptions by messages that have not been sent, empty map if all messages have been sent
+     */
+    default Map<SendingMessage, Exception> sendEmails(List<SendingMessage> sendingMessages) {
+        Map<SendingMessage, Exception> failedMessages = new LinkedHashMap<>();
+        for (SendingMessage sendingMessage : sendingMessages) {
+            try {
+                sendEmail(sendingMessage);
+            } catch (Exception e) {
+                failedMessages.put(sendingMessage, e);
+            }
+        }
+        return failedMessages;
+    }
+
     void updateSession();
 }
\ No newline at end of file
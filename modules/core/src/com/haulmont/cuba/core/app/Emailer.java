@@ -17,8 +17,10 @@
 package com.haulmont.cuba.core.app;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.haulmont.cuba.core.EntityManager;
 import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.Query;
 import com.haulmont.cuba.core.Transaction;
 import com.haulmont.cuba.core.TypedQuery;
 import com.haulmont.cuba.core.entity.FileDescriptor;
@@ -29,6 +31,7 @@ import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.security.app.Authentication;
 import com.sun.mail.smtp.SMTPAddressFailedException;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
@@ -52,6 +55,11 @@ public class Emailer implements EmailerAPI {
 
     protected static final String BODY_FILE_EXTENSION = "txt";
 
+    protected static final int CLAIM_CHUNK_SIZE = 100;
+    // length of the updatedBy column
+    protected static final int CLAIM_TOKEN_MAX_LENGTH = 50;
+    protected static final int CLAIM_TOKEN_RANDOM_LENGTH = 12;
+
     private static final Logger log = LoggerFactory.getLogger(Emailer.class);
 
     protected EmailerConfig config;
@@ -85,6 +93,9 @@ public class Emailer implements EmailerAPI {
     @Inject
     protected FileStorageAPI fileStorage;
 
+    @Inject
+    protected ClusterManagerAPI clusterManager;
+
     @Inject
     public void setConfig(Configuration configuration) {
         this.config = configuration.getConfig(EmailerConfig.class);
@@ -195,25 +206,6 @@ public class Emailer implements EmailerAPI {
         return sendingMessageList;
     }
 
-    protected void sendSendingMessage(SendingMessage sendingMessage) {
-        Objects.requireNonNull(sendingMessage, "sendingMessage is null");
-        Objects.requireNonNull(sendingMessage.getAddress(), "sendingMessage.address is null");
-        Objects.requireNonNull(sendingMessage.getCaption(), "sendingMessage.caption is null");
-        Objects.requireNonNull(sendingMessage.getContentText(), "sendingMessage.contentText is null");
-        Objects.requireNonNull(sendingMessage.getFrom(), "sendingMessage.from is null");
-        try {
-            emailSender.sendEmail(sendingMessage);
-            markAsSent(sendingMessage);
-        } catch (Exception e) {
-            log.warn("Unable to send email to '" + sendingMessage.getAddress() + "'", e);
-            if (isNeedToRetry(e)) {
-                returnToQueue(sendingMessage);
-            } else {
-                markAsNonSent(sendingMessage);
-            }
-        }
-    }
-
     protected void persistAndSendEmail(EmailInfo emailInfo) throws EmailException {
         Objects.requireNonNull(emailInfo.getAddresses(), "addresses are null");
         Objects.requireNonNull(emailInfo.getCaption(), "caption is null");
@@ -313,8 +305,9 @@ public class Emailer implements EmailerAPI {
     protected String sendQueuedEmails() {
         List<SendingMessage> messagesToSend = loadEmailsToSend();
 
-        for (SendingMessage msg : messagesToSend) {
-            submitExecutorTask(msg);
+        int batchSize = Math.max(config.getSendingBatchSize(), 1);
+        for (List<SendingMessage> batch : Lists.partition(messagesToSend, batchSize)) {
+            submitExecutorTask(new ArrayList<>(batch));
         }
 
         if (messagesToSend.isEmpty()) {
@@ -338,18 +331,18 @@ public class Emailer implements EmailerAPI {
         return res;
     }
 
-    protected void submitExecutorTask(SendingMessage msg) {
+    protected void submitExecutorTask(List<SendingMessage> messages) {
         try {
-            Runnable mailSendTask = new EmailSendTask(msg);
+            Runnable mailSendTask = new EmailBatchSendTask(messages);
             mailSendTaskExecutor.execute(mailSendTask);
         } catch (RejectedExecutionException e) {
-            returnToQueue(msg);
+            updateStatuses(Collections.emptyList(), messages, Collections.emptyList());
         } catch (Exception e) {
-            log.error("Exception while sending email: ", e);
+            log.error("Exception while sending emails: ", e);
             if (isNeedToRetry(e)) {
-                returnToQueue(msg);
+                updateStatuses(Collections.emptyList(), messages, Collections.emptyList());
             } else {
-                markAsNonSent(msg);
+                updateStatuses(Collections.emptyList(), Collections.emptyList(), messages);
             }
         }
     }
@@ -357,45 +350,116 @@ public class Emailer implements EmailerAPI {
     protected List<SendingMessage> loadEmailsToSend() {
         Date sendTimeoutTime = DateUtils.addSeconds(timeSource.currentTimestamp(), -config.getSendingTimeoutSec());
 
+        List<UUID> claimedIds = claimEmailsToSend(sendTimeoutTime);
+        if (claimedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
         List<SendingMessage> emailsToSend = new ArrayList<>();
 
         try (Transaction tx = persistence.createTransaction()) {
             EntityManager em = persistence.getEntityManager();
             TypedQuery<SendingMessage> query = em.createQuery(
-                    "select sm from sys$SendingMessage sm" +
-                            " where sm.status = :statusQueue or (sm.status = :statusSending and sm.updateTs < :time)" +
-                            " order by sm.createTs",
+                    "select sm from sys$SendingMessage sm where sm.id in :ids order by sm.createTs",
                     SendingMessage.class
             );
-            query.setParameter("statusQueue", SendingStatus.QUEUE.getId());
-            query.setParameter("time", sendTimeoutTime);
-            query.setParameter("statusSending", SendingStatus.SENDING.getId());
+            query.setParameter("ids", claimedIds);
 
             View view = metadata.getViewRepository().getView(SendingMessage.class, "sendingMessage.loadFromQueue");
             view.setLoadPartialEntities(true); // because SendingAttachment.content has FetchType.LAZY
             query.setView(view);
 
-            query.setMaxResults(config.getMessageQueueCapacity());
-
             List<SendingMessage> resList = query.getResultList();
 
             for (SendingMessage msg : resList) {
                 if (shouldMarkNotSent(msg)) {
                     msg.setStatus(SendingStatus.NOTSENT);
                 } else {
-                    msg.setStatus(SendingStatus.SENDING);
                     emailsToSend.add(msg);
                 }
             }
             tx.commit();
         }
 
-        for (SendingMessage message : emailsToSend) {
-            loadBodyAndAttachments(message);
-        }
+        // body and attachments are loaded by the sending tasks in parallel
         return emailsToSend;
     }
 
+    /**
+     * Switches queued messages to the {@link SendingStatus#SENDING} status. Candidates are claimed in chunks:
+     * each chunk is updated by one conditional statement that stores a unique claim token in {@code updatedBy},
+     * and the messages claimed by this server are then selected by the token. So several servers can process
+     * the queue concurrently: a message claimed by another server is skipped, and transactions are short.
+     *
+     * @return ids of claimed messages
+     */
+    protected List<UUID> claimEmailsToSend(Date sendTimeoutTime) {
+        List<UUID> candidates;
+        try (Transaction tx = persistence.createTransaction()) {
+            EntityManager em = persistence.getEntityManager();
+            Query query = em.createQuery(
+                    "select sm.id from sys$SendingMessage sm" +
+                            " where sm.status = :statusQueue or (sm.status = :statusSending and sm.updateTs < :time)" +
+                            " order by sm.createTs"
+            );
+            query.setParameter("statusQueue", SendingStatus.QUEUE.getId());
+            query.setParameter("time", sendTimeoutTime);
+            query.setParameter("statusSending", SendingStatus.SENDING.getId());
+            query.setMaxResults(config.getMessageQueueCapacity());
+
+            //noinspection unchecked
+            candidates = new ArrayList<>((List<UUID>) query.getResultList());
+            tx.commit();
+        }
+
+        if (clusterManager.isStarted()) {
+            // other servers take the same candidates, so claim them in a different order
+            Collections.shuffle(candidates);
+        }
+
+        List<UUID> claimedIds = new ArrayList<>(candidates.size());
+        for (List<UUID> chunk : Lists.partition(candidates, CLAIM_CHUNK_SIZE)) {
+            String claimToken = createClaimToken();
+            Date claimTs = timeSource.currentTimestamp();
+            List<UUID> claimed = persistence.callInTransaction(em -> {
+                em.createQuery(
+                        "update sys$SendingMessage sm set sm.status = :statusSending, sm.updateTs = :updateTs," +
+                                " sm.updatedBy = :claimToken" +
+                                " where sm.id in :ids and" +
+                                " (sm.status = :statusQueue or (sm.status = :statusSending and sm.updateTs < :time))")
+                        .setParameter("statusSending", SendingStatus.SENDING.getId())
+                        .setParameter("updateTs", claimTs)
+                        .setParameter("claimToken", claimToken)
+                        .setParameter("ids", chunk)
+                        .setParameter("statusQueue", SendingStatus.QUEUE.getId())
+                        .setParameter("time", sendTimeoutTime)
+                        .executeUpdate();
+
+                //noinspection unchecked
+                return (List<UUID>) em.createQuery(
+                        "select sm.id from sys$SendingMessage sm where sm.id in :ids and sm.updatedBy = :claimToken")
+                        .setParameter("ids", chunk)
+                        .setParameter("claimToken", claimToken)
+                        .getResultList();
+            });
+            if (claimed.size() < chunk.size()) {
+                log.debug("{} of {} messages have been claimed by another server", chunk.size() - claimed.size(),
+                        chunk.size());
+            }
+            claimedIds.addAll(claimed);
+        }
+        return claimedIds;
+    }
+
+    /**
+     * Creates a token identifying a single claim of queued messages. The token is kept in the {@code updatedBy}
+     * attribute until the status of a message is updated after sending.
+     */
+    protected String createClaimToken() {
+        String suffix = ":" + RandomStringUtils.randomAlphanumeric(CLAIM_TOKEN_RANDOM_LENGTH);
+        return StringUtils.left(getEmailerLogin(), CLAIM_TOKEN_MAX_LENGTH - suffix.length()) + suffix;
+    }
+
     @Override
     public String loadContentText(SendingMessage sendingMessage) {
         SendingMessage msg;
@@ -529,20 +593,85 @@ public class Emailer implements EmailerAPI {
         return contentTextFile;
     }
 
-    protected void returnToQueue(SendingMessage sendingMessage) {
-        try (Transaction tx = persistence.createTransaction()) {
-            EntityManager em = persistence.getEntityManager();
-            SendingMessage msg = em.merge(sendingMessage);
+    /**
+     * Sends messages through one connection to the SMTP server and updates their statuses in one transaction.
+     */
+    protected void sendSendingMessages(List<SendingMessage> sendingMessages) {
+        Map<SendingMessage, Exception> failedMessages = new LinkedHashMap<>();
+        List<SendingMessage> messagesToSend = new ArrayList<>(sendingMessages.size());
+        for (SendingMessage sendingMessage : sendingMessages) {
+            try {
+                Objects.requireNonNull(sendingMessage.getAddress(), "sendingMessage.address is null");
+                Objects.requireNonNull(sendingMessage.getCaption(), "sendingMessage.caption is null");
+                Objects.requireNonNull(sendingMessage.getFrom(), "sendingMessage.from is null");
+                loadBodyAndAttachments(sendingMessage);
+                Objects.requireNonNull(sendingMessage.getContentText(), "sendingMessage.contentText is null");
+                messagesToSend.add(sendingMessage);
+            } catch (Exception e) {
+                failedMessages.put(sendingMessage, e);
+            }
+        }
+        if (!messagesToSend.isEmpty()) {
+            failedMessages.putAll(emailSender.sendEmails(messagesToSend));
+        }
 
-            msg.setAttemptsMade(msg.getAttemptsMade() + 1);
-            msg.setStatus(SendingStatus.QUEUE);
-            if (config.isFileStorageUsed()) {
-                msg.setContentText(null);
+        List<SendingMessage> sent = new ArrayList<>();
+        List<SendingMessage> returned = new ArrayList<>();
+        List<SendingMessage> notSent = new ArrayList<>();
+        for (SendingMessage sendingMessage : sendingMessages) {
+            Exception e = failedMessages.get(sendingMessage);
+            if (e == null) {
+                sent.add(sendingMessage);
+            } else {
+                log.warn("Unable to send email to '" + sendingMessage.getAddress() + "'", e);
+                if (isNeedToRetry(e)) {
+                    returned.add(sendingMessage);
+                } else {
+                    notSent.add(sendingMessage);
+                }
             }
+        }
+        updateStatuses(sent, returned, notSent);
+    }
 
+    /**
+     * Marks messages as sent, returns them to the queue or marks as not sent in one transaction.
+     */
+    protected void updateStatuses(List<SendingMessage> sent, List<SendingMessage> returned,
+                                  List<SendingMessage> notSent) {
+        try (Transaction tx = persistence.createTransaction()) {
+            EntityManager em = persistence.getEntityManager();
+            Date now = timeSource.currentTimestamp();
+            updateStatus(em, sent, SendingStatus.SENT, now);
+            updateStatus(em, returned, SendingStatus.QUEUE, now);
+            updateStatus(em, notSent, SendingStatus.NOTSENT, now);
             tx.commit();
         } catch (Exception e) {
-            log.error("Error returning message to '{}' to the queue", sendingMessage.getAddress(), e);
+            log.error("Error updating status of {} messages", sent.size() + returned.size() + notSent.size(), e);
+        }
+    }
+
+    protected void updateStatus(EntityManager em, List<SendingMessage> messages, SendingStatus status, Date now) {
+        // messages of a batch usually have the same number of attempts, so one statement updates all of them
+        Map<Integer, List<UUID>> idsByAttempts = new HashMap<>();
+        for (SendingMessage message : messages) {
+            int attemptsMade = message.getAttemptsMade() != null ? message.getAttemptsMade() : 0;
+            idsByAttempts.computeIfAbsent(attemptsMade + 1, k -> new ArrayList<>()).add(message.getId());
+        }
+        for (Map.Entry<Integer, List<UUID>> entry : idsByAttempts.entrySet()) {
+            Query query = em.createQuery("update sys$SendingMessage sm set sm.status = :status," +
+                    " sm.attemptsMade = :attemptsMade, sm.updateTs = :updateTs, sm.updatedBy = :updatedBy" +
+                    (status == SendingStatus.SENT ? ", sm.dateSent = :dateSent" : "") +
+                    " where sm.id in :ids");
+            query.setParameter("status", status.getId());
+            query.setParameter("attemptsMade", entry.getKey());
+            query.setParameter("updateTs", now);
+            query.setParameter("updatedBy", getEmailerLogin());
+            if (status == SendingStatus.SENT) {
+                query.setParameter("dateSent", now);
+            }
+            query.setParameter("ids", entry.getValue());
+            query.executeUpdate();
         }
     }
 
@@ -744,13 +873,13 @@ public class Emailer implements EmailerAPI {
         attachment.setContent(null);
     }
 
-    protected static class EmailSendTask implements Runnable {
+    protected static class EmailBatchSendTask implements Runnable {
 
-        private SendingMessage sendingMessage;
-        private static final Logger log = LoggerFactory.getLogger(EmailSendTask.class);
+        private final List<SendingMessage> sendingMessages;
+        private static final Logger log = LoggerFactory.getLogger(EmailBatchSendTask.class);
 
-        public EmailSendTask(SendingMessage message) {
-            sendingMessage = message;
+        public EmailBatchSendTask(List<SendingMessage> messages) {
+            sendingMessages = messages;
         }
 
         @Override
@@ -761,12 +890,12 @@ public class Emailer implements EmailerAPI {
 
                 authentication.begin(emailer.getEmailerLogin());
                 try {
-                    emailer.sendSendingMessage(sendingMessage);
+                    emailer.sendSendingMessages(sendingMessages);
                 } finally {
                     authentication.end();
                 }
             } catch (Exception e) {
-                log.error("Exception while sending email: ", e);
+                log.error("Exception while sending emails: ", e);
             }
         }
     }
@@ -146,6 +146,16 @@ public interface EmailerConfig extends Config {
     @Default("100")
     int getMessageQueueCapacity();
 
+    /**
+     * Max number of queued messages sent through one connection to the SMTP server. Batches are sent in parallel
+     * by the {@code mailSendTaskExecutor}.
+     */
+    @Property("cuba.email.sendingBatchSize")
+    @DefaultInt(20)
+    int getSendingBatchSize();
+
+    void setSendingBatchSize(int sendingBatchSize);
+
     /**
      * Max number of attempts to send a message, after which the message's status is set to NOT_SENT.
      */
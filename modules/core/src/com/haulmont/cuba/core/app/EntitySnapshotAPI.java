@@ -46,6 +46,27 @@ public interface EntitySnapshotAPI {
      */
     List<EntitySnapshot> getSnapshots(MetaClass metaClass, Object id);
 
+    /**
+     * Load snapshots for entity without their content. Entity and view of the returned snapshots are loaded on
+     * demand by {@link #extractEntity(EntitySnapshot)}, {@link #extractView(EntitySnapshot)} and
+     * {@link #getDifference(EntitySnapshot, EntitySnapshot)}.
+     *
+     * @param metaClass Entity metaclass
+     * @param id        Entity Id
+     * @return Snapshot list sorted by snapshotDate desc
+     */
+    List<EntitySnapshot> getSnapshotsInfo(MetaClass metaClass, Object id);
+
+    /**
+     * Re-encode all stored snapshots which are not in the format of the codec defined by the
+     * {@code cuba.entitySnapshotCodec} application property. Snapshots are processed in separate transactions
+     * by batches.
+     *
+     * @param batchSize number of snapshots processed in one transaction
+     * @return number of converted snapshots
+     */
+    int convertSnapshots(int batchSize);
+
     /**
      * Translate snapshots for archival classes
      *
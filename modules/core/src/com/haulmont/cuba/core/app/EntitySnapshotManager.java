@@ -22,21 +22,22 @@ import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.cuba.core.*;
 import com.haulmont.cuba.core.app.serialization.EntitySerializationAPI;
 import com.haulmont.cuba.core.app.serialization.ViewSerializationAPI;
-import com.haulmont.cuba.core.app.serialization.ViewSerializationOption;
+import com.haulmont.cuba.core.app.snapshot.EntitySnapshotCodec;
+import com.haulmont.cuba.core.app.snapshot.EntitySnapshotDecoder;
+import com.haulmont.cuba.core.app.snapshot.XmlSnapshotDecoder;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.diff.EntityDiff;
 import com.haulmont.cuba.core.global.*;
-import com.haulmont.cuba.core.sys.CubaXStream;
 import com.haulmont.cuba.security.entity.User;
-import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.mapper.MapperWrapper;
+import org.apache.commons.lang3.StringUtils;
 import org.dom4j.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.io.Serializable;
 import java.util.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -45,6 +46,8 @@ import static java.lang.String.format;
 @Component(EntitySnapshotAPI.NAME)
 public class EntitySnapshotManager implements EntitySnapshotAPI {
 
+    private static final Logger log = LoggerFactory.getLogger(EntitySnapshotManager.class);
+
     @Inject
     protected Persistence persistence;
 
@@ -75,13 +78,34 @@ public class EntitySnapshotManager implements EntitySnapshotAPI {
     @Inject
     protected DataManager dataManager;
 
+    @Inject
+    protected ServerConfig serverConfig;
+
+    @Inject
+    protected Map<String, EntitySnapshotCodec> codecs;
+
+    @Inject
+    protected List<EntitySnapshotDecoder> decoders;
+
+    @Inject
+    protected XmlSnapshotDecoder xmlDecoder;
+
     @Override
     public List<EntitySnapshot> getSnapshots(MetaClass metaClass, Object id) {
+        return loadSnapshots(metaClass, id, "entitySnapshot.browse");
+    }
+
+    @Override
+    public List<EntitySnapshot> getSnapshotsInfo(MetaClass metaClass, Object id) {
+        return loadSnapshots(metaClass, id, "entitySnapshot.list");
+    }
+
+    protected List<EntitySnapshot> loadSnapshots(MetaClass metaClass, Object id, String viewName) {
         metaClass = extendedEntities.getOriginalOrThisMetaClass(metaClass);
         Entity entity = dataManager.load(new LoadContext<>(metaClass).setId(id).setView(View.LOCAL));
         checkCompositePrimaryKey(entity);
         List<EntitySnapshot> resultList = null;
-        View view = metadata.getViewRepository().getView(EntitySnapshot.class, "entitySnapshot.browse");
+        View view = metadata.getViewRepository().getView(EntitySnapshot.class, viewName);
         Transaction tx = persistence.createTransaction();
         try {
             EntityManager em = persistence.getEntityManager();
@@ -171,26 +195,128 @@ public class EntitySnapshotManager implements EntitySnapshotAPI {
 
     @Override
     public Entity extractEntity(EntitySnapshot snapshot) {
+        snapshot = loadContent(snapshot);
         String rawResult = snapshot.getSnapshotXml();
-        BaseGenericIdEntity entity;
-        if (isXml(rawResult)) {
-            entity = (BaseGenericIdEntity) fromXML(snapshot.getSnapshotXml());
-        } else {
-            entity = entitySerializationAPI.entityFromJson(rawResult, metadata.getClass(snapshot.getEntityMetaClass()));
-        }
-        return entity;
+        return getDecoder(rawResult).decodeEntity(rawResult, metadata.getClass(snapshot.getEntityMetaClass()));
     }
 
     @Override
     public View extractView(EntitySnapshot snapshot) {
+        snapshot = loadContent(snapshot);
         String rawResult = snapshot.getViewXml();
-        View view;
-        if (isXml(rawResult)) {
-            view = (View) fromXML(rawResult);
-        } else {
-            view = viewSerializationAPI.fromJson(rawResult);
+        return getDecoder(rawResult).decodeView(rawResult);
+    }
+
+    /**
+     * Returns the snapshot itself if its content is loaded, or the snapshot with content loaded from the database
+     * if it was loaded by {@link #getSnapshotsInfo(MetaClass, Object)}.
+     */
+    protected EntitySnapshot loadContent(EntitySnapshot snapshot) {
+        if (PersistenceHelper.isNew(snapshot)
+                || (PersistenceHelper.isLoaded(snapshot, "snapshotXml") && PersistenceHelper.isLoaded(snapshot, "viewXml"))) {
+            return snapshot;
+        }
+        EntitySnapshot loaded = dataManager.load(LoadContext.create(EntitySnapshot.class)
+                .setId(snapshot.getId())
+                .setView(View.LOCAL));
+        if (loaded == null) {
+            throw new EntityAccessException(EntitySnapshot.class, snapshot.getId());
         }
-        return view;
+        return loaded;
+    }
+
+    /**
+     * @return codec used to store new snapshots
+     */
+    protected EntitySnapshotCodec getEncodingCodec() {
+        String name = serverConfig.getEntitySnapshotCodec();
+        EntitySnapshotCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalStateException("Entity snapshot codec not found: " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * @return codec or decoder that recognizes the format of the stored snapshot content
+     */
+    protected EntitySnapshotDecoder getDecoder(String data) {
+        EntitySnapshotCodec encodingCodec = getEncodingCodec();
+        if (encodingCodec.canDecode(data)) {
+            return encodingCodec;
+        }
+        for (EntitySnapshotDecoder decoder : decoders) {
+            if (decoder.canDecode(data)) {
+                return decoder;
+            }
+        }
+        throw new IllegalStateException("Unknown format of entity snapshot: " + StringUtils.abbreviate(data, 50));
+    }
+
+    @Override
+    public int convertSnapshots(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+
+        EntitySnapshotCodec targetCodec = getEncodingCodec();
+        int converted = 0;
+        UUID lastId = null;
+        while (true) {
+            try (Transaction tx = persistence.createTransaction()) {
+                EntityManager em = persistence.getEntityManager();
+                TypedQuery<EntitySnapshot> query = em.createQuery(lastId == null
+                        ? "select s from sys$EntitySnapshot s order by s.id"
+                        : "select s from sys$EntitySnapshot s where s.id > :lastId order by s.id", EntitySnapshot.class);
+                if (lastId != null) {
+                    query.setParameter("lastId", lastId);
+                }
+                query.setMaxResults(batchSize);
+                query.setView(View.LOCAL);
+                List<EntitySnapshot> snapshots = query.getResultList();
+                for (EntitySnapshot snapshot : snapshots) {
+                    if (convertSnapshot(snapshot, targetCodec)) {
+                        converted++;
+                    }
+                }
+                tx.commit();
+
+                if (snapshots.size() < batchSize) {
+                    break;
+                }
+                lastId = snapshots.get(snapshots.size() - 1).getId();
+            }
+        }
+        log.info("Converted {} entity snapshots", converted);
+        return converted;
+    }
+
+    /**
+     * Re-encodes the content of a managed snapshot by the target codec.
+     *
+     * @return true if the snapshot was changed
+     */
+    protected boolean convertSnapshot(EntitySnapshot snapshot, EntitySnapshotCodec targetCodec) {
+        String snapshotXml = snapshot.getSnapshotXml();
+        String viewXml = snapshot.getViewXml();
+        if (targetCodec.canDecode(snapshotXml) && targetCodec.canDecode(viewXml)) {
+            return false;
+        }
+        try {
+            if (!targetCodec.canDecode(viewXml)) {
+                viewXml = targetCodec.encodeView(getDecoder(viewXml).decodeView(viewXml));
+            }
+            if (!targetCodec.canDecode(snapshotXml)) {
+                MetaClass metaClass = metadata.getClass(snapshot.getEntityMetaClass());
+                snapshotXml = targetCodec.encodeEntity(getDecoder(snapshotXml).decodeEntity(snapshotXml, metaClass));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to convert entity snapshot {}", snapshot.getId(), e);
+            return false;
+        }
+        snapshot.setViewXml(viewXml);
+        snapshot.setSnapshotXml(snapshotXml);
+        return true;
     }
 
     @Override
@@ -199,40 +325,7 @@ public class EntitySnapshotManager implements EntitySnapshotAPI {
     }
 
     protected Object fromXML(String xml) {
-        final List exclUpdateFields = Arrays.asList("updateTs", "updatedBy");
-        XStream xStream = new CubaXStream() {
-            @Override
-            protected MapperWrapper wrapMapper(MapperWrapper next) {
-                return new MapperWrapper(next) {
-                    @Override
-                    public boolean shouldSerializeMember(Class definedIn, String fieldName) {
-                        boolean result = super.shouldSerializeMember(definedIn, fieldName);
-                        if (!result) {
-                            return false;
-                        }
-                        if (fieldName != null) {
-                            if (exclUpdateFields.contains(fieldName)
-                                    && Updatable.class.isAssignableFrom(definedIn)) {
-                                return false;
-                            }
-                            if ("uuid".equals(fieldName)) {
-                                if (!HasUuid.class.isAssignableFrom(definedIn)
-                                        && BaseGenericIdEntity.class.isAssignableFrom(definedIn)) {
-                                    return false;
-                                }
-                            }
-                        }
-                        return true;
-                    }
-                };
-            }
-        };
-        XStream.setupDefaultSecurity(xStream);
-        xStream.allowTypeHierarchy(Serializable.class);
-        xStream.omitField(BaseGenericIdEntity.class, "createTs");
-        xStream.omitField(BaseGenericIdEntity.class, "createdBy");
-
-        return xStream.fromXML(xml);
+        return xmlDecoder.fromXML(xml);
     }
 
     protected boolean isXml(String value) {
@@ -395,8 +488,9 @@ public class EntitySnapshotManager implements EntitySnapshotAPI {
         EntitySnapshot snapshot = metadata.create(EntitySnapshot.class);
         snapshot.setObjectEntityId(referenceToEntitySupport.getReferenceId(entity));
         snapshot.setEntityMetaClass(metaClass.getName());
-        snapshot.setViewXml(viewSerializationAPI.toJson(view, ViewSerializationOption.COMPACT_FORMAT));
-        snapshot.setSnapshotXml(entitySerializationAPI.toJson(entity));
+        EntitySnapshotCodec codec = getEncodingCodec();
+        snapshot.setViewXml(codec.encodeView(view));
+        snapshot.setSnapshotXml(codec.encodeEntity(entity));
         snapshot.setSnapshotDate(snapshotDate);
         snapshot.setAuthor(author);
 
@@ -43,6 +43,11 @@ public class EntitySnapshotServiceBean implements EntitySnapshotService {
         return snapshotAPI.getSnapshots(metaClass, id);
     }
 
+    @Override
+    public List<EntitySnapshot> getSnapshotsInfo(MetaClass metaClass, Object id) {
+        return snapshotAPI.getSnapshotsInfo(metaClass, id);
+    }
+
     @Override
     public EntitySnapshot createSnapshot(Entity entity, View view) {
         return snapshotAPI.createSnapshot(entity, view);
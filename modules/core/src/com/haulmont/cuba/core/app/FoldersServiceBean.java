@@ -85,6 +85,8 @@ public class FoldersServiceBean implements FoldersService {
     protected TimeSource timeSource;
     @Inject
     protected DataManager dataManager;
+    @Inject
+    protected AppFolderQuantityCache quantityCache;
 
     @Override
     public List<AppFolder> loadAppFolders() {
@@ -191,6 +193,20 @@ public class FoldersServiceBean implements FoldersService {
 
     protected boolean loadFolderQuantity(Binding binding, AppFolder folder) {
         if (!StringUtils.isBlank(folder.getQuantityScript())) {
+            if (quantityCache.isEnabled()) {
+                try {
+                    AppFolderQuantityCache.Quantity quantity =
+                            quantityCache.getQuantity(folder, (UserSession) binding.getVariable("userSession"));
+                    folder.setItemStyle(quantity.getStyle());
+                    folder.setQuantity(quantity.getQuantity());
+                } catch (Exception e) {
+                    log.warn("Unable to evaluate AppFolder quantity script for folder: id: {} , name: {}",
+                            folder.getId(), folder.getName(), e);
+                    return false;
+                }
+                return true;
+            }
+
             binding.setVariable("folder", folder);
 
             String styleVariable = "style";
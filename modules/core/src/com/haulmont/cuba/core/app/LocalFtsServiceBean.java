@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.app.localfts.LocalFtsIndex;
+import com.haulmont.cuba.core.app.localfts.LocalFtsSender;
+import com.haulmont.cuba.core.global.AccessDeniedException;
+import com.haulmont.cuba.core.global.ExtendedEntities;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.core.global.Security;
+import com.haulmont.cuba.security.entity.EntityOp;
+import com.haulmont.cuba.security.entity.PermissionType;
+import org.springframework.stereotype.Service;
+
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.List;
+
+@Service(LocalFtsService.NAME)
+public class LocalFtsServiceBean implements LocalFtsService {
+
+    @Inject
+    protected LocalFtsIndex index;
+
+    @Inject
+    protected LocalFtsSender sender;
+
+    @Inject
+    protected Metadata metadata;
+
+    @Inject
+    protected ExtendedEntities extendedEntities;
+
+    @Inject
+    protected Security security;
+
+    @Override
+    public List<Object> search(String entityName, String text, int maxResults) {
+        MetaClass metaClass = extendedEntities.getOriginalOrThisMetaClass(metadata.getClassNN(entityName));
+        if (!security.isEntityOpPermitted(metaClass, EntityOp.READ)) {
+            throw new AccessDeniedException(PermissionType.ENTITY_OP, EntityOp.READ, metaClass.getName());
+        }
+        if (!isIndexed(metaClass.getName())) {
+            return Collections.emptyList();
+        }
+        return index.search(metaClass.getName(), text, maxResults);
+    }
+
+    @Override
+    public boolean isIndexed(String entityName) {
+        return sender.isEnabled() && sender.isIndexed(entityName);
+    }
+}
@@ -18,10 +18,14 @@
 package com.haulmont.cuba.core.app;
 
 import com.haulmont.cuba.core.global.Messages;
+import com.haulmont.cuba.core.sys.AbstractMessages;
 
 import org.springframework.stereotype.Component;
 import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Component(LocalizedMessageService.NAME)
 public class LocalizedMessageServiceBean implements LocalizedMessageService {
@@ -33,4 +37,39 @@ public class LocalizedMessageServiceBean implements LocalizedMessageService {
     public String getMessage(String pack, String key, Locale locale) {
         return messages.getMessage(pack, key, locale);
     }
+
+    @Override
+    public Map<String, Map<String, String>> getPackMessages(List<String> packs, Locale locale) {
+        AbstractMessages abstractMessages = getAbstractMessages();
+        String mainMessagePack = messages.getMainMessagePack();
+        Map<String, String> mainMessages = abstractMessages.getPackMessages(mainMessagePack, locale);
+
+        Map<String, Map<String, String>> result = new HashMap<>();
+        for (String pack : packs) {
+            Map<String, String> packMessages = abstractMessages.getPackMessages(pack, locale);
+            if (!pack.equals(mainMessagePack)) {
+                // messages of the pack are already overridden, add the overrides of keys missing in the pack
+                String prefix = pack + "/";
+                for (Map.Entry<String, String> entry : mainMessages.entrySet()) {
+                    if (entry.getKey().startsWith(prefix)) {
+                        packMessages.put(entry.getKey().substring(prefix.length()), entry.getValue());
+                    }
+                }
+            }
+            result.put(pack, packMessages);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getMainPackMessages(Locale locale) {
+        return getAbstractMessages().getPackMessages(messages.getMainMessagePack(), locale);
+    }
+
+    protected AbstractMessages getAbstractMessages() {
+        if (!(messages instanceof AbstractMessages)) {
+            throw new UnsupportedOperationException("Messages implementation does not support loading packs");
+        }
+        return (AbstractMessages) messages;
+    }
 }
\ No newline at end of file
@@ -14,6 +14,7 @@
  * limitations under the License.
  *
  */
+
 package com.haulmont.cuba.core.app;
 
 import com.haulmont.bali.util.Preconditions;
@@ -22,6 +23,8 @@ import com.haulmont.cuba.core.EntityManager;
 import com.haulmont.cuba.core.Persistence;
 import com.haulmont.cuba.core.Transaction;
 import com.haulmont.cuba.core.TypedQuery;
+import com.haulmont.cuba.core.app.locking.LockBackend;
+import com.haulmont.cuba.core.app.locking.LockStatistics;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.LockDescriptor;
 import com.haulmont.cuba.core.global.*;
@@ -32,53 +35,18 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Component(LockManagerAPI.NAME)
-public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
-
-    private static class LockKey {
-        
-        private final String name;
-        private final String id;
-
-        private LockKey(String name, String id) {
-            this.name = name;
-            this.id = id;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-
-            LockKey key = (LockKey) o;
-
-            if (id != null ? !id.equals(key.id) : key.id != null) return false;
-            if (!name.equals(key.name)) return false;
-
-            return true;
-        }
-
-        @Override
-        public int hashCode() {
-            int result = name.hashCode();
-            result = 31 * result + (id != null ? id.hashCode() : 0);
-            return result;
-        }
-    }
+public class LockManager implements LockManagerAPI {
 
     private static final Logger log = LoggerFactory.getLogger(LockManager.class);
 
     private volatile Map<String, LockDescriptor> config;
 
-    private Map<LockKey, LockInfo> locks = new ConcurrentHashMap<>();
-
     @Inject
     private Persistence persistence;
 
@@ -88,61 +56,76 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
     @Inject
     private UserSessionSource userSessionSource;
 
-    private ClusterManagerAPI clusterManager;
+    @Inject
+    private TimeSource timeSource;
 
     @Inject
-    public void setClusterManager(ClusterManagerAPI clusterManager) {
-        this.clusterManager = clusterManager;
-        this.clusterManager.addListener(LockInfo.class, this);
-    }
+    private ServerConfig serverConfig;
+
+    @Inject
+    private Map<String, LockBackend> backends;
+
+    @Inject
+    private LockStatistics statistics;
 
     private Map<String, LockDescriptor> getConfig() {
-        if (this.config == null) {
-            synchronized (this) {
-                if (this.config == null) {
-                    Map<String, LockDescriptor> config = new ConcurrentHashMap<>();
-
-                    Transaction tx = persistence.createTransaction();
-                    try {
-                        EntityManager em = persistence.getEntityManager();
-                        TypedQuery<LockDescriptor> q = em.createQuery(
-                                "select d from sys$LockDescriptor d", LockDescriptor.class);
-                        List<LockDescriptor> list = q.getResultList();
-                        for (LockDescriptor ld : list) {
-                            config.put(ld.getName(), ld);
-                        }
-                        tx.commit();
-                    } finally {
-                        tx.end();
-                    }
-                    this.config = config;
-                }
-            }
+        Map<String, LockDescriptor> config = this.config;
+        if (config == null) {
+            // concurrent loads are harmless, all of them read the same descriptors
+            config = loadConfig();
+            this.config = config;
         }
         return config;
     }
 
-    @Override
-    public LockInfo lock(String name, String id) {
-        LockKey key = new LockKey(name, id);
+    private Map<String, LockDescriptor> loadConfig() {
+        Map<String, LockDescriptor> config = new HashMap<>();
 
-        LockInfo lockInfo = locks.get(key);
-        if (lockInfo != null) {
-            log.debug("Already locked: " + lockInfo);
-            return lockInfo;
+        Transaction tx = persistence.createTransaction();
+        try {
+            EntityManager em = persistence.getEntityManager();
+            TypedQuery<LockDescriptor> q = em.createQuery(
+                    "select d from sys$LockDescriptor d", LockDescriptor.class);
+            List<LockDescriptor> list = q.getResultList();
+            for (LockDescriptor ld : list) {
+                config.put(ld.getName(), ld);
+            }
+            tx.commit();
+        } finally {
+            tx.end();
+        }
+        return Collections.unmodifiableMap(config);
+    }
+
+    /**
+     * @return lock backend defined by {@link ServerConfig#getLockBackend()}
+     */
+    public LockBackend getBackend() {
+        String name = serverConfig.getLockBackend();
+        LockBackend backend = backends.get(name);
+        if (backend == null) {
+            throw new IllegalStateException("Lock backend not found: " + name);
         }
+        return backend;
+    }
 
+    @Override
+    public LockInfo lock(String name, String id) {
         LockDescriptor ld = getConfig().get(name);
         if (ld == null) {
             return new LockNotSupported();
         }
 
-        lockInfo = new LockInfo(userSessionSource.getUserSession().getCurrentOrSubstitutedUser(), name, id);
-        locks.put(key, lockInfo);
-        log.debug("Locked " + name + "/" + id);
-
-        clusterManager.send(lockInfo);
+        long start = System.currentTimeMillis();
+        LockInfo lockInfo = new LockInfo(userSessionSource.getUserSession().getCurrentOrSubstitutedUser(), name, id);
+        LockInfo existing = getBackend().tryLock(lockInfo, ld.getTimeoutSec());
+        statistics.registerLock(existing == null, System.currentTimeMillis() - start);
 
+        if (existing != null) {
+            log.debug("Already locked: {}", existing);
+            return existing;
+        }
+        log.debug("Locked {}/{}", name, id);
         return null;
     }
 
@@ -159,11 +142,10 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
 
     @Override
     public void unlock(String name, String id) {
-        LockInfo lockInfo = locks.remove(new LockKey(name, id));
+        LockInfo lockInfo = getBackend().unlock(name, id);
         if (lockInfo != null) {
-            log.debug("Unlocked " + name + "/" + id);
-
-            clusterManager.send(new LockInfo(null, name, id));
+            log.debug("Unlocked {}/{}", name, id);
+            statistics.registerUnlock(timeSource.currentTimeMillis() - lockInfo.getSince().getTime());
         }
     }
 
@@ -184,36 +166,21 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
             return new LockNotSupported();
         }
 
-        return locks.get(new LockKey(name, id));
+        return getBackend().getLock(name, id);
     }
 
     @Override
     public List<LockInfo> getCurrentLocks() {
-        return new ArrayList<>(locks.values());
+        return getBackend().getLocks();
     }
 
     @Override
     public void expireLocks() {
         log.debug("Expiring locks");
-        ArrayList<LockKey> list = new ArrayList<>(locks.keySet());
-        for (LockKey key : list) {
-            LockInfo lockInfo = locks.get(key);
-            if (lockInfo != null) {
-                LockDescriptor ld = getConfig().get(key.name);
-                if (ld == null) {
-                    log.debug("Lock " + key.name + "/" + key.id + " configuration not found, remove it");
-                    locks.remove(key);
-                } else {
-                    Integer timeoutSec = ld.getTimeoutSec();
-                    if (timeoutSec != null && timeoutSec > 0) {
-                        Date since = lockInfo.getSince();
-                        if (since.getTime() + timeoutSec * 1000 < AppBeans.get(TimeSource.class).currentTimestamp().getTime()) {
-                            log.debug("Lock " + key.name + "/" + key.id + " expired");
-                            locks.remove(key);
-                        }
-                    }
-                }
-            }
+        int count = getBackend().expireLocks(getConfig());
+        if (count > 0) {
+            log.debug("{} locks expired", count);
+            statistics.registerExpired(count);
         }
     }
 
@@ -221,52 +188,4 @@ public class LockManager implements LockManagerAPI, ClusterListener<LockInfo> {
     public void reloadConfiguration() {
         config = null;
     }
-
-    @Override
-    public void receive(LockInfo message) {
-        LockKey key = new LockKey(message.getEntityName(), message.getEntityId());
-        if (message.getUser() != null) {
-            LockInfo lockInfo = locks.get(key);
-            if (lockInfo == null || lockInfo.getSince().before(message.getSince())) {
-                locks.put(key, message);
-            }
-        } else {
-            locks.remove(key);
-        }
-    }
-
-    @Override
-    public byte[] getState() {
-        List<LockInfo> list = new ArrayList<>(locks.values());
-
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        try {
-            ObjectOutputStream oos = new ObjectOutputStream(bos);
-            oos.writeObject(list);
-        } catch (IOException e) {
-            log.error("Error serializing LockInfo list", e);
-            return new byte[0];
-        }
-        return bos.toByteArray();
-    }
-
-    @Override
-    public void setState(byte[] state) {
-        if (state == null || state.length == 0)
-            return;
-
-        List<LockInfo> list;
-        ByteArrayInputStream bis = new ByteArrayInputStream(state);
-        try {
-            ObjectInputStream ois = new ObjectInputStream(bis);
-            list = (List<LockInfo>) ois.readObject();
-        } catch (Exception e) {
-            log.error("Error deserializing LockInfo list", e);
-            return;
-        }
-
-        for (LockInfo lockInfo : list) {
-            receive(lockInfo);
-        }
-    }
-}
\ No newline at end of file
+}
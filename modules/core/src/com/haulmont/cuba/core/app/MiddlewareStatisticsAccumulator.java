@@ -42,6 +42,8 @@ public class MiddlewareStatisticsAccumulator extends StatisticsAccumulator {
     protected AtomicLong middlewareRequestsCount = new AtomicLong();
     protected AtomicLong cubaScheduledTasksCount = new AtomicLong();
     protected AtomicLong implicitFlushCount = new AtomicLong();
+    protected AtomicLong flushCount = new AtomicLong();
+    protected AtomicLong flushVisitedEntitiesCount = new AtomicLong();
 
     protected Parameter dbConnectionPoolNumActive = new Parameter();
     protected Parameter dbConnectionPoolNumIdle = new Parameter();
@@ -82,6 +84,8 @@ public class MiddlewareStatisticsAccumulator extends StatisticsAccumulator {
         middlewareRequestsCount.set(0);
         cubaScheduledTasksCount.set(0);
         implicitFlushCount.set(0);
+        flushCount.set(0);
+        flushVisitedEntitiesCount.set(0);
     }
 
     protected String getAppName() {
@@ -112,6 +116,16 @@ public class MiddlewareStatisticsAccumulator extends StatisticsAccumulator {
         implicitFlushCount.incrementAndGet();
     }
 
+    /**
+     * Registers processing of managed instances before flush or commit.
+     *
+     * @param visitedEntities number of instances checked for changes
+     */
+    public void incFlushCount(int visitedEntities) {
+        flushCount.incrementAndGet();
+        flushVisitedEntitiesCount.addAndGet(visitedEntities);
+    }
+
     public Long getActiveTransactionsCount() {
         return (startedTransactionsCount.get() - committedTransactionsCount.get() - rolledBackTransactionsCount.get());
     }
@@ -140,6 +154,19 @@ public class MiddlewareStatisticsAccumulator extends StatisticsAccumulator {
         return implicitFlushCount.get();
     }
 
+    public Long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public Long getFlushVisitedEntitiesCount() {
+        return flushVisitedEntitiesCount.get();
+    }
+
+    public double getAvgFlushVisitedEntities() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : (double) flushVisitedEntitiesCount.get() / count;
+    }
+
     public double getCubaScheduledTasksPerSecond() {
         return getCubaScheduledTasksCount() / ((System.currentTimeMillis() - startTime) / 1000.0);
     }
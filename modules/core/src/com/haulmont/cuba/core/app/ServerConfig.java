@@ -140,6 +140,29 @@ public interface ServerConfig extends Config {
     @DefaultBoolean(true)
     boolean getImmutableFileStorage();
 
+    /**
+     * @return number of threads copying saved files to secondary file storage roots
+     */
+    @Property("cuba.fileStorageReplicationThreads")
+    @DefaultInt(5)
+    int getFileStorageReplicationThreads();
+
+    /**
+     * Maximum number of pending copy tasks. When the queue is full, the file is copied in the thread saving it.
+     *
+     * @return capacity of the file storage replication queue
+     */
+    @Property("cuba.fileStorageReplicationQueueCapacity")
+    @DefaultInt(1000)
+    int getFileStorageReplicationQueueCapacity();
+
+    /**
+     * @return whether checksums of copies in secondary file storage roots are compared with the original file
+     */
+    @Property("cuba.fileStorageReplicationVerificationEnabled")
+    @DefaultBoolean(false)
+    boolean getFileStorageReplicationVerificationEnabled();
+
     /**
      * @return Scheduled tasks execution control.
      */
@@ -169,6 +192,14 @@ public interface ServerConfig extends Config {
 
     void setSchedulingThreadPoolSize(int value);
 
+    /**
+     * @return interval in milliseconds after which definitions of active scheduled tasks are re-read from the
+     * database even if no changes have been registered
+     */
+    @Property("cuba.schedulingTasksReloadInterval")
+    @DefaultLong(60000)
+    long getSchedulingTasksReloadInterval();
+
     /**
      * @return Tells DataService to ensure distinct results by processing them in memory, instead of issue
      * 'select distinct' to the database.
@@ -359,6 +390,30 @@ public interface ServerConfig extends Config {
     @DefaultBoolean(false)
     boolean getDefaultPermissionValuesConfigEnabled();
 
+    /**
+     * Whether joined roles and access group definitions of user sessions should be shared between sessions with
+     * the same set of roles and the same group. Shared definitions are replicated to the cluster by key only.
+     */
+    @Property("cuba.security.sharedSessionDefinitionsEnabled")
+    @DefaultBoolean(true)
+    boolean getSharedSessionDefinitionsEnabled();
+
+    /**
+     * Time in seconds during which results of app folder quantity scripts are reused by the same user.
+     * 0 (default) disables caching.
+     */
+    @Property("cuba.appFolderQuantityCacheTtlSec")
+    @DefaultInt(0)
+    int getAppFolderQuantityCacheTtlSec();
+
+    /**
+     * Cached app folder quantities that are not requested during this time in seconds are removed from the cache.
+     * The entries are kept at least for {@link #getAppFolderQuantityCacheTtlSec()}.
+     */
+    @Property("cuba.appFolderQuantityCacheIdleTimeoutSec")
+    @DefaultInt(600)
+    int getAppFolderQuantityCacheIdleTimeoutSec();
+
     /**
      * Whether the {@link com.haulmont.cuba.security.app.role.MinimalRoleDefinition} should be default role.
      */
@@ -400,4 +455,22 @@ public interface ServerConfig extends Config {
     @Property("cuba.security.rolesPolicyVersion")
     @DefaultInt(2)
     int getRolesPolicyVersion();
-}
\ No newline at end of file
+
+    /**
+     * @return name of the {@link com.haulmont.cuba.core.app.locking.LockBackend} bean used by {@link LockManagerAPI}:
+     * {@code cuba_ClusterLockBackend} keeps locks in memory and replicates them in the cluster,
+     * {@code cuba_DatabaseLockBackend} stores locks in the database
+     */
+    @Property("cuba.lockBackend")
+    @Default("cuba_ClusterLockBackend")
+    String getLockBackend();
+
+    /**
+     * @return name of the {@link com.haulmont.cuba.core.app.snapshot.EntitySnapshotCodec} bean used to store new
+     * entity snapshots: {@code cuba_JsonSnapshotCodec} stores JSON, {@code cuba_CompressedJsonSnapshotCodec} stores
+     * compressed JSON
+     */
+    @Property("cuba.entitySnapshotCodec")
+    @Default("cuba_JsonSnapshotCodec")
+    String getEntitySnapshotCodec();
+}
@@ -35,13 +35,16 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
 
@@ -61,14 +64,47 @@ public class FileStorage implements FileStorageAPI {
 
     protected boolean isImmutableFileStorage;
 
-    protected ExecutorService writeExecutor = Executors.newFixedThreadPool(5,
-            new ThreadFactoryBuilder().setNameFormat("FileStorageWriter-%d").build());
+    protected boolean replicationVerificationEnabled;
+
+    protected ExecutorService writeExecutor;
+
+    protected FileStorageLogWriter logWriter;
 
     protected volatile File[] storageRoots;
 
+    protected static final DateTimeFormatter LOG_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    protected final AtomicLong replicatedCount = new AtomicLong();
+    protected final AtomicLong replicationFailedCount = new AtomicLong();
+    protected final AtomicLong replicationCallerRunsCount = new AtomicLong();
+
     @PostConstruct
     public void init() {
-        this.isImmutableFileStorage = configuration.getConfig(ServerConfig.class).getImmutableFileStorage();
+        ServerConfig serverConfig = configuration.getConfig(ServerConfig.class);
+        this.isImmutableFileStorage = serverConfig.getImmutableFileStorage();
+        this.replicationVerificationEnabled = serverConfig.getFileStorageReplicationVerificationEnabled();
+        this.writeExecutor = createWriteExecutor(serverConfig);
+        this.logWriter = new FileStorageLogWriter();
+    }
+
+    /**
+     * Creates the executor copying files to secondary storage roots. The executor has a bounded queue; when it is
+     * full, the copy is performed in the thread saving the file, which slows down producers of bulk uploads.
+     */
+    protected ExecutorService createWriteExecutor(ServerConfig serverConfig) {
+        int threads = serverConfig.getFileStorageReplicationThreads();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(serverConfig.getFileStorageReplicationQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("FileStorageWriter-%d").build(),
+                (runnable, threadPoolExecutor) -> {
+                    if (!threadPoolExecutor.isShutdown()) {
+                        replicationCallerRunsCount.incrementAndGet();
+                        runnable.run();
+                    }
+                });
+        return executor;
     }
 
     /**
@@ -144,18 +180,18 @@ public class FileStorage implements FileStorageAPI {
             File copyDir = getStorageDir(roots[i], fileDescr);
             final File fileCopy = new File(copyDir, getFileName(fileDescr));
 
-            writeExecutor.submit(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        AppContext.setSecurityContext(securityContext);
-                        FileUtils.copyFile(file, fileCopy, true);
-                        writeLog(fileCopy, false);
-                    } catch (Exception e) {
-                        log.error("Error saving {} into {} : {}", fileDescr, fileCopy.getAbsolutePath(), e.getMessage());
-                    } finally {
-                        AppContext.setSecurityContext(null);
-                    }
+            writeExecutor.execute(() -> {
+                SecurityContext previousSecurityContext = AppContext.getSecurityContext();
+                try {
+                    AppContext.setSecurityContext(securityContext);
+                    copyToReplica(file, fileCopy);
+                    writeLog(fileCopy, false);
+                    replicatedCount.incrementAndGet();
+                } catch (Exception e) {
+                    replicationFailedCount.incrementAndGet();
+                    log.error("Error saving {} into {} : {}", fileDescr, fileCopy.getAbsolutePath(), e.getMessage());
+                } finally {
+                    AppContext.setSecurityContext(previousSecurityContext);
                 }
             });
         }
@@ -163,6 +199,28 @@ public class FileStorage implements FileStorageAPI {
         return size;
     }
 
+    /**
+     * Copies the file to a secondary storage root. If replication verification is enabled, the checksum of the copy
+     * is compared with the original, and the copy is repeated once on mismatch.
+     */
+    protected void copyToReplica(File file, File fileCopy) throws IOException {
+        FileUtils.copyFile(file, fileCopy, true);
+        if (!replicationVerificationEnabled) {
+            return;
+        }
+
+        long checksum = FileUtils.checksumCRC32(file);
+        if (FileUtils.checksumCRC32(fileCopy) == checksum) {
+            return;
+        }
+        log.warn("Checksum of {} does not match the original, copying again", fileCopy.getAbsolutePath());
+        FileUtils.copyFile(file, fileCopy, true);
+        if (FileUtils.checksumCRC32(fileCopy) != checksum) {
+            FileUtils.deleteQuietly(fileCopy);
+            throw new IOException("Checksum of the copy does not match the original file " + file.getAbsolutePath());
+        }
+    }
+
     protected void checkFileExists(File file) throws FileStorageException {
         if (file.exists() && isImmutableFileStorage)
             throw new FileStorageException(FileStorageException.Type.FILE_ALREADY_EXISTS, file.getAbsolutePath());
@@ -193,7 +251,7 @@ public class FileStorage implements FileStorageAPI {
         saveStream(fileDescr, new ByteArrayInputStream(data));
     }
 
-    protected synchronized void writeLog(File file, boolean remove) {
+    protected void writeLog(File file, boolean remove) {
         File rootDir;
         try {
             rootDir = file.getParentFile().getParentFile().getParentFile().getParentFile();
@@ -202,27 +260,67 @@ public class FileStorage implements FileStorageAPI {
             return;
         }
 
-        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-
         UserSession userSession = userSessionSource.getUserSession();
         String userLogin = userSession.getUser().getLogin();
         String userId = userSession.getUser().getId().toString();
 
         StringBuilder sb = new StringBuilder();
-        sb.append(df.format(timeSource.currentTimestamp())).append(" ");
+        sb.append(LOG_DATE_FORMATTER.format(timeSource.currentTimestamp().toInstant())).append(" ");
 
         sb.append("[").append(userLogin).append("--").append(userId).append("] ");
         sb.append(remove ? "REMOVE" : "CREATE").append(" ");
         sb.append("\"").append(file.getAbsolutePath()).append("\"\n");
 
-        File logFile = new File(rootDir, "storage.log");
-        try {
-            try (FileOutputStream fos = new FileOutputStream(logFile, true)) {
-                IOUtils.write(sb.toString(), fos, StandardCharsets.UTF_8);
-            }
-        } catch (IOException e) {
-            log.error("Unable to write log", e);
-        }
+        logWriter.append(rootDir, sb.toString());
+    }
+
+    /**
+     * INTERNAL. Waits until pending records are written to storage logs.
+     */
+    public void flushLog() {
+        logWriter.flush(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * @return number of copy tasks waiting in the replication queue
+     */
+    public int getReplicationQueueSize() {
+        return writeExecutor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) writeExecutor).getQueue().size() : 0;
+    }
+
+    /**
+     * @return number of files being copied to secondary storage roots at the moment
+     */
+    public int getActiveReplicationsCount() {
+        return writeExecutor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) writeExecutor).getActiveCount() : 0;
+    }
+
+    /**
+     * @return number of files successfully copied to secondary storage roots
+     */
+    public long getReplicatedCount() {
+        return replicatedCount.get();
+    }
+
+    /**
+     * @return number of failed copies to secondary storage roots
+     */
+    public long getReplicationFailedCount() {
+        return replicationFailedCount.get();
+    }
+
+    /**
+     * @return number of copies performed by threads saving files because the replication queue was full
+     */
+    public long getReplicationCallerRunsCount() {
+        return replicationCallerRunsCount.get();
+    }
+
+    /**
+     * @return number of records waiting to be written to storage logs
+     */
+    public int getLogQueueSize() {
+        return logWriter.getQueueSize();
     }
 
     @Override
@@ -339,5 +437,11 @@ public class FileStorage implements FileStorageAPI {
     @PreDestroy
     protected void stopWriteExecutor() {
         writeExecutor.shutdown();
+        try {
+            writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logWriter.stop();
     }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app.filestorage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends records to {@code storage.log} files of file storage roots in a background thread.
+ * <p>
+ * Records accumulated while a batch is written are grouped by storage root, so each log file is opened once
+ * per batch regardless of the number of concurrent writers.
+ */
+public class FileStorageLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageLogWriter.class);
+
+    public static final String LOG_FILE_NAME = "storage.log";
+
+    protected static final int MAX_BATCH_SIZE = 1000;
+
+    protected final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+
+    protected final Thread writerThread;
+
+    protected volatile boolean stopped;
+
+    protected final Object flushLock = new Object();
+    protected long enqueuedCount;
+    protected long writtenCount;
+
+    protected static class Record {
+        protected final File rootDir;
+        protected final String line;
+
+        protected Record(File rootDir, String line) {
+            this.rootDir = rootDir;
+            this.line = line;
+        }
+    }
+
+    public FileStorageLogWriter() {
+        writerThread = new Thread(this::processQueue, "FileStorageLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Adds the line to the log of the storage root. The line is written asynchronously.
+     *
+     * @param rootDir storage root directory
+     * @param line    log line including the line separator
+     */
+    public void append(File rootDir, String line) {
+        if (stopped) {
+            writeBatch(rootDir, Collections.singletonList(line));
+            return;
+        }
+        synchronized (flushLock) {
+            enqueuedCount++;
+        }
+        queue.add(new Record(rootDir, line));
+    }
+
+    /**
+     * Waits until all lines added before this call are written.
+     *
+     * @param timeoutMillis maximum time to wait
+     */
+    public void flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (flushLock) {
+            long target = enqueuedCount;
+            while (writtenCount < target) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    log.warn("Timeout waiting for storage log to be written");
+                    return;
+                }
+                try {
+                    flushLock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes pending lines and stops the writer thread. Lines added after this call are written synchronously.
+     */
+    public void stop() {
+        flush(TimeUnit.SECONDS.toMillis(10));
+        stopped = true;
+        writerThread.interrupt();
+    }
+
+    /**
+     * @return number of lines waiting to be written
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    protected void processQueue() {
+        List<Record> batch = new ArrayList<>();
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    break;
+                }
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            writeRecords(batch);
+            batch.clear();
+        }
+        // records added concurrently with stop()
+        queue.drainTo(batch);
+        writeRecords(batch);
+    }
+
+    protected void writeRecords(List<Record> records) {
+        Map<File, List<String>> linesByRoot = new LinkedHashMap<>();
+        for (Record record : records) {
+            linesByRoot.computeIfAbsent(record.rootDir, k -> new ArrayList<>()).add(record.line);
+        }
+        for (Map.Entry<File, List<String>> entry : linesByRoot.entrySet()) {
+            writeBatch(entry.getKey(), entry.getValue());
+        }
+
+        synchronized (flushLock) {
+            writtenCount += records.size();
+            flushLock.notifyAll();
+        }
+    }
+
+    protected void writeBatch(File rootDir, List<String> lines) {
+        File logFile = new File(rootDir, LOG_FILE_NAME);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(logFile, true), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to write log", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.localfts;
+
+import com.haulmont.cuba.core.config.Config;
+import com.haulmont.cuba.core.config.Property;
+import com.haulmont.cuba.core.config.Source;
+import com.haulmont.cuba.core.config.SourceType;
+import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
+import com.haulmont.cuba.core.config.defaults.DefaultInt;
+
+/**
+ * Configuration of the built-in local full-text index.
+ *
+ * @see LocalFtsSender
+ */
+@Source(type = SourceType.APP)
+public interface LocalFtsConfig extends Config {
+
+    /**
+     * Whether changed entities are indexed by the local full-text index. The local index is used only if
+     * the FTS application component is not added to the project.
+     */
+    @Property("cuba.localFts.enabled")
+    @DefaultBoolean(false)
+    boolean getEnabled();
+
+    /**
+     * Indexed entities and their attributes in the form {@code entity1=attr1,attr2;entity2=attr3}, for example
+     * {@code sec$User=login,name,email;sales$Customer=name,address.city}.
+     */
+    @Property("cuba.localFts.indexedAttributes")
+    String getIndexedAttributes();
+
+    /**
+     * Directory of index files. By default, the {@code localfts} subdirectory of the data directory is used.
+     */
+    @Property("cuba.localFts.indexDir")
+    String getIndexDir();
+
+    /**
+     * Maximum number of changed entities indexed in one transaction.
+     */
+    @Property("cuba.localFts.batchSize")
+    @DefaultInt(100)
+    int getBatchSize();
+
+    /**
+     * Maximum number of attempts to index a changed entity. If indexing keeps failing, the change is dropped
+     * and the index of the entity is marked as stale until it is rebuilt.
+     */
+    @Property("cuba.localFts.maxIndexAttempts")
+    @DefaultInt(3)
+    int getMaxIndexAttempts();
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.localfts;
+
+import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.global.GlobalConfig;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of entity attribute values stored in files of the {@link LocalFtsConfig#getIndexDir()} directory.
+ * <p>
+ * Each entity has a separate index that maps lower-cased words to ids of entity instances containing them.
+ * Indexes are kept in memory and written to files by {@link #save()}.
+ * <p>
+ * A marker file of an entity denotes that some changes of its instances are not reflected in the saved index yet,
+ * see {@link #markPending(String)}. If the marker exists when the application starts, the changes are lost and
+ * the index of the entity should be rebuilt. The marker is also created if the index file cannot be read, see
+ * {@link #getUnreadableEntities()}.
+ */
+@Component(LocalFtsIndex.NAME)
+public class LocalFtsIndex {
+
+    public static final String NAME = "cuba_LocalFtsIndex";
+
+    private static final Logger log = LoggerFactory.getLogger(LocalFtsIndex.class);
+
+    protected static final String FILE_EXTENSION = ".idx";
+    protected static final String PENDING_MARKER_EXTENSION = ".pending";
+
+    protected static final Pattern SEPARATOR_PATTERN = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Inject
+    protected Configuration configuration;
+
+    protected ConcurrentMap<String, EntityIndex> indexes = new ConcurrentHashMap<>();
+
+    protected File indexDir;
+
+    // entities whose index file cannot be read, until the index is cleared
+    protected final Set<String> unreadableEntities = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Index of instances of one entity.
+     */
+    protected static class EntityIndex implements Serializable {
+
+        private static final long serialVersionUID = -2951047207713340187L;
+
+        protected final TreeMap<String, Set<Object>> postings = new TreeMap<>();
+        protected final Map<Object, Set<String>> documents = new HashMap<>();
+
+        // time of the last change applied to the index, 0 if unknown
+        protected long lastUpdateTs;
+
+        protected transient ReadWriteLock lock = new ReentrantReadWriteLock();
+        protected transient volatile boolean modified;
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            lock = new ReentrantReadWriteLock();
+        }
+
+        protected void update(Object id, @Nullable Set<String> terms) {
+            lock.writeLock().lock();
+            try {
+                Set<String> oldTerms = terms == null ? documents.remove(id) : documents.put(id, terms);
+                if (oldTerms != null) {
+                    for (String term : oldTerms) {
+                        if (terms != null && terms.contains(term)) {
+                            continue;
+                        }
+                        Set<Object> ids = postings.get(term);
+                        if (ids != null) {
+                            ids.remove(id);
+                            if (ids.isEmpty()) {
+                                postings.remove(term);
+                            }
+                        }
+                    }
+                }
+                if (terms != null) {
+                    for (String term : terms) {
+                        postings.computeIfAbsent(term, t -> new HashSet<>()).add(id);
+                    }
+                }
+                modified = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        protected void markUpdated(long ts) {
+            lock.writeLock().lock();
+            try {
+                if (ts > lastUpdateTs) {
+                    lastUpdateTs = ts;
+                    modified = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        protected long getLastUpdateTs() {
+            lock.readLock().lock();
+            try {
+                return lastUpdateTs;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        protected List<Object> search(List<String> terms, int maxResults) {
+            lock.readLock().lock();
+            try {
+                Set<Object> result = null;
+                for (String term : terms) {
+                    Set<Object> ids = new HashSet<>();
+                    // words starting with the term
+                    for (Set<Object> termIds : postings.subMap(term, true, term + Character.MAX_VALUE, true).values()) {
+                        ids.addAll(termIds);
+                    }
+                    if (result == null) {
+                        result = ids;
+                    } else {
+                        result.retainAll(ids);
+                    }
+                    if (result.isEmpty()) {
+                        return Collections.emptyList();
+                    }
+                }
+                if (result == null) {
+                    return Collections.emptyList();
+                }
+                List<Object> list = new ArrayList<>(Math.min(result.size(), maxResults));
+                for (Object id : result) {
+                    if (list.size() >= maxResults) {
+                        break;
+                    }
+                    list.add(id);
+                }
+                return list;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        protected int size() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    @PostConstruct
+    protected void init() {
+        LocalFtsConfig config = configuration.getConfig(LocalFtsConfig.class);
+        String dir = config.getIndexDir();
+        if (StringUtils.isBlank(dir)) {
+            dir = configuration.getConfig(GlobalConfig.class).getDataDir() + "/localfts";
+        }
+        indexDir = new File(dir);
+    }
+
+    /**
+     * Splits the text to lower-cased words.
+     */
+    public static Set<String> tokenize(@Nullable String text) {
+        if (StringUtils.isBlank(text)) {
+            return Collections.emptySet();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATOR_PATTERN.split(text.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Replaces indexed words of the entity instance.
+     *
+     * @param entityName name of the entity
+     * @param id         id of the instance
+     * @param terms      words of the instance or null if the instance is deleted
+     */
+    public void update(String entityName, Object id, @Nullable Set<String> terms) {
+        getIndex(entityName).update(id, terms);
+    }
+
+    /**
+     * Records the time of a change applied to the index of the entity. Cluster members compare their indexes
+     * by the time of the last change.
+     *
+     * @param entityName name of the entity
+     * @param ts         time of the change on the member that has indexed it
+     */
+    public void markUpdated(String entityName, long ts) {
+        getIndex(entityName).markUpdated(ts);
+    }
+
+    /**
+     * @return time of the last change applied to the index of the entity, 0 if the index has no changes
+     * @see #markUpdated(String, long)
+     */
+    public long getLastUpdateTs(String entityName) {
+        return getIndex(entityName).getLastUpdateTs();
+    }
+
+    /**
+     * Finds instances of the entity containing words starting with all words of the text.
+     *
+     * @param entityName name of the entity
+     * @param text       searched text
+     * @param maxResults maximum number of returned ids
+     * @return ids of found instances
+     */
+    public List<Object> search(String entityName, String text, int maxResults) {
+        EntityIndex index = getIndex(entityName);
+        return index.search(new ArrayList<>(tokenize(text)), maxResults);
+    }
+
+    /**
+     * Removes all instances of the entity from the index.
+     */
+    public void clear(String entityName) {
+        EntityIndex index = new EntityIndex();
+        index.modified = true;
+        indexes.put(entityName, index);
+        unreadableEntities.remove(entityName);
+    }
+
+    /**
+     * @return number of indexed instances by entity name
+     */
+    public Map<String, Integer> getIndexedCounts() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map.Entry<String, EntityIndex> entry : indexes.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        return counts;
+    }
+
+    /**
+     * Writes modified indexes to files.
+     */
+    public void save() {
+        for (Map.Entry<String, EntityIndex> entry : indexes.entrySet()) {
+            EntityIndex index = entry.getValue();
+            if (!index.modified) {
+                continue;
+            }
+            index.lock.readLock().lock();
+            try {
+                index.modified = false;
+                writeIndex(entry.getKey(), index);
+            } catch (IOException e) {
+                index.modified = true;
+                log.error("Unable to save full-text index of {}", entry.getKey(), e);
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Creates the marker file denoting that the entity has changes that are not saved to the index yet.
+     */
+    public void markPending(String entityName) {
+        try {
+            FileUtils.forceMkdir(indexDir);
+            FileUtils.touch(getPendingMarkerFile(entityName));
+        } catch (IOException e) {
+            log.error("Unable to create pending changes marker of full-text index of {}", entityName, e);
+        }
+    }
+
+    /**
+     * Removes the marker file created by {@link #markPending(String)}.
+     */
+    public void clearPending(String entityName) {
+        FileUtils.deleteQuietly(getPendingMarkerFile(entityName));
+    }
+
+    /**
+     * @return names of entities having the marker file of pending changes
+     */
+    public Set<String> getPendingEntities() {
+        File[] files = indexDir.listFiles((dir, name) -> name.endsWith(PENDING_MARKER_EXTENSION));
+        if (files == null || files.length == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> entityNames = new TreeSet<>();
+        for (File file : files) {
+            entityNames.add(StringUtils.removeEnd(file.getName(), PENDING_MARKER_EXTENSION));
+        }
+        return entityNames;
+    }
+
+    /**
+     * @return names of entities whose index file cannot be read until the index is cleared
+     */
+    public Set<String> getUnreadableEntities() {
+        return Collections.unmodifiableSet(new TreeSet<>(unreadableEntities));
+    }
+
+    protected File getPendingMarkerFile(String entityName) {
+        return new File(indexDir, entityName + PENDING_MARKER_EXTENSION);
+    }
+
+    protected EntityIndex getIndex(String entityName) {
+        EntityIndex index = indexes.get(entityName);
+        if (index == null) {
+            index = indexes.computeIfAbsent(entityName, this::readIndex);
+        }
+        return index;
+    }
+
+    protected File getIndexFile(String entityName) {
+        return new File(indexDir, entityName + FILE_EXTENSION);
+    }
+
+    protected EntityIndex readIndex(String entityName) {
+        File file = getIndexFile(entityName);
+        if (file.exists()) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                return (EntityIndex) in.readObject();
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                log.error("Unable to read full-text index of {}, the index should be rebuilt", entityName, e);
+                // the marker keeps the empty index reported as stale after restart until it is rebuilt
+                markPending(entityName);
+                unreadableEntities.add(entityName);
+            }
+        }
+        return new EntityIndex();
+    }
+
+    protected void writeIndex(String entityName, EntityIndex index) throws IOException {
+        FileUtils.forceMkdir(indexDir);
+        File file = getIndexFile(entityName);
+        File tmpFile = new File(indexDir, entityName + FILE_EXTENSION + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeObject(index);
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
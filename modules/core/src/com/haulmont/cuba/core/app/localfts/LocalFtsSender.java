@@ -0,0 +1,654 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.localfts;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.EntityManager;
+import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.Query;
+import com.haulmont.cuba.core.Transaction;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.FtsSender;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.FtsChangeType;
+import com.haulmont.cuba.core.entity.IdProxy;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.events.AppContextInitializedEvent;
+import com.haulmont.cuba.security.app.Authenticated;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Built-in implementation of {@link FtsSender} that maintains {@link LocalFtsIndex}.
+ * <p>
+ * Changes of entities listed in {@link LocalFtsConfig#getIndexedAttributes()} are queued after the transaction
+ * is committed and indexed in batches by {@link #processQueue()}, which is invoked by the scheduler. Indexed words
+ * are sent to other cluster members, so each member keeps its own copy of the index without reloading entities.
+ * <p>
+ * Changes that cannot be indexed are retried up to {@link LocalFtsConfig#getMaxIndexAttempts()} times. The queue
+ * is kept in memory, so entities having queued changes are marked by {@link LocalFtsIndex#markPending(String)}.
+ * If the application stops before the changes are indexed, the index of such entity is reported as stale after
+ * restart, see {@link #getStaleEntities()}, and should be rebuilt. Changes received from other cluster members
+ * are marked the same way until they are saved.
+ * <p>
+ * A member joining the cluster compares the time of the last change of each index with the state received from
+ * other members and reports indexes that miss changes made while it was stopped as stale.
+ * <p>
+ * Used by the platform if local full-text index is enabled and the FTS application component is not added
+ * to the project.
+ */
+@Component(LocalFtsSender.NAME)
+public class LocalFtsSender implements FtsSender {
+
+    public static final String NAME = "cuba_LocalFtsSender";
+
+    private static final Logger log = LoggerFactory.getLogger(LocalFtsSender.class);
+
+    @Inject
+    protected Persistence persistence;
+
+    @Inject
+    protected Metadata metadata;
+
+    @Inject
+    protected ExtendedEntities extendedEntities;
+
+    @Inject
+    protected LocalFtsIndex index;
+
+    @Inject
+    protected Configuration configuration;
+
+    @Inject
+    protected TimeSource timeSource;
+
+    protected ClusterManagerAPI clusterManager;
+
+    protected Queue<IndexTask> queue = new ConcurrentLinkedQueue<>();
+
+    protected volatile String indexedAttributesProperty;
+    protected volatile Map<String, List<String>> indexedAttributes;
+
+    // entities having the pending changes marker, guarded by itself together with adding to the queue
+    protected final Set<String> pendingEntities = new HashSet<>();
+
+    // entities having changes received from other cluster members since the last save, guarded by pendingEntities
+    protected final Set<String> receivedEntities = new HashSet<>();
+
+    // entities whose index misses some changes until it is rebuilt
+    protected final Set<String> staleEntities = ConcurrentHashMap.newKeySet();
+
+    protected static class IndexTask {
+
+        protected final String entityName;
+        protected final Object entityId;
+        protected final FtsChangeType changeType;
+        protected final int attempts;
+
+        protected IndexTask(String entityName, Object entityId, FtsChangeType changeType) {
+            this(entityName, entityId, changeType, 0);
+        }
+
+        protected IndexTask(String entityName, Object entityId, FtsChangeType changeType, int attempts) {
+            this.entityName = entityName;
+            this.entityId = entityId;
+            this.changeType = changeType;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * Indexed words of an entity instance, null words mean the instance is deleted.
+     */
+    public static class IndexUpdate implements Serializable {
+
+        private static final long serialVersionUID = 4626195389622541203L;
+
+        protected final String entityName;
+        protected final Object entityId;
+        protected final Set<String> terms;
+
+        public IndexUpdate(String entityName, Object entityId, @Nullable Set<String> terms) {
+            this.entityName = entityName;
+            this.entityId = entityId;
+            this.terms = terms;
+        }
+    }
+
+    public static class IndexUpdateMsg implements Serializable {
+
+        private static final long serialVersionUID = -6045264813460612862L;
+
+        protected final List<IndexUpdate> updates;
+        protected final long timestamp;
+
+        public IndexUpdateMsg(List<IndexUpdate> updates, long timestamp) {
+            this.updates = updates;
+            this.timestamp = timestamp;
+        }
+    }
+
+    public static class ClearIndexMsg implements Serializable {
+
+        private static final long serialVersionUID = 2118512496402135376L;
+
+        protected final String entityName;
+        protected final long timestamp;
+
+        public ClearIndexMsg(String entityName, long timestamp) {
+            this.entityName = entityName;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @Inject
+    public void setClusterManager(ClusterManagerAPI clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.addListener(IndexUpdateMsg.class, new ClusterListenerAdapter<IndexUpdateMsg>() {
+            @Override
+            public void receive(IndexUpdateMsg message) {
+                if (!isEnabled()) {
+                    return;
+                }
+                // changes are applied under the lock, so the next save either includes them or keeps the marker
+                synchronized (pendingEntities) {
+                    for (IndexUpdate update : message.updates) {
+                        markReceived(update.entityName);
+                        index.update(update.entityName, update.entityId, update.terms);
+                        index.markUpdated(update.entityName, message.timestamp);
+                    }
+                }
+            }
+
+            @Override
+            public byte[] getState() {
+                return getIndexState();
+            }
+
+            @Override
+            public void setState(byte[] state) {
+                checkIndexState(state);
+            }
+        });
+        clusterManager.addListener(ClearIndexMsg.class, new ClusterListenerAdapter<ClearIndexMsg>() {
+            @Override
+            public void receive(ClearIndexMsg message) {
+                if (!isEnabled()) {
+                    return;
+                }
+                synchronized (pendingEntities) {
+                    markReceived(message.entityName);
+                    index.clear(message.entityName);
+                    index.markUpdated(message.entityName, message.timestamp);
+                }
+            }
+        });
+    }
+
+    @EventListener(AppContextInitializedEvent.class)
+    protected void checkPendingChanges() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String entityName : index.getPendingEntities()) {
+            log.warn("Changes of {} were not indexed before the application was stopped, " +
+                    "the full-text index of {} should be rebuilt", entityName, entityName);
+            staleEntities.add(entityName);
+            synchronized (pendingEntities) {
+                pendingEntities.add(entityName);
+            }
+        }
+    }
+
+    /**
+     * @return time of the last change of each indexed entity, sent to members joining the cluster
+     */
+    protected byte[] getIndexState() {
+        if (!isEnabled()) {
+            return new byte[0];
+        }
+        HashMap<String, Long> lastUpdates = new HashMap<>();
+        for (String entityName : getIndexedAttributes().keySet()) {
+            lastUpdates.put(entityName, index.getLastUpdateTs(entityName));
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(lastUpdates);
+        } catch (IOException e) {
+            log.error("Error serializing full-text index state", e);
+            return new byte[0];
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Marks indexes that are older than indexes of other cluster members as stale.
+     *
+     * @param state state returned by {@link #getIndexState()} on another member
+     */
+    @SuppressWarnings("unchecked")
+    protected void checkIndexState(byte[] state) {
+        if (state == null || state.length == 0 || !isEnabled()) {
+            return;
+        }
+        Map<String, Long> lastUpdates;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            lastUpdates = (Map<String, Long>) ois.readObject();
+        } catch (Exception e) {
+            log.error("Error deserializing full-text index state", e);
+            return;
+        }
+        for (Map.Entry<String, Long> entry : lastUpdates.entrySet()) {
+            String entityName = entry.getKey();
+            if (isIndexed(entityName)
+                    && entry.getValue() > index.getLastUpdateTs(entityName)
+                    && staleEntities.add(entityName)) {
+                log.warn("Full-text index of {} misses changes indexed by other cluster members, " +
+                        "the full-text index of {} should be rebuilt", entityName, entityName);
+                synchronized (pendingEntities) {
+                    markPending(entityName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks entities whose index file cannot be read as stale.
+     */
+    protected void checkUnreadableIndexes() {
+        for (String entityName : index.getUnreadableEntities()) {
+            if (staleEntities.add(entityName)) {
+                // the marker file is created by the index, it is removed after the index is rebuilt
+                synchronized (pendingEntities) {
+                    pendingEntities.add(entityName);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the local index is enabled and the FTS application component is not used
+     */
+    public boolean isEnabled() {
+        return configuration.getConfig(LocalFtsConfig.class).getEnabled() && !FtsConfigHelper.getEnabled();
+    }
+
+    /**
+     * @return true if instances of the entity are indexed
+     */
+    public boolean isIndexed(String entityName) {
+        return getIndexedAttributes().containsKey(entityName);
+    }
+
+    /**
+     * @return indexed attributes by entity name
+     */
+    public Map<String, List<String>> getIndexedAttributes() {
+        Map<String, List<String>> attributes = indexedAttributes;
+        if (attributes == null) {
+            attributes = refreshIndexedAttributes();
+        }
+        return attributes;
+    }
+
+    /**
+     * Parses {@link LocalFtsConfig#getIndexedAttributes()} if it has been changed since the last call.
+     * Invoked on each {@link #processQueue()}, so changes of the property are picked up without parsing it
+     * for each changed entity.
+     */
+    protected Map<String, List<String>> refreshIndexedAttributes() {
+        String property = configuration.getConfig(LocalFtsConfig.class).getIndexedAttributes();
+        Map<String, List<String>> attributes = indexedAttributes;
+        if (attributes == null || !Objects.equals(property, indexedAttributesProperty)) {
+            attributes = parseIndexedAttributes(property);
+            indexedAttributesProperty = property;
+            indexedAttributes = attributes;
+        }
+        return attributes;
+    }
+
+    protected Map<String, List<String>> parseIndexedAttributes(@Nullable String property) {
+        if (StringUtils.isBlank(property)) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> result = new HashMap<>();
+        for (String entityItem : property.split(";")) {
+            String[] parts = entityItem.split("=");
+            if (parts.length != 2 || StringUtils.isBlank(parts[0])) {
+                log.warn("Invalid item of cuba.localFts.indexedAttributes: {}", entityItem);
+                continue;
+            }
+            List<String> attributes = new ArrayList<>();
+            for (String attribute : parts[1].split(",")) {
+                if (StringUtils.isNotBlank(attribute)) {
+                    attributes.add(attribute.trim());
+                }
+            }
+            result.put(parts[0].trim(), attributes);
+        }
+        return result;
+    }
+
+    @Override
+    public void enqueue(Entity entity, FtsChangeType changeType) {
+        MetaClass metaClass = extendedEntities.getOriginalOrThisMetaClass(entity.getMetaClass());
+        if (!isIndexed(metaClass.getName())) {
+            return;
+        }
+        afterCommit(() -> {
+            Object id = entity.getId();
+            if (id instanceof IdProxy) {
+                id = ((IdProxy) id).get();
+            }
+            if (id != null) {
+                addToQueue(new IndexTask(metaClass.getName(), id, changeType));
+            }
+        });
+    }
+
+    @Override
+    public void enqueue(String entityName, Object entityId, FtsChangeType changeType) {
+        if (isIndexed(entityName)) {
+            afterCommit(() -> addToQueue(new IndexTask(entityName, entityId, changeType)));
+        }
+    }
+
+    @Override
+    public void enqueueFake(String entityName, Object entityId) {
+        enqueue(entityName, entityId, FtsChangeType.UPDATE);
+    }
+
+    @Override
+    public void emptyQueue(String entityName) {
+        queue.removeIf(task -> task.entityName.equals(entityName));
+    }
+
+    @Override
+    public void emptyFakeQueue(String entityName) {
+        emptyQueue(entityName);
+    }
+
+    @Override
+    public void emptyQueue() {
+        queue.clear();
+    }
+
+    /**
+     * Rebuilds indexes of all configured entities.
+     */
+    @Override
+    public void initDefault() {
+        for (String entityName : getIndexedAttributes().keySet()) {
+            rebuild(entityName);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return names of entities whose index misses some changes and should be rebuilt
+     */
+    public Set<String> getStaleEntities() {
+        checkUnreadableIndexes();
+        return Collections.unmodifiableSet(new TreeSet<>(staleEntities));
+    }
+
+    protected void addToQueue(IndexTask task) {
+        synchronized (pendingEntities) {
+            markPending(task.entityName);
+            queue.add(task);
+        }
+    }
+
+    /**
+     * Creates the pending changes marker of the entity if it has not been created yet. Must be invoked while
+     * holding the {@link #pendingEntities} lock.
+     */
+    protected void markPending(String entityName) {
+        if (pendingEntities.add(entityName)) {
+            index.markPending(entityName);
+        }
+    }
+
+    /**
+     * Marks the entity having changes received from another cluster member. Must be invoked while holding
+     * the {@link #pendingEntities} lock.
+     */
+    protected void markReceived(String entityName) {
+        markPending(entityName);
+        receivedEntities.add(entityName);
+    }
+
+    /**
+     * Saves modified indexes and removes pending changes markers of entities whose changes are saved.
+     */
+    protected void saveIndex() {
+        synchronized (pendingEntities) {
+            // changes received after this point may be missed by the save, so their markers are kept
+            receivedEntities.clear();
+        }
+        index.save();
+        clearPendingMarkers();
+    }
+
+    /**
+     * Removes pending changes markers of entities that have no queued or unsaved received changes and are not stale.
+     */
+    protected void clearPendingMarkers() {
+        synchronized (pendingEntities) {
+            if (pendingEntities.isEmpty()) {
+                return;
+            }
+            Set<String> queuedEntities = new HashSet<>();
+            for (IndexTask task : queue) {
+                queuedEntities.add(task.entityName);
+            }
+            for (Iterator<String> it = pendingEntities.iterator(); it.hasNext(); ) {
+                String entityName = it.next();
+                if (!queuedEntities.contains(entityName)
+                        && !receivedEntities.contains(entityName)
+                        && !staleEntities.contains(entityName)) {
+                    index.clearPending(entityName);
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    protected void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Indexes queued entities and saves modified indexes. Invoked by the scheduler.
+     */
+    @Authenticated
+    public void processQueue() {
+        if (!AppContext.isStarted() || !isEnabled()) {
+            return;
+        }
+        refreshIndexedAttributes();
+        checkUnreadableIndexes();
+
+        LocalFtsConfig config = configuration.getConfig(LocalFtsConfig.class);
+        int batchSize = config.getBatchSize();
+        List<IndexTask> failedTasks = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            Map<List<Object>, IndexTask> batch = new LinkedHashMap<>();
+            IndexTask task;
+            while (batch.size() < batchSize && (task = queue.poll()) != null) {
+                // the last change of an instance wins
+                batch.put(Arrays.asList(task.entityName, task.entityId), task);
+            }
+            try {
+                indexBatch(batch.values());
+            } catch (RuntimeException e) {
+                log.error("Error indexing changed entities", e);
+                failedTasks.addAll(batch.values());
+            }
+        }
+
+        // failed tasks are retried on the next invocation
+        for (IndexTask task : failedTasks) {
+            if (task.attempts + 1 < config.getMaxIndexAttempts()) {
+                addToQueue(new IndexTask(task.entityName, task.entityId, task.changeType, task.attempts + 1));
+            } else if (staleEntities.add(task.entityName)) {
+                log.error("Unable to index changes of {}, the full-text index of {} should be rebuilt",
+                        task.entityName, task.entityName);
+            }
+        }
+
+        saveIndex();
+    }
+
+    /**
+     * Removes all instances of the entity from the index and indexes all instances stored in the database.
+     */
+    @Authenticated
+    public void rebuild(String entityName) {
+        if (!isIndexed(entityName)) {
+            throw new IllegalArgumentException("Entity is not indexed: " + entityName);
+        }
+        checkUnreadableIndexes();
+        long ts = timeSource.currentTimeMillis();
+        index.clear(entityName);
+        index.markUpdated(entityName, ts);
+        clusterManager.send(new ClearIndexMsg(entityName, ts));
+
+        MetaClass metaClass = metadata.getClassNN(entityName);
+        String pkName = metadata.getTools().getPrimaryKeyName(metaClass);
+        int batchSize = configuration.getConfig(LocalFtsConfig.class).getBatchSize();
+        int count = 0;
+        Object lastId = null;
+        while (true) {
+            List<?> ids;
+            try (Transaction tx = persistence.createTransaction()) {
+                // keyset paging, so each page is selected by the primary key index regardless of its position
+                Query query;
+                if (lastId == null) {
+                    query = persistence.getEntityManager().createQuery(String.format(
+                            "select e.%s from %s e order by e.%s", pkName, entityName, pkName));
+                } else {
+                    query = persistence.getEntityManager().createQuery(String.format(
+                            "select e.%s from %s e where e.%s > :lastId order by e.%s", pkName, entityName, pkName, pkName))
+                            .setParameter("lastId", lastId);
+                }
+                ids = query.setMaxResults(batchSize).getResultList();
+                tx.commit();
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<IndexTask> tasks = new ArrayList<>(ids.size());
+            for (Object id : ids) {
+                tasks.add(new IndexTask(entityName, id, FtsChangeType.UPDATE));
+            }
+            indexBatch(tasks);
+            count += ids.size();
+            lastId = ids.get(ids.size() - 1);
+        }
+        staleEntities.remove(entityName);
+        saveIndex();
+        log.info("Full-text index of {} rebuilt, {} instances indexed", entityName, count);
+    }
+
+    /**
+     * Indexes the entities in one transaction.
+     *
+     * @throws RuntimeException if the entities cannot be loaded, nothing is indexed in this case
+     */
+    protected void indexBatch(Collection<IndexTask> tasks) {
+        Map<String, List<String>> attributes = getIndexedAttributes();
+        List<IndexUpdate> updates = new ArrayList<>(tasks.size());
+        long ts = timeSource.currentTimeMillis();
+        try (Transaction tx = persistence.createTransaction()) {
+            EntityManager em = persistence.getEntityManager();
+            for (IndexTask task : tasks) {
+                Set<String> terms = null;
+                if (task.changeType != FtsChangeType.DELETE) {
+                    Class<Entity> javaClass = extendedEntities.getEffectiveClass(task.entityName);
+                    Entity entity = em.find(javaClass, task.entityId);
+                    if (entity != null) {
+                        terms = extractTerms(entity, attributes.get(task.entityName));
+                    }
+                }
+                updates.add(new IndexUpdate(task.entityName, task.entityId, terms));
+            }
+            tx.commit();
+        }
+
+        for (IndexUpdate update : updates) {
+            index.update(update.entityName, update.entityId, update.terms);
+            index.markUpdated(update.entityName, ts);
+        }
+        clusterManager.send(new IndexUpdateMsg(updates, ts));
+    }
+
+    protected Set<String> extractTerms(Entity entity, @Nullable List<String> attributes) {
+        if (attributes == null) {
+            return Collections.emptySet();
+        }
+        Set<String> terms = new HashSet<>();
+        for (String attribute : attributes) {
+            Object value = entity.getValueEx(attribute);
+            if (value instanceof Collection) {
+                for (Object item : (Collection) value) {
+                    terms.addAll(LocalFtsIndex.tokenize(valueToString(item)));
+                }
+            } else {
+                terms.addAll(LocalFtsIndex.tokenize(valueToString(value)));
+            }
+        }
+        return terms;
+    }
+
+    protected String valueToString(@Nullable Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Entity) {
+            return metadata.getTools().getInstanceName((Entity) value);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.locking;
+
+import com.haulmont.cuba.core.app.ClusterListener;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.entity.LockDescriptor;
+import com.haulmont.cuba.core.global.LockInfo;
+import com.haulmont.cuba.core.global.TimeSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Default lock backend keeping locks in memory and replicating them to other cluster members.
+ */
+@Component(ClusterLockBackend.NAME)
+public class ClusterLockBackend implements LockBackend, ClusterListener<LockInfo> {
+
+    public static final String NAME = "cuba_ClusterLockBackend";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterLockBackend.class);
+
+    protected ConcurrentMap<LockKey, LockInfo> locks = new ConcurrentHashMap<>();
+
+    @Inject
+    protected TimeSource timeSource;
+
+    protected ClusterManagerAPI clusterManager;
+
+    protected static class LockKey {
+
+        protected final String name;
+        protected final String id;
+
+        protected LockKey(String name, String id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            LockKey key = (LockKey) o;
+            return name.equals(key.name) && Objects.equals(id, key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + (id != null ? id.hashCode() : 0);
+            return result;
+        }
+    }
+
+    @Inject
+    public void setClusterManager(ClusterManagerAPI clusterManager) {
+        this.clusterManager = clusterManager;
+        this.clusterManager.addListener(LockInfo.class, this);
+    }
+
+    @Nullable
+    @Override
+    public LockInfo tryLock(LockInfo lockInfo, @Nullable Integer timeoutSec) {
+        LockKey key = new LockKey(lockInfo.getEntityName(), lockInfo.getEntityId());
+        while (true) {
+            LockInfo existing = locks.putIfAbsent(key, lockInfo);
+            if (existing == null) {
+                clusterManager.send(lockInfo);
+                return null;
+            }
+            if (!isExpired(existing, timeoutSec)) {
+                return existing;
+            }
+            // replace the expired lock without waiting for the reaper
+            if (locks.replace(key, existing, lockInfo)) {
+                clusterManager.send(lockInfo);
+                return null;
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public LockInfo unlock(String name, String id) {
+        LockInfo lockInfo = locks.remove(new LockKey(name, id));
+        if (lockInfo != null) {
+            clusterManager.send(new LockInfo(null, name, id));
+        }
+        return lockInfo;
+    }
+
+    @Nullable
+    @Override
+    public LockInfo getLock(String name, String id) {
+        return locks.get(new LockKey(name, id));
+    }
+
+    @Override
+    public List<LockInfo> getLocks() {
+        return new ArrayList<>(locks.values());
+    }
+
+    @Override
+    public int expireLocks(Map<String, LockDescriptor> config) {
+        int count = 0;
+        for (Iterator<Map.Entry<LockKey, LockInfo>> it = locks.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<LockKey, LockInfo> entry = it.next();
+            LockKey key = entry.getKey();
+            LockDescriptor ld = config.get(key.name);
+            if (ld == null) {
+                log.debug("Lock {}/{} configuration not found, remove it", key.name, key.id);
+                it.remove();
+                count++;
+            } else if (isExpired(entry.getValue(), ld.getTimeoutSec())) {
+                log.debug("Lock {}/{} expired", key.name, key.id);
+                it.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    protected boolean isExpired(LockInfo lockInfo, @Nullable Integer timeoutSec) {
+        return timeoutSec != null && timeoutSec > 0
+                && lockInfo.getSince().getTime() + timeoutSec * 1000L < timeSource.currentTimeMillis();
+    }
+
+    @Override
+    public void receive(LockInfo message) {
+        LockKey key = new LockKey(message.getEntityName(), message.getEntityId());
+        if (message.getUser() != null) {
+            locks.merge(key, message,
+                    (existing, received) -> existing.getSince().before(received.getSince()) ? received : existing);
+        } else {
+            locks.remove(key);
+        }
+    }
+
+    @Override
+    public byte[] getState() {
+        List<LockInfo> list = new ArrayList<>(locks.values());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(list);
+        } catch (IOException e) {
+            log.error("Error serializing LockInfo list", e);
+            return new byte[0];
+        }
+        return bos.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setState(byte[] state) {
+        if (state == null || state.length == 0)
+            return;
+
+        List<LockInfo> list;
+        ByteArrayInputStream bis = new ByteArrayInputStream(state);
+        try {
+            ObjectInputStream ois = new ObjectInputStream(bis);
+            list = (List<LockInfo>) ois.readObject();
+        } catch (Exception e) {
+            log.error("Error deserializing LockInfo list", e);
+            return;
+        }
+
+        for (LockInfo lockInfo : list) {
+            receive(lockInfo);
+        }
+    }
+}
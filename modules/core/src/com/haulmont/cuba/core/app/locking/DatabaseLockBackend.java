@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.locking;
+
+import com.haulmont.bali.db.QueryRunner;
+import com.haulmont.bali.db.ResultSetHandler;
+import com.haulmont.cuba.core.Persistence;
+import com.haulmont.cuba.core.entity.LockDescriptor;
+import com.haulmont.cuba.core.global.LockInfo;
+import com.haulmont.cuba.core.global.Metadata;
+import com.haulmont.cuba.core.global.TimeSource;
+import com.haulmont.cuba.core.sys.persistence.DbTypeConverter;
+import com.haulmont.cuba.security.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+
+/**
+ * Lock backend storing locks in the {@code SYS_ENTITY_LOCK} table, so that locks are shared by all middleware
+ * blocks connected to the database without cluster replication.
+ * <p>
+ * A lock is acquired by inserting a row, the primary key on the entity name and id rejects concurrent attempts.
+ * A lock of an entity with a timeout is a lease: its row has the expiration time and can be taken over by another
+ * user when the lease is over, and it is deleted by {@link #expireLocks(Map)}.
+ */
+@Component(DatabaseLockBackend.NAME)
+public class DatabaseLockBackend implements LockBackend {
+
+    public static final String NAME = "cuba_DatabaseLockBackend";
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseLockBackend.class);
+
+    protected static final int MAX_ATTEMPTS = 3;
+
+    protected static final String SELECT_COLUMNS =
+            "select ENTITY_NAME, ENTITY_ID, USER_ID, USER_LOGIN, USER_NAME, SINCE, EXPIRES from SYS_ENTITY_LOCK";
+
+    @Inject
+    protected Persistence persistence;
+
+    @Inject
+    protected Metadata metadata;
+
+    @Inject
+    protected TimeSource timeSource;
+
+    protected static class LockRow {
+        protected LockInfo lockInfo;
+        protected Date expires;
+    }
+
+    @Nullable
+    @Override
+    public LockInfo tryLock(LockInfo lockInfo, @Nullable Integer timeoutSec) {
+        DbTypeConverter types = persistence.getDbTypeConverter();
+        User user = lockInfo.getUser();
+        Date since = lockInfo.getSince();
+        Date expires = timeoutSec != null && timeoutSec > 0 ? new Date(since.getTime() + timeoutSec * 1000L) : null;
+        int tsType = types.getSqlType(Date.class);
+
+        QueryRunner runner = new QueryRunner(persistence.getDataSource());
+        SQLException insertException = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                runner.update("insert into SYS_ENTITY_LOCK " +
+                                "(ENTITY_NAME, ENTITY_ID, USER_ID, USER_LOGIN, USER_NAME, SINCE, EXPIRES) " +
+                                "values (?, ?, ?, ?, ?, ?, ?)",
+                        new Object[]{lockInfo.getEntityName(), lockInfo.getEntityId(), types.getSqlObject(user.getId()),
+                                user.getLogin(), user.getName(), types.getSqlObject(since),
+                                expires == null ? null : types.getSqlObject(expires)},
+                        new int[]{Types.VARCHAR, Types.VARCHAR, types.getSqlType(UUID.class), Types.VARCHAR,
+                                Types.VARCHAR, tsType, tsType});
+                return null;
+            } catch (SQLException e) {
+                // most likely the primary key violation, check the existing lock
+                insertException = e;
+            }
+
+            LockRow existing = loadLock(lockInfo.getEntityName(), lockInfo.getEntityId());
+            if (existing == null) {
+                // released concurrently
+                continue;
+            }
+            if (existing.expires == null || !existing.expires.before(timeSource.currentTimestamp())) {
+                return existing.lockInfo;
+            }
+            // the lease is over, delete the row unless another user has taken it over
+            try {
+                runner.update("delete from SYS_ENTITY_LOCK where ENTITY_NAME = ? and ENTITY_ID = ? and EXPIRES < ?",
+                        new Object[]{lockInfo.getEntityName(), lockInfo.getEntityId(),
+                                types.getSqlObject(timeSource.currentTimestamp())},
+                        new int[]{Types.VARCHAR, Types.VARCHAR, tsType});
+            } catch (SQLException e) {
+                throw new RuntimeException("Error deleting expired lock " + existing.lockInfo, e);
+            }
+        }
+        throw new RuntimeException("Unable to lock " + lockInfo.getEntityName() + "/" + lockInfo.getEntityId(),
+                insertException);
+    }
+
+    @Nullable
+    @Override
+    public LockInfo unlock(String name, String id) {
+        LockRow existing = loadLock(name, id);
+        if (existing == null) {
+            return null;
+        }
+        QueryRunner runner = new QueryRunner(persistence.getDataSource());
+        try {
+            int deleted = runner.update("delete from SYS_ENTITY_LOCK where ENTITY_NAME = ? and ENTITY_ID = ?",
+                    new Object[]{name, id},
+                    new int[]{Types.VARCHAR, Types.VARCHAR});
+            return deleted > 0 ? existing.lockInfo : null;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error unlocking " + name + "/" + id, e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public LockInfo getLock(String name, String id) {
+        LockRow row = loadLock(name, id);
+        if (row == null || (row.expires != null && row.expires.before(timeSource.currentTimestamp()))) {
+            return null;
+        }
+        return row.lockInfo;
+    }
+
+    @Override
+    public List<LockInfo> getLocks() {
+        QueryRunner runner = new QueryRunner(persistence.getDataSource());
+        try {
+            List<LockRow> rows = runner.query(SELECT_COLUMNS, rs -> {
+                List<LockRow> list = new ArrayList<>();
+                while (rs.next()) {
+                    list.add(readRow(rs));
+                }
+                return list;
+            });
+            List<LockInfo> result = new ArrayList<>(rows.size());
+            for (LockRow row : rows) {
+                result.add(row.lockInfo);
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading locks", e);
+        }
+    }
+
+    @Override
+    public int expireLocks(Map<String, LockDescriptor> config) {
+        DbTypeConverter types = persistence.getDbTypeConverter();
+        QueryRunner runner = new QueryRunner(persistence.getDataSource());
+        try {
+            int count = runner.update("delete from SYS_ENTITY_LOCK where EXPIRES < ?",
+                    new Object[]{types.getSqlObject(timeSource.currentTimestamp())},
+                    new int[]{types.getSqlType(Date.class)});
+
+            List<String> names = runner.query("select distinct ENTITY_NAME from SYS_ENTITY_LOCK", rs -> {
+                List<String> list = new ArrayList<>();
+                while (rs.next()) {
+                    list.add(rs.getString(1));
+                }
+                return list;
+            });
+            for (String name : names) {
+                if (!config.containsKey(name)) {
+                    log.debug("Lock {} configuration not found, remove its locks", name);
+                    count += runner.update("delete from SYS_ENTITY_LOCK where ENTITY_NAME = ?", name);
+                }
+            }
+            return count;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error expiring locks", e);
+        }
+    }
+
+    @Nullable
+    protected LockRow loadLock(String name, String id) {
+        QueryRunner runner = new QueryRunner(persistence.getDataSource());
+        ResultSetHandler<LockRow> handler = rs -> rs.next() ? readRow(rs) : null;
+        try {
+            return runner.query(SELECT_COLUMNS + " where ENTITY_NAME = ? and ENTITY_ID = ?",
+                    new Object[]{name, id}, new int[]{Types.VARCHAR, Types.VARCHAR}, handler);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading lock " + name + "/" + id, e);
+        }
+    }
+
+    protected LockRow readRow(ResultSet rs) throws SQLException {
+        DbTypeConverter types = persistence.getDbTypeConverter();
+
+        User user = metadata.create(User.class);
+        Object userId = types.getJavaObject(rs, 3);
+        user.setId(userId instanceof UUID ? (UUID) userId : UUID.fromString(userId.toString()));
+        user.setLogin(rs.getString(4));
+        user.setName(rs.getString(5));
+
+        LockRow row = new LockRow();
+        row.lockInfo = new LockInfo(user, rs.getString(1), rs.getString(2), rs.getTimestamp(6));
+        row.expires = rs.getTimestamp(7);
+        return row;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.locking;
+
+import com.haulmont.cuba.core.entity.LockDescriptor;
+import com.haulmont.cuba.core.global.LockInfo;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage of pessimistic locks used by {@link com.haulmont.cuba.core.app.LockManagerAPI}.
+ * <p>
+ * The implementation is selected by the {@code cuba.lockBackend} application property containing the bean name.
+ *
+ * @see ClusterLockBackend
+ * @see DatabaseLockBackend
+ */
+public interface LockBackend {
+
+    /**
+     * Acquires the lock if the object is not locked or its lock has expired.
+     *
+     * @param lockInfo   new lock
+     * @param timeoutSec lock timeout in seconds, null or 0 if the lock does not expire
+     * @return null if the lock is acquired, or the existing lock of the object
+     */
+    @Nullable
+    LockInfo tryLock(LockInfo lockInfo, @Nullable Integer timeoutSec);
+
+    /**
+     * Releases the lock.
+     *
+     * @return released lock or null if the object was not locked
+     */
+    @Nullable
+    LockInfo unlock(String name, String id);
+
+    /**
+     * @return lock of the object or null if the object is not locked
+     */
+    @Nullable
+    LockInfo getLock(String name, String id);
+
+    /**
+     * @return all current locks
+     */
+    List<LockInfo> getLocks();
+
+    /**
+     * Removes expired locks.
+     *
+     * @param config lock descriptors by name
+     * @return number of removed locks
+     */
+    int expireLocks(Map<String, LockDescriptor> config);
+}
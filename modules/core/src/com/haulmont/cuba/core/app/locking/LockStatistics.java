@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.locking;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of {@link com.haulmont.cuba.core.app.LockManagerAPI} operations.
+ */
+@Component(LockStatistics.NAME)
+public class LockStatistics {
+
+    public static final String NAME = "cuba_LockStatistics";
+
+    protected AtomicLong acquiredCount = new AtomicLong();
+    protected AtomicLong conflictsCount = new AtomicLong();
+    protected AtomicLong releasedCount = new AtomicLong();
+    protected AtomicLong expiredCount = new AtomicLong();
+    protected AtomicLong totalLockTime = new AtomicLong();
+    protected AtomicLong maxLockTime = new AtomicLong();
+    protected AtomicLong totalHoldTime = new AtomicLong();
+
+    /**
+     * Registers an attempt to lock an object.
+     *
+     * @param acquired whether the lock has been acquired
+     * @param time     time spent by the backend in milliseconds
+     */
+    public void registerLock(boolean acquired, long time) {
+        if (acquired) {
+            acquiredCount.incrementAndGet();
+        } else {
+            conflictsCount.incrementAndGet();
+        }
+        totalLockTime.addAndGet(time);
+        maxLockTime.accumulateAndGet(time, Math::max);
+    }
+
+    /**
+     * Registers release of a lock.
+     *
+     * @param holdTime time in milliseconds the lock has been held
+     */
+    public void registerUnlock(long holdTime) {
+        releasedCount.incrementAndGet();
+        totalHoldTime.addAndGet(holdTime);
+    }
+
+    public void registerExpired(int count) {
+        expiredCount.addAndGet(count);
+    }
+
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    public long getConflictsCount() {
+        return conflictsCount.get();
+    }
+
+    public long getReleasedCount() {
+        return releasedCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return average time of lock attempts in milliseconds
+     */
+    public double getAvgLockTime() {
+        long count = acquiredCount.get() + conflictsCount.get();
+        return count == 0 ? 0 : (double) totalLockTime.get() / count;
+    }
+
+    public long getMaxLockTime() {
+        return maxLockTime.get();
+    }
+
+    /**
+     * @return average time in milliseconds between acquiring and releasing a lock
+     */
+    public double getAvgHoldTime() {
+        long count = releasedCount.get();
+        return count == 0 ? 0 : (double) totalHoldTime.get() / count;
+    }
+
+    public void reset() {
+        acquiredCount.set(0);
+        conflictsCount.set(0);
+        releasedCount.set(0);
+        expiredCount.set(0);
+        totalLockTime.set(0);
+        maxLockTime.set(0);
+        totalHoldTime.set(0);
+    }
+}
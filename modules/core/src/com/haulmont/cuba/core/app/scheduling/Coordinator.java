@@ -19,6 +19,7 @@ package com.haulmont.cuba.core.app.scheduling;
 
 import com.haulmont.cuba.core.entity.ScheduledTask;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -38,8 +39,27 @@ public interface Coordinator {
 
     Context begin();
 
+    /**
+     * Starts processing of the given tasks. The returned context contains the given tasks that are still active,
+     * the implementation may return other active tasks as well.
+     *
+     * @param tasks tasks to be processed
+     */
+    default Context begin(Collection<ScheduledTask> tasks) {
+        return begin();
+    }
+
     void end(Context context);
 
+    /**
+     * @return active tasks in detached state, loaded without coordination with other servers
+     */
+    default List<ScheduledTask> loadTasks() {
+        Context context = begin();
+        end(context);
+        return context.getTasks();
+    }
+
     boolean isLastExecutionFinished(ScheduledTask task, long now);
 
     long getLastFinished(ScheduledTask task);
@@ -26,11 +26,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.persistence.LockModeType;
 import javax.persistence.PessimisticLockException;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * Implementation of {@link Coordinator} interface, performing synchronization of singleton schedulers on the main
@@ -67,10 +67,15 @@ public class DbBasedCoordinator implements Coordinator {
 
     @Override
     public Context begin() {
+        return begin(null);
+    }
+
+    @Override
+    public Context begin(@Nullable Collection<ScheduledTask> tasks) {
         Transaction tx = persistence.createTransaction();
         try {
-            List<ScheduledTask> tasks = getTasks();
-            return new ContextImpl(tasks, tx);
+            List<ScheduledTask> lockedTasks = getTasks(tasks);
+            return new ContextImpl(lockedTasks, tx);
         } catch (SchedulingLockException e) {
             //noinspection IncorrectClosingTransaction
             tx.end();
@@ -82,6 +87,14 @@ public class DbBasedCoordinator implements Coordinator {
         }
     }
 
+    @Override
+    public List<ScheduledTask> loadTasks() {
+        log.trace("Read all active tasks from DB");
+        return persistence.callInTransaction(em ->
+                em.createQuery("select t from sys$ScheduledTask t where t.active = true", ScheduledTask.class)
+                        .getResultList());
+    }
+
     @Override
     public void end(Context context) {
         log.trace("Commit transaction thereby unlock active tasks");
@@ -122,12 +135,24 @@ public class DbBasedCoordinator implements Coordinator {
         return date == null ? 0 : date.getTime();
     }
 
-    protected synchronized List<ScheduledTask> getTasks() {
-        log.trace("Read all active tasks from DB and lock them");
+    protected synchronized List<ScheduledTask> getTasks(@Nullable Collection<ScheduledTask> tasks) {
         EntityManager em = persistence.getEntityManager();
         try {
+            Query query;
+            if (tasks == null) {
+                log.trace("Read all active tasks from DB and lock them");
+                query = em.createQuery("select t from sys$ScheduledTask t where t.active = true");
+            } else {
+                log.trace("Read {} active tasks from DB and lock them", tasks.size());
+                List<UUID> ids = new ArrayList<>(tasks.size());
+                for (ScheduledTask task : tasks) {
+                    ids.add(task.getId());
+                }
+                query = em.createQuery("select t from sys$ScheduledTask t where t.active = true and t.id in :ids")
+                        .setParameter("ids", ids);
+            }
             //noinspection unchecked
-            return em.createQuery("select t from sys$ScheduledTask t where t.active = true")
+            return query
                     .setLockMode(LockModeType.PESSIMISTIC_WRITE)
                     .getResultList();
         } catch (PessimisticLockException e) {
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.scheduling;
+
+import com.haulmont.cuba.core.entity.ScheduledTask;
+
+import java.util.*;
+
+/**
+ * Active {@link ScheduledTask}s ordered by the time {@link Scheduling} should check them next.
+ * <p>
+ * A task stays due until it is rescheduled, so a task is not lost if its processing fails.
+ */
+public class ScheduledTasksAgenda {
+
+    protected static class Entry implements Comparable<Entry> {
+
+        protected final ScheduledTask task;
+        protected final long time;
+
+        protected Entry(ScheduledTask task, long time) {
+            this.task = task;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = Long.compare(time, other.time);
+            return result != 0 ? result : task.getId().compareTo(other.task.getId());
+        }
+    }
+
+    protected final TreeSet<Entry> queue = new TreeSet<>();
+
+    protected final Map<UUID, Entry> entries = new HashMap<>();
+
+    /**
+     * Sets the time of the next check of the task, replacing the task instance kept by the agenda.
+     */
+    public synchronized void schedule(ScheduledTask task, long time) {
+        Entry entry = new Entry(task, time);
+        Entry prev = entries.put(task.getId(), entry);
+        if (prev != null) {
+            queue.remove(prev);
+        }
+        queue.add(entry);
+    }
+
+    /**
+     * Moves the time of the next check of the task if it is later than the given time.
+     * Does nothing if the task is not in the agenda.
+     */
+    public synchronized void advance(ScheduledTask task, long time) {
+        Entry entry = entries.get(task.getId());
+        if (entry != null && entry.time > time) {
+            schedule(entry.task, time);
+        }
+    }
+
+    public synchronized void remove(ScheduledTask task) {
+        Entry entry = entries.remove(task.getId());
+        if (entry != null) {
+            queue.remove(entry);
+        }
+    }
+
+    /**
+     * Removes all tasks except the given ones.
+     */
+    public synchronized void retain(Collection<ScheduledTask> tasks) {
+        Set<UUID> ids = new HashSet<>();
+        for (ScheduledTask task : tasks) {
+            ids.add(task.getId());
+        }
+        for (Iterator<Map.Entry<UUID, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, Entry> mapEntry = it.next();
+            if (!ids.contains(mapEntry.getKey())) {
+                queue.remove(mapEntry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized boolean contains(ScheduledTask task) {
+        return entries.containsKey(task.getId());
+    }
+
+    /**
+     * @return tasks to be checked at the given time, in the order of their check times
+     */
+    public synchronized List<ScheduledTask> getDue(long time) {
+        List<ScheduledTask> result = new ArrayList<>();
+        for (Entry entry : queue) {
+            if (entry.time > time) {
+                break;
+            }
+            result.add(entry.task);
+        }
+        return result;
+    }
+
+    /**
+     * @return time of the earliest check or {@link Long#MAX_VALUE} if the agenda is empty
+     */
+    public synchronized long getEarliestTime() {
+        return queue.isEmpty() ? Long.MAX_VALUE : queue.first().time;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.scheduling;
+
+import com.google.common.collect.ImmutableSet;
+import com.haulmont.cuba.core.EntityManager;
+import com.haulmont.cuba.core.PersistenceTools;
+import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.ScheduledTask;
+import com.haulmont.cuba.core.listener.BeforeCommitTransactionListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Makes {@link SchedulingAPI} re-read definitions of scheduled tasks after a transaction that changes them is
+ * committed. Changes made by the scheduler itself when starting a task are ignored.
+ */
+@Component("cuba_ScheduledTasksChangeListener")
+public class ScheduledTasksChangeListener implements BeforeCommitTransactionListener {
+
+    protected static final Set<String> EXECUTION_PROPERTIES =
+            ImmutableSet.of("lastStartTime", "lastStartServer", "updateTs", "updatedBy");
+
+    @Inject
+    protected SchedulingAPI scheduling;
+
+    @Inject
+    protected PersistenceTools persistenceTools;
+
+    @Override
+    public void beforeCommit(EntityManager entityManager, Collection<Entity> managedEntities) {
+        for (Entity entity : managedEntities) {
+            if (entity instanceof ScheduledTask && isChanged((ScheduledTask) entity)) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        scheduling.reloadTasks();
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    protected boolean isChanged(ScheduledTask task) {
+        if (BaseEntityInternalAccess.isNew(task) || BaseEntityInternalAccess.isRemoved(task)) {
+            return true;
+        }
+        for (String property : persistenceTools.getDirtyFields(task)) {
+            if (!EXECUTION_PROPERTIES.contains(property)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -18,6 +18,8 @@
 package com.haulmont.cuba.core.app.scheduling;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.core.app.ServerInfoAPI;
@@ -28,6 +30,7 @@ import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.RunTaskOnceException;
 import com.haulmont.cuba.core.global.TimeSource;
 import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.events.AppContextStoppedEvent;
 import com.haulmont.cuba.security.app.Authentication;
 import com.haulmont.cuba.security.app.UserSessionsAPI;
 import com.haulmont.cuba.security.global.LoginException;
@@ -38,17 +41,24 @@ import org.perf4j.StopWatch;
 import org.perf4j.slf4j.Slf4JStopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.io.Serializable;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Class that manages {@link ScheduledTask}s in distributed environment.
+ * <p>
+ * Definitions of active tasks are cached and re-read when they are changed. The time of the next check is computed
+ * for each task, so {@link #processScheduledTasks()} processes only due tasks and locks in the database only due
+ * singleton tasks. If a task is due before the next invocation of {@link #processScheduledTasks()}, processing is
+ * started at the due time by an internal timer.
  */
 @Component(SchedulingAPI.NAME)
 public class Scheduling implements SchedulingAPI {
@@ -61,9 +71,6 @@ public class Scheduling implements SchedulingAPI {
     @Inject
     protected ServerInfoAPI serverInfo;
 
-    @Inject
-    protected ClusterManagerAPI clusterManager;
-
     @Inject
     protected TimeSource timeSource;
 
@@ -82,6 +89,8 @@ public class Scheduling implements SchedulingAPI {
     @Inject
     protected ServerInfoService serverInfoService;
 
+    protected ClusterManagerAPI clusterManager;
+
     protected ConcurrentMap<ScheduledTask, Long> runningTasks = new ConcurrentHashMap<>();
 
     protected Map<ScheduledTask, Long> lastStartCache = new ConcurrentHashMap<>();
@@ -90,6 +99,35 @@ public class Scheduling implements SchedulingAPI {
 
     protected volatile long schedulingStartTime;
 
+    protected final ScheduledTasksAgenda agenda = new ScheduledTasksAgenda();
+
+    protected final ReentrantLock processingLock = new ReentrantLock();
+
+    protected volatile boolean tasksChanged = true;
+
+    protected volatile long tasksLoadTime;
+
+    protected ScheduledExecutorService wakeupExecutor;
+
+    protected ScheduledFuture<?> wakeupFuture;
+
+    protected long wakeupTime;
+
+    protected static class ReloadTasksMsg implements Serializable {
+        private static final long serialVersionUID = -6024452407473462536L;
+    }
+
+    @Inject
+    public void setClusterManager(ClusterManagerAPI clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.addListener(ReloadTasksMsg.class, new ClusterListenerAdapter<ReloadTasksMsg>() {
+            @Override
+            public void receive(ReloadTasksMsg message) {
+                tasksChanged = true;
+            }
+        });
+    }
+
     @Override
     public void processScheduledTasks() {
         if (AppContext.isStarted()) {
@@ -102,29 +140,251 @@ public class Scheduling implements SchedulingAPI {
         if (onlyIfActive && !isActive())
             return;
 
-        log.debug("Processing scheduled tasks");
-        if (schedulingStartTime == 0)
-            schedulingStartTime = timeSource.currentTimeMillis();
-
-        authentication.begin();
+        processingLock.lock();
         try {
-            StopWatch sw = new Slf4JStopWatch("Scheduling.processTasks");
-            Coordinator.Context context;
+            log.debug("Processing scheduled tasks");
+            if (schedulingStartTime == 0)
+                schedulingStartTime = timeSource.currentTimeMillis();
+
+            authentication.begin();
             try {
-                context = coordinator.begin();
-            } catch (SchedulingLockException e) {
-                return;
+                StopWatch sw = new Slf4JStopWatch("Scheduling.processTasks");
+                processDueTasks();
+                sw.stop();
+            } finally {
+                authentication.end();
             }
-            try {
-                for (ScheduledTask task : context.getTasks()) {
-                    processTask(task);
+        } finally {
+            processingLock.unlock();
+        }
+        scheduleWakeup();
+    }
+
+    @Override
+    public void reloadTasks() {
+        tasksChanged = true;
+        clusterManager.send(new ReloadTasksMsg());
+    }
+
+    protected void processDueTasks() {
+        long now = timeSource.currentTimeMillis();
+        if (tasksChanged || now - tasksLoadTime >= getTasksReloadInterval()) {
+            loadTasks(now);
+        }
+
+        List<ScheduledTask> singletonTasks = new ArrayList<>();
+        for (ScheduledTask task : agenda.getDue(now)) {
+            if (BooleanUtils.isTrue(task.getSingleton())) {
+                singletonTasks.add(task);
+            } else {
+                processTask(task);
+                scheduleNextCheck(task, true);
+            }
+        }
+        if (!singletonTasks.isEmpty()) {
+            processSingletonTasks(singletonTasks);
+        }
+    }
+
+    protected void processSingletonTasks(List<ScheduledTask> tasks) {
+        Coordinator.Context context;
+        try {
+            context = coordinator.begin(tasks);
+        } catch (SchedulingLockException e) {
+            long recheckTime = timeSource.currentTimeMillis() + getSchedulingInterval();
+            for (ScheduledTask task : tasks) {
+                agenda.schedule(task, recheckTime);
+            }
+            return;
+        }
+        try {
+            Map<UUID, ScheduledTask> lockedTasks = new HashMap<>();
+            for (ScheduledTask task : context.getTasks()) {
+                lockedTasks.put(task.getId(), task);
+            }
+            for (ScheduledTask task : tasks) {
+                ScheduledTask lockedTask = lockedTasks.get(task.getId());
+                if (lockedTask == null) {
+                    log.trace("{} is not active anymore", task);
+                    agenda.remove(task);
+                    continue;
                 }
-            } finally {
-                coordinator.end(context);
+                processTask(lockedTask);
+                scheduleNextCheck(lockedTask, true);
             }
-            sw.stop();
         } finally {
-            authentication.end();
+            coordinator.end(context);
+        }
+    }
+
+    protected void loadTasks(long now) {
+        // reset the flag before loading to not miss changes made concurrently
+        tasksChanged = false;
+        List<ScheduledTask> tasks;
+        try {
+            tasks = coordinator.loadTasks();
+        } catch (RuntimeException e) {
+            tasksChanged = true;
+            throw e;
+        }
+        log.debug("Loaded {} active scheduled tasks", tasks.size());
+
+        agenda.retain(tasks);
+        for (ScheduledTask task : tasks) {
+            scheduleNextCheck(task, false);
+        }
+        tasksLoadTime = now;
+    }
+
+    protected void scheduleNextCheck(ScheduledTask task, boolean processed) {
+        long now = timeSource.currentTimeMillis();
+        long time;
+        try {
+            time = getNextCheckTime(task, now, processed);
+        } catch (RuntimeException e) {
+            log.error("Unable to calculate next check time of " + task, e);
+            time = now + getSchedulingInterval();
+        }
+        agenda.schedule(task, time);
+    }
+
+    /**
+     * Returns the time when the task should be checked next. The returned time can be earlier than the actual
+     * start of the task, {@link #processTask(ScheduledTask)} makes the final decision.
+     *
+     * @param task      task
+     * @param now       current time
+     * @param processed whether the task has just been processed
+     */
+    protected long getNextCheckTime(ScheduledTask task, long now, boolean processed) {
+        long recheckTime = now + getSchedulingInterval();
+        if (runningTasks.containsKey(task)) {
+            // will be checked after finish
+            return recheckTime;
+        }
+        if (getServerPriority(task, serverInfo.getServerId()) == null) {
+            // the master can be changed
+            return recheckTime;
+        }
+
+        long time = calculateNextCheckTime(task, now);
+        if (processed && time <= now) {
+            // the task has not been started by processTask(), e.g. it is not finished on another server
+            return recheckTime;
+        }
+        return time;
+    }
+
+    protected long calculateNextCheckTime(ScheduledTask task, long now) {
+        long notBefore = now;
+        if (task.getStartDelay() != null) {
+            notBefore = Math.max(notBefore, schedulingStartTime + task.getStartDelay() * 1000);
+        }
+        if (task.getStartDate() != null) {
+            notBefore = Math.max(notBefore, task.getStartDate().getTime());
+        }
+        if (notBefore > now) {
+            return notBefore;
+        }
+
+        boolean singleton = BooleanUtils.isTrue(task.getSingleton());
+        long lastStart = singleton ? task.getLastStart() : lastStartCache.getOrDefault(task, 0L);
+        long lastFinish = lastFinishCache.getOrDefault(task, 0L);
+        long period = task.getPeriod() != null ? task.getPeriod() * 1000 : 0;
+        long frame = getTimeFrame(task, period);
+
+        if (SchedulingType.CRON == task.getSchedulingType()) {
+            CronSequenceGenerator cronSequenceGenerator = new CronSequenceGenerator(task.getCron(), getCurrentTimeZone());
+            return cronSequenceGenerator.next(new Date(Math.max(lastStart, now - frame))).getTime();
+        }
+
+        if (task.getStartDate() != null) {
+            long fromDate = task.getStartDate().getTime();
+            if (SchedulingType.FIXED_DELAY == task.getSchedulingType()) {
+                if (singleton) {
+                    // the last finish can be registered by another server, the next start is not earlier than
+                    // the period after the last start
+                    return lastStart == 0 ? now : lastStart + period;
+                }
+                if (lastFinish != 0) {
+                    fromDate = lastFinish;
+                }
+            }
+            long currentStart = fromDate + (now - fromDate) / period * period;
+            if (lastStart < currentStart && now < currentStart + frame) {
+                return now;
+            }
+            return currentStart + period;
+        }
+
+        if (singleton) {
+            if (lastStart == 0) {
+                return now;
+            }
+            String me = serverInfo.getServerId();
+            Integer serverPriority = getServerPriority(task, me);
+            Integer lastServerPriority = task.getLastStartServer() == null ?
+                    null : getServerPriority(task, task.getLastStartServer());
+            if (lastServerWasNotMe(task, me)) {
+                if (lastServerPriority == null || serverPriority.compareTo(lastServerPriority) < 0) {
+                    // should switch to this server
+                    return now;
+                }
+                if (serverPriority.compareTo(lastServerPriority) > 0) {
+                    // give a chance to the previous server
+                    return lastStart + period + period / 2;
+                }
+            }
+            return lastStart + period;
+        }
+        if (SchedulingType.FIXED_DELAY == task.getSchedulingType()) {
+            return lastStart > lastFinish ? now + getSchedulingInterval() : lastFinish + period;
+        }
+        return lastStart + period;
+    }
+
+    /**
+     * Starts processing at the earliest check time if it comes before the next regular invocation.
+     */
+    protected synchronized void scheduleWakeup() {
+        if (!isActive()) {
+            return;
+        }
+        long now = timeSource.currentTimeMillis();
+        long time = agenda.getEarliestTime();
+        if (time >= now + getSchedulingInterval()) {
+            return;
+        }
+        if (wakeupFuture != null && !wakeupFuture.isDone()) {
+            if (wakeupTime <= time) {
+                return;
+            }
+            wakeupFuture.cancel(false);
+        }
+        if (wakeupExecutor == null) {
+            wakeupExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("SchedulingWakeup-%d").setDaemon(true).build());
+        }
+        wakeupTime = time;
+        wakeupFuture = wakeupExecutor.schedule(this::wakeup, Math.max(time - now, 0), TimeUnit.MILLISECONDS);
+    }
+
+    protected void wakeup() {
+        synchronized (this) {
+            wakeupFuture = null;
+        }
+        try {
+            processScheduledTasks();
+        } catch (Exception e) {
+            log.error("Error processing scheduled tasks", e);
+        }
+    }
+
+    @EventListener(AppContextStoppedEvent.class)
+    protected synchronized void applicationStopped() {
+        if (wakeupExecutor != null) {
+            wakeupExecutor.shutdownNow();
+            wakeupExecutor = null;
         }
     }
 
@@ -146,7 +406,9 @@ public class Scheduling implements SchedulingAPI {
 
     @Override
     public void setFinished(ScheduledTask task) {
-        lastFinishCache.put(task, timeSource.currentTimeMillis());
+        long now = timeSource.currentTimeMillis();
+        lastFinishCache.put(task, now);
+        agenda.advance(task, now);
     }
 
     @Override
@@ -184,6 +446,18 @@ public class Scheduling implements SchedulingAPI {
         return configuration.getConfig(ServerConfig.class).getSchedulingInterval();
     }
 
+    protected long getTasksReloadInterval() {
+        return configuration.getConfig(ServerConfig.class).getSchedulingTasksReloadInterval();
+    }
+
+    protected long getTimeFrame(ScheduledTask task, long period) {
+        long frame = task.getTimeFrame() != null ? task.getTimeFrame() * 1000 : period / 2;
+        if (frame == 0) {//for cron tasks, where period is null we set default frame as scheduling interval
+            frame = getSchedulingInterval();
+        }
+        return frame;
+    }
+
     protected void processTask(ScheduledTask task) {
         if (isRunning(task)) {
             log.trace("{} is running", task);
@@ -200,10 +474,7 @@ public class Scheduling implements SchedulingAPI {
                 return;
 
             long period = task.getPeriod() != null ? task.getPeriod() * 1000 : 0;
-            long frame = task.getTimeFrame() != null ? task.getTimeFrame() * 1000 : period / 2;
-            if (frame == 0) {//for cron tasks, where period is null we set default frame as scheduling interval
-                frame = getSchedulingInterval();
-            }
+            long frame = getTimeFrame(task, period);
 
             if (BooleanUtils.isTrue(task.getSingleton())) {
                 if (task.getStartDate() != null || SchedulingType.CRON == task.getSchedulingType()) {
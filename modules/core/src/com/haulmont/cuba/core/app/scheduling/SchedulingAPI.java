@@ -55,6 +55,12 @@ public interface SchedulingAPI {
 
     void processScheduledTasks(boolean onlyIfActive);
 
+    /**
+     * Makes the scheduler re-read definitions of active tasks from the database on all servers of the cluster.
+     * Invoked automatically when {@link ScheduledTask} instances are changed through the persistence layer.
+     */
+    void reloadTasks();
+
     /**
      * Mark the scheduled task as running/not running in the internal list. This method should not be used in the
      * application code.
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.snapshot;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.View;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores snapshots as gzipped JSON encoded in Base64 with the {@link #PREFIX} prefix.
+ * <p>
+ * Snapshots of entities with many attributes or collections usually take several times less space than plain JSON,
+ * but the content of the snapshot table cannot be searched by SQL.
+ */
+@Component(CompressedJsonSnapshotCodec.NAME)
+public class CompressedJsonSnapshotCodec implements EntitySnapshotCodec {
+
+    public static final String NAME = "cuba_CompressedJsonSnapshotCodec";
+
+    public static final String PREFIX = "gz:";
+
+    @Inject
+    protected JsonSnapshotCodec jsonCodec;
+
+    @Override
+    public boolean canDecode(@Nullable String data) {
+        return StringUtils.startsWith(data, PREFIX);
+    }
+
+    @Override
+    public String encodeEntity(Entity entity) {
+        return compress(jsonCodec.encodeEntity(entity));
+    }
+
+    @Override
+    public Entity decodeEntity(String data, @Nullable MetaClass metaClass) {
+        return jsonCodec.decodeEntity(decompress(data), metaClass);
+    }
+
+    @Override
+    public String encodeView(View view) {
+        return compress(jsonCodec.encodeView(view));
+    }
+
+    @Override
+    public View decodeView(String data) {
+        return jsonCodec.decodeView(decompress(data));
+    }
+
+    protected String compress(String value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length() / 4);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to compress entity snapshot", e);
+        }
+        return PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    protected String decompress(String data) {
+        byte[] bytes = Base64.getDecoder().decode(data.substring(PREFIX.length()));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to decompress entity snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.snapshot;
+
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.View;
+
+/**
+ * Converts the entity graph and the view of an {@link com.haulmont.cuba.core.entity.EntitySnapshot} to the strings
+ * stored in the database and back.
+ * <p>
+ * New snapshots are written by the codec defined by the {@code cuba.entitySnapshotCodec} application property,
+ * existing snapshots are read by the codec or {@link EntitySnapshotDecoder} that recognizes their format.
+ */
+public interface EntitySnapshotCodec extends EntitySnapshotDecoder {
+
+    String encodeEntity(Entity entity);
+
+    String encodeView(View view);
+}
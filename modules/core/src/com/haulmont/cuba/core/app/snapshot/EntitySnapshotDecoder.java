@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.core.app.snapshot;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.View;
+
+import javax.annotation.Nullable;
+
+/**
+ * Converts the strings stored in the database to the entity graph and the view of an
+ * {@link com.haulmont.cuba.core.entity.EntitySnapshot}.
+ * <p>
+ * Existing snapshots are read by the decoder that recognizes their format, so decoders must accept strings that are
+ * distinguishable by {@link #canDecode(String)}. Decoders of formats that are still written implement
+ * {@link EntitySnapshotCodec}.
+ */
+public interface EntitySnapshotDecoder {
+
+    /**
+     * @param data content of a snapshot stored in the database
+     * @return true if the content is in the format of this decoder
+     */
+    boolean canDecode(@Nullable String data);
+
+    /**
+     * @param data      encoded entity
+     * @param metaClass metaClass of the entity, used if the data does not contain it
+     */
+    Entity decodeEntity(String data, @Nullable MetaClass metaClass);
+
+    View decodeView(String data);
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.snapshot;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.app.serialization.EntitySerializationAPI;
+import com.haulmont.cuba.core.app.serialization.ViewSerializationAPI;
+import com.haulmont.cuba.core.app.serialization.ViewSerializationOption;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.global.View;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * Stores snapshots as JSON produced by {@link EntitySerializationAPI} and {@link ViewSerializationAPI}.
+ */
+@Component(JsonSnapshotCodec.NAME)
+public class JsonSnapshotCodec implements EntitySnapshotCodec {
+
+    public static final String NAME = "cuba_JsonSnapshotCodec";
+
+    @Inject
+    protected EntitySerializationAPI entitySerializationAPI;
+
+    @Inject
+    protected ViewSerializationAPI viewSerializationAPI;
+
+    @Override
+    public boolean canDecode(@Nullable String data) {
+        return StringUtils.startsWith(StringUtils.stripStart(data, null), "{");
+    }
+
+    @Override
+    public String encodeEntity(Entity entity) {
+        return entitySerializationAPI.toJson(entity);
+    }
+
+    @Override
+    public Entity decodeEntity(String data, @Nullable MetaClass metaClass) {
+        return entitySerializationAPI.entityFromJson(data, metaClass);
+    }
+
+    @Override
+    public String encodeView(View view) {
+        return viewSerializationAPI.toJson(view, ViewSerializationOption.COMPACT_FORMAT);
+    }
+
+    @Override
+    public View decodeView(String data) {
+        return viewSerializationAPI.fromJson(data);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.snapshot;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.HasUuid;
+import com.haulmont.cuba.core.entity.Updatable;
+import com.haulmont.cuba.core.global.View;
+import com.haulmont.cuba.core.sys.CubaXStream;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.mapper.MapperWrapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads snapshots stored in XML by previous platform versions. Snapshots are not written in this format.
+ * <p>
+ * The XStream instance is configured once and shared, as it is thread-safe after configuration.
+ */
+@Component(XmlSnapshotDecoder.NAME)
+public class XmlSnapshotDecoder implements EntitySnapshotDecoder {
+
+    public static final String NAME = "cuba_XmlSnapshotDecoder";
+
+    protected volatile XStream xStream;
+
+    @Override
+    public boolean canDecode(@Nullable String data) {
+        return StringUtils.startsWith(StringUtils.stripStart(data, null), "<");
+    }
+
+    @Override
+    public Entity decodeEntity(String data, @Nullable MetaClass metaClass) {
+        return (Entity) fromXML(data);
+    }
+
+    @Override
+    public View decodeView(String data) {
+        return (View) fromXML(data);
+    }
+
+    public Object fromXML(String xml) {
+        return getXStream().fromXML(xml);
+    }
+
+    protected XStream getXStream() {
+        XStream result = xStream;
+        if (result == null) {
+            synchronized (this) {
+                result = xStream;
+                if (result == null) {
+                    result = createXStream();
+                    xStream = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    protected XStream createXStream() {
+        final List exclUpdateFields = Arrays.asList("updateTs", "updatedBy");
+        XStream xStream = new CubaXStream() {
+            @Override
+            protected MapperWrapper wrapMapper(MapperWrapper next) {
+                return new MapperWrapper(next) {
+                    @Override
+                    public boolean shouldSerializeMember(Class definedIn, String fieldName) {
+                        boolean result = super.shouldSerializeMember(definedIn, fieldName);
+                        if (!result) {
+                            return false;
+                        }
+                        if (fieldName != null) {
+                            if (exclUpdateFields.contains(fieldName)
+                                    && Updatable.class.isAssignableFrom(definedIn)) {
+                                return false;
+                            }
+                            if ("uuid".equals(fieldName)) {
+                                if (!HasUuid.class.isAssignableFrom(definedIn)
+                                        && BaseGenericIdEntity.class.isAssignableFrom(definedIn)) {
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                };
+            }
+        };
+        XStream.setupDefaultSecurity(xStream);
+        xStream.allowTypeHierarchy(Serializable.class);
+        xStream.omitField(BaseGenericIdEntity.class, "createTs");
+        xStream.omitField(BaseGenericIdEntity.class, "createdBy");
+        return xStream;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import com.haulmont.cuba.core.app.ServerConfig;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.Comparator;
+
+@Component("cuba_AppFolderQuantityCacheMBean")
+public class AppFolderQuantityCache implements AppFolderQuantityCacheMBean {
+
+    @Inject
+    protected com.haulmont.cuba.core.app.AppFolderQuantityCache quantityCache;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
+    @Override
+    public int getTtlSec() {
+        return serverConfig.getAppFolderQuantityCacheTtlSec();
+    }
+
+    @Override
+    public int getSize() {
+        return quantityCache.size();
+    }
+
+    @Override
+    public String clear() {
+        quantityCache.clear();
+        return "Done";
+    }
+
+    @Override
+    public String printStatistics() {
+        StringBuilder builder = new StringBuilder();
+        quantityCache.getStatistics().entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> -entry.getValue().getTotalTime()))
+                .forEach(entry -> builder.append(entry.getKey()).append(" ").append(entry.getValue()).append("\n"));
+        return builder.toString();
+    }
+
+    @Override
+    public String clearStatistics() {
+        quantityCache.clearStatistics();
+        return "Done";
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Manages cache of app folder quantities")
+public interface AppFolderQuantityCacheMBean {
+
+    @ManagedAttribute(description = "Time in seconds during which quantities are cached, 0 if caching is disabled")
+    int getTtlSec();
+
+    @ManagedAttribute(description = "Current number of cached quantities")
+    int getSize();
+
+    @ManagedOperation(description = "Discard all cached quantities")
+    String clear();
+
+    @ManagedOperation(description = "Print timing statistics of quantity scripts by folder")
+    String printStatistics();
+
+    @ManagedOperation(description = "Reset timing statistics of quantity scripts")
+    String clearStatistics();
+}
@@ -30,6 +30,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
 import java.util.Collection;
@@ -53,6 +54,51 @@ public class FileStorage implements FileStorageMBean {
         }
     }
 
+    @Override
+    public int getReplicationQueueSize() {
+        com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage = getFileStorage();
+        return fileStorage != null ? fileStorage.getReplicationQueueSize() : 0;
+    }
+
+    @Override
+    public int getActiveReplicationsCount() {
+        com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage = getFileStorage();
+        return fileStorage != null ? fileStorage.getActiveReplicationsCount() : 0;
+    }
+
+    @Override
+    public long getReplicatedCount() {
+        com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage = getFileStorage();
+        return fileStorage != null ? fileStorage.getReplicatedCount() : 0;
+    }
+
+    @Override
+    public long getReplicationFailedCount() {
+        com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage = getFileStorage();
+        return fileStorage != null ? fileStorage.getReplicationFailedCount() : 0;
+    }
+
+    @Override
+    public long getReplicationCallerRunsCount() {
+        com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage = getFileStorage();
+        return fileStorage != null ? fileStorage.getReplicationCallerRunsCount() : 0;
+    }
+
+    @Override
+    public int getLogQueueSize() {
+        com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage = getFileStorage();
+        return fileStorage != null ? fileStorage.getLogQueueSize() : 0;
+    }
+
+    @Nullable
+    protected com.haulmont.cuba.core.app.filestorage.FileStorage getFileStorage() {
+        FileStorageAPI fileStorageAPI = AppBeans.get(FileStorageAPI.class);
+        if (fileStorageAPI instanceof com.haulmont.cuba.core.app.filestorage.FileStorage) {
+            return (com.haulmont.cuba.core.app.filestorage.FileStorage) fileStorageAPI;
+        }
+        return null;
+    }
+
     @Override
     public String findOrphanDescriptors() {
         com.haulmont.cuba.core.app.filestorage.FileStorage fileStorage;
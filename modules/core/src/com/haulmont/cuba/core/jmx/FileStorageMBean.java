@@ -38,4 +38,34 @@ public interface FileStorageMBean {
      * @return the list of files in the storage which have no corresponding descriptors in the database
      */
     String findOrphanFiles();
+
+    /**
+     * @return number of files waiting to be copied to secondary storage roots
+     */
+    int getReplicationQueueSize();
+
+    /**
+     * @return number of files being copied to secondary storage roots at the moment
+     */
+    int getActiveReplicationsCount();
+
+    /**
+     * @return number of files successfully copied to secondary storage roots
+     */
+    long getReplicatedCount();
+
+    /**
+     * @return number of failed copies to secondary storage roots
+     */
+    long getReplicationFailedCount();
+
+    /**
+     * @return number of copies performed synchronously because the replication queue was full
+     */
+    long getReplicationCallerRunsCount();
+
+    /**
+     * @return number of records waiting to be written to storage logs
+     */
+    int getLogQueueSize();
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import com.haulmont.cuba.core.app.localfts.LocalFtsIndex;
+import com.haulmont.cuba.core.app.localfts.LocalFtsSender;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.List;
+
+@Component("cuba_LocalFtsManagerMBean")
+public class LocalFtsManager implements LocalFtsManagerMBean {
+
+    protected static final int MAX_SEARCH_RESULTS = 100;
+
+    @Inject
+    protected LocalFtsSender sender;
+
+    @Inject
+    protected LocalFtsIndex index;
+
+    @Override
+    public boolean isEnabled() {
+        return sender.isEnabled();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return sender.getQueueSize();
+    }
+
+    @Override
+    public String getStaleEntities() {
+        return String.join(", ", sender.getStaleEntities());
+    }
+
+    @Override
+    public String printIndexedCounts() {
+        StringBuilder builder = new StringBuilder();
+        index.getIndexedCounts().forEach((entityName, count) ->
+                builder.append(entityName).append(": ").append(count).append("\n"));
+        return builder.toString();
+    }
+
+    @Override
+    public String rebuild(String entityName) {
+        try {
+            sender.rebuild(entityName);
+            return "Done";
+        } catch (Exception e) {
+            return ExceptionUtils.getStackTrace(e);
+        }
+    }
+
+    @Override
+    public String rebuildAll() {
+        try {
+            sender.initDefault();
+            return "Done";
+        } catch (Exception e) {
+            return ExceptionUtils.getStackTrace(e);
+        }
+    }
+
+    @Override
+    public String search(String entityName, String text) {
+        List<Object> ids = index.search(entityName, text, MAX_SEARCH_RESULTS);
+        StringBuilder builder = new StringBuilder("Found: ").append(ids.size()).append("\n");
+        for (Object id : ids) {
+            builder.append(id).append("\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.jmx;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Manages the built-in local full-text index")
+public interface LocalFtsManagerMBean {
+
+    @ManagedAttribute(description = "Whether the local full-text index is used")
+    boolean isEnabled();
+
+    @ManagedAttribute(description = "Number of changed entities waiting for indexing")
+    int getQueueSize();
+
+    @ManagedAttribute(description = "Entities whose index misses some changes and should be rebuilt")
+    String getStaleEntities();
+
+    @ManagedOperation(description = "Print number of indexed instances by entity")
+    String printIndexedCounts();
+
+    @ManagedOperation(description = "Rebuild index of the entity")
+    @ManagedOperationParameters({@ManagedOperationParameter(name = "entityName", description = "")})
+    String rebuild(String entityName);
+
+    @ManagedOperation(description = "Rebuild indexes of all indexed entities")
+    String rebuildAll();
+
+    @ManagedOperation(description = "Search the index")
+    @ManagedOperationParameters({
+            @ManagedOperationParameter(name = "entityName", description = ""),
+            @ManagedOperationParameter(name = "text", description = "")})
+    String search(String entityName, String text);
+}
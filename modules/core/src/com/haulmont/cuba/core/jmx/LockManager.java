@@ -18,6 +18,8 @@
 package com.haulmont.cuba.core.jmx;
 
 import com.haulmont.cuba.core.app.LockManagerAPI;
+import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.app.locking.LockStatistics;
 import com.haulmont.cuba.core.global.LockInfo;
 
 import org.springframework.stereotype.Component;
@@ -29,6 +31,12 @@ public class LockManager implements LockManagerMBean {
     @Inject
     protected LockManagerAPI lockManager;
 
+    @Inject
+    protected LockStatistics statistics;
+
+    @Inject
+    protected ServerConfig serverConfig;
+
     @Override
     public int getLockCount() {
         return lockManager.getCurrentLocks().size();
@@ -48,4 +56,49 @@ public class LockManager implements LockManagerMBean {
     public void reloadConfiguration() {
         lockManager.reloadConfiguration();
     }
+
+    @Override
+    public String getBackend() {
+        return serverConfig.getLockBackend();
+    }
+
+    @Override
+    public long getAcquiredCount() {
+        return statistics.getAcquiredCount();
+    }
+
+    @Override
+    public long getConflictsCount() {
+        return statistics.getConflictsCount();
+    }
+
+    @Override
+    public long getReleasedCount() {
+        return statistics.getReleasedCount();
+    }
+
+    @Override
+    public long getExpiredCount() {
+        return statistics.getExpiredCount();
+    }
+
+    @Override
+    public double getAvgLockTime() {
+        return statistics.getAvgLockTime();
+    }
+
+    @Override
+    public long getMaxLockTime() {
+        return statistics.getMaxLockTime();
+    }
+
+    @Override
+    public double getAvgHoldTime() {
+        return statistics.getAvgHoldTime();
+    }
+
+    @Override
+    public void resetStatistics() {
+        statistics.reset();
+    }
 }
\ No newline at end of file
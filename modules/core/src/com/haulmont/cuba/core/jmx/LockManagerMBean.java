@@ -27,4 +27,34 @@ public interface LockManagerMBean {
     String showLocks();
 
     void reloadConfiguration();
+
+    /**
+     * @return name of the lock backend bean
+     */
+    String getBackend();
+
+    long getAcquiredCount();
+
+    long getConflictsCount();
+
+    long getReleasedCount();
+
+    long getExpiredCount();
+
+    /**
+     * @return average time of a lock attempt in milliseconds
+     */
+    double getAvgLockTime();
+
+    /**
+     * @return maximum time of a lock attempt in milliseconds
+     */
+    long getMaxLockTime();
+
+    /**
+     * @return average time in milliseconds between locking and unlocking
+     */
+    double getAvgHoldTime();
+
+    void resetStatistics();
 }
@@ -93,6 +93,16 @@ public class Scheduling implements SchedulingMBean {
         }
     }
 
+    @Override
+    public String reloadScheduledTasks() {
+        try {
+            scheduling.reloadTasks();
+            return "Done";
+        } catch (Throwable e) {
+            return ExceptionUtils.getStackTrace(e);
+        }
+    }
+
     @Authenticated
     @Override
     public String removeExecutionHistory(String age, String maxPeriod) {
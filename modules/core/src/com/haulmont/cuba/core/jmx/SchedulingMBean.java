@@ -47,6 +47,9 @@ public interface SchedulingMBean {
     @ManagedOperation(description = "Starts the processing once, regardless of 'active' attribute")
     String processScheduledTasks();
 
+    @ManagedOperation(description = "Re-reads definitions of active scheduled tasks on all servers of the cluster")
+    String reloadScheduledTasks();
+
     @ManagedOperation(description = "Removes executions occurred earlier than 'age' for tasks with period lesser than 'maxPeriod'")
     @ManagedOperationParameters({
             @ManagedOperationParameter(name = "age", description = "Execution age in hours"),
@@ -16,8 +16,10 @@
  */
 package com.haulmont.cuba.core.jmx;
 
+import com.google.common.cache.CacheStats;
 import com.haulmont.cuba.core.Persistence;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.core.sys.AbstractScripting;
 import com.haulmont.cuba.security.app.Authenticated;
 import groovy.lang.Binding;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -26,6 +28,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
 
 @Component("cuba_ScriptingManagerMBean")
 public class ScriptingManager implements ScriptingManagerMBean {
@@ -52,6 +55,42 @@ public class ScriptingManager implements ScriptingManagerMBean {
         return configuration.getConfig(GlobalConfig.class).getConfDir();
     }
 
+    @Override
+    public long getCompiledScriptsCount() {
+        return scripting instanceof AbstractScripting ? ((AbstractScripting) scripting).getCompiledScriptsCount() : 0;
+    }
+
+    @Override
+    public long getCompiledScriptsHitCount() {
+        return getCompiledScriptsStats().hitCount();
+    }
+
+    @Override
+    public long getCompilationCount() {
+        return getCompiledScriptsStats().loadCount();
+    }
+
+    @Override
+    public long getTotalCompilationTime() {
+        return TimeUnit.NANOSECONDS.toMillis(getCompiledScriptsStats().totalLoadTime());
+    }
+
+    @Override
+    public long getCompiledScriptsEvictionCount() {
+        return getCompiledScriptsStats().evictionCount();
+    }
+
+    @Override
+    public void clearCache() {
+        scripting.clearCache();
+    }
+
+    protected CacheStats getCompiledScriptsStats() {
+        return scripting instanceof AbstractScripting
+                ? ((AbstractScripting) scripting).getCompiledScriptsStats()
+                : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
     @Authenticated
     @Override
     public String runGroovyScript(String scriptName) {
@@ -16,6 +16,7 @@
  */
 package com.haulmont.cuba.core.jmx;
 
+import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedOperationParameter;
 import org.springframework.jmx.export.annotation.ManagedOperationParameters;
@@ -30,6 +31,24 @@ public interface ScriptingManagerMBean {
 
     String getRootPath();
 
+    @ManagedAttribute(description = "Number of compiled Groovy expressions held in the cache")
+    long getCompiledScriptsCount();
+
+    @ManagedAttribute(description = "Number of Groovy expression evaluations that used a cached compiled class")
+    long getCompiledScriptsHitCount();
+
+    @ManagedAttribute(description = "Number of Groovy expressions compiled since the start or the last cache clearing")
+    long getCompilationCount();
+
+    @ManagedAttribute(description = "Total time of Groovy expressions compilation, ms")
+    long getTotalCompilationTime();
+
+    @ManagedAttribute(description = "Number of compiled Groovy expressions evicted from the cache")
+    long getCompiledScriptsEvictionCount();
+
+    @ManagedOperation(description = "Clear caches of compiled Groovy scripts and expressions")
+    void clearCache();
+
     @ManagedOperation(description = "Execute a Groovy script. Binding contains variables: persistence, metadata, configuration")
     @ManagedOperationParameters(
             {@ManagedOperationParameter(name = "scriptName",
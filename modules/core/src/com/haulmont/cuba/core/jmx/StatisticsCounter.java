@@ -106,6 +106,21 @@ public class StatisticsCounter implements StatisticsCounterMBean {
         return accumulator.getImplicitFlushCount();
     }
 
+    @Override
+    public Long getFlushCount() {
+        return accumulator.getFlushCount();
+    }
+
+    @Override
+    public Long getFlushVisitedEntitiesCount() {
+        return accumulator.getFlushVisitedEntitiesCount();
+    }
+
+    @Override
+    public double getAvgFlushVisitedEntities() {
+        return accumulator.getAvgFlushVisitedEntities();
+    }
+
     @Override
     public int getDbConnectionPoolNumActive() {
         connectionPoolInfo = getConnectionPoolInfo();
@@ -47,6 +47,12 @@ public interface StatisticsCounterMBean {
 
     Long getImplicitFlushCount();
 
+    Long getFlushCount();
+
+    Long getFlushVisitedEntitiesCount();
+
+    double getAvgFlushVisitedEntities();
+
     int getDbConnectionPoolNumActive();
 
     int getDbConnectionPoolNumIdle();
@@ -175,6 +175,8 @@ public class EntityManagerImpl implements EntityManager {
             delegate.remove(entity);
             if (entity instanceof BaseGenericIdEntity) {
                 BaseEntityInternalAccess.setRemoved((BaseGenericIdEntity) entity, true);
+                // removal is not reported by the attribute change listener
+                support.registerChangedInstance(entity, this);
             }
         }
     }
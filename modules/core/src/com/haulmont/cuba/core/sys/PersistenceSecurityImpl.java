@@ -31,13 +31,17 @@ import com.haulmont.cuba.core.app.AttributeSecuritySupport;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.jpql.JpqlSyntaxException;
+import com.haulmont.cuba.security.app.group.GroovyConstraintPredicate;
 import com.haulmont.cuba.security.entity.ConstraintOperationType;
 import com.haulmont.cuba.security.entity.EntityOp;
 import com.haulmont.cuba.security.global.UserSession;
+import com.haulmont.cuba.security.group.AccessConstraint;
 import com.haulmont.cuba.security.group.ConstraintValidationResult;
 import com.haulmont.cuba.security.group.JpqlAccessConstraint;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import groovy.lang.Binding;
+import groovy.lang.Script;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.runtime.MethodClosure;
@@ -49,6 +53,7 @@ import java.io.Serializable;
 import java.text.ParseException;
 import java.util.*;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -136,10 +141,15 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public boolean filterByConstraints(Collection<Entity> entities) {
+        if (entities.isEmpty()) {
+            return false;
+        }
+
+        InMemoryConstraintsChecker checker = new InMemoryConstraintsChecker();
         boolean filtered = false;
         for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext(); ) {
             Entity entity = iterator.next();
-            if (isNotPermittedInMemory(entity)) {
+            if (!checker.isPermitted(entity)) {
                 //we ignore situations when the collection is immutable
                 iterator.remove();
                 filtered = true;
@@ -166,13 +176,14 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public void calculateFilteredData(Entity entity) {
-        calculateFilteredData(entity, new HashSet<>(), false);
+        calculateFilteredData(entity, new HashSet<>(), false, new InMemoryConstraintsChecker());
     }
 
     @Override
     public void calculateFilteredData(Collection<Entity> entities) {
         Set<EntityId> handled = new LinkedHashSet<>();
-        entities.forEach(entity -> calculateFilteredData(entity, handled, false));
+        InMemoryConstraintsChecker checker = new InMemoryConstraintsChecker();
+        entities.forEach(entity -> calculateFilteredData(entity, handled, false, checker));
     }
 
     @Override
@@ -342,13 +353,18 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
         }
     }
 
-    @SuppressWarnings("unchecked")
     protected boolean calculateFilteredData(Entity entity, Set<EntityId> handled, boolean checkPermitted) {
+        return calculateFilteredData(entity, handled, checkPermitted, new InMemoryConstraintsChecker());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected boolean calculateFilteredData(Entity entity, Set<EntityId> handled, boolean checkPermitted,
+                                            InMemoryConstraintsChecker checker) {
         if (referenceToEntitySupport.getReferenceId(entity) == null) {
             return false;
         }
         MetaClass metaClass = entity.getMetaClass();
-        if (isNotPermittedInMemory(entity) && checkPermitted) {
+        if (checkPermitted && !checker.isPermitted(entity)) {
             return true;
         }
         EntityId entityId = new EntityId(referenceToEntitySupport.getReferenceId(entity), metaClass.getName());
@@ -364,7 +380,7 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
                     if (value instanceof Collection) {
                         Set filtered = new LinkedHashSet();
                         for (Entity item : (Collection<Entity>) value) {
-                            if (calculateFilteredData(item, handled, true)) {
+                            if (calculateFilteredData(item, handled, true, checker)) {
                                 filtered.add(referenceToEntitySupport.getReferenceId(item));
                             }
                         }
@@ -373,7 +389,7 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
                         }
                     } else if (value instanceof Entity) {
                         Entity valueEntity = (Entity) value;
-                        if (calculateFilteredData(valueEntity, handled, true)) {
+                        if (calculateFilteredData(valueEntity, handled, true, checker)) {
                             securityTokenManager.addFiltered(baseGenericIdEntity, property.getName(),
                                     referenceToEntitySupport.getReferenceId(valueEntity));
                         }
@@ -420,10 +436,14 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
 
     @Override
     public Object evaluateConstraintScript(Entity entity, String groovyScript) {
+        return evaluateConstraintScript(entity, groovyScript, e -> runGroovyScript(e, groovyScript));
+    }
+
+    protected boolean evaluateConstraintScript(Entity entity, String groovyScript, Function<Entity, Object> evaluator) {
         String metaClassName = entity.getMetaClass().getName();
         if (StringUtils.isNotBlank(groovyScript)) {
             try {
-                Object result = runGroovyScript(entity, groovyScript);
+                Object result = evaluator.apply(entity);
                 if (Boolean.FALSE.equals(result)) {
                     log.trace("Entity does not match security constraint. Entity class [{}]. Entity [{}].",
                             metaClassName, entity.getId());
@@ -454,12 +474,17 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
     }
 
     protected Object runGroovyScript(Entity entity, String groovyScript) {
-        Map<String, Object> context = new HashMap<>();
+        Map<String, Object> context = createGroovyConstraintsContext();
         context.put("__entity__", entity);
+        return scripting.evaluateGroovy(groovyScript.replace("{E}", "__entity__"), context);
+    }
+
+    protected Map<String, Object> createGroovyConstraintsContext() {
+        Map<String, Object> context = new HashMap<>();
         context.put("parse", new MethodClosure(this, "parseValue"));
         context.put("userSession", userSessionSource.getUserSession());
         fillGroovyConstraintsContext(context);
-        return scripting.evaluateGroovy(groovyScript.replace("{E}", "__entity__"), context);
+        return context;
     }
 
     /**
@@ -503,6 +528,96 @@ public class PersistenceSecurityImpl extends SecurityImpl implements Persistence
         }
     }
 
+    /**
+     * Checks in-memory READ constraints of entities during a bulk operation. Constraints of each entity class are
+     * resolved once, Groovy constraints are evaluated by compiled scripts with a reused binding.
+     * Must be used by a single thread.
+     */
+    protected class InMemoryConstraintsChecker {
+
+        protected final Map<MetaClass, Predicate<Entity>> predicates = new HashMap<>();
+        protected final Map<String, ConstraintScript> scripts = new HashMap<>();
+        protected Map<String, Object> context;
+
+        public boolean isPermitted(Entity entity) {
+            return predicates.computeIfAbsent(entity.getMetaClass(), this::createPredicate).test(entity);
+        }
+
+        @SuppressWarnings("unchecked")
+        protected Predicate<Entity> createPredicate(MetaClass metaClass) {
+            List<Predicate<Entity>> constraintPredicates = new ArrayList<>();
+            getConstraints(metaClass)
+                    .filter(c -> c.isInMemory() && c.getOperation() == EntityOp.READ)
+                    .map(AccessConstraint::getPredicate)
+                    .forEach(predicate -> {
+                        if (predicate instanceof GroovyConstraintPredicate) {
+                            String groovyScript = ((GroovyConstraintPredicate) predicate).getGroovyScript();
+                            constraintPredicates.add(scripts.computeIfAbsent(groovyScript, ConstraintScript::new));
+                        } else {
+                            constraintPredicates.add((Predicate<Entity>) predicate);
+                        }
+                    });
+
+            if (constraintPredicates.isEmpty()) {
+                return entity -> true;
+            }
+            if (constraintPredicates.size() == 1) {
+                return constraintPredicates.get(0);
+            }
+            return entity -> {
+                for (Predicate<Entity> predicate : constraintPredicates) {
+                    if (!predicate.test(entity)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        /**
+         * Creates a new binding for each evaluation, so variables set by a script are not visible to other
+         * scripts and entities. Only the context variables are prepared once per operation.
+         */
+        protected Binding createBinding(Entity entity) {
+            if (context == null) {
+                context = createGroovyConstraintsContext();
+            }
+            Map<String, Object> variables = new HashMap<>(context);
+            variables.put("__entity__", entity);
+            return new Binding(variables);
+        }
+
+        protected class ConstraintScript implements Predicate<Entity> {
+
+            protected final String groovyScript;
+            protected final String text;
+            protected Script script;
+
+            protected ConstraintScript(String groovyScript) {
+                this.groovyScript = groovyScript;
+                this.text = groovyScript.replace("{E}", "__entity__");
+            }
+
+            @Override
+            public boolean test(Entity entity) {
+                return evaluateConstraintScript(entity, groovyScript, this::run);
+            }
+
+            protected Object run(Entity entity) {
+                Binding binding = createBinding(entity);
+                if (!(scripting instanceof AbstractScripting)) {
+                    return scripting.evaluateGroovy(text, binding);
+                }
+                if (script == null) {
+                    script = ((AbstractScripting) scripting).createCachedScript(text, binding);
+                } else {
+                    script.setBinding(binding);
+                }
+                return script.run();
+            }
+        }
+    }
+
     protected static class EntityId {
         Object id;
         String metaClassName;
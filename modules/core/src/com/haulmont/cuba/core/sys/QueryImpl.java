@@ -746,11 +746,13 @@ public class QueryImpl<T> implements TypedQuery<T> {
                     return result;
                 }
             }
+            // results loaded concurrently with an invalidation are not cached
+            long cacheVersion = queryCacheMgr.getVersion();
             try {
                 result = singleResult ? jpaQuery.getSingleResult() : jpaQuery.getResultList();
             } catch (NoResultException | NonUniqueResultException ex) {
                 if (useQueryCache && singleResult) {
-                    queryCacheMgr.putResultToCache(queryKey, null, entityName, parser.getAllEntityNames(), ex);
+                    queryCacheMgr.putResultToCache(queryKey, null, entityName, parser.getAllEntityNames(), ex, cacheVersion);
                 }
                 throw ex;
             }
@@ -758,7 +760,7 @@ public class QueryImpl<T> implements TypedQuery<T> {
             if (useQueryCache) {
                 queryCacheMgr.putResultToCache(queryKey,
                         singleResult ? Collections.singletonList(result) : (List) result,
-                        entityName, parser.getAllEntityNames());
+                        entityName, parser.getAllEntityNames(), cacheVersion);
             }
         } else {
             result = singleResult ? jpaQuery.getSingleResult() : jpaQuery.getResultList();
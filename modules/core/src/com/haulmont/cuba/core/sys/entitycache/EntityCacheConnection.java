@@ -17,32 +17,51 @@
 
 package com.haulmont.cuba.core.sys.entitycache;
 
+import com.haulmont.bali.datastruct.Pair;
 import com.haulmont.bali.util.ReflectionHelper;
 import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.cuba.core.app.ClusterInvalidationBus;
 import com.haulmont.cuba.core.app.ClusterListenerAdapter;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.Metadata;
 import org.eclipse.persistence.internal.helper.Helper;
+import org.eclipse.persistence.internal.sessions.ObjectChangeSet;
 import org.eclipse.persistence.internal.sessions.UnitOfWorkChangeSet;
 import org.eclipse.persistence.internal.sessions.coordination.broadcast.BroadcastRemoteConnection;
+import org.eclipse.persistence.sessions.Session;
 import org.eclipse.persistence.sessions.coordination.MergeChangeSetCommand;
 import org.eclipse.persistence.sessions.coordination.RemoteCommandManager;
 
+import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Connection of the EclipseLink cache coordination that sends commands through {@link ClusterManagerAPI}.
+ * <p>
+ * Merge commands are reduced to ids of changed entities, because the entity cache is configured to invalidate
+ * changed objects. The ids are coalesced by {@link ClusterInvalidationBus} and sent in batches.
+ */
 public class EntityCacheConnection extends BroadcastRemoteConnection {
 
+    /**
+     * Cluster invalidation region. Keys are pairs of entity class name and id.
+     */
+    public static final String CACHE_REGION = "cuba.entityCache";
+
     protected Metadata metadata;
     protected QueryCacheManager queryCacheManager;
     protected ClusterManagerAPI clusterManager;
+    protected ClusterInvalidationBus invalidationBus;
 
     public EntityCacheConnection(RemoteCommandManager rcm, ClusterManagerAPI clusterManager) {
         super(rcm);
         this.metadata = AppBeans.get(Metadata.NAME);
         this.queryCacheManager = AppBeans.get(QueryCacheManager.NAME);
+        this.invalidationBus = AppBeans.get(ClusterInvalidationBus.NAME);
         this.clusterManager = clusterManager;
         rcm.logDebug("creating_broadcast_connection", getInfo());
         try {
@@ -52,6 +71,17 @@ public class EntityCacheConnection extends BroadcastRemoteConnection {
                     onMessage(message);
                 }
             });
+            this.invalidationBus.addHandler(CACHE_REGION, new ClusterInvalidationBus.Handler() {
+                @Override
+                public void invalidate(Collection<Serializable> keys) {
+                    onInvalidate(keys);
+                }
+
+                @Override
+                public void invalidateAll() {
+                    onInvalidateAll();
+                }
+            });
             rcm.logDebug("broadcast_connection_created", getInfo());
         } catch (RuntimeException ex) {
             rcm.logDebug("failed_to_create_broadcast_connection", getInfo());
@@ -70,6 +100,17 @@ public class EntityCacheConnection extends BroadcastRemoteConnection {
 
     @Override
     protected Object executeCommandInternal(Object command) {
+        if (command instanceof MergeChangeSetCommand) {
+            Set<Serializable> keys = getInvalidatedKeys((MergeChangeSetCommand) command);
+            if (keys != null) {
+                if (queryCacheManager.isEnabled()) {
+                    invalidateQueryCache(command);
+                }
+                invalidationBus.invalidate(CACHE_REGION, keys);
+                return null;
+            }
+        }
+
         Message message = new Message(command);
 
         Object[] debugInfo = null;
@@ -102,6 +143,58 @@ public class EntityCacheConnection extends BroadcastRemoteConnection {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    protected void onInvalidate(Collection<Serializable> keys) {
+        Session session = (Session) rcm.getCommandProcessor();
+        Set<String> typeNames = new HashSet<>();
+        for (Serializable key : keys) {
+            Pair<String, Object> pair = (Pair<String, Object>) key;
+            Class<?> javaClass = ReflectionHelper.getClass(pair.getFirst());
+            session.getIdentityMapAccessor().invalidateObject(pair.getSecond(), javaClass);
+
+            MetaClass metaClass = metadata.getClass(javaClass);
+            if (metaClass != null) {
+                typeNames.add(metadata.getExtendedEntities().getOriginalOrThisMetaClass(metaClass).getName());
+            }
+        }
+        if (queryCacheManager.isEnabled()) {
+            queryCacheManager.invalidate(typeNames, false);
+        }
+    }
+
+    protected void onInvalidateAll() {
+        Session session = (Session) rcm.getCommandProcessor();
+        session.getIdentityMapAccessor().invalidateAll();
+        queryCacheManager.invalidateAll(false);
+    }
+
+    /**
+     * Returns keys of changed objects, or null if the command cannot be replaced by invalidation of the objects.
+     */
+    @Nullable
+    protected Set<Serializable> getInvalidatedKeys(MergeChangeSetCommand command) {
+        UnitOfWorkChangeSet changeSet = command.getChangeSet(null);
+        if (changeSet == null || changeSet.getAllChangeSets() == null)
+            return null;
+
+        Set<Serializable> keys = new HashSet<>();
+        if (!addInvalidatedKeys(changeSet.getAllChangeSets().values(), keys))
+            return null;
+        if (changeSet.getDeletedObjects() != null && !addInvalidatedKeys(changeSet.getDeletedObjects().values(), keys))
+            return null;
+        return keys;
+    }
+
+    protected boolean addInvalidatedKeys(Collection<ObjectChangeSet> objectChangeSets, Set<Serializable> keys) {
+        for (ObjectChangeSet objectChangeSet : objectChangeSets) {
+            Object id = objectChangeSet.getId();
+            if (objectChangeSet.getClassName() == null || !(id instanceof Serializable))
+                return false;
+            keys.add(new Pair<>(objectChangeSet.getClassName(), id));
+        }
+        return true;
+    }
+
     @Override
     protected boolean areAllResourcesFreedOnClose() {
         return !isLocal();
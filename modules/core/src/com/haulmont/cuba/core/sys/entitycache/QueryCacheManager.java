@@ -17,13 +17,11 @@
 package com.haulmont.cuba.core.sys.entitycache;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Sets;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetadataObject;
 import com.haulmont.cuba.core.EntityManager;
 import com.haulmont.cuba.core.Persistence;
-import com.haulmont.cuba.core.app.ClusterListenerAdapter;
-import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.core.app.ClusterInvalidationBus;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.View;
@@ -47,7 +45,7 @@ public class QueryCacheManager {
     @Inject
     protected QueryCacheConfig queryCacheConfig;
     @Inject
-    protected ClusterManagerAPI clusterManager;
+    protected ClusterInvalidationBus invalidationBus;
     @Inject
     protected Persistence persistence;
     @Inject
@@ -57,22 +55,44 @@ public class QueryCacheManager {
 
     protected static final Logger log = LoggerFactory.getLogger(QueryCacheManager.class);
 
+    /**
+     * Cluster invalidation region. Keys are entity names and {@link QueryKey}s.
+     */
+    public static final String CACHE_REGION = "cuba.queryCache";
+
     @PostConstruct
     public void init() {
-        clusterManager.addListener(InvalidateQueryCacheMsg.class, new ClusterListenerAdapter<InvalidateQueryCacheMsg>() {
+        invalidationBus.addHandler(CACHE_REGION, new ClusterInvalidationBus.Handler() {
             @Override
-            public void receive(InvalidateQueryCacheMsg message) {
-                if (message.invalidateAll) {
-                    queryCache.invalidateAll();
-                } else if (message.queryKey != null) {
-                    queryCache.invalidate(message.queryKey);
-                } else {
-                    queryCache.invalidate(message.typeNames);
+            public void invalidate(Collection<Serializable> keys) {
+                Set<String> typeNames = new HashSet<>();
+                for (Serializable key : keys) {
+                    if (key instanceof QueryKey) {
+                        queryCache.invalidate((QueryKey) key);
+                    } else {
+                        typeNames.add((String) key);
+                    }
+                }
+                if (!typeNames.isEmpty()) {
+                    queryCache.invalidate(typeNames);
                 }
             }
+
+            @Override
+            public void invalidateAll() {
+                queryCache.invalidateAll();
+            }
         });
     }
 
+    /**
+     * Returns the number of invalidations of the query cache. A result should not be put into the cache if the
+     * version has changed since the query was executed.
+     */
+    public long getVersion() {
+        return invalidationBus.getVersion(CACHE_REGION);
+    }
+
     /**
      * Returns true if query cache enabled
      */
@@ -141,8 +161,22 @@ public class QueryCacheManager {
      * @param type         - result entity type (metaClass name)
      * @param relatedTypes - query dependent types (metaClass names). It's a list of entity types used in query
      */
-    @SuppressWarnings("unchecked")
     public void putResultToCache(QueryKey queryKey, List resultList, String type, Set<String> relatedTypes) {
+        putResultToCache(queryKey, resultList, type, relatedTypes, getVersion());
+    }
+
+    /**
+     * Put query results into query cache for specified query {@code queryKey} if the cache has not been
+     * invalidated since the query was executed.
+     *
+     * @param version - value of {@link #getVersion()} obtained before executing the query
+     */
+    @SuppressWarnings("unchecked")
+    public void putResultToCache(QueryKey queryKey, List resultList, String type, Set<String> relatedTypes, long version) {
+        if (version != getVersion()) {
+            log.debug("Query cache has been invalidated, results are not cached for query: {}", queryKey.printDescription());
+            return;
+        }
         QueryResult queryResult;
         if (resultList.size() > 0) {
             List idList = (List) resultList.stream()
@@ -165,8 +199,22 @@ public class QueryCacheManager {
      * @param relatedTypes - query dependent types (metaClass names). It's a list of entity types used in query
      * @param exception    - store exception in the query cache if {@link TypedQuery#getSingleResult()} throws exception
      */
-    @SuppressWarnings("unchecked")
     public <T> void putResultToCache(QueryKey queryKey, T result, String type, Set<String> relatedTypes, RuntimeException exception) {
+        putResultToCache(queryKey, result, type, relatedTypes, exception, getVersion());
+    }
+
+    /**
+     * Put query results into query cache for specified query {@code queryKey} if the cache has not been
+     * invalidated since the query was executed.
+     *
+     * @param version - value of {@link #getVersion()} obtained before executing the query
+     */
+    public <T> void putResultToCache(QueryKey queryKey, T result, String type, Set<String> relatedTypes,
+                                     RuntimeException exception, long version) {
+        if (version != getVersion()) {
+            log.debug("Query cache has been invalidated, results are not cached for query: {}", queryKey.printDescription());
+            return;
+        }
         QueryResult queryResult;
         if (exception == null) {
             queryResult = new QueryResult(Collections.singletonList(((BaseGenericIdEntity) result).getId()), type, relatedTypes);
@@ -197,10 +245,11 @@ public class QueryCacheManager {
     public void invalidate(String typeName, boolean sendInCluster) {
         if (isEnabled()) {
             queryCache.invalidate(typeName);
+            invalidationBus.incrementVersion(CACHE_REGION);
             if (sendInCluster) {
                 MetaClass metaClass = metadata.getClass(typeName);
                 if (metaClass != null && metadata.getTools().isCacheable(metaClass)) {
-                    clusterManager.send(new InvalidateQueryCacheMsg(Sets.newHashSet(typeName)));
+                    invalidationBus.invalidate(CACHE_REGION, typeName);
                 }
             }
         }
@@ -215,13 +264,14 @@ public class QueryCacheManager {
         if (isEnabled()) {
             if (typeNames != null && typeNames.size() > 0) {
                 queryCache.invalidate(typeNames);
+                invalidationBus.incrementVersion(CACHE_REGION);
                 if (sendInCluster) {
                     boolean hasCacheable = typeNames.stream().anyMatch(typeName -> {
                         MetaClass metaClass = metadata.getClass(typeName);
                         return metaClass != null && metadata.getTools().isCacheable(metaClass);
                     });
                     if (hasCacheable) {
-                        clusterManager.send(new InvalidateQueryCacheMsg(typeNames));
+                        invalidationBus.invalidate(CACHE_REGION, typeNames);
                     }
                 }
             }
@@ -237,8 +287,9 @@ public class QueryCacheManager {
         Preconditions.checkNotNull(queryId, "Query identifier is null");
         if (isEnabled()) {
             QueryKey queryKey = queryCache.invalidate(queryId);
+            invalidationBus.incrementVersion(CACHE_REGION);
             if (queryKey != null && sendInCluster) {
-                clusterManager.send(new InvalidateQueryCacheMsg(queryKey));
+                invalidationBus.invalidate(CACHE_REGION, queryKey);
             }
         }
     }
@@ -251,8 +302,9 @@ public class QueryCacheManager {
     public void invalidateAll(boolean sendInCluster) {
         if (isEnabled()) {
             queryCache.invalidateAll();
+            invalidationBus.incrementVersion(CACHE_REGION);
             if (sendInCluster) {
-                clusterManager.send(new InvalidateQueryCacheMsg(true));
+                invalidationBus.invalidateAll(CACHE_REGION);
             }
         }
     }
@@ -272,24 +324,4 @@ public class QueryCacheManager {
         });
         return newRelatedTypes;
     }
-
-    protected static class InvalidateQueryCacheMsg implements Serializable {
-        private static final long serialVersionUID = -9099037380378341477L;
-
-        protected Set<String> typeNames;
-        protected QueryKey queryKey;
-        protected boolean invalidateAll;
-
-        public InvalidateQueryCacheMsg(Set<String> typeNames) {
-            this.typeNames = typeNames;
-        }
-
-        public InvalidateQueryCacheMsg(boolean invalidateAll) {
-            this.invalidateAll = invalidateAll;
-        }
-
-        public InvalidateQueryCacheMsg(QueryKey queryKey) {
-            this.queryKey = queryKey;
-        }
-    }
 }
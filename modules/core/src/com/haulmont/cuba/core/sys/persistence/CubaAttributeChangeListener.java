@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.persistence;
+
+import com.haulmont.cuba.core.entity.Entity;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.descriptors.changetracking.AttributeChangeListener;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+
+import javax.annotation.Nullable;
+import java.beans.PropertyChangeEvent;
+
+/**
+ * Attribute change listener that reports the first change of the entity after it has been processed on flush
+ * to the {@link PersistenceImplSupport.ContainerResourceHolder} of the transaction the entity is registered in.
+ * This way, flush processing visits only the instances changed since the previous flush instead of all managed
+ * instances.
+ * <p>
+ * The container is bound when the entity is registered in it, not taken from the current thread, because
+ * a managed entity of an outer transaction can be changed while a nested transaction is active.
+ */
+public class CubaAttributeChangeListener extends AttributeChangeListener {
+
+    protected final Object entity;
+
+    protected PersistenceImplSupport.ContainerResourceHolder container;
+
+    protected boolean changeRegistered;
+
+    public CubaAttributeChangeListener(ClassDescriptor descriptor, UnitOfWorkImpl uow, Object owner) {
+        super(descriptor, uow, owner);
+        this.entity = owner;
+    }
+
+    @Override
+    public void internalPropertyChange(PropertyChangeEvent evt) {
+        super.internalPropertyChange(evt);
+        // until the entity is registered in a container, it is processed by the next traversal anyway
+        if (!changeRegistered && container != null && entity instanceof Entity) {
+            container.registerChangedInstance((Entity) entity);
+            changeRegistered = true;
+        }
+    }
+
+    /**
+     * Binds the listener to the container of the transaction the entity is registered in.
+     */
+    public void setContainer(@Nullable PersistenceImplSupport.ContainerResourceHolder container) {
+        this.container = container;
+    }
+
+    /**
+     * Invoked when the entity is processed on flush, so the next change is reported again.
+     */
+    public void resetChangeRegistration() {
+        changeRegistered = false;
+    }
+}
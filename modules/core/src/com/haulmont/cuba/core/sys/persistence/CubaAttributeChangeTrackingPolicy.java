@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.sys.persistence;
+
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.changetracking.AttributeChangeTrackingPolicy;
+import org.eclipse.persistence.descriptors.changetracking.ChangeTracker;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+
+import java.beans.PropertyChangeListener;
+
+/**
+ * Attribute change tracking policy that installs {@link CubaAttributeChangeListener} to the managed instances.
+ */
+public class CubaAttributeChangeTrackingPolicy extends AttributeChangeTrackingPolicy {
+
+    private static final long serialVersionUID = -4617231486214436580L;
+
+    @Override
+    public PropertyChangeListener setChangeListener(Object clone, UnitOfWorkImpl uow, ClassDescriptor descriptor) {
+        CubaAttributeChangeListener listener = new CubaAttributeChangeListener(descriptor, uow, clone);
+        ((ChangeTracker) clone)._persistence_setPropertyChangeListener(listener);
+        return listener;
+    }
+}
@@ -20,6 +20,7 @@ package com.haulmont.cuba.core.sys.persistence;
 import com.haulmont.bali.datastruct.Pair;
 import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.impl.AbstractInstance;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
 import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.entity.SoftDelete;
 import com.haulmont.cuba.core.global.AppBeans;
@@ -37,6 +38,8 @@ import org.eclipse.persistence.config.CacheIsolationType;
 import org.eclipse.persistence.descriptors.ClassDescriptor;
 import org.eclipse.persistence.descriptors.DescriptorEventListener;
 import org.eclipse.persistence.descriptors.InheritancePolicy;
+import org.eclipse.persistence.descriptors.changetracking.AttributeChangeTrackingPolicy;
+import org.eclipse.persistence.descriptors.changetracking.ObjectChangePolicy;
 import org.eclipse.persistence.internal.descriptors.PersistenceObject;
 import org.eclipse.persistence.internal.weaving.PersistenceWeaved;
 import org.eclipse.persistence.internal.weaving.PersistenceWeavedFetchGroups;
@@ -97,6 +100,8 @@ public class EclipseLinkSessionEventListener extends SessionEventAdapter {
                 desc.getEventManager().addListener(descriptorEventListener);
             }
 
+            setChangeTrackingPolicy(desc);
+
             setAdditionalCriteria(desc);
 
             if (SoftDelete.class.isAssignableFrom(desc.getJavaClass())) {
@@ -119,6 +124,14 @@ public class EclipseLinkSessionEventListener extends SessionEventAdapter {
         logCheckResult(missingEnhancements);
     }
 
+    private void setChangeTrackingPolicy(ClassDescriptor desc) {
+        // report changes of managed instances to PersistenceImplSupport to process only changed instances on flush
+        ObjectChangePolicy changePolicy = desc.getObjectChangePolicyInternal();
+        if (changePolicy != null && changePolicy.getClass() == AttributeChangeTrackingPolicy.class) {
+            desc.setObjectChangePolicy(new CubaAttributeChangeTrackingPolicy());
+        }
+    }
+
     private void setAdditionalCriteria(ClassDescriptor desc) {
         Map<String, AdditionalCriteriaProvider> additionalCriteriaProviderMap = AppBeans.getAll(AdditionalCriteriaProvider.class);
 
@@ -183,6 +196,9 @@ public class EclipseLinkSessionEventListener extends SessionEventAdapter {
                 || desc.getCacheIsolation() == CacheIsolationType.SHARED
                 || desc.getCacheIsolation() == CacheIsolationType.PROTECTED) {
             metaClass.getAnnotations().put("cacheable", true);
+            if (metaClass instanceof MetaClassImpl) {
+                ((MetaClassImpl) metaClass).addTraits(MetaClassImpl.TRAIT_CACHEABLE);
+            }
             desc.getCachePolicy().setCacheCoordinationType(CacheCoordinationType.INVALIDATE_CHANGED_OBJECTS);
         }
     }
@@ -25,6 +25,7 @@ import com.haulmont.cuba.core.Persistence;
 import com.haulmont.cuba.core.app.FtsSender;
 import com.haulmont.cuba.core.app.MiddlewareStatisticsAccumulator;
 import com.haulmont.cuba.core.app.events.EntityChangedEvent;
+import com.haulmont.cuba.core.app.localfts.LocalFtsSender;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.entity.contracts.Id;
 import com.haulmont.cuba.core.global.*;
@@ -59,7 +60,6 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Component(PersistenceImplSupport.NAME)
 public class PersistenceImplSupport implements ApplicationContextAware {
@@ -96,6 +96,9 @@ public class PersistenceImplSupport implements ApplicationContextAware {
 
     protected volatile FtsSender ftsSender;
 
+    @Inject
+    protected LocalFtsSender localFtsSender;
+
     @Inject
     protected OrmCacheSupport ormCacheSupport;
 
@@ -151,6 +154,18 @@ public class PersistenceImplSupport implements ApplicationContextAware {
         getInstanceContainerResourceHolder(getStorageName(session)).registerInstanceForUnitOfWork(entity, (UnitOfWork) session);
     }
 
+    /**
+     * Registers a change of the managed instance that is not tracked by its attribute change listener,
+     * e.g. removal.
+     */
+    public void registerChangedInstance(Entity entity, EntityManager entityManager) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+            throw new RuntimeException("No transaction");
+
+        UnitOfWork unitOfWork = entityManager.getDelegate().unwrap(UnitOfWork.class);
+        getInstanceContainerResourceHolder(getStorageName(unitOfWork)).registerChangedInstance(entity);
+    }
+
     public Collection<Entity> getInstances(EntityManager entityManager) {
         if (!TransactionSynchronizationManager.isActualTransactionActive())
             throw new RuntimeException("No transaction");
@@ -219,60 +234,58 @@ public class PersistenceImplSupport implements ApplicationContextAware {
         }
     }
 
+    /**
+     * Processes instances registered or changed since the previous traversal. Instances without
+     * {@link CubaAttributeChangeListener} cannot report their changes, so they are processed on each traversal.
+     */
     protected void traverseEntities(ContainerResourceHolder container, EntityVisitor visitor, boolean warnAboutImplicitFlush) {
-        beforeStore(container, visitor, container.getAllInstances(), createEntitySet(), warnAboutImplicitFlush);
-    }
-
-    protected void beforeStore(ContainerResourceHolder container, EntityVisitor visitor,
-                               Collection<Entity> instances, Set<Entity> processed, boolean warnAboutImplicitFlush) {
-        boolean possiblyChanged = false;
-        Set<Entity> withoutPossibleChanges = createEntitySet();
-        for (Entity instance : instances) {
-            processed.add(instance);
-
-            if (!(instance instanceof ChangeTracker && instance instanceof BaseGenericIdEntity))
-                continue;
+        // instances that the visitor has processed as changed are not processed again in the same traversal
+        Set<Entity> changed = createEntitySet();
+        Set<Entity> postponed = createEntitySet();
+        int visitedCount = 0;
+
+        Collection<Entity> instances = container.pollChangedInstances();
+        while (!instances.isEmpty()) {
+            boolean possiblyChanged = false;
+            for (Entity instance : instances) {
+                if (!(instance instanceof ChangeTracker && instance instanceof BaseGenericIdEntity))
+                    continue;
+
+                if (changed.contains(instance)) {
+                    postponed.add(instance);
+                    continue;
+                }
 
-            BaseGenericIdEntity entity = (BaseGenericIdEntity) instance;
-            boolean result = visitor.visit(entity);
-            if (!result) {
-                withoutPossibleChanges.add(instance);
+                container.startTracking(instance);
+                visitedCount++;
+                if (visitor.visit((BaseGenericIdEntity) instance)) {
+                    changed.add(instance);
+                    possiblyChanged = true;
+                }
             }
-            possiblyChanged = result || possiblyChanged;
-        }
-        if (!possiblyChanged)
-            return;
-
-        if (warnAboutImplicitFlush) {
-            statisticsAccumulator.incImplicitFlushCount();
-            if (implicitFlushLog.isTraceEnabled()) {
-                implicitFlushLog.trace("Implicit flush due to query execution, see stack trace for the cause:\n"
-                        + StackTrace.asString());
-            } else {
-                implicitFlushLog.debug("Implicit flush due to query execution");
+            if (!possiblyChanged)
+                break;
+
+            if (warnAboutImplicitFlush) {
+                warnAboutImplicitFlush = false;
+                statisticsAccumulator.incImplicitFlushCount();
+                if (implicitFlushLog.isTraceEnabled()) {
+                    implicitFlushLog.trace("Implicit flush due to query execution, see stack trace for the cause:\n"
+                            + StackTrace.asString());
+                } else {
+                    implicitFlushLog.debug("Implicit flush due to query execution");
+                }
             }
-        }
 
-        Collection<Entity> afterProcessing = container.getAllInstances();
-        if (afterProcessing.size() > processed.size()) {
-            afterProcessing.removeAll(processed);
-            beforeStore(container, visitor, afterProcessing, processed, false);
+            // instances registered or changed by entity listeners
+            instances = container.pollChangedInstances();
         }
+        // changed again after processing, will be checked by the next traversal
+        container.changedInstances.addAll(postponed);
 
-        if (!withoutPossibleChanges.isEmpty()) {
-            afterProcessing = withoutPossibleChanges.stream()
-                    .filter(instance -> {
-                        ChangeTracker changeTracker = (ChangeTracker) instance;
-                        AttributeChangeListener changeListener =
-                                (AttributeChangeListener) changeTracker._persistence_getPropertyChangeListener();
-                        return changeListener != null
-                                && changeListener.hasChanges();
-                    })
-                    .collect(Collectors.toList());
-            if (!afterProcessing.isEmpty()) {
-                beforeStore(container, visitor, afterProcessing, processed, false);
-            }
-        }
+        statisticsAccumulator.incFlushCount(visitedCount);
+        if (log.isTraceEnabled())
+            log.trace("Traversed entities of " + container + ": visited=" + visitedCount + ", changed=" + changed.size());
     }
 
     public void detach(EntityManager entityManager, Entity entity) {
@@ -318,6 +331,16 @@ public class PersistenceImplSupport implements ApplicationContextAware {
 
         protected Set<Entity> newDetachedInstances = createEntitySet();
 
+        /**
+         * Instances registered or changed since the previous traversal.
+         */
+        protected Set<Entity> changedInstances = createEntitySet();
+
+        /**
+         * Instances that don't report their changes and are checked by each traversal.
+         */
+        protected Set<Entity> untrackedInstances = createEntitySet();
+
         protected String storeName;
 
         public ContainerResourceHolder(String storeName) {
@@ -343,6 +366,17 @@ public class PersistenceImplSupport implements ApplicationContextAware {
                 unitOfWorkMap.put(unitOfWork, instances);
             }
             instances.add(instance);
+            changedInstances.add(instance);
+            bindChangeListener(instance);
+        }
+
+        protected void bindChangeListener(Entity instance) {
+            if (instance instanceof ChangeTracker) {
+                Object listener = ((ChangeTracker) instance)._persistence_getPropertyChangeListener();
+                if (listener instanceof CubaAttributeChangeListener) {
+                    ((CubaAttributeChangeListener) listener).setContainer(this);
+                }
+            }
         }
 
         protected void unregisterInstance(Entity instance, UnitOfWork unitOfWork) {
@@ -350,6 +384,39 @@ public class PersistenceImplSupport implements ApplicationContextAware {
             if (instances != null) {
                 instances.remove(instance);
             }
+            changedInstances.remove(instance);
+            untrackedInstances.remove(instance);
+        }
+
+        protected void registerChangedInstance(Entity instance) {
+            changedInstances.add(instance);
+        }
+
+        /**
+         * Returns instances registered or changed since the previous call together with instances that don't
+         * report their changes, and resets the set of changed instances.
+         */
+        protected Collection<Entity> pollChangedInstances() {
+            Set<Entity> instances = changedInstances;
+            changedInstances = createEntitySet();
+            instances.addAll(untrackedInstances);
+            return instances;
+        }
+
+        /**
+         * Makes the listener of the instance report its next change, or remembers the instance as untracked if it
+         * has no such listener.
+         */
+        protected void startTracking(Entity instance) {
+            Object listener = ((ChangeTracker) instance)._persistence_getPropertyChangeListener();
+            if (listener instanceof CubaAttributeChangeListener) {
+                // the listener could be installed after the instance was registered
+                ((CubaAttributeChangeListener) listener).setContainer(this);
+                ((CubaAttributeChangeListener) listener).resetChangeRegistration();
+                untrackedInstances.remove(instance);
+            } else {
+                untrackedInstances.add(instance);
+            }
         }
 
         protected Collection<Entity> getInstances(UnitOfWork unitOfWork) {
@@ -398,6 +465,8 @@ public class PersistenceImplSupport implements ApplicationContextAware {
         protected void cleanupResource(ContainerResourceHolder resourceHolder, String resourceKey, boolean committed) {
             resourceHolder.unitOfWorkMap.clear();
             resourceHolder.savedInstances.clear();
+            resourceHolder.changedInstances.clear();
+            resourceHolder.untrackedInstances.clear();
         }
 
         @Override
@@ -593,8 +662,12 @@ public class PersistenceImplSupport implements ApplicationContextAware {
         }
 
         protected void enqueueForFts(Entity entity, FtsChangeType changeType) {
-            if (!FtsConfigHelper.getEnabled())
+            if (!FtsConfigHelper.getEnabled()) {
+                if (localFtsSender.isEnabled()) {
+                    localFtsSender.enqueue(entity, changeType);
+                }
                 return;
+            }
             try {
                 if (ftsSender == null) {
                     if (AppBeans.containsBean(FtsSender.NAME)) {
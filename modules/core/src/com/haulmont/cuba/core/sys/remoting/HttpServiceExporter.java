@@ -18,9 +18,11 @@
 package com.haulmont.cuba.core.sys.remoting;
 
 import com.google.common.base.Joiner;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.serialization.SerializationException;
 import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
 import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.http.HttpHeaders;
 import org.springframework.remoting.httpinvoker.HttpInvokerServiceExporter;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
@@ -33,16 +35,22 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OptionalDataException;
+import java.io.OutputStream;
 
 /**
  * Exports a middleware service bean as an HTTP invoker service endpoint.
  */
 public class HttpServiceExporter extends HttpInvokerServiceExporter implements BeanNameAware {
 
+    protected int compressionThreshold;
+
     public HttpServiceExporter() {
         super();
         setRegisterTraceInterceptor(false);
         setRemoteInvocationExecutor(new CubaRemoteInvocationExecutor());
+
+        String compressionThresholdProp = AppContext.getProperty("cuba.remotingCompressionThreshold");
+        compressionThreshold = compressionThresholdProp == null ? 65536 : Integer.parseInt(compressionThresholdProp);
     }
 
     @Override
@@ -105,6 +113,24 @@ public class HttpServiceExporter extends HttpInvokerServiceExporter implements B
         }
     }
 
+    /*
+     * Compresses results exceeding the threshold if the client accepts GZIP encoding.
+     */
+    @Override
+    protected OutputStream decorateOutputStream(HttpServletRequest request, HttpServletResponse response,
+                                                OutputStream os) throws IOException {
+        if (compressionThreshold > 0 && isGzipAccepted(request)) {
+            return new ThresholdGzipOutputStream(os, compressionThreshold,
+                    () -> response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        }
+        return os;
+    }
+
+    protected boolean isGzipAccepted(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
     @Override
     protected void doWriteRemoteInvocationResult(RemoteInvocationResult result, ObjectOutputStream oos) throws IOException {
         SerializationSupport.serialize(result, oos);
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.core.sys.remoting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream that buffers written data until the threshold is reached. If the data exceeds the threshold,
+ * it is compressed with GZIP, otherwise it is written to the target stream as is on {@link #close()}.
+ */
+public class ThresholdGzipOutputStream extends OutputStream {
+
+    protected final OutputStream target;
+    protected final int threshold;
+    protected final Runnable compressionCallback;
+
+    protected ByteArrayOutputStream buffer;
+    protected OutputStream out;
+    protected boolean closed;
+
+    /**
+     * @param target              target stream
+     * @param threshold           size in bytes starting from which the data is compressed
+     * @param compressionCallback invoked before writing compressed data to the target stream,
+     *                            e.g. to set {@code Content-Encoding} header
+     */
+    public ThresholdGzipOutputStream(OutputStream target, int threshold, Runnable compressionCallback) {
+        this.target = target;
+        this.threshold = threshold;
+        this.compressionCallback = compressionCallback;
+        this.buffer = new ByteArrayOutputStream(Math.min(threshold, 8192));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (out == null && buffer.size() + 1 > threshold) {
+            startCompression();
+        }
+        if (out != null) {
+            out.write(b);
+        } else {
+            buffer.write(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out == null && buffer.size() + len > threshold) {
+            startCompression();
+        }
+        if (out != null) {
+            out.write(b, off, len);
+        } else {
+            buffer.write(b, off, len);
+        }
+    }
+
+    protected void startCompression() throws IOException {
+        compressionCallback.run();
+        out = new GZIPOutputStream(target, 8192);
+        buffer.writeTo(out);
+        buffer = null;
+    }
+
+    /**
+     * @return true if the data is being compressed
+     */
+    public boolean isCompressed() {
+        return out != null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // buffered data is written on close
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            out.close();
+        } else {
+            buffer.writeTo(target);
+            target.close();
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.haulmont.bali.util.Preconditions;
 import com.haulmont.cuba.core.app.ClusterListener;
 import com.haulmont.cuba.core.app.ClusterManagerAPI;
 import com.haulmont.cuba.core.app.ServerConfig;
+import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.Metadata;
 import com.haulmont.cuba.core.global.TimeSource;
@@ -28,6 +29,10 @@ import com.haulmont.cuba.security.entity.User;
 import com.haulmont.cuba.security.entity.UserSessionEntity;
 import com.haulmont.cuba.security.global.NoUserSessionException;
 import com.haulmont.cuba.security.global.UserSession;
+import com.haulmont.cuba.security.group.AccessGroupDefinition;
+import com.haulmont.cuba.security.role.RoleDefinition;
+import com.haulmont.cuba.security.sys.SharedSecurityDefinitions;
+import com.haulmont.cuba.security.sys.UserSessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -61,6 +66,13 @@ public class UserSessions implements UserSessionsAPI {
             this.lastSentTs = now;
         }
 
+        public UserSessionInfo(UserSession session, long since, long lastUsedTs, long lastSentTs) {
+            this.session = session;
+            this.since = since;
+            this.lastUsedTs = lastUsedTs;
+            this.lastSentTs = lastSentTs;
+        }
+
         public UserSession getSession() {
             return session;
         }
@@ -109,6 +121,9 @@ public class UserSessions implements UserSessionsAPI {
     @Inject
     protected UserSessionLog userSessionLog;
 
+    @Inject
+    protected SharedSecurityDefinitions sharedSecurityDefinitions;
+
     public UserSessions() {
         User noUser = new User();
         noUser.setLogin("server");
@@ -163,6 +178,12 @@ public class UserSessions implements UserSessionsAPI {
         } else {
             UserSessionInfo usi = getSessionInfo(id);
             if (usi == null || usi.lastUsedTs < message.lastUsedTs) {
+                if (usi != null && isSameSharedDefinitions(usi.session, message.session)) {
+                    message.session.setJoinedRole(usi.session.getJoinedRole(), usi.session.getJoinedRoleKey());
+                    message.session.setConstraints(usi.session.getConstraints(), usi.session.getConstraintsKey());
+                } else if (!resolveSharedDefinitions(message.session)) {
+                    return;
+                }
                 putSessionInfo(id, message);
             }
         }
@@ -198,7 +219,7 @@ public class UserSessions implements UserSessionsAPI {
             ObjectOutputStream oos = new ObjectOutputStream(bos);
             oos.writeInt(infoList.size());
             for (UserSessionInfo usi : infoList) {
-                oos.writeObject(usi);
+                oos.writeObject(createClusterMessage(usi));
             }
         } catch (IOException e) {
             throw new RuntimeException("Error sending state", e);
@@ -214,9 +235,9 @@ public class UserSessions implements UserSessionsAPI {
         putSessionInfo(session.getId(), usi);
         if (!session.isSystem()) {
             if (serverConfig.getSyncNewUserSessionReplication())
-                clusterManager.sendSync(usi);
+                clusterManager.sendSync(createClusterMessage(usi));
             else
-                clusterManager.send(usi);
+                clusterManager.send(createClusterMessage(usi));
         }
     }
 
@@ -227,7 +248,7 @@ public class UserSessions implements UserSessionsAPI {
             log.debug("Removed session: {}", usi);
             if (!session.isSystem()) {
                 usi.lastUsedTs = 0;
-                clusterManager.send(usi);
+                clusterManager.send(createClusterMessage(usi));
             }
         }
     }
@@ -292,7 +313,7 @@ public class UserSessions implements UserSessionsAPI {
                 if (propagate && !usi.session.isSystem()) {
                     if (now > (usi.lastSentTs + toMillis(sendTimeout))) {
                         usi.lastSentTs = now;
-                        clusterManager.send(usi);
+                        clusterManager.send(createClusterMessage(usi));
                     }
                 }
             }
@@ -301,6 +322,74 @@ public class UserSessions implements UserSessionsAPI {
         return null;
     }
 
+    /**
+     * Replaces shared security definitions of the session with their keys, so they are not serialized with
+     * each session sent to the cluster.
+     */
+    protected UserSessionInfo createClusterMessage(UserSessionInfo usi) {
+        UserSession session = usi.session;
+        if (session.getClass() != UserSession.class
+                || (session.getJoinedRoleKey() == null && session.getConstraintsKey() == null)) {
+            return usi;
+        }
+
+        UserSession compactSession = new UserSession(session);
+        if (session.getJoinedRoleKey() != null) {
+            compactSession.setJoinedRole(null, session.getJoinedRoleKey());
+        }
+        if (session.getConstraintsKey() != null) {
+            compactSession.setConstraints(null, session.getConstraintsKey());
+        }
+        return new UserSessionInfo(compactSession, usi.since, usi.lastUsedTs, usi.lastSentTs);
+    }
+
+    /**
+     * Resolves shared security definitions of a session received from the cluster, so that sessions are never
+     * stored without their joined role and constraints. Definitions missing on this node are compiled once
+     * per role set and group, subsequent sessions with the same keys are resolved from the local cache.
+     *
+     * @return false if the definitions cannot be resolved and the session must not be stored
+     */
+    protected boolean resolveSharedDefinitions(UserSession session) {
+        String joinedRoleKey = session.getJoinedRoleKey();
+        if (session.getJoinedRole() == null && joinedRoleKey != null) {
+            RoleDefinition joinedRole = sharedSecurityDefinitions.findJoinedRole(joinedRoleKey);
+            if (joinedRole != null) {
+                session.setJoinedRole(joinedRole, joinedRoleKey);
+            }
+        }
+        String constraintsKey = session.getConstraintsKey();
+        if (session.getConstraints() == null && constraintsKey != null) {
+            AccessGroupDefinition groupDefinition = sharedSecurityDefinitions.findGroupDefinition(constraintsKey);
+            if (groupDefinition != null) {
+                session.setConstraints(groupDefinition.accessConstraints(), constraintsKey);
+            }
+        }
+
+        if (isUnresolved(session)) {
+            try {
+                UserSessionManager userSessionManager = AppBeans.get(UserSessionManager.NAME);
+                userSessionManager.resolveSharedDefinitions(session);
+            } catch (RuntimeException e) {
+                log.error("Unable to resolve security definitions of session received from cluster: {}", session, e);
+                return false;
+            }
+        }
+        return !isUnresolved(session);
+    }
+
+    protected boolean isSameSharedDefinitions(UserSession session, UserSession receivedSession) {
+        return session.getJoinedRole() != null && session.getConstraints() != null
+                && session.getJoinedRoleKey() != null && session.getConstraintsKey() != null
+                && session.getJoinedRoleKey().equals(receivedSession.getJoinedRoleKey())
+                && session.getConstraintsKey().equals(receivedSession.getConstraintsKey());
+    }
+
+    protected boolean isUnresolved(UserSession session) {
+        return (session.getJoinedRole() == null && session.getJoinedRoleKey() != null)
+                || (session.getConstraints() == null && session.getConstraintsKey() != null);
+    }
+
     @Override
     public void propagate(UUID id) {
         UserSessionInfo usi = getSessionInfo(id);
@@ -309,7 +398,7 @@ public class UserSessions implements UserSessionsAPI {
             usi.lastUsedTs = now;
             usi.lastSentTs = now;
             putSessionInfo(id, usi);
-            clusterManager.send(usi);
+            clusterManager.send(createClusterMessage(usi));
         }
     }
 
@@ -373,7 +462,7 @@ public class UserSessions implements UserSessionsAPI {
             log.debug("Killed session: {}", usi);
 
             usi.lastUsedTs = 0;
-            clusterManager.send(usi);
+            clusterManager.send(createClusterMessage(usi));
         }
     }
 
@@ -408,7 +497,7 @@ public class UserSessions implements UserSessionsAPI {
                     removeSessionInfo(usi.session.getId());
 
                     usi.lastUsedTs = 0;
-                    clusterManager.send(usi);
+                    clusterManager.send(createClusterMessage(usi));
                 });
     }
 
@@ -181,7 +181,7 @@ public class AccessConstraintsBuilder {
         BasicAccessConstraint constraint = new BasicAccessConstraint();
         constraint.setEntityType(metaClass.getName());
         constraint.setOperation(operation);
-        constraint.setPredicate((Predicate<? extends Entity>) o -> (boolean) security.evaluateConstraintScript(o, groovyScript));
+        constraint.setPredicate(new GroovyConstraintPredicate(groovyScript, security));
 
         addConstraint(metaClass, constraint);
 
@@ -203,7 +203,7 @@ public class AccessConstraintsBuilder {
             BasicAccessConstraint constraint = new BasicAccessConstraint();
             constraint.setEntityType(metaClass.getName());
             constraint.setOperation(operation);
-            constraint.setPredicate((Predicate<? extends Entity>) o -> (boolean) security.evaluateConstraintScript(o, groovyScript));
+            constraint.setPredicate(new GroovyConstraintPredicate(groovyScript, security));
 
             addConstraint(metaClass, constraint);
         }
@@ -225,7 +225,7 @@ public class AccessConstraintsBuilder {
         BasicAccessConstraint constraint = new BasicAccessConstraint();
         constraint.setEntityType(metaClass.getName());
         constraint.setCode(constraintCode);
-        constraint.setPredicate((Predicate<? extends Entity>) o -> (boolean) security.evaluateConstraintScript(o, groovyScript));
+        constraint.setPredicate(new GroovyConstraintPredicate(groovyScript, security));
 
         addConstraint(metaClass, constraint);
 
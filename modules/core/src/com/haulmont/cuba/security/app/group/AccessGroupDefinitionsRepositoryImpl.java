@@ -17,10 +17,12 @@
 package com.haulmont.cuba.security.app.group;
 
 import com.haulmont.cuba.security.group.AccessGroupDefinition;
+import com.haulmont.cuba.security.sys.SharedSecurityDefinitions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.inject.Inject;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -34,6 +36,9 @@ public class AccessGroupDefinitionsRepositoryImpl implements AccessGroupDefiniti
 
     protected Map<String, AccessGroupDefinition> groupDefinitionsByName;
 
+    @Inject
+    protected SharedSecurityDefinitions sharedSecurityDefinitions;
+
     @PostConstruct
     protected void init() {
         groupDefinitionsByName = new ConcurrentHashMap<>();
@@ -61,5 +66,6 @@ public class AccessGroupDefinitionsRepositoryImpl implements AccessGroupDefiniti
     @Override
     public void registerGroupDefinition(AccessGroupDefinition groupDefinition) {
         groupDefinitionsByName.put(groupDefinition.getName(), groupDefinition);
+        sharedSecurityDefinitions.invalidateLocal();
     }
 }
@@ -19,6 +19,7 @@ package com.haulmont.cuba.security.app.role;
 import com.haulmont.cuba.core.app.ServerConfig;
 import com.haulmont.cuba.security.role.BasicRoleDefinition;
 import com.haulmont.cuba.security.role.RoleDefinition;
+import com.haulmont.cuba.security.sys.SharedSecurityDefinitions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -42,6 +43,9 @@ public class PredefinedRoleDefinitionRepository {
     @Inject
     protected ServerConfig serverConfig;
 
+    @Inject
+    protected SharedSecurityDefinitions sharedSecurityDefinitions;
+
     protected Map<String, RoleDefinition> predefinedRoleDefinitionsMap = new HashMap<>();
 
     protected volatile boolean initialized;
@@ -82,6 +86,7 @@ public class PredefinedRoleDefinitionRepository {
         } finally {
             lock.writeLock().unlock();
         }
+        sharedSecurityDefinitions.invalidateLocal();
     }
 
     protected void checkInitialized() {
@@ -136,5 +141,6 @@ public class PredefinedRoleDefinitionRepository {
         } finally {
             lock.writeLock().unlock();
         }
+        sharedSecurityDefinitions.invalidateLocal();
     }
 }
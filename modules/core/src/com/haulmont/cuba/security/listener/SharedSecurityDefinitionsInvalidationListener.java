@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.listener;
+
+import com.haulmont.cuba.core.EntityManager;
+import com.haulmont.cuba.core.PersistenceTools;
+import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
+import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.listener.BeforeCommitTransactionListener;
+import com.haulmont.cuba.security.entity.*;
+import com.haulmont.cuba.security.sys.SharedSecurityDefinitions;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.inject.Inject;
+import java.util.Collection;
+
+/**
+ * Invalidates {@link SharedSecurityDefinitions} in the cluster after a transaction that changes roles,
+ * permissions, groups, constraints or session attributes is committed.
+ */
+@Component("cuba_SharedSecurityDefinitionsInvalidationListener")
+public class SharedSecurityDefinitionsInvalidationListener implements BeforeCommitTransactionListener {
+
+    @Inject
+    protected SharedSecurityDefinitions sharedSecurityDefinitions;
+
+    @Inject
+    protected PersistenceTools persistenceTools;
+
+    @Override
+    public void beforeCommit(EntityManager entityManager, Collection<Entity> managedEntities) {
+        for (Entity entity : managedEntities) {
+            if (isSecurityEntity(entity) && isChanged(entity)) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        sharedSecurityDefinitions.invalidate();
+                    }
+                });
+                return;
+            }
+        }
+    }
+
+    protected boolean isSecurityEntity(Entity entity) {
+        return entity instanceof Role
+                || entity instanceof Permission
+                || entity instanceof Group
+                || entity instanceof Constraint
+                || entity instanceof SessionAttribute;
+    }
+
+    protected boolean isChanged(Entity entity) {
+        return persistenceTools.isDirty(entity)
+                || (entity instanceof BaseGenericIdEntity && BaseEntityInternalAccess.isRemoved((BaseGenericIdEntity) entity));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.security.sys;
+
+import com.haulmont.cuba.core.app.ClusterListenerAdapter;
+import com.haulmont.cuba.core.app.ClusterManagerAPI;
+import com.haulmont.cuba.security.group.AccessGroupDefinition;
+import com.haulmont.cuba.security.role.RoleDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * INTERNAL.
+ * <p>
+ * Holds joined role and access group definitions shared between user sessions. Thousands of sessions usually
+ * have a handful of distinct role sets and groups, so sessions keep references to the shared definitions and
+ * the cluster replication of a session carries only their keys.
+ * <p>
+ * Keys are built from the content of the definitions, i.e. the sorted role names and the group, so they have
+ * the same meaning on all nodes of the cluster. {@link #invalidate()} drops the definitions on all nodes, after
+ * that new and received sessions get freshly compiled definitions, while existing sessions keep the definitions
+ * they were created with. A definition compiled concurrently with the invalidation is never published: the
+ * definitions are kept in a generation that is replaced on invalidation, and a definition created in a previous
+ * generation is compiled again.
+ */
+@Component(SharedSecurityDefinitions.NAME)
+public class SharedSecurityDefinitions {
+
+    public static final String NAME = "cuba_SharedSecurityDefinitions";
+
+    private static final Logger log = LoggerFactory.getLogger(SharedSecurityDefinitions.class);
+
+    protected volatile Generation generation = new Generation();
+
+    protected ClusterManagerAPI clusterManager;
+
+    protected static class Generation {
+        protected final ConcurrentMap<String, RoleDefinition> joinedRoles = new ConcurrentHashMap<>();
+        protected final ConcurrentMap<String, AccessGroupDefinition> groups = new ConcurrentHashMap<>();
+    }
+
+    protected static class InvalidateSecurityDefinitionsMsg implements Serializable {
+        private static final long serialVersionUID = 4213506297216437718L;
+    }
+
+    @Inject
+    public void setClusterManager(ClusterManagerAPI clusterManager) {
+        this.clusterManager = clusterManager;
+        clusterManager.addListener(InvalidateSecurityDefinitionsMsg.class,
+                new ClusterListenerAdapter<InvalidateSecurityDefinitionsMsg>() {
+                    @Override
+                    public void receive(InvalidateSecurityDefinitionsMsg message) {
+                        internalInvalidate();
+                    }
+                });
+    }
+
+    /**
+     * @param roleNames             names of the joined roles
+     * @param defaultPermissionsUsed whether default permission values are applied to the joined role
+     * @return key of the joined role definition
+     */
+    public String createJoinedRoleKey(Collection<String> roleNames, boolean defaultPermissionsUsed) {
+        List<String> names = new ArrayList<>(roleNames);
+        Collections.sort(names);
+        return "roles:" + String.join(",", names) + ":" + defaultPermissionsUsed;
+    }
+
+    /**
+     * @param groupId   id of the group stored in the database
+     * @param groupName name of the design-time group
+     * @return key of the access group definition
+     */
+    public String createGroupKey(@Nullable UUID groupId, @Nullable String groupName) {
+        return groupId != null ? "group:" + groupId : "groupName:" + groupName;
+    }
+
+    /**
+     * Returns the joined role definition registered for the key or creates and registers it.
+     */
+    public RoleDefinition getJoinedRole(String key, Supplier<RoleDefinition> factory) {
+        while (true) {
+            Generation current = generation;
+            RoleDefinition roleDefinition = current.joinedRoles.get(key);
+            if (roleDefinition == null) {
+                roleDefinition = factory.get();
+                RoleDefinition existing = current.joinedRoles.putIfAbsent(key, roleDefinition);
+                if (existing != null) {
+                    roleDefinition = existing;
+                } else {
+                    log.debug("Registered shared joined role definition {}", key);
+                }
+            }
+            if (current == generation) {
+                return roleDefinition;
+            }
+            // invalidated meanwhile, the definition may be compiled from outdated permissions
+        }
+    }
+
+    @Nullable
+    public RoleDefinition findJoinedRole(String key) {
+        return generation.joinedRoles.get(key);
+    }
+
+    /**
+     * Returns the access group definition registered for the key or creates and registers it.
+     */
+    public AccessGroupDefinition getGroupDefinition(String key, Supplier<AccessGroupDefinition> factory) {
+        while (true) {
+            Generation current = generation;
+            AccessGroupDefinition groupDefinition = current.groups.get(key);
+            if (groupDefinition == null) {
+                groupDefinition = factory.get();
+                AccessGroupDefinition existing = current.groups.putIfAbsent(key, groupDefinition);
+                if (existing != null) {
+                    groupDefinition = existing;
+                } else {
+                    log.debug("Registered shared access group definition {}", key);
+                }
+            }
+            if (current == generation) {
+                return groupDefinition;
+            }
+            // invalidated meanwhile, the definition may be compiled from outdated permissions
+        }
+    }
+
+    @Nullable
+    public AccessGroupDefinition findGroupDefinition(String key) {
+        return generation.groups.get(key);
+    }
+
+    public int getJoinedRolesCount() {
+        return generation.joinedRoles.size();
+    }
+
+    public int getGroupsCount() {
+        return generation.groups.size();
+    }
+
+    /**
+     * Drops all shared definitions on this node and in the cluster. Should be called when permissions,
+     * roles, groups or constraints are changed.
+     */
+    public void invalidate() {
+        internalInvalidate();
+        clusterManager.send(new InvalidateSecurityDefinitionsMsg());
+    }
+
+    /**
+     * Drops all shared definitions on this node only. Should be called when node-local security definitions,
+     * e.g. design-time roles or groups, are registered at runtime.
+     */
+    public void invalidateLocal() {
+        internalInvalidate();
+    }
+
+    protected void internalInvalidate() {
+        generation = new Generation();
+        log.debug("Shared security definitions invalidated");
+    }
+}
@@ -38,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.Serializable;
 import java.util.*;
@@ -85,6 +86,9 @@ public class UserSessionManager {
     @Inject
     protected AccessGroupDefinitionsComposer groupsComposer;
 
+    @Inject
+    protected SharedSecurityDefinitions sharedSecurityDefinitions;
+
     /**
      * Create a new session and fill it with security data. Must be called inside a transaction.
      *
@@ -151,8 +155,7 @@ public class UserSessionManager {
         if (user.getGroup() == null && Strings.isNullOrEmpty(user.getGroupNames())) {
             throw new IllegalStateException("User is not in a Group");
         }
-        AccessGroupDefinition groupDefinition = compileGroupDefinition(user.getGroup(), user.getGroupNames());
-        compileConstraints(session, groupDefinition);
+        AccessGroupDefinition groupDefinition = compileConstraints(session, user.getGroup(), user.getGroupNames());
         compileSessionAttributes(session, groupDefinition);
         session.setPermissionUndefinedAccessPolicy(rolesHelper.getPermissionUndefinedAccessPolicy());
 
@@ -180,8 +183,7 @@ public class UserSessionManager {
             throw new IllegalStateException("User is not in a Group");
         }
 
-        AccessGroupDefinition groupDefinition = compileGroupDefinition(user.getGroup(), user.getGroupNames());
-        compileConstraints(session, groupDefinition);
+        AccessGroupDefinition groupDefinition = compileConstraints(session, user.getGroup(), user.getGroupNames());
         compileSessionAttributes(session, groupDefinition);
         session.setPermissionUndefinedAccessPolicy(rolesHelper.getPermissionUndefinedAccessPolicy());
 
@@ -189,7 +191,18 @@ public class UserSessionManager {
     }
 
     protected void compilePermissions(UserSession session, List<RoleDefinition> roles) {
-        session.setJoinedRole(buildJoinedRoleDefinition(roles));
+        if (serverConfig.getSharedSessionDefinitionsEnabled()) {
+            List<String> roleNames = new ArrayList<>(roles.size());
+            for (RoleDefinition role : roles) {
+                roleNames.add(role.getName());
+            }
+            String key = sharedSecurityDefinitions.createJoinedRoleKey(roleNames,
+                    serverConfig.getDefaultPermissionValuesConfigEnabled());
+            session.setJoinedRole(sharedSecurityDefinitions.getJoinedRole(key, () -> buildJoinedRoleDefinition(roles)),
+                    key);
+        } else {
+            session.setJoinedRole(buildJoinedRoleDefinition(roles));
+        }
     }
 
     protected RoleDefinition buildJoinedRoleDefinition(List<RoleDefinition> roles) {
@@ -234,6 +247,21 @@ public class UserSessionManager {
         session.setConstraints(groupDefinition.accessConstraints());
     }
 
+    protected AccessGroupDefinition compileConstraints(UserSession session, @Nullable Group group,
+                                                       @Nullable String groupName) {
+        if (serverConfig.getSharedSessionDefinitionsEnabled()) {
+            String key = sharedSecurityDefinitions.createGroupKey(group != null ? group.getId() : null, groupName);
+            AccessGroupDefinition groupDefinition = sharedSecurityDefinitions.getGroupDefinition(key,
+                    () -> compileGroupDefinition(group, groupName));
+            session.setConstraints(groupDefinition.accessConstraints(), key);
+            return groupDefinition;
+        } else {
+            AccessGroupDefinition groupDefinition = compileGroupDefinition(group, groupName);
+            compileConstraints(session, groupDefinition);
+            return groupDefinition;
+        }
+    }
+
     protected void compileSessionAttributes(UserSession session, AccessGroupDefinition groupDefinition) {
         Map<String, Serializable> sessionAttributes = groupDefinition.sessionAttributes();
 
@@ -305,6 +333,60 @@ public class UserSessionManager {
         return result;
     }
 
+    /**
+     * INTERNAL
+     * <p>
+     * Resolves shared joined role and constraints of a session received from the cluster by their keys.
+     * If the definitions are not registered on this node, they are compiled from the session user's roles and group.
+     * Must be called when the session is received, not when it is looked up, because it may open a transaction.
+     *
+     * @param session session with shared definition keys
+     */
+    public void resolveSharedDefinitions(UserSession session) {
+        String joinedRoleKey = session.getJoinedRoleKey();
+        String constraintsKey = session.getConstraintsKey();
+
+        RoleDefinition joinedRole = joinedRoleKey != null ? sharedSecurityDefinitions.findJoinedRole(joinedRoleKey) : null;
+        AccessGroupDefinition groupDefinition = constraintsKey != null ?
+                sharedSecurityDefinitions.findGroupDefinition(constraintsKey) : null;
+
+        if ((joinedRoleKey != null && joinedRole == null) || (constraintsKey != null && groupDefinition == null)) {
+            log.debug("Compiling shared security definitions of session {}", session);
+
+            Transaction tx = persistence.createTransaction();
+            try {
+                EntityManager em = persistence.getEntityManager();
+                User user = em.find(User.class, session.getCurrentOrSubstitutedUser().getId());
+                if (user == null) {
+                    throw new IllegalStateException("User not found: " + session.getCurrentOrSubstitutedUser());
+                }
+
+                if (joinedRoleKey != null && joinedRole == null) {
+                    List<RoleDefinition> roles = new ArrayList<>();
+                    for (RoleDefinition role : rolesHelper.getRoleDefinitionsForUser(user, false)) {
+                        if (role != null && session.getRoles().contains(role.getName())) {
+                            roles.add(role);
+                        }
+                    }
+                    compilePermissions(session, roles);
+                }
+                if (constraintsKey != null && groupDefinition == null) {
+                    compileConstraints(session, user.getGroup(), user.getGroupNames());
+                }
+                tx.commit();
+            } finally {
+                tx.end();
+            }
+        }
+
+        if (joinedRole != null) {
+            session.setJoinedRole(joinedRole, joinedRoleKey);
+        }
+        if (groupDefinition != null) {
+            session.setConstraints(groupDefinition.accessConstraints(), constraintsKey);
+        }
+    }
+
     /**
      * INTERNAL
      */
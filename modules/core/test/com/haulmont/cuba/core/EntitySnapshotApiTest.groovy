@@ -18,9 +18,13 @@ package com.haulmont.cuba.core
 
 import com.haulmont.bali.db.QueryRunner
 import com.haulmont.cuba.core.app.EntitySnapshotAPI
+import com.haulmont.cuba.core.app.snapshot.CompressedJsonSnapshotCodec
+import com.haulmont.cuba.core.app.snapshot.XmlSnapshotDecoder
 import com.haulmont.cuba.core.entity.EntitySnapshot
 import com.haulmont.cuba.core.global.AppBeans
+import com.haulmont.cuba.core.global.PersistenceHelper
 import com.haulmont.cuba.core.global.View
+import com.haulmont.cuba.core.sys.AppContext
 import com.haulmont.cuba.security.entity.Group
 import com.haulmont.cuba.security.entity.Role
 import com.haulmont.cuba.security.entity.User
@@ -58,6 +62,8 @@ class EntitySnapshotApiTest extends Specification {
     }
 
     void cleanup() {
+        AppContext.setProperty('cuba.entitySnapshotCodec', null)
+
         def runner = new QueryRunner(cont.persistence().getDataSource())
         runner.update("delete from SYS_ENTITY_SNAPSHOT")
 
@@ -138,6 +144,80 @@ class EntitySnapshotApiTest extends Specification {
             snapshot3.getAuthor() == user
     }
 
+    def "Store snapshots in compressed format and read them"() {
+        View viewRole = cont.metadata().getViewRepository().getView(Role.class, View.LOCAL)
+        role.setDescription('description ' * 50)
+
+        when:
+            def jsonSnapshot = snapshotApi.createSnapshot(role, viewRole, new Date(100))
+            AppContext.setProperty('cuba.entitySnapshotCodec', CompressedJsonSnapshotCodec.NAME)
+            def compressedSnapshot = snapshotApi.createSnapshot(role, viewRole, new Date(200))
+        then:
+            compressedSnapshot.getSnapshotXml().startsWith(CompressedJsonSnapshotCodec.PREFIX)
+            compressedSnapshot.getSnapshotXml().length() < jsonSnapshot.getSnapshotXml().length()
+
+            Role extracted = snapshotApi.extractEntity(compressedSnapshot)
+            extracted.getName() == 'testRole'
+            extracted.getDescription() == role.getDescription()
+            snapshotApi.extractView(compressedSnapshot).getProperty('name') != null
+
+            // snapshots in the previous format are still readable
+            (snapshotApi.extractEntity(jsonSnapshot) as Role).getName() == 'testRole'
+    }
+
+    def "Load snapshots info and content on demand"() {
+        View viewRole = cont.metadata().getViewRepository().getView(Role.class, View.LOCAL)
+
+        when:
+            snapshotApi.createSnapshot(role, viewRole, new Date(100))
+            role.setName('changedRole')
+            snapshotApi.createSnapshot(role, viewRole, new Date(200))
+
+            def snapshots = snapshotApi.getSnapshotsInfo(role.getMetaClass(), role.getId())
+        then:
+            snapshots.size() == 2
+            !PersistenceHelper.isLoaded(snapshots[0], 'snapshotXml')
+            snapshots[0].getSnapshotDate() == new Date(200)
+
+            (snapshotApi.extractEntity(snapshots[0]) as Role).getName() == 'changedRole'
+
+            def diff = snapshotApi.getDifference(snapshots[1], snapshots[0])
+            diff.getPropertyDiffs().find { it.name == 'name' } != null
+    }
+
+    def "Convert stored snapshots to the current format"() {
+        View viewRole = cont.metadata().getViewRepository().getView(Role.class, View.LOCAL)
+
+        when:
+            snapshotApi.createSnapshot(role, viewRole, new Date(100))
+            snapshotApi.createSnapshot(role, viewRole, new Date(200))
+            snapshotApi.createSnapshot(role, viewRole, new Date(300))
+
+            AppContext.setProperty('cuba.entitySnapshotCodec', CompressedJsonSnapshotCodec.NAME)
+            def converted = snapshotApi.convertSnapshots(2)
+        then:
+            converted == 3
+            getSnapshotsList().every {
+                it.getSnapshotXml().startsWith(CompressedJsonSnapshotCodec.PREFIX) &&
+                        it.getViewXml().startsWith(CompressedJsonSnapshotCodec.PREFIX)
+            }
+            snapshotApi.convertSnapshots(2) == 0
+
+            def snapshot = snapshotApi.getLastEntitySnapshot(role)
+            (snapshotApi.extractEntity(snapshot) as Role).getName() == 'testRole'
+    }
+
+    def "Decoder of the legacy format cannot be selected to store snapshots"() {
+        View viewRole = cont.metadata().getViewRepository().getView(Role.class, View.LOCAL)
+        AppContext.setProperty('cuba.entitySnapshotCodec', XmlSnapshotDecoder.NAME)
+
+        when:
+            snapshotApi.createSnapshot(role, viewRole, new Date(100))
+        then:
+            def e = thrown(IllegalStateException)
+            e.message.contains(XmlSnapshotDecoder.NAME)
+    }
+
     private List<EntitySnapshot> getSnapshotsList() {
         def tx = cont.persistence().createTransaction()
         try {
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core;
+
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.listener.TestGroupChangingUserListener;
+import com.haulmont.cuba.core.listener.TestGroupUpdateListener;
+import com.haulmont.cuba.core.sys.listener.EntityListenerManager;
+import com.haulmont.cuba.security.entity.Group;
+import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.testsupport.TestContainer;
+import com.haulmont.cuba.testsupport.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that flush processing visits instances changed by entity listeners and instances of an outer transaction
+ * changed while a nested transaction is active.
+ */
+public class FlushChangeTrackingTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private Persistence persistence;
+    private EntityListenerManager entityListenerManager;
+
+    private Group group;
+    private User user;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        persistence = cont.persistence();
+        entityListenerManager = AppBeans.get(EntityListenerManager.class);
+
+        persistence.runInTransaction(em -> {
+            group = cont.metadata().create(Group.class);
+            group.setParent(em.find(Group.class, TestSupport.COMPANY_GROUP_ID));
+            group.setName("flushTestGroup-" + group.getId());
+            em.persist(group);
+
+            user = cont.metadata().create(User.class);
+            user.setLogin("flushTestUser-" + user.getId());
+            user.setGroup(group);
+            em.persist(user);
+        });
+
+        TestGroupChangingUserListener.events.clear();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        entityListenerManager.removeListener(User.class, TestGroupChangingUserListener.class);
+        entityListenerManager.removeListener(Group.class, TestGroupUpdateListener.class);
+
+        cont.deleteRecord(user);
+        cont.deleteRecord("SEC_GROUP_HIERARCHY", "GROUP_ID", group.getId());
+        cont.deleteRecord(group);
+    }
+
+    @Test
+    public void testInstanceChangedByListenerDuringFlush() throws Exception {
+        entityListenerManager.addListener(User.class, TestGroupChangingUserListener.class);
+        entityListenerManager.addListener(Group.class, TestGroupUpdateListener.class);
+
+        persistence.runInTransaction(em -> {
+            User u = em.find(User.class, user.getId());
+            assertNotNull(u);
+            // the group is managed but not changed before flush
+            assertNotNull(em.find(Group.class, group.getId()));
+
+            u.setName("changed");
+        });
+
+        assertEquals(2, TestGroupChangingUserListener.events.size());
+        assertEquals("onBeforeUpdate: " + user.getId(), TestGroupChangingUserListener.events.get(0));
+        assertEquals("onBeforeUpdate: " + group.getId(), TestGroupChangingUserListener.events.get(1));
+
+        persistence.runInTransaction(em -> {
+            Group g = em.find(Group.class, group.getId());
+            assertNotNull(g);
+            assertEquals(group.getName() + "-changed", g.getName());
+        });
+    }
+
+    @Test
+    public void testOuterInstanceChangedInNestedTransaction() throws Exception {
+        entityListenerManager.addListener(Group.class, TestGroupUpdateListener.class);
+
+        try (Transaction tx = persistence.createTransaction()) {
+            EntityManager em = persistence.getEntityManager();
+            Group g = em.find(Group.class, group.getId());
+            assertNotNull(g);
+            // the group is processed here, so only its subsequent changes make it visited again
+            em.flush();
+
+            try (Transaction nestedTx = persistence.createTransaction()) {
+                g.setName(group.getName() + "-outer");
+                nestedTx.commit();
+            }
+            assertTrue(TestGroupChangingUserListener.events.isEmpty());
+
+            tx.commit();
+        }
+
+        assertEquals(1, TestGroupChangingUserListener.events.size());
+        assertEquals("onBeforeUpdate: " + group.getId(), TestGroupChangingUserListener.events.get(0));
+
+        persistence.runInTransaction(em -> {
+            Group g = em.find(Group.class, group.getId());
+            assertNotNull(g);
+            assertEquals(group.getName() + "-outer", g.getName());
+        });
+    }
+}
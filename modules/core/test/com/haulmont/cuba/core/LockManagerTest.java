@@ -22,12 +22,14 @@ import com.haulmont.cuba.core.entity.LockDescriptor;
 import com.haulmont.cuba.core.entity.Server;
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.LockInfo;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -73,5 +75,30 @@ public class LockManagerTest {
         lockInfo = lockManager.getLockInfo("sys$Server", entity.getId().toString());
         assertNull(lockInfo);
     }
-}
 
+    @Test
+    public void testDatabaseBackend() throws Exception {
+        AppContext.setProperty("cuba.lockBackend", "cuba_DatabaseLockBackend");
+        try {
+            Server entity = new Server();
+
+            LockInfo lockInfo = lockManager.lock(entity);
+            assertNull(lockInfo);
+
+            lockInfo = lockManager.lock(entity);
+            assertNotNull(lockInfo);
+            assertEquals(entity.getId().toString(), lockInfo.getEntityId());
+            assertNotNull(lockInfo.getUser().getLogin());
+
+            assertEquals(1, lockManager.getCurrentLocks().size());
+
+            lockManager.unlock(entity);
+
+            lockInfo = lockManager.getLockInfo("sys$Server", entity.getId().toString());
+            assertNull(lockInfo);
+            assertEquals(0, lockManager.getCurrentLocks().size());
+        } finally {
+            AppContext.setProperty("cuba.lockBackend", null);
+        }
+    }
+}
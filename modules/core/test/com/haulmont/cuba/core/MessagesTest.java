@@ -21,10 +21,12 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.haulmont.cuba.core.app.LocalizedMessageService;
 import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.mp_test.MpTestObj;
 import com.haulmont.cuba.core.mp_test.nested.MpTestNestedEnum;
 import com.haulmont.cuba.core.mp_test.nested.MpTestNestedObj;
+import com.haulmont.cuba.core.sys.AbstractMessages;
 import com.haulmont.cuba.testsupport.TestAppender;
 import com.haulmont.cuba.testsupport.TestContainer;
 import com.haulmont.cuba.testsupport.TestMessageTools;
@@ -34,6 +36,7 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 
@@ -112,6 +115,45 @@ public class MessagesTest {
         assertEquals(msg3, "overridden");
     }
 
+    @Test
+    public void testPackMessages() {
+        AbstractMessages messages = (AbstractMessages) AppBeans.get(Messages.class);
+
+        Map<String, String> packMessages = messages.getPackMessages("com.haulmont.cuba.core.mp_test.includes",
+                Locale.forLanguageTag("en"));
+        assertEquals("OK", packMessages.get("oneKey"));
+        assertEquals("OK", packMessages.get("twoKey"));
+        assertEquals("overridden", packMessages.get("threeKey"));
+        assertFalse(packMessages.containsKey("@include"));
+
+        packMessages = messages.getPackMessages("com.haulmont.cuba.core.mp_test", Locale.forLanguageTag("fr-CA"));
+        assertEquals("Common Message", packMessages.get("commonMsg"));
+        assertEquals("Language Message fr", packMessages.get("languageMsg"));
+        assertEquals("Country Message fr CA", packMessages.get("countryMsg"));
+        assertFalse(packMessages.containsKey("non-existing-message"));
+    }
+
+    @Test
+    public void testServicePackMessagesWithMainPackFallback() {
+        AbstractMessages messages = (AbstractMessages) AppBeans.get(Messages.class);
+        LocalizedMessageService service = AppBeans.get(LocalizedMessageService.NAME);
+        String pack = "com.haulmont.cuba.core.mp_test";
+        Locale locale = Locale.forLanguageTag("en");
+
+        Map<String, String> packMessages = service.getPackMessages(Collections.singletonList(pack), locale).get(pack);
+        assertEquals("Message1", packMessages.get("key1"));
+
+        Map<String, String> mainMessages = service.getMainPackMessages(locale);
+        assertFalse(mainMessages.isEmpty());
+        assertEquals(messages.getPackMessages(messages.getMainMessagePack(), locale), mainMessages);
+
+        // together they resolve messages the same way as getMessage()
+        for (String key : mainMessages.keySet()) {
+            String message = packMessages.containsKey(key) ? packMessages.get(key) : mainMessages.get(key);
+            assertEquals(messages.getMessage(pack, key, locale), message);
+        }
+    }
+
     @Test
     public void testIncludeDefaultLoc() {
         Messages messages = AppBeans.get(Messages.class);
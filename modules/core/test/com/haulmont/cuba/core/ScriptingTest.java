@@ -19,6 +19,7 @@ package com.haulmont.cuba.core;
 
 import com.haulmont.cuba.core.global.AppBeans;
 import com.haulmont.cuba.core.global.Scripting;
+import com.haulmont.cuba.core.sys.AbstractScripting;
 import com.haulmont.cuba.security.entity.User;
 import com.haulmont.cuba.testsupport.TestContainer;
 import groovy.lang.Binding;
@@ -74,4 +75,19 @@ public class ScriptingTest {
                                        "return PersistenceHelper.isNew(instance)", binding);
         assertTrue(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompiledClassIsReused() {
+        AbstractScripting abstractScripting = (AbstractScripting) scripting;
+        String text = "return a * 2 // testCompiledClassIsReused";
+
+        long compilations = abstractScripting.getCompiledScriptsStats().loadCount();
+        for (int i = 0; i < 10; i++) {
+            Binding binding = new Binding();
+            binding.setVariable("a", i);
+            Integer result = scripting.evaluateGroovy(text, binding);
+            assertEquals((Integer) (i * 2), result);
+        }
+        assertEquals(compilations + 1, abstractScripting.getCompiledScriptsStats().loadCount());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.app;
+
+import com.haulmont.cuba.core.entity.AppFolder;
+import com.haulmont.cuba.core.global.AppBeans;
+import com.haulmont.cuba.core.global.UserSessionSource;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.security.global.UserSession;
+import com.haulmont.cuba.testsupport.TestContainer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppFolderQuantityCacheTest {
+
+    @RegisterExtension
+    public static TestContainer cont = TestContainer.Common.INSTANCE;
+
+    private AppFolderQuantityCache quantityCache;
+    private UserSession userSession;
+    private AppFolder folder;
+
+    @BeforeEach
+    public void setUp() {
+        AppContext.setProperty("cuba.appFolderQuantityCacheTtlSec", "60");
+
+        quantityCache = AppBeans.get(AppFolderQuantityCache.NAME);
+        quantityCache.clear();
+        quantityCache.clearStatistics();
+
+        userSession = AppBeans.get(UserSessionSource.class).getUserSession();
+
+        folder = cont.metadata().create(AppFolder.class);
+        folder.setName("folder");
+        folder.setQuantityScript("style = 'emphasized'; return 5");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        quantityCache.clear();
+        AppContext.setProperty("cuba.appFolderQuantityCacheTtlSec", null);
+        AppContext.setProperty("cuba.appFolderQuantityCacheIdleTimeoutSec", null);
+    }
+
+    @Test
+    public void testQuantityIsCachedUntilExpired() {
+        AppFolderQuantityCache.Quantity quantity = quantityCache.getQuantity(folder, userSession);
+        assertEquals(Integer.valueOf(5), quantity.getQuantity());
+        assertEquals("emphasized", quantity.getStyle());
+
+        assertSame(quantity, quantityCache.getQuantity(folder, userSession));
+        assertEquals(1, getStatistics().getEvaluations());
+        assertEquals(1, getStatistics().getHits());
+
+        expireEntries();
+
+        assertNotSame(quantity, quantityCache.getQuantity(folder, userSession));
+        assertEquals(2, getStatistics().getEvaluations());
+    }
+
+    @Test
+    public void testExpiredEntriesAreNotEvaluatedInBackground() {
+        quantityCache.getQuantity(folder, userSession);
+        expireEntries();
+
+        quantityCache.removeIdleEntries();
+
+        assertEquals(1, quantityCache.size());
+        assertEquals(1, getStatistics().getEvaluations());
+    }
+
+    @Test
+    public void testIdleEntriesAreRemoved() {
+        AppContext.setProperty("cuba.appFolderQuantityCacheIdleTimeoutSec", "1");
+
+        quantityCache.getQuantity(folder, userSession);
+        quantityCache.removeIdleEntries();
+        assertEquals(1, quantityCache.size());
+
+        // the entry is kept while it is not expired even if the idle timeout is shorter than TTL
+        quantityCache.entries.values().forEach(entry -> entry.lastAccessTs -= 2000);
+        quantityCache.removeIdleEntries();
+        assertEquals(1, quantityCache.size());
+
+        quantityCache.entries.values().forEach(entry -> entry.lastAccessTs -= 60000);
+        quantityCache.removeIdleEntries();
+        assertEquals(0, quantityCache.size());
+    }
+
+    private AppFolderQuantityCache.FolderStatistics getStatistics() {
+        return quantityCache.getStatistics().get(folder.getId());
+    }
+
+    private void expireEntries() {
+        quantityCache.entries.values().forEach(entry -> entry.loadedTs -= 60000);
+    }
+}
@@ -467,6 +467,35 @@ public class EmailerTest {
         assertTrue(recipientSet.contains("tanya@example.com"));
     }
 
+    @Test
+    public void testBatchSending() throws Exception {
+        emailerConfig.setFileStorageUsed(false);
+        emailerConfig.setSendingBatchSize(2);
+        testMailSender.clearBuffer();
+        try {
+            EmailInfo myInfo = EmailInfoBuilder.create()
+                    .setAddresses("a@example.com,b@example.com,c@example.com,d@example.com,e@example.com")
+                    .setCaption("Test")
+                    .setBody("Test Email Body")
+                    .build();
+            List<SendingMessage> messages = emailer.sendEmailAsync(myInfo);
+            assertEquals(5, messages.size());
+
+            emailer.processQueuedEmails();
+
+            assertEquals(5, testMailSender.getBufferSize());
+            assertEquals(3, testMailSender.getBatchCount());
+            for (SendingMessage message : messages) {
+                SendingMessage sendingMsg = reload(message);
+                assertEquals(SendingStatus.SENT, sendingMsg.getStatus());
+                assertEquals(1, sendingMsg.getAttemptsMade().intValue());
+                assertNotNull(sendingMsg.getDateSent());
+            }
+        } finally {
+            emailerConfig.setSendingBatchSize(20);
+        }
+    }
+
     @Test
     public void testSendAllToAdmin() throws Exception {
         emailerConfig.setSendAllToAdmin(true);
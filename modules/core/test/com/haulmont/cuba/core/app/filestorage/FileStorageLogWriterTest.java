@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.core.app.filestorage;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileStorageLogWriterTest {
+
+    private File root1;
+    private File root2;
+    private FileStorageLogWriter logWriter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root1 = Files.createTempDirectory("filestorage1").toFile();
+        root2 = Files.createTempDirectory("filestorage2").toFile();
+        logWriter = new FileStorageLogWriter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        logWriter.stop();
+        FileUtils.deleteQuietly(root1);
+        FileUtils.deleteQuietly(root2);
+    }
+
+    @Test
+    void testLinesAreWrittenToLogsOfRoots() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            logWriter.append(i % 2 == 0 ? root1 : root2, "line " + i + "\n");
+        }
+        logWriter.flush(10000);
+
+        List<String> lines1 = FileUtils.readLines(new File(root1, FileStorageLogWriter.LOG_FILE_NAME), StandardCharsets.UTF_8);
+        List<String> lines2 = FileUtils.readLines(new File(root2, FileStorageLogWriter.LOG_FILE_NAME), StandardCharsets.UTF_8);
+
+        assertEquals(50, lines1.size());
+        assertEquals(50, lines2.size());
+        assertEquals("line 0", lines1.get(0));
+        assertEquals("line 99", lines2.get(49));
+    }
+
+    @Test
+    void testLinesAreWrittenAfterStop() throws IOException {
+        logWriter.stop();
+        logWriter.append(root1, "line\n");
+
+        List<String> lines = FileUtils.readLines(new File(root1, FileStorageLogWriter.LOG_FILE_NAME), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+    }
+}
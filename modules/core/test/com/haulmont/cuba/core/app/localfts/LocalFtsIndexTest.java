@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app.localfts;
+
+import com.google.common.collect.Sets;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalFtsIndexTest {
+
+    private static final String ENTITY = "test$Customer";
+
+    private File indexDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        indexDir = Files.createTempDirectory("localfts").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileUtils.deleteQuietly(indexDir);
+    }
+
+    private LocalFtsIndex createIndex() {
+        LocalFtsIndex index = new LocalFtsIndex();
+        index.indexDir = indexDir;
+        return index;
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(Sets.newHashSet("john", "smith", "j", "smith2", "example", "com"),
+                LocalFtsIndex.tokenize("John Smith, j.smith2@example.com"));
+        assertTrue(LocalFtsIndex.tokenize("  ").isEmpty());
+    }
+
+    @Test
+    void testSearchByPrefixesOfAllWords() {
+        LocalFtsIndex index = createIndex();
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+        index.update(ENTITY, id1, LocalFtsIndex.tokenize("John Smith"));
+        index.update(ENTITY, id2, LocalFtsIndex.tokenize("Jane Smithson"));
+
+        assertEquals(Sets.newHashSet(id1, id2), Sets.newHashSet(index.search(ENTITY, "smith", 10)));
+        assertEquals(Collections.singletonList(id2), index.search(ENTITY, "smith ja", 10));
+        assertTrue(index.search(ENTITY, "smith peter", 10).isEmpty());
+        assertEquals(1, index.search(ENTITY, "smith", 1).size());
+    }
+
+    @Test
+    void testUpdateAndDelete() {
+        LocalFtsIndex index = createIndex();
+        UUID id = UUID.randomUUID();
+        index.update(ENTITY, id, LocalFtsIndex.tokenize("John Smith"));
+        index.update(ENTITY, id, LocalFtsIndex.tokenize("John Brown"));
+
+        assertTrue(index.search(ENTITY, "smith", 10).isEmpty());
+        assertEquals(Collections.singletonList(id), index.search(ENTITY, "brown", 10));
+
+        index.update(ENTITY, id, null);
+        assertTrue(index.search(ENTITY, "john", 10).isEmpty());
+        assertEquals(Integer.valueOf(0), index.getIndexedCounts().get(ENTITY));
+    }
+
+    @Test
+    void testIndexIsSavedToFile() {
+        LocalFtsIndex index = createIndex();
+        UUID id = UUID.randomUUID();
+        index.update(ENTITY, id, LocalFtsIndex.tokenize("John Smith"));
+        index.save();
+
+        LocalFtsIndex loaded = createIndex();
+        assertEquals(Collections.singletonList(id), loaded.search(ENTITY, "smi", 10));
+    }
+
+    @Test
+    void testLastUpdateTimeIsSaved() {
+        LocalFtsIndex index = createIndex();
+        assertEquals(0, index.getLastUpdateTs(ENTITY));
+
+        index.markUpdated(ENTITY, 2000);
+        index.markUpdated(ENTITY, 1000);
+        index.save();
+
+        assertEquals(2000, createIndex().getLastUpdateTs(ENTITY));
+    }
+
+    @Test
+    void testUnreadableIndexIsMarkedPending() throws IOException {
+        FileUtils.writeStringToFile(new File(indexDir, ENTITY + LocalFtsIndex.FILE_EXTENSION), "corrupt", "UTF-8");
+
+        LocalFtsIndex index = createIndex();
+        assertTrue(index.search(ENTITY, "john", 10).isEmpty());
+        assertEquals(Collections.singleton(ENTITY), index.getUnreadableEntities());
+        assertEquals(Collections.singleton(ENTITY), createIndex().getPendingEntities());
+
+        index.clear(ENTITY);
+        assertTrue(index.getUnreadableEntities().isEmpty());
+    }
+
+    @Test
+    void testPendingMarkers() {
+        LocalFtsIndex index = createIndex();
+        assertTrue(index.getPendingEntities().isEmpty());
+
+        index.markPending(ENTITY);
+        index.markPending(ENTITY);
+        assertEquals(Collections.singleton(ENTITY), createIndex().getPendingEntities());
+
+        index.clearPending(ENTITY);
+        assertTrue(createIndex().getPendingEntities().isEmpty());
+    }
+}
@@ -29,6 +29,8 @@ import org.junit.jupiter.api.Test;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -144,4 +146,68 @@ public class SchedulingTest {
         assertTrue(scheduling.setRunning(scheduledTask, true));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNextCheckTime() throws Exception {
+        Scheduling scheduling = new Scheduling() {
+            @Override
+            protected TimeZone getCurrentTimeZone() {
+                return TimeZone.getTimeZone("GMT-0");
+            }
+        };
+
+        ScheduledTask scheduledTask = new ScheduledTask();
+        scheduledTask.setSchedulingType(SchedulingType.CRON);
+        scheduledTask.setCron("0 */5 * * * *");
+        scheduledTask.setTimeFrame(10);
+
+        // never started, the next cron time
+        long nextCheck = scheduling.calculateNextCheckTime(scheduledTask, date("2013-11-13 15:31:00").getTime());
+        assertEquals(date("2013-11-13 15:35:00"), new Date(nextCheck));
+
+        // the start is missed but it is still in time frame
+        nextCheck = scheduling.calculateNextCheckTime(scheduledTask, date("2013-11-13 15:35:05").getTime());
+        assertEquals(date("2013-11-13 15:35:00"), new Date(nextCheck));
+
+        // started at the cron time
+        scheduling.lastStartCache.put(scheduledTask, date("2013-11-13 15:35:00").getTime());
+        nextCheck = scheduling.calculateNextCheckTime(scheduledTask, date("2013-11-13 15:35:05").getTime());
+        assertEquals(date("2013-11-13 15:40:00"), new Date(nextCheck));
+
+        scheduledTask = new ScheduledTask();
+        scheduledTask.setSchedulingType(SchedulingType.PERIOD);
+        scheduledTask.setPeriod(60);
+
+        // never started
+        long now = date("2013-11-13 15:31:00").getTime();
+        assertTrue(scheduling.calculateNextCheckTime(scheduledTask, now) <= now);
+
+        scheduling.lastStartCache.put(scheduledTask, now);
+        nextCheck = scheduling.calculateNextCheckTime(scheduledTask, now + 1000);
+        assertEquals(date("2013-11-13 15:32:00"), new Date(nextCheck));
+    }
+
+    @Test
+    public void testAgenda() {
+        ScheduledTasksAgenda agenda = new ScheduledTasksAgenda();
+        ScheduledTask task1 = new ScheduledTask();
+        ScheduledTask task2 = new ScheduledTask();
+
+        agenda.schedule(task1, 2000);
+        agenda.schedule(task2, 1000);
+        assertEquals(1000, agenda.getEarliestTime());
+        assertEquals(Collections.singletonList(task2), agenda.getDue(1500));
+        assertEquals(Arrays.asList(task2, task1), agenda.getDue(2000));
+
+        agenda.schedule(task2, 3000);
+        assertEquals(Collections.singletonList(task1), agenda.getDue(2500));
+
+        agenda.advance(task2, 500);
+        assertEquals(500, agenda.getEarliestTime());
+
+        agenda.retain(Collections.singletonList(task1));
+        assertEquals(1, agenda.size());
+        assertFalse(agenda.contains(task2));
+        assertEquals(2000, agenda.getEarliestTime());
+    }
+}
@@ -18,6 +18,7 @@ package com.haulmont.cuba.core.global;
 
 import com.haulmont.cuba.core.sys.AbstractViewRepository;
 import com.haulmont.cuba.security.entity.User;
+import com.haulmont.cuba.security.entity.UserRole;
 import com.haulmont.cuba.testsupport.TestContainer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -28,7 +29,11 @@ import java.util.Collection;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ViewRepositoryTest {
 
@@ -114,4 +119,71 @@ public class ViewRepositoryTest {
 
         assertNotNull(groupView.getProperty("constraints").getView());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCopyOnWrite() {
+        View view = repository.getView(User.class, "test");
+        View otherView = repository.getView(User.class, "test");
+        assertNotSame(view, otherView);
+        assertFalse(view.isFrozen());
+
+        view.addProperty("email");
+        view.setLoadPartialEntities(true);
+        assertNotNull(view.getProperty("email"));
+
+        View freshView = repository.getView(User.class, "test");
+        assertNull(freshView.getProperty("email"));
+        assertNull(otherView.getProperty("email"));
+        assertFalse(freshView.loadPartialEntities());
+
+        // nested views are shared on reads
+        View sharedUserRolesView = freshView.getProperty("userRoles").getView();
+        assertTrue(sharedUserRolesView.isFrozen());
+        assertSame(sharedUserRolesView, otherView.getProperty("userRoles").getView());
+        assertThrows(IllegalStateException.class, () -> sharedUserRolesView.addProperty("user"));
+
+        View userRolesView = freshView.getModifiablePropertyView("userRoles");
+        assertFalse(userRolesView.isFrozen());
+        userRolesView.addProperty("user");
+        assertSame(userRolesView, freshView.getProperty("userRoles").getView());
+        assertSame(userRolesView, freshView.getModifiablePropertyView("userRoles"));
+        assertNotNull(freshView.getProperty("userRoles").getView().getProperty("user"));
+        assertNull(repository.getView(User.class, "test").getProperty("userRoles").getView().getProperty("user"));
+        assertNull(sharedUserRolesView.getProperty("user"));
+
+        View copy = View.copy(freshView);
+        View userRolesCopy = copy.getProperty("userRoles").getView();
+        assertFalse(userRolesCopy.isFrozen());
+        userRolesCopy.addProperty("createdBy");
+        assertNull(freshView.getProperty("userRoles").getView().getProperty("createdBy"));
+    }
+
+    @Test
+    public void testStoreViewDoesNotFreezeView() {
+        View view = new View(User.class, "testStoreView", false)
+                .addProperty("name")
+                .addProperty("userRoles", new View(UserRole.class, false)
+                        .addProperty("role"));
+
+        ((AbstractViewRepository) repository).storeView(cont.metadata().getClassNN(User.class), view);
+        assertFalse(view.isFrozen());
+        assertFalse(view.getProperty("userRoles").getView().isFrozen());
+
+        view.addProperty("login");
+        view.getProperty("userRoles").getView().addProperty("user");
+
+        View storedView = repository.getView(User.class, "testStoreView");
+        assertNull(storedView.getProperty("login"));
+        assertNull(storedView.getProperty("userRoles").getView().getProperty("user"));
+    }
+
+    @Test
+    public void testExtendFrozenView() {
+        View view = new View(repository.getView(User.class, "test"), "extended", false)
+                .addProperty("email");
+
+        assertNotNull(view.getProperty("name"));
+        assertNotNull(view.getProperty("email"));
+        assertNull(repository.getView(User.class, "test").getProperty("email"));
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.listener;
+
+import com.haulmont.cuba.core.EntityManager;
+import com.haulmont.cuba.security.entity.Group;
+import com.haulmont.cuba.security.entity.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes the group of the updated user, so the group becomes dirty during flush.
+ */
+public class TestGroupChangingUserListener implements BeforeUpdateEntityListener<User> {
+
+    public static final List<String> events = new ArrayList<>();
+
+    @Override
+    public void onBeforeUpdate(User entity, EntityManager entityManager) {
+        events.add("onBeforeUpdate: " + entity.getId());
+
+        Group group = entityManager.find(Group.class, entity.getGroup().getId());
+        if (group != null && !group.getName().endsWith("-changed")) {
+            group.setName(group.getName() + "-changed");
+        }
+    }
+}
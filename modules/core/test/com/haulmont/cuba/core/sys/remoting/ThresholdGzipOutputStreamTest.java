@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.haulmont.cuba.core.sys.remoting;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThresholdGzipOutputStreamTest {
+
+    @Test
+    void testBelowThreshold() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicBoolean compressed = new AtomicBoolean();
+
+        byte[] data = createData(100);
+        try (ThresholdGzipOutputStream os = new ThresholdGzipOutputStream(target, 1000, () -> compressed.set(true))) {
+            os.write(data);
+            os.flush();
+            assertFalse(os.isCompressed());
+        }
+
+        assertFalse(compressed.get());
+        assertArrayEquals(data, target.toByteArray());
+    }
+
+    @Test
+    void testAboveThreshold() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicBoolean compressed = new AtomicBoolean();
+
+        byte[] data = createData(10000);
+        try (ThresholdGzipOutputStream os = new ThresholdGzipOutputStream(target, 1000, () -> compressed.set(true))) {
+            os.write(data, 0, 500);
+            assertFalse(os.isCompressed());
+            os.write(data, 500, data.length - 500);
+            assertTrue(os.isCompressed());
+        }
+
+        assertTrue(compressed.get());
+        assertTrue(target.size() < data.length);
+        byte[] decompressed = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(target.toByteArray())));
+        assertArrayEquals(data, decompressed);
+    }
+
+    private byte[] createData(int size) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) 'a');
+        return data;
+    }
+}
@@ -45,12 +45,12 @@ public class InMemoryConstraintTest {
     public static TestContainer cont = TestContainer.Common.INSTANCE;
 
     private Group parentGroup;
-    private Group constraintGroup1, constraintGroup2, constraintGroup3, constraintGroup4;
-    private Constraint constraint1, constraint2, constraint3, constraint4;
+    private Group constraintGroup1, constraintGroup2, constraintGroup3, constraintGroup4, constraintGroup5;
+    private Constraint constraint1, constraint2, constraint3, constraint4, constraint5;
     private List<User> usersList = new ArrayList<>(USERS_SIZE);
-    private User constraintUser1, constraintUser2, constraintUser3, constraintUser4;
+    private User constraintUser1, constraintUser2, constraintUser3, constraintUser4, constraintUser5;
     private Role role1;
-    private UserRole userRole1, userRole2, userRole3, userRole4;
+    private UserRole userRole1, userRole2, userRole3, userRole4, userRole5;
     private Permission permission1;
 
     private static final int USERS_SIZE = 200;
@@ -117,6 +117,19 @@ public class InMemoryConstraintTest {
             constraint4.setGroup(constraintGroup4);
             em.persist(constraint4);
 
+            constraintGroup5 = new Group();
+            constraintGroup5.setName("constraintGroup5");
+            em.persist(constraintGroup5);
+
+            constraint5 = new Constraint();
+            constraint5.setEntityName("sec$User");
+            constraint5.setCheckType(ConstraintCheckType.MEMORY);
+            constraint5.setOperationType(ConstraintOperationType.READ);
+            // a variable assigned by the script must not be visible when the script is evaluated for another entity
+            constraint5.setGroovyScript("if (binding.hasVariable('checked')) return false; checked = true; {E}.login != 'user15'");
+            constraint5.setGroup(constraintGroup5);
+            em.persist(constraint5);
+
             for (int i = 1; i <= USERS_SIZE; i++) {
                 User user = new User();
                 user.setLogin("user" + i);
@@ -150,6 +163,12 @@ public class InMemoryConstraintTest {
             constraintUser4.setEmail("email");
             em.persist(constraintUser4);
 
+            constraintUser5 = new User();
+            constraintUser5.setLogin("constraintUser5");
+            constraintUser5.setPassword(passwordEncryption.getPasswordHash(constraintUser5.getId(), PASSWORD));
+            constraintUser5.setGroup(constraintGroup5);
+            em.persist(constraintUser5);
+
             role1 = new Role();
             role1.setName("full-access");
             role1.setSecurityScope(SecurityScope.DEFAULT_SCOPE_NAME);
@@ -183,6 +202,11 @@ public class InMemoryConstraintTest {
             userRole4.setRole(role1);
             em.persist(userRole4);
 
+            userRole5 = new UserRole();
+            userRole5.setUser(constraintUser5);
+            userRole5.setRole(role1);
+            em.persist(userRole5);
+
             tx.commit();
         } finally {
             tx.end();
@@ -393,18 +417,43 @@ public class InMemoryConstraintTest {
         }
     }
 
+    @Test
+    public void testConstraintScriptsDoNotShareBinding() throws LoginException {
+        AuthenticationManager lw = AppBeans.get(AuthenticationManager.NAME);
+        Credentials credentials = new LoginPasswordCredentials("constraintUser5", PASSWORD, Locale.getDefault());
+        UserSession userSession = lw.login(credentials).getSession();
+        assertNotNull(userSession);
 
+        UserSessionSource uss = AppBeans.get(UserSessionSource.class);
+        UserSession savedUserSession = uss.getUserSession();
+        ((TestUserSessionSource) uss).setUserSession(userSession);
+        try {
+            DataManager dataManager = AppBeans.get(DataManager.NAME);
+            dataManager = dataManager.secure();
+            LoadContext loadContext = new LoadContext(User.class).setView(View.LOCAL);
+            loadContext.setQuery(new LoadContext.Query("select u from sec$User u where u.login like 'user1_' order by u.login asc"));
+            loadContext.getQuery().setMaxResults(30);
+            loadContext.getQuery().setFirstResult(0);
+            List<User> resultList = dataManager.loadList(loadContext);
+            assertEquals(9, resultList.size());
+            assertEquals("user10", resultList.get(0).getLogin());
+            assertEquals("user14", resultList.get(4).getLogin());
+            assertEquals("user16", resultList.get(5).getLogin());
+        } finally {
+            ((TestUserSessionSource) uss).setUserSession(savedUserSession);
+        }
+    }
 
     @AfterEach
     public void tearDown() throws Exception {
         for (User user : usersList) {
             cont.deleteRecord("SEC_USER", user.getId());
         }
-        cont.deleteRecord("SEC_USER_ROLE", userRole1.getId(), userRole2.getId(), userRole3.getId(), userRole4.getId());
+        cont.deleteRecord("SEC_USER_ROLE", userRole1.getId(), userRole2.getId(), userRole3.getId(), userRole4.getId(), userRole5.getId());
         cont.deleteRecord("SEC_PERMISSION", permission1.getId());
         cont.deleteRecord("SEC_ROLE", role1.getId());
-        cont.deleteRecord("SEC_USER", constraintUser1.getId(), constraintUser2.getId(), constraintUser3.getId(), constraintUser4.getId());
-        cont.deleteRecord("SEC_CONSTRAINT", constraint1.getId(), constraint2.getId(), constraint3.getId(), constraint4.getId());
-        cont.deleteRecord("SEC_GROUP", parentGroup.getId(), constraintGroup1.getId(), constraintGroup2.getId(), constraintGroup3.getId(), constraintGroup4.getId());
+        cont.deleteRecord("SEC_USER", constraintUser1.getId(), constraintUser2.getId(), constraintUser3.getId(), constraintUser4.getId(), constraintUser5.getId());
+        cont.deleteRecord("SEC_CONSTRAINT", constraint1.getId(), constraint2.getId(), constraint3.getId(), constraint4.getId(), constraint5.getId());
+        cont.deleteRecord("SEC_GROUP", parentGroup.getId(), constraintGroup1.getId(), constraintGroup2.getId(), constraintGroup3.getId(), constraintGroup4.getId(), constraintGroup5.getId());
     }
 }
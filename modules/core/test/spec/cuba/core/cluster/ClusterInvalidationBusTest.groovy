@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package spec.cuba.core.cluster
+
+import com.haulmont.cuba.core.app.ClusterConfig
+import com.haulmont.cuba.core.app.ClusterInvalidationBus
+import com.haulmont.cuba.core.app.ClusterListener
+import com.haulmont.cuba.core.app.ClusterManagerAPI
+import spock.lang.Specification
+
+class ClusterInvalidationBusTest extends Specification {
+
+    ClusterInvalidationBus bus
+    ClusterManagerAPI clusterManager
+    ClusterListener listener
+
+    def setup() {
+        clusterManager = Mock(ClusterManagerAPI) {
+            isStarted() >> true
+            addListener(ClusterInvalidationBus.InvalidationMsg, _) >> { args -> listener = args[1] }
+        }
+        def clusterConfig = Stub(ClusterConfig) {
+            getInvalidationWindow() >> 60000
+            getInvalidationMaxKeys() >> 3
+        }
+
+        bus = new ClusterInvalidationBus()
+        bus.clusterConfig = clusterConfig
+        bus.setClusterManager(clusterManager)
+        bus.init()
+    }
+
+    def cleanup() {
+        bus.executor.shutdownNow()
+    }
+
+    def "keys reported during a window are sent in one message"() {
+        when:
+        bus.invalidate('region1', 'a')
+        bus.invalidate('region1', 'a')
+        bus.invalidate('region1', ['b', 'c'])
+        bus.invalidate('region2', 'a')
+        bus.flush()
+
+        then:
+        1 * clusterManager.send({ ClusterInvalidationBus.InvalidationMsg msg ->
+            msg.keys == [region1: ['a', 'b', 'c'] as Set, region2: ['a'] as Set] && msg.allRegions.isEmpty()
+        })
+        bus.sentMessagesCount == 1
+        bus.reportedKeysCount == 5
+        bus.sentKeysCount == 4
+    }
+
+    def "region is invalidated entirely if too many keys are reported"() {
+        when:
+        bus.invalidate('region1', ['a', 'b', 'c', 'd'])
+        bus.invalidate('region1', 'e')
+        bus.flush()
+
+        then:
+        1 * clusterManager.send({ ClusterInvalidationBus.InvalidationMsg msg ->
+            msg.keys.isEmpty() && msg.allRegions == ['region1'] as Set
+        })
+    }
+
+    def "nothing is sent if the cluster is not started"() {
+        def localClusterManager = Mock(ClusterManagerAPI) {
+            isStarted() >> false
+        }
+        bus.setClusterManager(localClusterManager)
+
+        when:
+        bus.invalidate('region1', 'a')
+        bus.flush()
+
+        then:
+        0 * localClusterManager.send(_)
+        bus.getVersion('region1') == 1
+    }
+
+    def "received invalidations are passed to the handler and increment the version"() {
+        def handler = Mock(ClusterInvalidationBus.Handler)
+        bus.addHandler('region1', handler)
+
+        when:
+        listener.receive(new ClusterInvalidationBus.InvalidationMsg([region1: ['a'] as Set<Serializable>], [] as Set))
+
+        then:
+        1 * handler.invalidate(['a'] as Set)
+        bus.getVersion('region1') == 1
+
+        when:
+        listener.receive(new ClusterInvalidationBus.InvalidationMsg([:], ['region1'] as Set))
+
+        then:
+        1 * handler.invalidateAll()
+        bus.getVersion('region1') == 2
+    }
+}
@@ -25,10 +25,13 @@ import com.haulmont.cuba.core.global.EntitySet
 import com.haulmont.cuba.core.global.EntityStates
 import com.haulmont.cuba.core.global.ViewBuilder
 import com.haulmont.cuba.core.global.View
+import com.haulmont.cuba.core.sys.persistence.CubaEntityFetchGroup
 import com.haulmont.cuba.testmodel.sales.Customer
 import com.haulmont.cuba.testmodel.sales.Order
+import com.haulmont.cuba.testmodel.sales.Status
 import com.haulmont.cuba.testmodel.sales.TestOrderChangedEventListener
 import com.haulmont.cuba.testsupport.TestContainer
+import org.apache.commons.lang3.exception.ExceptionUtils
 import org.junit.ClassRule
 import spock.lang.Shared
 import spock.lang.Specification
@@ -192,6 +195,49 @@ class DataManagerCommitTest extends Specification {
         cont.deleteRecord(order, customer)
     }
 
+    def "partially loaded instance updates only loaded attributes"() {
+        given:
+        def saved = dataManager.commit(new Customer(name: 'Smith', status: Status.OK))
+
+        def delta = new Customer(id: saved.id, version: saved.version, name: 'Jones')
+        entityStates.makeDetached(delta)
+        delta._persistence_setFetchGroup(new CubaEntityFetchGroup(['id', 'version', 'name']))
+
+        when:
+        dataManager.commit(delta)
+        def reloaded = dataManager.load(Id.of(saved)).one()
+
+        then:
+        reloaded.name == 'Jones'
+        reloaded.status == Status.OK
+        reloaded.version == saved.version + 1
+
+        cleanup:
+        cont.deleteRecord(saved)
+    }
+
+    def "partially loaded instance with stale version is not committed"() {
+        given:
+        def saved = dataManager.commit(new Customer(name: 'Smith', status: Status.OK))
+        saved.name = 'Brown'
+        saved = dataManager.commit(saved)
+
+        def delta = new Customer(id: saved.id, version: saved.version - 1, name: 'Jones')
+        entityStates.makeDetached(delta)
+        delta._persistence_setFetchGroup(new CubaEntityFetchGroup(['id', 'version', 'name']))
+
+        when:
+        dataManager.commit(delta)
+
+        then:
+        def e = thrown(Exception)
+        ExceptionUtils.getThrowableList(e).any { it.class.simpleName == 'OptimisticLockException' }
+        dataManager.load(Id.of(saved)).one().name == 'Brown'
+
+        cleanup:
+        cont.deleteRecord(saved)
+    }
+
     protected CommitContext commitContextFor(Customer customer, Order order) {
         new CommitContext()
                 .addInstanceToCommit(customer)
@@ -5,9 +5,11 @@
 
 package spec.cuba.core.entity_serialization
 
+import com.haulmont.cuba.core.app.serialization.EntitySerialization
 import com.haulmont.cuba.core.app.serialization.EntitySerializationAPI
 import com.haulmont.cuba.core.app.serialization.EntitySerializationOption
 import com.haulmont.cuba.core.global.AppBeans
+import com.haulmont.cuba.core.global.View
 import com.haulmont.cuba.testmodel.entity_serialization.Serialization_Order
 import com.haulmont.cuba.testmodel.entity_serialization.Serialization_OrderItem
 import com.haulmont.cuba.testsupport.TestContainer
@@ -94,4 +96,63 @@ class EntityJsonSerializationTest extends Specification {
         parsedObject.transientField == 'tf'
         parsedObject.valueFromMetaPropertyMethod == null
     }
+
+    def "writing a collection to a writer produces the same JSON as the string serialization"() {
+        def orders = (1..3).collect { i ->
+            def order = cont.metadata().create(Serialization_Order.class)
+            order.setNumber("order-$i")
+            def orderItem = cont.metadata().create(Serialization_OrderItem.class)
+            orderItem.name = "item-$i"
+            orderItem.order = order
+            order.items = [orderItem]
+            order
+        }
+
+        when:
+
+        def json = entitySerializationAPI.toJson(orders, null, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+        def writer = new StringWriter()
+        entitySerializationAPI.toJson(orders, null, writer, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+        def outputStream = new ByteArrayOutputStream()
+        entitySerializationAPI.toJson(orders, null, outputStream, EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
+
+        then:
+
+        writer.toString() == json
+        outputStream.toString('UTF-8') == json
+        new JsonSlurper().parseText(json).size() == 3
+    }
+
+    def "views are applied per call and do not create new Gson instances"() {
+        def order = cont.metadata().create(Serialization_Order.class)
+        order.setNumber('order-1')
+        def orderItem = cont.metadata().create(Serialization_OrderItem.class)
+        orderItem.name = 'item-1'
+        orderItem.order = order
+        order.items = [orderItem]
+
+        def serialization = (EntitySerialization) entitySerializationAPI
+        entitySerializationAPI.toJson(order, null, EntitySerializationOption.SERIALIZE_NULLS)
+        def gsonCount = serialization.serializationGsons.size()
+
+        when:
+
+        def numberJson = entitySerializationAPI.toJson(order,
+                new View(Serialization_Order).addProperty('number'), EntitySerializationOption.SERIALIZE_NULLS)
+        def itemsJson = entitySerializationAPI.toJson(order,
+                new View(Serialization_Order).addProperty('items', new View(Serialization_OrderItem).addProperty('name')),
+                EntitySerializationOption.SERIALIZE_NULLS)
+
+        then:
+
+        def numberObject = new JsonSlurper().parseText(numberJson)
+        numberObject.number == 'order-1'
+        !numberObject.containsKey('items')
+
+        def itemsObject = new JsonSlurper().parseText(itemsJson)
+        !itemsObject.containsKey('number')
+        itemsObject.items[0].name == 'item-1'
+
+        serialization.serializationGsons.size() == gsonCount
+    }
 }
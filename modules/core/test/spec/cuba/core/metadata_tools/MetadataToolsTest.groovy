@@ -16,8 +16,10 @@
 
 package spec.cuba.core.metadata_tools
 
+import com.haulmont.chile.core.model.impl.MetaClassImpl
 import com.haulmont.cuba.core.global.AppBeans
 import com.haulmont.cuba.core.global.MetadataTools
+import com.haulmont.cuba.core.global.Stores
 import com.haulmont.cuba.security.entity.User
 import com.haulmont.cuba.security.entity.UserSessionEntity
 import com.haulmont.cuba.testmodel.not_persistent.CustomerWithNonPersistentRef
@@ -25,6 +27,7 @@ import com.haulmont.cuba.testmodel.not_persistent.NotPersistentStringIdEntity
 import com.haulmont.cuba.testmodel.not_persistent.TestNotPersistentEntity
 import com.haulmont.cuba.testmodel.petclinic.Owner
 import com.haulmont.cuba.testmodel.petclinic.Pet
+import com.haulmont.cuba.testmodel.primary_keys.CompositeKeyEntity
 import com.haulmont.cuba.testmodel.primary_keys.EntityKey
 import com.haulmont.cuba.testmodel.primary_keys.StringKeyEntity
 import com.haulmont.cuba.testsupport.TestContainer
@@ -32,6 +35,8 @@ import org.junit.ClassRule
 import spock.lang.Shared
 import spock.lang.Specification
 
+import javax.persistence.Embeddable
+
 class MetadataToolsTest extends Specification {
 
     @Shared @ClassRule
@@ -122,4 +127,36 @@ class MetadataToolsTest extends Specification {
         petCopy.owner == owner
         !petCopy.owner.is(owner)
     }
+
+    def "traits resolved at metadata build time match meta-annotations"() {
+        def metadata = cont.metadata()
+
+        expect:
+
+        metadata.session.classes.each { metaClass ->
+            assert ((MetaClassImpl) metaClass).traits != MetaClassImpl.TRAITS_UNRESOLVED
+
+            def annotations = metaClass.annotations
+            def persistent = Boolean.TRUE == annotations.get(MetadataTools.PERSISTENT_ANN_NAME)
+            assert metadataTools.isPersistent(metaClass) ==
+                    (persistent && metaClass.javaClass.isAnnotationPresent(javax.persistence.Entity))
+            assert metadataTools.isNotPersistent(metaClass) == !persistent
+            assert metadataTools.isEmbeddable(metaClass) ==
+                    (persistent && metaClass.javaClass.isAnnotationPresent(Embeddable))
+            assert metadataTools.isCacheable(metaClass) == (Boolean.TRUE == annotations.get('cacheable'))
+
+            metaClass.ownProperties.each { metaProperty ->
+                assert metadataTools.isPersistent(metaProperty) ==
+                        (Boolean.TRUE == metaProperty.annotations.get(MetadataTools.PERSISTENT_ANN_NAME))
+                assert metadataTools.isEmbedded(metaProperty) ==
+                        (Boolean.TRUE == metaProperty.annotations.get(MetadataTools.EMBEDDED_ANN_NAME))
+            }
+        }
+
+        metadataTools.getStoreName(metadata.getClassNN(User)) == Stores.MAIN
+        metadataTools.getStoreName(metadata.getClassNN(TestNotPersistentEntity)) == null
+        metadataTools.getPrimaryKeyProperty(metadata.getClassNN(User)).name == 'id'
+        metadataTools.hasCompositePrimaryKey(metadata.getClassNN(CompositeKeyEntity))
+        !metadataTools.hasCompositePrimaryKey(metadata.getClassNN(User))
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2020 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.core.roles
+
+import com.haulmont.cuba.core.app.ClusterManagerAPI
+import com.haulmont.cuba.security.role.BasicRoleDefinition
+import com.haulmont.cuba.security.sys.SharedSecurityDefinitions
+import spock.lang.Specification
+
+class SharedSecurityDefinitionsTest extends Specification {
+
+    SharedSecurityDefinitions definitions
+    ClusterManagerAPI clusterManager
+
+    def setup() {
+        clusterManager = Mock(ClusterManagerAPI)
+        definitions = new SharedSecurityDefinitions()
+        definitions.setClusterManager(clusterManager)
+    }
+
+    def "joined role key does not depend on the order of roles"() {
+        expect:
+        definitions.createJoinedRoleKey(['a', 'b'], true) == definitions.createJoinedRoleKey(['b', 'a'], true)
+        definitions.createJoinedRoleKey(['a', 'b'], true) != definitions.createJoinedRoleKey(['a', 'b'], false)
+    }
+
+    def "sessions with the same roles share the joined role definition"() {
+        def key = definitions.createJoinedRoleKey(['a', 'b'], true)
+
+        when:
+        def first = definitions.getJoinedRole(key, { BasicRoleDefinition.builder().build() })
+        def second = definitions.getJoinedRole(definitions.createJoinedRoleKey(['b', 'a'], true),
+                { BasicRoleDefinition.builder().build() })
+
+        then:
+        first.is(second)
+        definitions.joinedRolesCount == 1
+    }
+
+    def "keys are built from content and do not change on invalidation"() {
+        def groupId = UUID.randomUUID()
+        def other = new SharedSecurityDefinitions()
+        other.setClusterManager(Mock(ClusterManagerAPI))
+
+        when:
+        def roleKey = definitions.createJoinedRoleKey(['a'], true)
+        def groupKey = definitions.createGroupKey(groupId, null)
+        definitions.invalidate()
+
+        then:
+        roleKey == other.createJoinedRoleKey(['a'], true)
+        groupKey == other.createGroupKey(groupId, null)
+        definitions.createJoinedRoleKey(['a'], true) == roleKey
+        definitions.createGroupKey(null, 'Company') != definitions.createGroupKey(null, 'Other')
+    }
+
+    def "invalidation drops definitions in the cluster"() {
+        def key = definitions.createJoinedRoleKey(['a'], true)
+        definitions.getJoinedRole(key, { BasicRoleDefinition.builder().build() })
+
+        when:
+        definitions.invalidate()
+
+        then:
+        1 * clusterManager.send(_)
+        definitions.findJoinedRole(key) == null
+        definitions.joinedRolesCount == 0
+    }
+
+    def "definition compiled during invalidation is not published"() {
+        def key = definitions.createJoinedRoleKey(['a'], true)
+        def stale = BasicRoleDefinition.builder().build()
+        def fresh = BasicRoleDefinition.builder().build()
+        def created = [stale, fresh]
+
+        when:
+        def result = definitions.getJoinedRole(key, {
+            def roleDefinition = created.remove(0)
+            if (roleDefinition.is(stale)) {
+                definitions.invalidate()
+            }
+            roleDefinition
+        })
+
+        then:
+        result.is(fresh)
+        definitions.findJoinedRole(key).is(fresh)
+        definitions.joinedRolesCount == 1
+    }
+}
@@ -23,6 +23,7 @@ import com.haulmont.cuba.core.global.AppBeans
 import com.haulmont.cuba.core.global.DataManager
 import com.haulmont.cuba.core.global.Metadata
 import com.haulmont.cuba.core.global.View
+import com.haulmont.cuba.core.sys.AppContext
 import com.haulmont.cuba.core.sys.serialization.KryoSerialization
 import com.haulmont.cuba.core.sys.serialization.SerializationException
 import com.haulmont.cuba.testmodel.sales.Order
@@ -132,4 +133,66 @@ class KryoSerializationTest extends Specification {
 
     }
 
+    def "class registration mode"() {
+        setup:
+        def view = new View(Order)
+                .addProperty("number")
+                .addProperty("lineSet", new View(OrderLine).addProperty("product"))
+        Order order = dataManager.load(Order).id(orderId).view(view).one()
+
+        KryoSerialization defaultSerialization = new KryoSerialization()
+        AppContext.setProperty('cuba.kryo.classRegistrationEnabled', 'true')
+        KryoSerialization registrationSerialization = new KryoSerialization()
+
+        when:
+        byte[] bytes = registrationSerialization.serialize(order)
+        Order result = (Order) registrationSerialization.deserialize(bytes)
+
+        then: "names of common classes are not written"
+        bytes.length < defaultSerialization.serialize(order).length
+        result == order
+        result.number == 'orderNumber#1'
+        result.lineSet[0].product == 'product'
+
+        when: "serialized to a stream"
+        def bos = new ByteArrayOutputStream()
+        registrationSerialization.serialize(order, bos)
+        result = (Order) registrationSerialization.deserialize(new ByteArrayInputStream(bos.toByteArray()))
+
+        then:
+        result.lineSet[0].product == 'product'
+
+        cleanup:
+        AppContext.setProperty('cuba.kryo.classRegistrationEnabled', null)
+        registrationSerialization?.shutdown()
+    }
+
+    def "class registration mode does not depend on metadata"() {
+        setup:
+        Order order = dataManager.load(Order).id(orderId).view(View.LOCAL).one()
+
+        AppContext.setProperty('cuba.kryo.classRegistrationEnabled', 'true')
+        KryoSerialization writer = new KryoSerialization()
+        KryoSerialization reader = new KryoSerialization()
+
+        when:
+        byte[] bytes = writer.serialize(order)
+
+        then: "entity classes are written by name, so a block with another set of entities can read them"
+        new String(bytes, 'ISO-8859-1').contains(Order.name)
+        ((Order) reader.deserialize(bytes)).number == 'orderNumber#1'
+
+        when: "the reader has registered an entity class the writer does not know"
+        reader.withContext { context -> context.kryo.register(OrderLine) }
+        Order result = (Order) reader.deserialize(bytes)
+
+        then:
+        result == order
+        result.number == 'orderNumber#1'
+
+        cleanup:
+        AppContext.setProperty('cuba.kryo.classRegistrationEnabled', null)
+        writer?.shutdown()
+        reader?.shutdown()
+    }
 }
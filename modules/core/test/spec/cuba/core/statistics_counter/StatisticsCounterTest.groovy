@@ -126,4 +126,50 @@ class StatisticsCounterTest extends Specification {
         after == 0
         statCounter.rolledBackTransactionsCount == 1
     }
+
+    def "only registered and changed entities are visited on flush"() {
+
+        List<Customer> customers = []
+        persistence.runInTransaction { em ->
+            10.times { i ->
+                def customer = cont.metadata().create(Customer)
+                customer.name = "customer $i"
+                em.persist(customer)
+                customers << customer
+            }
+        }
+
+        def firstFlush, secondFlush, thirdFlush
+
+        when:
+
+        persistence.runInTransaction { em ->
+            List<Customer> loaded = em.createQuery('select c from test$Customer c where c.id in :ids', Customer)
+                    .setParameter('ids', customers*.id)
+                    .getResultList()
+
+            def visited = statCounter.flushVisitedEntitiesCount
+            em.flush()
+            firstFlush = statCounter.flushVisitedEntitiesCount - visited
+
+            visited = statCounter.flushVisitedEntitiesCount
+            em.flush()
+            secondFlush = statCounter.flushVisitedEntitiesCount - visited
+
+            loaded[0].name = 'changed'
+            visited = statCounter.flushVisitedEntitiesCount
+            em.flush()
+            thirdFlush = statCounter.flushVisitedEntitiesCount - visited
+        }
+
+        then:
+
+        firstFlush == 10
+        secondFlush == 0
+        thirdFlush == 1
+
+        cleanup:
+
+        customers.each { cont.deleteRecord(it) }
+    }
 }
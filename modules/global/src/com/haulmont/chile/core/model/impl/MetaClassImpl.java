@@ -37,6 +37,30 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
     protected transient List<MetaClass> ancestors = new ArrayList<>(3);
     protected transient Collection<MetaClass> descendants = new ArrayList<>(1);
 
+    /**
+     * Traits are not resolved yet, they should be determined by meta-annotations.
+     */
+    public static final int TRAITS_UNRESOLVED = -1;
+    /**
+     * The class is managed by ORM.
+     */
+    public static final int TRAIT_PERSISTENT = 1;
+    /**
+     * The class is managed by ORM and is annotated with {@code @Entity}.
+     */
+    public static final int TRAIT_PERSISTENT_ENTITY = 1 << 1;
+    /**
+     * The class is managed by ORM and is annotated with {@code @Embeddable}.
+     */
+    public static final int TRAIT_EMBEDDABLE = 1 << 2;
+    public static final int TRAIT_CACHEABLE = 1 << 3;
+    public static final int TRAIT_COMPOSITE_PRIMARY_KEY = 1 << 4;
+
+    private transient volatile int traits = TRAITS_UNRESOLVED;
+    private transient String storeName;
+    private transient String primaryKeyName;
+    private transient MetaProperty primaryKeyProperty;
+
     private static final long serialVersionUID = 7862691995170873154L;
 
     public MetaClassImpl(MetaModel model, String className) {
@@ -142,6 +166,61 @@ public class MetaClassImpl extends MetadataObjectImpl implements MetaClass {
         return ownPropertyByName.values();
     }
 
+    /**
+     * INTERNAL.
+     *
+     * @return bit set of {@code TRAIT_*} flags or {@link #TRAITS_UNRESOLVED}
+     */
+    public int getTraits() {
+        return traits;
+    }
+
+    /**
+     * INTERNAL. Sets traits resolved by the metadata loader.
+     */
+    public void setTraits(int traits, String storeName, String primaryKeyName, MetaProperty primaryKeyProperty) {
+        this.storeName = storeName;
+        this.primaryKeyName = primaryKeyName;
+        this.primaryKeyProperty = primaryKeyProperty;
+        this.traits = traits;
+    }
+
+    /**
+     * INTERNAL. Adds flags to resolved traits.
+     */
+    public synchronized void addTraits(int traits) {
+        if (this.traits != TRAITS_UNRESOLVED) {
+            this.traits |= traits;
+        }
+    }
+
+    /**
+     * INTERNAL.
+     *
+     * @return resolved store name, valid only if traits are resolved
+     */
+    public String getStoreName() {
+        return storeName;
+    }
+
+    /**
+     * INTERNAL.
+     *
+     * @return resolved primary key name, valid only if traits are resolved
+     */
+    public String getPrimaryKeyName() {
+        return primaryKeyName;
+    }
+
+    /**
+     * INTERNAL.
+     *
+     * @return resolved primary key property, valid only if traits are resolved
+     */
+    public MetaProperty getPrimaryKeyProperty() {
+        return primaryKeyProperty;
+    }
+
     public void setJavaClass(Class javaClass) {
         this.javaClass = javaClass;
         ((MetaModelImpl) model).registerClass(this);
@@ -42,6 +42,19 @@ public class MetaPropertyImpl extends MetadataObjectImpl implements MetaProperty
     private transient Class<?> javaType;
     private transient Class<?> declaringClass;
 
+    /**
+     * Traits are not resolved yet, they should be determined by meta-annotations.
+     */
+    public static final int TRAITS_UNRESOLVED = -1;
+    /**
+     * The property is managed by ORM.
+     */
+    public static final int TRAIT_PERSISTENT = 1;
+    public static final int TRAIT_EMBEDDED = 1 << 1;
+    public static final int TRAIT_LOB = 1 << 2;
+
+    private transient volatile int traits = TRAITS_UNRESOLVED;
+
     private static final long serialVersionUID = -2827471157045502206L;
 
     public MetaPropertyImpl(MetaClass domain, String name) {
@@ -65,6 +78,22 @@ public class MetaPropertyImpl extends MetadataObjectImpl implements MetaProperty
         }
     }
 
+    /**
+     * INTERNAL.
+     *
+     * @return bit set of {@code TRAIT_*} flags or {@link #TRAITS_UNRESOLVED}
+     */
+    public int getTraits() {
+        return traits;
+    }
+
+    /**
+     * INTERNAL. Sets traits resolved by the metadata loader.
+     */
+    public void setTraits(int traits) {
+        this.traits = traits;
+    }
+
     @Override
     public MetaClass getDomain() {
         return domain;
@@ -45,6 +45,15 @@ public interface EntitySnapshotService {
      */
     List<EntitySnapshot> getSnapshots(MetaClass metaClass, Object id);
 
+    /**
+     * Get snapshots for entity by id without their content. The content is loaded on demand by
+     * {@link #extractEntity(EntitySnapshot)} and {@link #getDifference(EntitySnapshot, EntitySnapshot)}.
+     * @param metaClass Entity meta class
+     * @param id Entity id
+     * @return Snapshot list
+     */
+    List<EntitySnapshot> getSnapshotsInfo(MetaClass metaClass, Object id);
+
     /**
      * Create snapshot for entity and save it to database
      * @param entity Entity
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.core.app;
+
+import java.util.List;
+
+/**
+ * Searches the built-in local full-text index.
+ * <p>
+ * Returned ids can be used to load entities, e.g. by {@code LoadContext.setIds()} or in a query condition
+ * {@code e.id in :ids}. Loading through {@code DataManager} applies access constraints to the found instances.
+ */
+public interface LocalFtsService {
+
+    String NAME = "cuba_LocalFtsService";
+
+    /**
+     * Finds instances of the entity that contain words starting with each word of the text
+     * in the indexed attributes.
+     *
+     * @param entityName name of the entity
+     * @param text       searched text
+     * @param maxResults maximum number of returned ids
+     * @return ids of found instances or empty list if the entity is not indexed
+     */
+    List<Object> search(String entityName, String text, int maxResults);
+
+    /**
+     * @param entityName name of the entity
+     * @return true if the local full-text index is enabled and the entity is indexed
+     */
+    boolean isIndexed(String entityName);
+}
@@ -17,7 +17,9 @@
 
 package com.haulmont.cuba.core.app;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * Service allowing clients to retrieve localized messages from the middleware.
@@ -28,4 +30,26 @@ public interface LocalizedMessageService {
     String NAME = "cuba_LocalizedMessageService";
 
     String getMessage(String pack, String key, Locale locale);
+
+    /**
+     * Returns all messages of the packs for the locale, including messages of parent and included packs and
+     * overrides defined in the middleware main message pack as {@code pack/key}. Messages of the main pack that
+     * {@link #getMessage(String, String, Locale)} uses as a fallback are not included, they are returned by
+     * {@link #getMainPackMessages(Locale)}.
+     *
+     * @param packs  pack names
+     * @param locale locale
+     * @return map of pack names to maps of message keys to messages
+     */
+    Map<String, Map<String, String>> getPackMessages(List<String> packs, Locale locale);
+
+    /**
+     * Returns all messages of the middleware main message pack for the locale. A message missing in the result of
+     * {@link #getPackMessages(List, Locale)} is resolved by {@link #getMessage(String, String, Locale)} from
+     * these messages.
+     *
+     * @param locale locale
+     * @return map of message keys to messages
+     */
+    Map<String, String> getMainPackMessages(Locale locale);
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
 import com.haulmont.chile.core.datatypes.Datatype;
 import com.haulmont.chile.core.datatypes.Datatypes;
 import com.haulmont.chile.core.model.MetaClass;
@@ -42,12 +43,16 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
+import java.io.*;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import static com.haulmont.cuba.core.entity.BaseEntityInternalAccess.*;
@@ -72,15 +77,36 @@ public class EntitySerialization implements EntitySerializationAPI {
     protected ThreadLocal<EntitySerializationContext> context =
             ThreadLocal.withInitial(EntitySerializationContext::new);
 
+    /**
+     * Gson instances for serialization by option set. Serializers keep no state between calls, the state of a call
+     * including the view is in the {@link #context}, so the instances are shared by all threads and views.
+     */
+    protected ConcurrentMap<Set<EntitySerializationOption>, Gson> serializationGsons = new ConcurrentHashMap<>();
+
+    /**
+     * Gson instances for deserialization by metaClass and option set.
+     */
+    protected ConcurrentMap<List<Object>, Gson> deserializationGsons = new ConcurrentHashMap<>();
+
     /**
      * Class is used for storing a collection of entities already processed during the serialization.
      */
     protected static class EntitySerializationContext {
         protected Table<Object, MetaClass, Entity> processedEntities = HashBasedTable.create();
+        protected View view;
 
         protected Table<Object, MetaClass, Entity> getProcessedEntities() {
             return processedEntities;
         }
+
+        @Nullable
+        protected View getView() {
+            return view;
+        }
+
+        protected void setView(@Nullable View view) {
+            this.view = view;
+        }
     }
 
     @Override
@@ -92,8 +118,8 @@ public class EntitySerialization implements EntitySerializationAPI {
     public String toJson(Entity entity,
                          @Nullable View view,
                          EntitySerializationOption... options) {
-        context.remove();
-        return createGsonForSerialization(view, options).toJson(entity);
+        initSerializationContext(view);
+        return getGsonForSerialization(options).toJson(entity);
     }
 
     @Override
@@ -105,14 +131,45 @@ public class EntitySerialization implements EntitySerializationAPI {
     public String toJson(Collection<? extends Entity> entities,
                          @Nullable View view,
                          EntitySerializationOption... options) {
-        context.remove();
-        return createGsonForSerialization(view, options).toJson(entities);
+        initSerializationContext(view);
+        return getGsonForSerialization(options).toJson(entities);
+    }
+
+    @Override
+    public void toJson(Collection<? extends Entity> entities,
+                       @Nullable View view,
+                       Writer writer,
+                       EntitySerializationOption... options) {
+        initSerializationContext(view);
+        Gson gson = getGsonForSerialization(options);
+        try {
+            JsonWriter jsonWriter = gson.newJsonWriter(writer);
+            jsonWriter.beginArray();
+            for (Entity entity : entities) {
+                gson.toJson(entity, Entity.class, jsonWriter);
+            }
+            jsonWriter.endArray();
+            jsonWriter.flush();
+        } catch (IOException | JsonIOException e) {
+            throw new EntitySerializationException("Unable to write entities to JSON", e);
+        } finally {
+            context.remove();
+        }
+    }
+
+    @Override
+    public void toJson(Collection<? extends Entity> entities,
+                       @Nullable View view,
+                       OutputStream outputStream,
+                       EntitySerializationOption... options) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        toJson(entities, view, writer, options);
     }
 
     @Override
     public String objectToJson(Object object, EntitySerializationOption... options) {
-        context.remove();
-        return createGsonForSerialization(null, options).toJson(object);
+        initSerializationContext(null);
+        return getGsonForSerialization(options).toJson(object);
     }
 
     @SuppressWarnings("unchecked")
@@ -121,7 +178,7 @@ public class EntitySerialization implements EntitySerializationAPI {
                                                @Nullable MetaClass metaClass,
                                                EntitySerializationOption... options) {
         context.remove();
-        return (T) createGsonForDeserialization(metaClass, options).fromJson(json, Entity.class);
+        return (T) getGsonForDeserialization(metaClass, options).fromJson(json, Entity.class);
     }
 
     @Override
@@ -131,28 +188,67 @@ public class EntitySerialization implements EntitySerializationAPI {
         context.remove();
         Type collectionType = new TypeToken<Collection<Entity>>() {
         }.getType();
-        return createGsonForDeserialization(metaClass, options).fromJson(json, collectionType);
+        return getGsonForDeserialization(metaClass, options).fromJson(json, collectionType);
     }
 
     @Override
     public <T> T objectFromJson(String json, Class<T> clazz, EntitySerializationOption... options) {
         context.remove();
-        return createGsonForDeserialization(null, options).fromJson(json, clazz);
+        return getGsonForDeserialization(null, options).fromJson(json, clazz);
     }
 
     @Override
     public <T> T objectFromJson(String json, Type type, EntitySerializationOption... options) {
         context.remove();
-        return createGsonForDeserialization(null, options).fromJson(json, type);
+        return getGsonForDeserialization(null, options).fromJson(json, type);
+    }
+
+    /**
+     * Resets the context of the current thread and sets the view used by serializers in this call.
+     */
+    protected void initSerializationContext(@Nullable View view) {
+        context.remove();
+        context.get().setView(view);
+    }
+
+    /**
+     * Returns a shared Gson instance for the options, creating it on first use.
+     */
+    protected Gson getGsonForSerialization(EntitySerializationOption... options) {
+        Set<EntitySerializationOption> optionSet = toOptionSet(options);
+        EntitySerializationOption[] optionArray = optionSet.toArray(new EntitySerializationOption[0]);
+        return serializationGsons.computeIfAbsent(optionSet, k -> createGsonForSerialization(optionArray));
     }
 
-    protected Gson createGsonForSerialization(@Nullable View view, EntitySerializationOption... options) {
+    /**
+     * Returns a shared Gson instance for the metaClass and options, creating it on first use.
+     */
+    protected Gson getGsonForDeserialization(@Nullable MetaClass metaClass, EntitySerializationOption... options) {
+        Set<EntitySerializationOption> optionSet = toOptionSet(options);
+        EntitySerializationOption[] optionArray = optionSet.toArray(new EntitySerializationOption[0]);
+        return deserializationGsons.computeIfAbsent(Arrays.asList(metaClass, optionSet),
+                k -> createGsonForDeserialization(metaClass, optionArray));
+    }
+
+    protected Set<EntitySerializationOption> toOptionSet(@Nullable EntitySerializationOption[] options) {
+        Set<EntitySerializationOption> optionSet = EnumSet.noneOf(EntitySerializationOption.class);
+        if (options != null) {
+            for (EntitySerializationOption option : options) {
+                if (option != null) {
+                    optionSet.add(option);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(optionSet);
+    }
+
+    protected Gson createGsonForSerialization(EntitySerializationOption... options) {
         GsonBuilder gsonBuilder = new GsonBuilder();
         if (ArrayUtils.contains(options, EntitySerializationOption.PRETTY_PRINT)) {
             gsonBuilder.setPrettyPrinting();
         }
         gsonBuilder
-                .registerTypeHierarchyAdapter(Entity.class, new EntitySerializer(view, options))
+                .registerTypeHierarchyAdapter(Entity.class, new EntitySerializer(options))
                 .registerTypeHierarchyAdapter(Date.class, new DateSerializer())
                 .create();
         if (ArrayUtils.contains(options, EntitySerializationOption.SERIALIZE_NULLS)) {
@@ -191,10 +287,8 @@ public class EntitySerialization implements EntitySerializationAPI {
         protected boolean compactRepeatedEntities = false;
         protected boolean serializeInstanceName;
         protected boolean doNotSerializeReadOnlyProperties = false;
-        protected View view;
 
-        public EntitySerializer(@Nullable View view, EntitySerializationOption... options) {
-            this.view = view;
+        public EntitySerializer(EntitySerializationOption... options) {
             if (options != null) {
                 for (EntitySerializationOption option : options) {
                     if (option == EntitySerializationOption.COMPACT_REPEATED_ENTITIES)
@@ -209,6 +303,7 @@ public class EntitySerialization implements EntitySerializationAPI {
 
         @Override
         public JsonElement serialize(Entity entity, Type typeOfSrc, JsonSerializationContext context) {
+            View view = EntitySerialization.this.context.get().getView();
             return serializeEntity(entity, view, new HashSet<>());
         }
 
@@ -22,6 +22,8 @@ import com.haulmont.cuba.core.entity.Entity;
 import com.haulmont.cuba.core.global.View;
 
 import javax.annotation.Nullable;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import java.util.Collection;
 
@@ -69,6 +71,39 @@ public interface EntitySerializationAPI {
                   @Nullable View view,
                   EntitySerializationOption... options);
 
+    /**
+     * Serializes a collection of entities to the JSON array and writes it to the writer. Method works like the {@link
+     * #toJson(Collection, View, EntitySerializationOption...)}, but entities are written one by one, so the whole
+     * JSON document is never held in memory.
+     * <p>
+     * The writer is flushed but not closed.
+     *
+     * @param entities a collection of entities to be serialized
+     * @param view     a view that defines which entity properties should be added to the result JSON object
+     * @param writer   a writer the JSON array is written to
+     * @param options  options specifying how an entity should be serialized
+     */
+    void toJson(Collection<? extends Entity> entities,
+                @Nullable View view,
+                Writer writer,
+                EntitySerializationOption... options);
+
+    /**
+     * Serializes a collection of entities to the JSON array and writes it to the stream in UTF-8. Method works like
+     * the {@link #toJson(Collection, View, Writer, EntitySerializationOption...)}.
+     * <p>
+     * The stream is flushed but not closed.
+     *
+     * @param entities     a collection of entities to be serialized
+     * @param view         a view that defines which entity properties should be added to the result JSON object
+     * @param outputStream a stream the JSON array is written to
+     * @param options      options specifying how an entity should be serialized
+     */
+    void toJson(Collection<? extends Entity> entities,
+                @Nullable View view,
+                OutputStream outputStream,
+                EntitySerializationOption... options);
+
     /**
      * An overloaded version of the {@link #toJson(Entity, View, EntitySerializationOption...)} method with a null
      * {@code view} parameter and with no serialization options.
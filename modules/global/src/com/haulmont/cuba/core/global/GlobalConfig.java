@@ -30,7 +30,6 @@ import com.haulmont.cuba.core.sys.AvailableLocalesFactory;
 import com.haulmont.cuba.security.entity.RememberMeToken;
 import com.haulmont.cuba.security.role.SecurityStorageMode;
 import com.haulmont.cuba.security.role.SecurityStorageModeFactory;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 
 import javax.annotation.Nullable;
 import java.util.List;
@@ -175,12 +174,21 @@ public interface GlobalConfig extends Config {
 
     /**
      * @return the maximum number of idle instances of compiled groovy expressions in {@code Scripting.evaluateGroovy()}
-     * @see GenericKeyedObjectPoolConfig#setMaxIdlePerKey(int)
+     * @deprecated compiled expressions are cached as classes, see {@link #getGroovyEvaluationCacheMaxSize()}
      */
+    @Deprecated
     @Property("cuba.groovyEvaluationPoolMaxIdle")
     @DefaultInt(8)
     int getGroovyEvaluationPoolMaxIdle();
 
+    /**
+     * @return the maximum number of distinct groovy expressions compiled by {@code Scripting.evaluateGroovy()}
+     * and kept in memory. Least recently used compiled classes are evicted when the limit is reached.
+     */
+    @Property("cuba.groovyEvaluationCacheMaxSize")
+    @DefaultInt(1000)
+    int getGroovyEvaluationCacheMaxSize();
+
     @Property("cuba.numberIdCacheSize")
     @DefaultInt(100)
     int getNumberIdCacheSize();
@@ -23,6 +23,8 @@ import com.haulmont.chile.core.datatypes.Datatype;
 import com.haulmont.chile.core.datatypes.DatatypeRegistry;
 import com.haulmont.chile.core.datatypes.TimeZoneAwareDatatype;
 import com.haulmont.chile.core.model.*;
+import com.haulmont.chile.core.model.impl.MetaClassImpl;
+import com.haulmont.chile.core.model.impl.MetaPropertyImpl;
 import com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributesTools;
 import com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributesUtils;
 import com.haulmont.cuba.core.app.dynamicattributes.PropertyType;
@@ -276,6 +278,9 @@ public class MetadataTools {
      */
     @Nullable
     public String getStoreName(MetaClass metaClass) {
+        if (getTraits(metaClass) != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return ((MetaClassImpl) metaClass).getStoreName();
+        }
         String storeName = (String) metaClass.getAnnotations().get(STORE_ANN_NAME);
         if (storeName == null) {
             return isPersistent(metaClass) ? Stores.MAIN : null;
@@ -288,6 +293,9 @@ public class MetadataTools {
      */
     @Nullable
     public String getPrimaryKeyName(MetaClass metaClass) {
+        if (getTraits(metaClass) != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return ((MetaClassImpl) metaClass).getPrimaryKeyName();
+        }
         String pkProperty = (String) metaClass.getAnnotations().get(PRIMARY_KEY_ANN_NAME);
         if (pkProperty != null) {
             return pkProperty;
@@ -309,6 +317,12 @@ public class MetadataTools {
      */
     @Nullable
     public MetaProperty getPrimaryKeyProperty(MetaClass metaClass) {
+        if (getTraits(metaClass) != MetaClassImpl.TRAITS_UNRESOLVED) {
+            MetaProperty primaryKeyProperty = ((MetaClassImpl) metaClass).getPrimaryKeyProperty();
+            if (primaryKeyProperty != null) {
+                return primaryKeyProperty;
+            }
+        }
         String primaryKeyName = getPrimaryKeyName(metaClass);
         return primaryKeyName == null ? null : metaClass.getPropertyNN(primaryKeyName);
     }
@@ -326,6 +340,10 @@ public class MetadataTools {
      * @return true if passed MetaClass has a composite primary key
      */
     public boolean hasCompositePrimaryKey(MetaClass metaClass) {
+        int traits = getTraits(metaClass);
+        if (traits != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaClassImpl.TRAIT_COMPOSITE_PRIMARY_KEY) != 0;
+        }
         MetaProperty primaryKeyProperty = getPrimaryKeyProperty(metaClass);
         return primaryKeyProperty != null && primaryKeyProperty.getAnnotatedElement().isAnnotationPresent(EmbeddedId.class);
     }
@@ -412,6 +430,10 @@ public class MetadataTools {
      */
     public boolean isPersistent(MetaProperty metaProperty) {
         Objects.requireNonNull(metaProperty, "metaProperty is null");
+        int traits = getTraits(metaProperty);
+        if (traits != MetaPropertyImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaPropertyImpl.TRAIT_PERSISTENT) != 0;
+        }
         return Boolean.TRUE.equals(metaProperty.getAnnotations().get(PERSISTENT_ANN_NAME));
     }
 
@@ -421,7 +443,7 @@ public class MetadataTools {
     public boolean isPersistent(MetaClass metaClass, MetaProperty metaProperty) {
         Objects.requireNonNull(metaClass, "metaClass is null");
         Objects.requireNonNull(metaProperty, "metaProperty is null");
-        return isPersistent(metaClass) && Boolean.TRUE.equals(metaProperty.getAnnotations().get(PERSISTENT_ANN_NAME));
+        return isPersistent(metaClass) && isPersistent(metaProperty);
     }
 
     /**
@@ -459,6 +481,10 @@ public class MetadataTools {
      */
     public boolean isEmbedded(MetaProperty metaProperty) {
         Objects.requireNonNull(metaProperty, "metaProperty is null");
+        int traits = getTraits(metaProperty);
+        if (traits != MetaPropertyImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaPropertyImpl.TRAIT_EMBEDDED) != 0;
+        }
         return Boolean.TRUE.equals(metaProperty.getAnnotations().get(EMBEDDED_ANN_NAME));
     }
 
@@ -469,6 +495,10 @@ public class MetadataTools {
      */
     public boolean isLob(MetaProperty metaProperty) {
         Objects.requireNonNull(metaProperty, "metaProperty is null");
+        int traits = getTraits(metaProperty);
+        if (traits != MetaPropertyImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaPropertyImpl.TRAIT_LOB) != 0;
+        }
         return metaProperty.getAnnotatedElement() != null
                 && metaProperty.getAnnotatedElement().isAnnotationPresent(Lob.class);
     }
@@ -584,6 +614,10 @@ public class MetadataTools {
      */
     public boolean isPersistent(MetaClass metaClass) {
         checkNotNullArgument(metaClass, "metaClass is null");
+        int traits = getTraits(metaClass);
+        if (traits != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaClassImpl.TRAIT_PERSISTENT_ENTITY) != 0;
+        }
         return Boolean.TRUE.equals(metaClass.getAnnotations().get(PERSISTENT_ANN_NAME))
                 && metaClass.getJavaClass().isAnnotationPresent(javax.persistence.Entity.class);
     }
@@ -608,6 +642,10 @@ public class MetadataTools {
      * include MappedSuperclass and Embeddable entities that a still managed by ORM.
      */
     public boolean isNotPersistent(MetaClass metaClass) {
+        int traits = getTraits(metaClass);
+        if (traits != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaClassImpl.TRAIT_PERSISTENT) == 0;
+        }
         return !Boolean.TRUE.equals(metaClass.getAnnotations().get(PERSISTENT_ANN_NAME));
     }
 
@@ -629,6 +667,10 @@ public class MetadataTools {
      */
     public boolean isEmbeddable(MetaClass metaClass) {
         checkNotNullArgument(metaClass, "metaClass is null");
+        int traits = getTraits(metaClass);
+        if (traits != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaClassImpl.TRAIT_EMBEDDABLE) != 0;
+        }
         return Boolean.TRUE.equals(metaClass.getAnnotations().get(PERSISTENT_ANN_NAME))
                 && metaClass.getJavaClass().isAnnotationPresent(javax.persistence.Embeddable.class);
     }
@@ -644,9 +686,30 @@ public class MetadataTools {
 
     public boolean isCacheable(MetaClass metaClass) {
         checkNotNullArgument(metaClass, "metaClass is null");
+        int traits = getTraits(metaClass);
+        if (traits != MetaClassImpl.TRAITS_UNRESOLVED) {
+            return (traits & MetaClassImpl.TRAIT_CACHEABLE) != 0;
+        }
         return Boolean.TRUE.equals(metaClass.getAnnotations().get("cacheable"));
     }
 
+    /**
+     * @return traits resolved by {@link com.haulmont.cuba.core.sys.MetadataLoader} or
+     * {@link MetaClassImpl#TRAITS_UNRESOLVED} if they should be determined by meta-annotations
+     */
+    protected static int getTraits(MetaClass metaClass) {
+        return metaClass instanceof MetaClassImpl ? ((MetaClassImpl) metaClass).getTraits() : MetaClassImpl.TRAITS_UNRESOLVED;
+    }
+
+    /**
+     * @return traits resolved by {@link com.haulmont.cuba.core.sys.MetadataLoader} or
+     * {@link MetaPropertyImpl#TRAITS_UNRESOLVED} if they should be determined by meta-annotations
+     */
+    protected static int getTraits(MetaProperty metaProperty) {
+        return metaProperty instanceof MetaPropertyImpl
+                ? ((MetaPropertyImpl) metaProperty).getTraits() : MetaPropertyImpl.TRAITS_UNRESOLVED;
+    }
+
     /**
      * Get metaclass that contains metaproperty for passed propertyPath.
      * Resolves real metaclass for property in consideration of inherited entity classes and extended classes.
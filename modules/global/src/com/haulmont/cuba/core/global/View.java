@@ -40,6 +40,9 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
  * <li>{@link #MINIMAL}</li>
  * <li>{@link #BASE}</li>
  * </ul>
+ * Views returned by the {@link ViewRepository} are copy-on-write: they share properties with the deployed view
+ * until modified. Nested views obtained through such a view are copy-on-write as well, so the view graph can be
+ * modified at any level without affecting the deployed view.
  *
  */
 public class View implements Serializable {
@@ -104,6 +107,11 @@ public class View implements Serializable {
 
     private boolean loadPartialEntities;
 
+    private transient boolean frozen;
+
+    // properties map is shared with a frozen view and must be copied before modification
+    private transient boolean sharedProperties;
+
     public View(Class<? extends Entity> entityClass) {
         this(entityClass, "", true);
     }
@@ -166,9 +174,15 @@ public class View implements Serializable {
                 View sourcePropertyView = sourceProperty.getView();
 
                 if (sourcePropertyView != null && isNotEmpty(sourcePropertyView.getProperties())) {
-
-                    Map<String, ViewProperty> thisViewProperties = thisProperties.get(sourcePropertyName).getView().properties;
-                    putProperties(thisViewProperties, sourcePropertyView.getProperties());
+                    ViewProperty thisProperty = thisProperties.get(sourcePropertyName);
+                    View thisPropertyView = thisProperty.getView();
+                    if (thisPropertyView.frozen) {
+                        thisPropertyView = copyOnWrite(thisPropertyView);
+                        thisProperties.put(sourcePropertyName,
+                                new ViewProperty(sourcePropertyName, thisPropertyView, thisProperty.getFetchMode()));
+                    }
+                    thisPropertyView.beforeModification();
+                    putProperties(thisPropertyView.properties, sourcePropertyView.getProperties());
                 }
 
             } else {
@@ -177,6 +191,66 @@ public class View implements Serializable {
         }
     }
 
+    /**
+     * Creates a view which shares properties with the given view until it is modified. Nested views are shared too
+     * and may be {@link #isFrozen() frozen}, use {@link #getModifiablePropertyView(String)} to modify them.
+     *
+     * @param view view to copy
+     * @return a new view which is not frozen
+     */
+    @Nullable
+    public static View copyOnWrite(@Nullable View view) {
+        if (view == null) {
+            return null;
+        }
+
+        View copy = new View(new View.ViewParams()
+                .entityClass(view.getEntityClass())
+                .name(view.getName()));
+        copy.properties = view.properties;
+        copy.sharedProperties = true;
+        copy.loadPartialEntities = view.loadPartialEntities;
+        return copy;
+    }
+
+    /**
+     * Creates a {@link #isFrozen() frozen} copy of the view graph. The given view is not modified, its frozen nested
+     * views are shared with the copy.
+     *
+     * @param view view to copy
+     * @return a frozen view
+     */
+    @Nullable
+    public static View frozenCopy(@Nullable View view) {
+        if (view == null) {
+            return null;
+        }
+        return frozenCopy(view, new IdentityHashMap<>());
+    }
+
+    protected static View frozenCopy(View view, Map<View, View> copies) {
+        if (view.frozen) {
+            return view;
+        }
+        View copy = copies.get(view);
+        if (copy != null) {
+            return copy;
+        }
+
+        copy = new View(new View.ViewParams()
+                .entityClass(view.getEntityClass())
+                .name(view.getName()));
+        copy.loadPartialEntities = view.loadPartialEntities;
+        copies.put(view, copy);
+        for (ViewProperty property : view.properties.values()) {
+            View propertyView = property.getView();
+            copy.properties.put(property.getName(), new ViewProperty(property.getName(),
+                    propertyView != null ? frozenCopy(propertyView, copies) : null, property.getFetchMode()));
+        }
+        copy.frozen = true;
+        return copy;
+    }
+
     @Nullable
     public static View copy(@Nullable View view) {
         if (view == null) {
@@ -212,9 +286,53 @@ public class View implements Serializable {
      * @return collection of properties
      */
     public Collection<ViewProperty> getProperties() {
+        if (frozen || sharedProperties) {
+            return Collections.unmodifiableCollection(properties.values());
+        }
         return properties.values();
     }
 
+    /**
+     * Makes this view and all its nested views immutable, so they can be safely shared between threads.
+     * Any attempt to modify a frozen view throws {@link IllegalStateException}.
+     *
+     * @return this view
+     */
+    public View freeze() {
+        if (!frozen) {
+            for (ViewProperty property : properties.values()) {
+                if (property.getView() != null) {
+                    property.getView().freeze();
+                }
+            }
+            frozen = true;
+        }
+        return this;
+    }
+
+    /**
+     * @return true if the view cannot be modified
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException(String.format(
+                    "View %s is shared and cannot be modified, use View.copy() to get a modifiable view", this));
+        }
+    }
+
+    protected void beforeModification() {
+        checkNotFrozen();
+        if (sharedProperties) {
+            properties = new LinkedHashMap<>(properties);
+            sharedProperties = false;
+        }
+    }
+
     /**
      * Add a property to this view.
      * @param name  property name
@@ -223,12 +341,14 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name, @Nullable View view, FetchMode fetchMode) {
+        beforeModification();
         properties.put(name, new ViewProperty(name, view, fetchMode));
         return this;
     }
 
     @Deprecated
     public View addProperty(String name, @Nullable View view, boolean lazy) {
+        beforeModification();
         properties.put(name, new ViewProperty(name, view, lazy));
         return this;
     }
@@ -240,6 +360,7 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name, View view) {
+        beforeModification();
         properties.put(name, new ViewProperty(name, view));
         return this;
     }
@@ -250,6 +371,7 @@ public class View implements Serializable {
      * @return      this view instance for chaining
      */
     public View addProperty(String name) {
+        beforeModification();
         properties.put(name, new ViewProperty(name, null));
         return this;
     }
@@ -286,6 +408,28 @@ public class View implements Serializable {
         return properties.get(name);
     }
 
+    /**
+     * Get the view of a directly owned property to modify it. If the property view is {@link #isFrozen() frozen},
+     * it is replaced in this view with a {@link #copyOnWrite(View) copy-on-write} view.
+     * @param name  property name
+     * @return      modifiable view of the property or null if the property is not found or has no view
+     * @throws IllegalStateException if this view is frozen
+     */
+    @Nullable
+    public View getModifiablePropertyView(String name) {
+        ViewProperty property = properties.get(name);
+        if (property == null || property.getView() == null) {
+            return null;
+        }
+        View propertyView = property.getView();
+        if (propertyView.frozen) {
+            beforeModification();
+            propertyView = copyOnWrite(propertyView);
+            properties.put(name, new ViewProperty(name, propertyView, property.getFetchMode()));
+        }
+        return propertyView;
+    }
+
     /**
      * Check if a directly owned property with the given name exists in the view.
      * @param name  property name
@@ -313,6 +457,7 @@ public class View implements Serializable {
      * @return this view instance for chaining
      */
     public View setLoadPartialEntities(boolean loadPartialEntities) {
+        checkNotFrozen();
         this.loadPartialEntities = loadPartialEntities;
         return this;
     }
@@ -42,6 +42,7 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -74,14 +75,54 @@ public abstract class AbstractMessages implements Messages {
 
     protected Map<String, String> strCache = new ConcurrentHashMap<>();
 
-    // Using ConcurrentHashMap instead of synchronized Set for better parallelism
-    protected Map<String, String> notFoundCache = new ConcurrentHashMap<>();
+    /**
+     * Resolved messages by requested locale. Lookups of cached messages do not create composite keys.
+     */
+    protected ConcurrentMap<Locale, LocaleMessages> localeMessagesCache = new ConcurrentHashMap<>();
+
+    protected ClassValue<String> packNames = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return getPackName(type);
+        }
+    };
+
+    /**
+     * Marks keys that are not found in {@link LocaleMessages}.
+     */
+    protected static final String NOT_FOUND = new String("<not found>");
 
     protected Cache<String, Properties> filePropertiesCache = CacheBuilder.newBuilder().build();
     protected Cache<String, Properties> resourcePropertiesCache = CacheBuilder.newBuilder().build();
 
     protected final static Properties PROPERTIES_NOT_FOUND = new Properties();
 
+    /**
+     * Messages resolved for a locale, by pack and key.
+     */
+    protected static class LocaleMessages {
+
+        protected final Locale trimmedLocale;
+
+        // results of getMessage()
+        protected final ConcurrentMap<String, ConcurrentMap<String, String>> messages = new ConcurrentHashMap<>();
+
+        // results of internalGetMessage(), including not found keys
+        protected final ConcurrentMap<String, ConcurrentMap<String, String>> internalMessages = new ConcurrentHashMap<>();
+
+        protected LocaleMessages(Locale trimmedLocale) {
+            this.trimmedLocale = trimmedLocale;
+        }
+
+        protected ConcurrentMap<String, String> getMessages(String packs) {
+            return messages.computeIfAbsent(packs, k -> new ConcurrentHashMap<>());
+        }
+
+        protected ConcurrentMap<String, String> getInternalMessages(String packs) {
+            return internalMessages.computeIfAbsent(packs, k -> new ConcurrentHashMap<>());
+        }
+    }
+
     protected abstract Locale getUserLocale();
 
     @Nullable
@@ -175,7 +216,7 @@ public abstract class AbstractMessages implements Messages {
 
     @Override
     public String getMessage(Class caller, String key, Locale locale) {
-        return getMessage(getPackName(caller), key, locale);
+        return getMessage(packNames.get(caller), key, locale);
     }
 
     @Override
@@ -210,7 +251,7 @@ public abstract class AbstractMessages implements Messages {
         }
 
         return getMessage(
-                getPackName(caller.getClass()),
+                packNames.get(caller.getClass()),
                 className + "." + caller.name(),
                 locale
         );
@@ -256,12 +297,18 @@ public abstract class AbstractMessages implements Messages {
         checkNotNullArgument(packs, "Messages pack name is null");
         checkNotNullArgument(key, "Message key is null");
 
-        String compositeKey = packs + "/" + key;
-        String msg = internalGetMessage(mainMessagePack, compositeKey, locale, null, false);
+        ConcurrentMap<String, String> packMessages = getLocaleMessages(locale).getMessages(packs);
+        String msg = packMessages.get(key);
         if (msg != null)
             return msg;
 
-        return internalGetMessage(packs, key, locale, key, true);
+        String compositeKey = packs + "/" + key;
+        msg = internalGetMessage(mainMessagePack, compositeKey, locale, null, false);
+        if (msg == null)
+            msg = internalGetMessage(packs, key, locale, key, true);
+
+        packMessages.put(key, msg);
+        return msg;
     }
 
     @Nullable
@@ -302,40 +349,129 @@ public abstract class AbstractMessages implements Messages {
         filePropertiesCache.invalidateAll();
         resourcePropertiesCache.invalidateAll();
         strCache.clear();
-        notFoundCache.clear();
+        localeMessagesCache.clear();
+    }
+
+    /**
+     * Returns all messages defined for the locale in the packs, their parent and included packs. Messages are
+     * resolved by {@link #getMessage(String, String, Locale)}, so main message pack overrides are applied.
+     *
+     * @param packs  pack names separated by spaces
+     * @param locale locale
+     * @return map of message keys to messages
+     */
+    public Map<String, String> getPackMessages(String packs, Locale locale) {
+        checkNotNullArgument(packs, "Messages pack name is null");
+        checkNotNullArgument(locale, "Locale is null");
+
+        Set<String> keys = new HashSet<>();
+        collectKeys(packs, messageTools.trimLocale(locale), keys, new HashSet<>());
+
+        Map<String, String> result = new HashMap<>();
+        for (String key : keys) {
+            String msg = getMessage(packs, key, locale);
+            if (!key.equals(msg)) {
+                result.put(key, msg);
+            }
+        }
+        return result;
+    }
+
+    protected void collectKeys(String packs, Locale locale, Set<String> keys, Set<String> passedPacks) {
+        StringTokenizer tokenizer = new StringTokenizer(packs);
+        for (String pack : tokenizer.getTokenList()) {
+            if (!passedPacks.add(pack))
+                continue;
+
+            Locale tmpLocale = locale;
+            while (true) {
+                String packPath = confDir + "/" + pack.replaceAll("\\.", "/");
+                while (packPath != null && !packPath.equals(confDir)) {
+                    collectKeys(loadPropertiesFromFile(packPath, locale, tmpLocale), locale, keys, passedPacks);
+                    int pos = packPath.lastIndexOf("/");
+                    packPath = pos < 0 ? null : packPath.substring(0, pos);
+                }
+
+                packPath = "/" + pack.replaceAll("\\.", "/");
+                while (packPath != null) {
+                    collectKeys(loadPropertiesFromResource(packPath, locale, tmpLocale), locale, keys, passedPacks);
+                    int pos = packPath.lastIndexOf("/");
+                    packPath = pos < 0 ? null : packPath.substring(0, pos);
+                }
+
+                if (tmpLocale == null)
+                    break;
+                tmpLocale = truncateLocale(tmpLocale);
+            }
+        }
+    }
+
+    protected void collectKeys(Properties properties, Locale locale, Set<String> keys, Set<String> passedPacks) {
+        if (properties == PROPERTIES_NOT_FOUND)
+            return;
+
+        for (String name : properties.stringPropertyNames()) {
+            if (!"@include".equals(name)) {
+                keys.add(name);
+            }
+        }
+
+        String includesProperty = properties.getProperty("@include");
+        if (includesProperty != null) {
+            String[] includes = StringUtils.split(includesProperty, " ,");
+            if (includes != null) {
+                for (String includePath : includes) {
+                    includePath = StringUtils.trimToNull(includePath);
+                    if (includePath != null) {
+                        collectKeys(includePath, locale, keys, passedPacks);
+                    }
+                }
+            }
+        }
+    }
+
+    protected LocaleMessages getLocaleMessages(Locale locale) {
+        checkNotNullArgument(locale, "Locale is null");
+
+        LocaleMessages localeMessages = localeMessagesCache.get(locale);
+        if (localeMessages == null) {
+            localeMessages = localeMessagesCache.computeIfAbsent(locale,
+                    loc -> new LocaleMessages(messageTools.trimLocale(loc)));
+        }
+        return localeMessages;
     }
 
     protected String internalGetMessage(String packs, String key, Locale locale, String defaultValue,
                                         boolean searchMainIfNotFound) {
-        locale = messageTools.trimLocale(locale);
+        LocaleMessages localeMessages = getLocaleMessages(locale);
+        ConcurrentMap<String, String> packMessages = localeMessages.getInternalMessages(packs);
 
-        String cacheKey = makeCacheKey(packs, key, locale, locale);
-
-        String msg = strCache.get(cacheKey);
+        String msg = packMessages.get(key);
         if (msg != null)
-            return msg;
+            return msg == NOT_FOUND ? defaultValue : msg;
 
-        String notFound = notFoundCache.get(cacheKey);
-        if (notFound != null)
-            return defaultValue;
+        locale = localeMessages.trimmedLocale;
 
-        msg = searchMessage(packs, key, locale, locale, new HashSet<>());
-        if (msg != null) {
-            cache(cacheKey, msg);
-            return msg;
-        }
+        String cacheKey = makeCacheKey(packs, key, locale, locale);
 
-        if (searchMainIfNotFound) {
-            String tmpCacheKey = makeCacheKey(mainMessagePack, key, locale, locale);
-            msg = searchMessage(tmpCacheKey, key, locale, locale, new HashSet<>());
+        msg = strCache.get(cacheKey);
+        if (msg == null) {
+            msg = searchMessage(packs, key, locale, locale, new HashSet<>());
+            if (msg == null && searchMainIfNotFound) {
+                String tmpCacheKey = makeCacheKey(mainMessagePack, key, locale, locale);
+                msg = searchMessage(tmpCacheKey, key, locale, locale, new HashSet<>());
+            }
             if (msg != null) {
                 cache(cacheKey, msg);
-                return msg;
             }
         }
 
-        notFoundCache.put(cacheKey, key);
-        return defaultValue;
+        if (msg == null) {
+            packMessages.put(key, NOT_FOUND);
+            return defaultValue;
+        }
+        packMessages.put(key, msg);
+        return msg;
     }
 
     @Nullable
@@ -17,6 +17,11 @@
 
 package com.haulmont.cuba.core.sys;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.haulmont.cuba.core.global.Configuration;
 import com.haulmont.cuba.core.global.GlobalConfig;
 import com.haulmont.cuba.core.global.ScriptExecutionPolicy;
@@ -31,13 +36,9 @@ import groovy.util.ResourceConnector;
 import groovy.util.ResourceException;
 import groovy.util.ScriptException;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
-import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
-import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.runtime.InvokerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +51,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -67,7 +69,7 @@ public abstract class AbstractScripting implements Scripting {
 
     protected volatile GroovyScriptEngine gse;
     protected volatile CubaGroovyClassLoader gcl;
-    protected GenericKeyedObjectPool<String, Script> pool;
+    protected volatile Cache<String, Class<? extends Script>> compiledScripts;
 
     protected GlobalConfig globalConfig;
 
@@ -130,27 +132,63 @@ public abstract class AbstractScripting implements Scripting {
         return gcl;
     }
 
-    private synchronized GenericKeyedObjectPool<String, Script> getPool() {
-        if (pool == null) {
-            GenericKeyedObjectPoolConfig<Script> poolConfig = new GenericKeyedObjectPoolConfig<>();
-            poolConfig.setMaxTotalPerKey(-1);
-            poolConfig.setMaxIdlePerKey(globalConfig.getGroovyEvaluationPoolMaxIdle());
-            pool = new GenericKeyedObjectPool<>(
-                    new BaseKeyedPooledObjectFactory<String, Script>() {
-                        @Override
-                        public Script create(String key) {
-                            return createScript(key);
-                        }
+    /**
+     * Returns the cache of script classes compiled by {@link #evaluateGroovy(String, Binding, ScriptExecutionPolicy...)}.
+     * Each distinct script text is compiled once, evicted classes can be unloaded together with their class loaders.
+     */
+    protected Cache<String, Class<? extends Script>> getCompiledScripts() {
+        if (compiledScripts == null) {
+            synchronized (this) {
+                if (compiledScripts == null) {
+                    compiledScripts = CacheBuilder.newBuilder()
+                            .maximumSize(globalConfig.getGroovyEvaluationCacheMaxSize())
+                            .recordStats()
+                            .build();
+                }
+            }
+        }
+        return compiledScripts;
+    }
 
-                        @Override
-                        public PooledObject<Script> wrap(Script value) {
-                            return new DefaultPooledObject<>(value);
-                        }
-                    },
-                    poolConfig
-            );
+    protected Class<? extends Script> getScriptClass(String text) {
+        try {
+            return getCompiledScripts().get(text, () -> createScript(text).getClass());
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException("Error compiling Groovy expression", cause);
         }
-        return pool;
+    }
+
+    /**
+     * Creates an instance of the cached compiled class of the expression. The instance can be run repeatedly
+     * in one thread, e.g. with different values of binding variables.
+     *
+     * @param text    Groovy expression
+     * @param binding binding of the script
+     * @return script instance
+     */
+    public Script createCachedScript(String text, Binding binding) {
+        return InvokerHelper.createScript(getScriptClass(text), binding);
+    }
+
+    /**
+     * @return statistics of the compiled scripts cache: hits, compilations, total compilation time and evictions
+     */
+    public CacheStats getCompiledScriptsStats() {
+        return getCompiledScripts().stats();
+    }
+
+    /**
+     * @return number of script classes currently held in the compiled scripts cache
+     */
+    public long getCompiledScriptsCount() {
+        return getCompiledScripts().size();
     }
 
     protected Script createScript(String text) {
@@ -198,33 +236,22 @@ public abstract class AbstractScripting implements Scripting {
     public <T> T evaluateGroovy(String text, Binding binding, ScriptExecutionPolicy... policies) {
         boolean useCompilationCache = policies == null ||
                 !Arrays.asList(policies).contains(ScriptExecutionPolicy.DO_NOT_USE_COMPILE_CACHE);
-        Script script = null;
         Object result;
         try {
-            script = useCompilationCache ? getPool().borrowObject(text) : createScript(text);
-            script.setBinding(binding);
+            Script script;
+            if (useCompilationCache) {
+                script = createCachedScript(text, binding);
+            } else {
+                script = createScript(text);
+                script.setBinding(binding);
+            }
             result = script.run();
         } catch (Exception e) {
-            if (script != null && useCompilationCache) {
-                try {
-                    getPool().invalidateObject(text, script);
-                } catch (Exception e1) {
-                    log.warn("Error invalidating object in the pool", e1);
-                }
-            }
             if (e instanceof RuntimeException)
                 throw ((RuntimeException) e);
             else
                 throw new RuntimeException("Error evaluating Groovy expression", e);
         }
-        if (useCompilationCache) {
-            try {
-                script.setBinding(null); // free memory
-                getPool().returnObject(text, script);
-            } catch (Exception e) {
-                log.warn("Error returning object into the pool", e);
-            }
-        }
         //noinspection unchecked
         return (T) result;
     }
@@ -316,7 +343,7 @@ public abstract class AbstractScripting implements Scripting {
     public void clearCache() {
         getGroovyClassLoader().clearCache();
         javaClassLoader.clearCache();
-        getPool().clear();
+        getCompiledScripts().invalidateAll();
         GroovyScriptEngine gse = getGroovyScriptEngine();
         try {
             Field scriptCacheField = gse.getClass().getDeclaredField("scriptCache");
@@ -49,6 +49,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * Base implementation of the {@link ViewRepository}. Contains methods to store {@link View} objects and deploy
  * them from XML. <br>
+ * <br> Deployed views are {@link View#freeze() frozen}, so lookups return {@link View#copyOnWrite(View)
+ * copy-on-write} views sharing their properties without locking. Nested views of returned views stay frozen and are
+ * modified through {@link View#getModifiablePropertyView(String)}. Redeployment replaces frozen views instead of
+ * modifying them.
  * <br> Don't replace this class completely, because the framework uses it directly.
  */
 public class AbstractViewRepository implements ViewRepository {
@@ -89,6 +93,20 @@ public class AbstractViewRepository implements ViewRepository {
         }
     }
 
+    /**
+     * Initializes the repository if needed. Once it is initialized, the lock is not acquired.
+     */
+    protected void ensureInitialized() {
+        if (!initialized) {
+            lock.readLock().lock();
+            try {
+                checkInitialized();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
     protected void init() {
         StopWatch initTiming = new Slf4JStopWatch("ViewRepository.init." + getClass().getSimpleName());
 
@@ -204,51 +222,30 @@ public class AbstractViewRepository implements ViewRepository {
             return null;
         }
 
-        lock.readLock().lock();
-        try {
-            checkInitialized();
+        ensureInitialized();
 
-            View view = retrieveView(metaClass, name, new HashSet<>());
-            return copyView(view);
-        } finally {
-            lock.readLock().unlock();
-        }
+        View view = retrieveView(metaClass, name, new HashSet<>());
+        return copyView(view);
     }
 
     protected View copyView(@Nullable View view) {
-        if (view == null) {
-            return null;
-        }
-
-        View.ViewParams viewParams = new View.ViewParams()
-                .entityClass(view.getEntityClass())
-                .name(view.getName());
-        View copy = new View(viewParams);
-        for (ViewProperty property : view.getProperties()) {
-            copy.addProperty(property.getName(), copyView(property.getView()), property.getFetchMode());
-        }
-
-        return copy;
+        return View.copyOnWrite(view);
     }
 
     @Override
     public Collection<String> getViewNames(MetaClass metaClass) {
         Preconditions.checkNotNullArgument(metaClass, "MetaClass is null");
-        lock.readLock().lock();
-        try {
-            checkInitialized();
-            Map<String, View> viewMap = storage.get(metaClass);
-            if (viewMap != null && !viewMap.isEmpty()) {
-                Set<String> keySet = new HashSet<>(viewMap.keySet());
-                keySet.remove(View.LOCAL);
-                keySet.remove(View.MINIMAL);
-                keySet.remove(View.BASE);
-                return keySet;
-            } else {
-                return Collections.emptyList();
-            }
-        } finally {
-            lock.readLock().unlock();
+        ensureInitialized();
+
+        Map<String, View> viewMap = storage.get(metaClass);
+        if (viewMap != null && !viewMap.isEmpty()) {
+            Set<String> keySet = new HashSet<>(viewMap.keySet());
+            keySet.remove(View.LOCAL);
+            keySet.remove(View.MINIMAL);
+            keySet.remove(View.BASE);
+            return keySet;
+        } else {
+            return Collections.emptyList();
         }
     }
 
@@ -283,7 +280,7 @@ public class AbstractViewRepository implements ViewRepository {
             throw new UnsupportedOperationException("Unsupported default view: " + name);
         }
 
-        storeView(metaClass, view);
+        view = storeView(metaClass, view);
 
         return view;
     }
@@ -469,7 +466,7 @@ public class AbstractViewRepository implements ViewRepository {
         });
         visited.remove(viewInfo);
 
-        storeView(metaClass, view);
+        view = storeView(metaClass, view);
 
         if (viewInfo.isOverwrite()) {
             replaceOverridden(view);
@@ -481,43 +478,58 @@ public class AbstractViewRepository implements ViewRepository {
     protected void replaceOverridden(View replacementView) {
         StopWatch replaceTiming = new Slf4JStopWatch("ViewRepository.replaceOverridden");
 
-        HashSet<View> checked = new HashSet<>();
+        Map<View, View> processed = new IdentityHashMap<>();
 
-        for (View view : getAllInitialized()) {
-            if (!checked.contains(view)) {
-                replaceOverridden(view, replacementView, checked);
+        for (Map<String, View> viewMap : storage.values()) {
+            for (View view : new ArrayList<>(viewMap.values())) {
+                View result = replaceOverridden(view, replacementView, processed);
+                if (result != view) {
+                    viewMap.put(result.getName(), result);
+                }
             }
         }
 
         replaceTiming.stop();
     }
 
-    protected void replaceOverridden(View root, View replacementView, HashSet<View> checked) {
-        checked.add(root);
-
-        List<ViewProperty> replacements = null;
+    /**
+     * Replaces nested views having the name and entity class of the replacement view. Frozen views are not
+     * modified, instead their copies with replaced properties are created.
+     *
+     * @return the root view if nothing was replaced, or its frozen copy
+     */
+    protected View replaceOverridden(View root, View replacementView, Map<View, View> processed) {
+        View result = processed.get(root);
+        if (result != null) {
+            return result;
+        }
+        processed.put(root, root);
 
+        View copy = null;
         for (ViewProperty property : root.getProperties()) {
             View propertyView = property.getView();
 
             if (propertyView != null) {
+                View newPropertyView = propertyView;
                 if (Objects.equals(propertyView.getName(), replacementView.getName())
                         && replacementView.getEntityClass() == propertyView.getEntityClass()) {
-                    if (replacements == null) {
-                        replacements = new LinkedList<>();
+                    newPropertyView = replacementView;
+                } else if (propertyView.getEntityClass() != null) {
+                    newPropertyView = replaceOverridden(propertyView, replacementView, processed);
+                }
+
+                if (newPropertyView != propertyView) {
+                    if (copy == null) {
+                        copy = View.copyOnWrite(root);
                     }
-                    replacements.add(new ViewProperty(property.getName(), replacementView, property.getFetchMode()));
-                } else if (propertyView.getEntityClass() != null && !checked.contains(propertyView)) {
-                    replaceOverridden(propertyView, replacementView, checked);
+                    copy.addProperty(property.getName(), newPropertyView, property.getFetchMode());
                 }
             }
         }
 
-        if (replacements != null) {
-            for (ViewProperty replacement : replacements) {
-                root.addProperty(replacement.getName(), replacement.getView(), replacement.getFetchMode());
-            }
-        }
+        result = copy != null ? copy.freeze() : root;
+        processed.put(root, result);
+        return result;
     }
 
     protected View getAncestorView(MetaClass metaClass, String ancestor, Set<ViewLoader.ViewInfo> visited) {
@@ -545,14 +557,21 @@ public class AbstractViewRepository implements ViewRepository {
         return ancestorView;
     }
 
-    protected void storeView(MetaClass metaClass, View view) {
+    /**
+     * Stores a frozen copy of the view, the passed view is not modified.
+     *
+     * @return the stored view
+     */
+    protected View storeView(MetaClass metaClass, View view) {
         Map<String, View> views = storage.get(metaClass);
         if (views == null) {
             views = new ConcurrentHashMap<>();
         }
 
-        views.put(view.getName(), view);
+        View storedView = View.frozenCopy(view);
+        views.put(storedView.getName(), storedView);
         storage.put(metaClass, views);
+        return storedView;
     }
 
     protected List<View> getAllInitialized() {
@@ -564,17 +583,13 @@ public class AbstractViewRepository implements ViewRepository {
     }
 
     public List<View> getAll() {
-        lock.readLock().lock();
-        try {
-            checkInitialized();
-            List<View> list = new ArrayList<>();
-            for (Map<String, View> viewMap : storage.values()) {
-                list.addAll(viewMap.values());
-            }
-            return list;
-        } finally {
-            lock.readLock().unlock();
+        ensureInitialized();
+
+        List<View> list = new ArrayList<>();
+        for (Map<String, View> viewMap : storage.values()) {
+            list.addAll(viewMap.values());
         }
+        return list;
     }
 
 }
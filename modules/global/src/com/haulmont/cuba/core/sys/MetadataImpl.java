@@ -22,6 +22,7 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.haulmont.bali.datastruct.Pair;
 import com.haulmont.bali.util.StackTrace;
 import com.haulmont.chile.core.datatypes.DatatypeRegistry;
 import com.haulmont.chile.core.model.MetaClass;
@@ -47,10 +48,12 @@ import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Component(Metadata.NAME)
@@ -96,6 +99,44 @@ public class MetadataImpl implements Metadata {
                         }
                     });
 
+    protected ConcurrentMap<Class<?>, CreationPlan> creationPlans = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable data required to create an instance of an entity class, resolved on the first creation.
+     */
+    protected static class CreationPlan {
+
+        protected final Class<?> javaClass;
+        protected final Supplier<?> constructor;
+        protected final IdGeneration idGeneration;
+        @Nullable
+        protected final MetaClass embeddedIdMetaClass;
+        protected final boolean mainStore;
+        @Nullable
+        protected final String entityNameForIdGeneration;
+        protected final List<Pair<String, MetaClass>> embeddedProperties;
+        protected final List<Method> postConstructMethods;
+
+        protected CreationPlan(Class<?> javaClass, Supplier<?> constructor, IdGeneration idGeneration,
+                               @Nullable MetaClass embeddedIdMetaClass, boolean mainStore,
+                               @Nullable String entityNameForIdGeneration,
+                               List<Pair<String, MetaClass>> embeddedProperties,
+                               List<Method> postConstructMethods) {
+            this.javaClass = javaClass;
+            this.constructor = constructor;
+            this.idGeneration = idGeneration;
+            this.embeddedIdMetaClass = embeddedIdMetaClass;
+            this.mainStore = mainStore;
+            this.entityNameForIdGeneration = entityNameForIdGeneration;
+            this.embeddedProperties = embeddedProperties;
+            this.postConstructMethods = postConstructMethods;
+        }
+    }
+
+    protected enum IdGeneration {
+        NONE, EMBEDDED, LONG, INTEGER
+    }
+
     @EventListener(AppContextInitializedEvent.class)
     @Order(Events.HIGHEST_PLATFORM_PRECEDENCE + 10)
     protected void initMetadata() {
@@ -111,6 +152,7 @@ public class MetadataImpl implements Metadata {
         metadataLoader.loadMetadata();
         rootPackages = metadataLoader.getRootPackages();
         session = new CachingMetadataSession(metadataLoader.getSession());
+        creationPlans.clear();
         SessionImpl.setSerializationSupportSession(session);
 
         log.info("Metadata initialized in {} ms", System.currentTimeMillis() - startTime);
@@ -142,45 +184,153 @@ public class MetadataImpl implements Metadata {
     }
 
     protected <T extends Entity> T __create(Class<T> entityClass) {
-        @SuppressWarnings("unchecked")
-        Class<T> extClass = extendedEntities.getEffectiveClass(entityClass);
+        CreationPlan plan = getCreationPlan(entityClass);
         try {
-            T obj = extClass.getDeclaredConstructor().newInstance();
+            @SuppressWarnings("unchecked")
+            T obj = (T) plan.constructor.get();
             assignIdentifier(obj);
             assignUuid(obj);
             createEmbedded(obj);
             invokePostConstructMethods(obj);
             return obj;
-        } catch (NoSuchMethodException | InstantiationException | InvocationTargetException | IllegalAccessException e) {
+        } catch (InvocationTargetException | IllegalAccessException e) {
             throw new RuntimeException("Unable to create entity instance", e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    protected void assignIdentifier(Entity entity) {
-        if (!(entity instanceof BaseGenericIdEntity))
-            return;
+    protected CreationPlan getCreationPlan(Class<?> entityClass) {
+        CreationPlan plan = creationPlans.get(entityClass);
+        if (plan == null) {
+            plan = creationPlans.computeIfAbsent(entityClass, this::createCreationPlan);
+        }
+        return plan;
+    }
 
-        MetaClass metaClass = getClassNN(entity.getClass());
-
-        MetaProperty primaryKeyProperty = tools.getPrimaryKeyProperty(metaClass);
-        if (primaryKeyProperty != null && tools.isEmbedded(primaryKeyProperty)) {
-            // create an instance of embedded ID
-            Entity key = create(primaryKeyProperty.getRange().asClass());
-            ((BaseGenericIdEntity) entity).setId(key);
-        } else {
-            if (!config.getEnableIdGenerationForEntitiesInAdditionalDataStores()
-                    && !Stores.MAIN.equals(tools.getStoreName(metaClass))) {
-                return;
+    /**
+     * Resolves everything that is needed to create instances of the effective class of the given entity class.
+     */
+    protected CreationPlan createCreationPlan(Class<?> entityClass) {
+        Class<?> extClass = extendedEntities.getEffectiveClass(entityClass);
+        MetaClass metaClass = getClassNN(extClass);
+
+        IdGeneration idGeneration = IdGeneration.NONE;
+        MetaClass embeddedIdMetaClass = null;
+        String entityNameForIdGeneration = null;
+        if (BaseGenericIdEntity.class.isAssignableFrom(extClass)) {
+            MetaProperty primaryKeyProperty = tools.getPrimaryKeyProperty(metaClass);
+            if (primaryKeyProperty != null && tools.isEmbedded(primaryKeyProperty)) {
+                idGeneration = IdGeneration.EMBEDDED;
+                embeddedIdMetaClass = primaryKeyProperty.getRange().asClass();
+            } else if (tools.isPersistent(metaClass)) {
+                if (BaseLongIdEntity.class.isAssignableFrom(extClass)) {
+                    idGeneration = IdGeneration.LONG;
+                } else if (BaseIntegerIdEntity.class.isAssignableFrom(extClass)) {
+                    idGeneration = IdGeneration.INTEGER;
+                }
+                if (idGeneration != IdGeneration.NONE) {
+                    entityNameForIdGeneration = getEntityNameForIdGeneration(metaClass);
+                }
             }
-            if (tools.isPersistent(metaClass)) {
-                if (entity instanceof BaseLongIdEntity) {
-                    ((BaseGenericIdEntity<Long>) entity).setId(numberIdSource.createLongId(getEntityNameForIdGeneration(metaClass)));
-                } else if (entity instanceof BaseIntegerIdEntity) {
-                    ((BaseGenericIdEntity<Integer>) entity).setId(numberIdSource.createIntegerId(getEntityNameForIdGeneration(metaClass)));
+        }
+
+        List<Pair<String, MetaClass>> embeddedProperties = new ArrayList<>();
+        for (MetaProperty property : metaClass.getProperties()) {
+            if (property.getRange().isClass() && tools.isEmbedded(property)) {
+                EmbeddedParameters embeddedParameters = property.getAnnotatedElement().getAnnotation(EmbeddedParameters.class);
+                if (embeddedParameters != null && !embeddedParameters.nullAllowed()) {
+                    embeddedProperties.add(new Pair<>(property.getName(), property.getRange().asClass()));
                 }
             }
         }
+
+        return new CreationPlan(extClass,
+                createConstructor(extClass),
+                idGeneration,
+                embeddedIdMetaClass,
+                Stores.MAIN.equals(tools.getStoreName(metaClass)),
+                entityNameForIdGeneration,
+                embeddedProperties.isEmpty() ? Collections.emptyList() : ImmutableList.copyOf(embeddedProperties),
+                postConstructMethodsCache.getUnchecked(extClass));
+    }
+
+    /**
+     * Creates a function invoking the no-arg constructor of the class. The function is generated by
+     * {@link LambdaMetafactory} if the class is visible from the class loader of the platform, otherwise
+     * the constructor is invoked by reflection.
+     */
+    protected Supplier<?> createConstructor(Class<?> javaClass) {
+        Constructor<?> constructor;
+        try {
+            constructor = javaClass.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Unable to create entity instance", e);
+        }
+
+        if (Modifier.isPublic(javaClass.getModifiers())
+                && Modifier.isPublic(constructor.getModifiers())
+                && isVisibleFromPlatform(javaClass)) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle constructorHandle = lookup.findConstructor(javaClass, MethodType.methodType(void.class));
+                CallSite callSite = LambdaMetafactory.metafactory(lookup,
+                        "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        constructorHandle,
+                        MethodType.methodType(javaClass));
+                return (Supplier<?>) callSite.getTarget().invoke();
+            } catch (Throwable e) {
+                log.debug("Unable to create constructor function for {}, reflection is used", javaClass, e);
+            }
+        }
+
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException("Unable to create entity instance", e);
+            }
+        };
+    }
+
+    protected boolean isVisibleFromPlatform(Class<?> javaClass) {
+        try {
+            return Class.forName(javaClass.getName(), false, MetadataImpl.class.getClassLoader()) == javaClass;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void assignIdentifier(Entity entity, CreationPlan plan) {
+        switch (plan.idGeneration) {
+            case EMBEDDED:
+                // create an instance of embedded ID
+                ((BaseGenericIdEntity) entity).setId(create(plan.embeddedIdMetaClass));
+                break;
+            case LONG:
+                if (plan.mainStore || config.getEnableIdGenerationForEntitiesInAdditionalDataStores()) {
+                    ((BaseGenericIdEntity<Long>) entity).setId(numberIdSource.createLongId(plan.entityNameForIdGeneration));
+                }
+                break;
+            case INTEGER:
+                if (plan.mainStore || config.getEnableIdGenerationForEntitiesInAdditionalDataStores()) {
+                    ((BaseGenericIdEntity<Integer>) entity).setId(numberIdSource.createIntegerId(plan.entityNameForIdGeneration));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    protected void createEmbedded(Entity entity, CreationPlan plan) {
+        for (Pair<String, MetaClass> embeddedProperty : plan.embeddedProperties) {
+            entity.setValue(embeddedProperty.getFirst(), create(embeddedProperty.getSecond()));
+        }
+    }
+
+    protected void assignIdentifier(Entity entity) {
+        assignIdentifier(entity, getCreationPlan(entity.getClass()));
     }
 
     protected String getEntityNameForIdGeneration(MetaClass metaClass) {
@@ -206,23 +356,21 @@ public class MetadataImpl implements Metadata {
     }
 
     protected void createEmbedded(Entity entity) {
-        MetaClass metaClass = getClassNN(entity.getClass());
-        for (MetaProperty property : metaClass.getProperties()) {
-            if (property.getRange().isClass() && tools.isEmbedded(property)) {
-                EmbeddedParameters embeddedParameters = property.getAnnotatedElement().getAnnotation(EmbeddedParameters.class);
-                if (embeddedParameters != null && !embeddedParameters.nullAllowed()) {
-                    MetaClass embeddableMetaClass = property.getRange().asClass();
-                    Entity embeddableEntity = create(embeddableMetaClass);
-                    entity.setValue(property.getName(), embeddableEntity);
-                }
-            }
-        }
+        createEmbedded(entity, getCreationPlan(entity.getClass()));
     }
 
     protected void invokePostConstructMethods(Entity entity) throws InvocationTargetException, IllegalAccessException {
-        List<Method> postConstructMethods = postConstructMethodsCache.getUnchecked(entity.getClass());
+        invokePostConstructMethods(entity, getCreationPlan(entity.getClass()).postConstructMethods);
+    }
+
+    protected void invokePostConstructMethods(Entity entity, List<Method> postConstructMethods)
+            throws InvocationTargetException, IllegalAccessException {
         // methods are store in the correct execution order
         for (Method method : postConstructMethods) {
+            if (method.getParameterCount() == 0) {
+                method.invoke(entity);
+                continue;
+            }
             List<Object> params = new ArrayList<>();
             for (Parameter parameter : method.getParameters()) {
                 Class<?> parameterClass = parameter.getType();
@@ -128,6 +128,10 @@ public class MetadataLoader {
         }
 
         replaceExtendedMetaClasses();
+
+        for (MetaClass metaClass : session.getClasses()) {
+            initTraits(metaClass);
+        }
     }
 
     /**
@@ -471,6 +475,70 @@ public class MetadataLoader {
         }
     }
 
+    /**
+     * Resolves persistence-related traits of the class and its properties from meta-annotations, so that
+     * {@link MetadataTools} does not have to look them up in annotation maps on each call.
+     */
+    protected void initTraits(MetaClass metaClass) {
+        Map<String, Object> annotations = metaClass.getAnnotations();
+        Class javaClass = metaClass.getJavaClass();
+
+        int traits = 0;
+        if (Boolean.TRUE.equals(annotations.get(MetadataTools.PERSISTENT_ANN_NAME))) {
+            traits |= MetaClassImpl.TRAIT_PERSISTENT;
+            if (javaClass.isAnnotationPresent(javax.persistence.Entity.class)) {
+                traits |= MetaClassImpl.TRAIT_PERSISTENT_ENTITY;
+            }
+            if (javaClass.isAnnotationPresent(javax.persistence.Embeddable.class)) {
+                traits |= MetaClassImpl.TRAIT_EMBEDDABLE;
+            }
+        }
+        if (Boolean.TRUE.equals(annotations.get("cacheable"))) {
+            traits |= MetaClassImpl.TRAIT_CACHEABLE;
+        }
+
+        String storeName = (String) annotations.get(MetadataTools.STORE_ANN_NAME);
+        if (storeName == null && (traits & MetaClassImpl.TRAIT_PERSISTENT_ENTITY) != 0) {
+            storeName = Stores.MAIN;
+        }
+
+        String primaryKeyName = (String) annotations.get(MetadataTools.PRIMARY_KEY_ANN_NAME);
+        MetaClass ancestor = metaClass.getAncestor();
+        while (primaryKeyName == null && ancestor != null) {
+            primaryKeyName = (String) ancestor.getAnnotations().get(MetadataTools.PRIMARY_KEY_ANN_NAME);
+            ancestor = ancestor.getAncestor();
+        }
+        MetaProperty primaryKeyProperty = primaryKeyName != null ? metaClass.getProperty(primaryKeyName) : null;
+        if (primaryKeyProperty != null && primaryKeyProperty.getAnnotatedElement() != null
+                && primaryKeyProperty.getAnnotatedElement().isAnnotationPresent(javax.persistence.EmbeddedId.class)) {
+            traits |= MetaClassImpl.TRAIT_COMPOSITE_PRIMARY_KEY;
+        }
+
+        for (MetaProperty metaProperty : metaClass.getOwnProperties()) {
+            initTraits(metaProperty);
+        }
+
+        ((MetaClassImpl) metaClass).setTraits(traits, storeName, primaryKeyName, primaryKeyProperty);
+    }
+
+    protected void initTraits(MetaProperty metaProperty) {
+        Map<String, Object> annotations = metaProperty.getAnnotations();
+
+        int traits = 0;
+        if (Boolean.TRUE.equals(annotations.get(MetadataTools.PERSISTENT_ANN_NAME))) {
+            traits |= MetaPropertyImpl.TRAIT_PERSISTENT;
+        }
+        if (Boolean.TRUE.equals(annotations.get(MetadataTools.EMBEDDED_ANN_NAME))) {
+            traits |= MetaPropertyImpl.TRAIT_EMBEDDED;
+        }
+        AnnotatedElement annotatedElement = metaProperty.getAnnotatedElement();
+        if (annotatedElement != null && annotatedElement.isAnnotationPresent(javax.persistence.Lob.class)) {
+            traits |= MetaPropertyImpl.TRAIT_LOB;
+        }
+
+        ((MetaPropertyImpl) metaProperty).setTraits(traits);
+    }
+
     protected void findMissingDescendants(MetaClass ancestor, Collection<MetaClass> missingDescendants) {
         Collection<MetaClass> descendants = ancestor.getDescendants();
         for (Object descendant : descendants) {
@@ -21,6 +21,7 @@ import com.google.common.io.CountingInputStream;
 import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
 import com.haulmont.cuba.core.sys.serialization.SerializationSupport;
+import org.perf4j.slf4j.Slf4JStopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
@@ -44,7 +45,9 @@ import java.net.URLConnection;
  */
 public class ClusteredHttpInvokerRequestExecutor extends SimpleHttpInvokerRequestExecutor {
 
-    private ServerSelector serverSelector;
+    protected static final String METRICS_TAG_PREFIX = "HttpInvoker.";
+
+    protected ServerSelector serverSelector;
 
     private static final Logger log = LoggerFactory.getLogger(ClusteredHttpInvokerRequestExecutor.class);
 
@@ -62,7 +65,41 @@ public class ClusteredHttpInvokerRequestExecutor extends SimpleHttpInvokerReques
     protected RemoteInvocationResult doExecuteRequest(HttpInvokerClientConfiguration config, ByteArrayOutputStream baos)
             throws IOException, ClassNotFoundException {
 
-        RemoteInvocationResult result;
+        return executeWithFailover(config, (url, context) -> {
+            HttpURLConnection con = openConnection(url);
+
+            org.perf4j.StopWatch callWatch = new Slf4JStopWatch(METRICS_TAG_PREFIX + config.getServiceUrl());
+            StopWatch sw = new StopWatch();
+            prepareConnection(con, baos.size());
+            writeRequestBody(config, con, baos);
+            sw.start("waiting time");
+            validateResponse(config, con);
+            CountingInputStream responseInputStream = new CountingInputStream(readResponseBody(config, con));
+            sw.stop();
+
+            serverSelector.success(context);
+
+            RemoteInvocationResult result;
+            sw.start("reading time");
+            try (ObjectInputStream ois = createObjectInputStream(decorateInputStream(responseInputStream), config.getCodebaseUrl())) {
+                result = doReadRemoteInvocationResult(ois);
+            }
+            sw.stop();
+            registerCall(config, callWatch, sw, baos.size(), responseInputStream.getCount());
+            return result;
+        });
+    }
+
+    /**
+     * Executes the request on the server selected by {@link ServerSelector}. If the request fails with
+     * {@link IOException}, the server is marked as failed and the request is repeated on the next available server.
+     *
+     * @param config  configuration of the HTTP invoker
+     * @param request performs the request on the given service URL
+     * @return result of the invocation
+     */
+    protected RemoteInvocationResult executeWithFailover(HttpInvokerClientConfiguration config, ServerRequest request)
+            throws IOException, ClassNotFoundException {
 
         Object context = serverSelector.initContext();
         String url = currentServiceUrl(serverSelector.getUrl(context), config);
@@ -70,28 +107,8 @@ public class ClusteredHttpInvokerRequestExecutor extends SimpleHttpInvokerReques
             throw new IllegalStateException("Server URL list is empty");
 
         while (true) {
-            HttpURLConnection con = openConnection(url);
             try {
-                StopWatch sw = new StopWatch();
-                prepareConnection(con, baos.size());
-                writeRequestBody(config, con, baos);
-                sw.start("waiting time");
-                validateResponse(config, con);
-                CountingInputStream responseInputStream = new CountingInputStream(readResponseBody(config, con));
-                sw.stop();
-
-                serverSelector.success(context);
-
-                sw.start("reading time");
-                try (ObjectInputStream ois = createObjectInputStream(decorateInputStream(responseInputStream), config.getCodebaseUrl())) {
-                    result = doReadRemoteInvocationResult(ois);
-                }
-                sw.stop();
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("Receiving HTTP invoker response for service at [%s], with size %s, %s", config.getServiceUrl(),
-                            responseInputStream.getCount(), printStopWatch(sw)));
-                }
-                break;
+                return request.execute(url, context);
             } catch (IOException e) {
                 log.info(String.format("Invocation of %s failed: %s", url, e));
 
@@ -105,7 +122,23 @@ public class ClusteredHttpInvokerRequestExecutor extends SimpleHttpInvokerReques
                 throw e;
             }
         }
-        return result;
+    }
+
+    /**
+     * Records metrics of a completed call.
+     *
+     * @param callWatch    perf4j stopwatch started before sending the request
+     * @param sw           stopwatch with waiting and reading tasks
+     * @param requestSize  number of bytes sent
+     * @param responseSize number of bytes of the response body read by deserialization
+     */
+    protected void registerCall(HttpInvokerClientConfiguration config, org.perf4j.StopWatch callWatch, StopWatch sw,
+                                long requestSize, long responseSize) {
+        callWatch.stop(callWatch.getTag(), "sent " + requestSize + ", received " + responseSize);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Receiving HTTP invoker response for service at [%s], with size %s, request size %s, %s",
+                    config.getServiceUrl(), responseSize, requestSize, printStopWatch(sw)));
+        }
     }
 
     @Nullable
@@ -131,6 +164,19 @@ public class ClusteredHttpInvokerRequestExecutor extends SimpleHttpInvokerReques
         return (RemoteInvocationResult) SerializationSupport.deserialize(ois);
     }
 
+    /**
+     * Performs a single attempt to execute the request.
+     */
+    @FunctionalInterface
+    protected interface ServerRequest {
+        /**
+         * @param url             service URL on the selected server
+         * @param selectorContext context of {@link ServerSelector}, should be passed to
+         *                        {@link ServerSelector#success(Object)} when the server has responded
+         */
+        RemoteInvocationResult execute(String url, Object selectorContext) throws IOException, ClassNotFoundException;
+    }
+
     protected String printStopWatch(StopWatch sw) {
         StringBuilder sb = new StringBuilder();
         StopWatch.TaskInfo[] tasks = sw.getTaskInfo();
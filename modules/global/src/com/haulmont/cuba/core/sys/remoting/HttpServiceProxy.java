@@ -17,8 +17,11 @@
 
 package com.haulmont.cuba.core.sys.remoting;
 
+import com.haulmont.bali.util.ReflectionHelper;
 import com.haulmont.cuba.core.global.RemoteException;
+import com.haulmont.cuba.core.sys.AppContext;
 import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.remoting.httpinvoker.HttpInvokerProxyFactoryBean;
 import org.springframework.remoting.support.RemoteInvocationResult;
 import org.springframework.remoting.support.RemoteInvocationUtils;
@@ -30,11 +33,38 @@ public class HttpServiceProxy extends HttpInvokerProxyFactoryBean {
     public HttpServiceProxy(ServerSelector selector) {
         setRemoteInvocationFactory(new CubaRemoteInvocationFactory());
 
-        ClusteredHttpInvokerRequestExecutor executor = new ClusteredHttpInvokerRequestExecutor(selector);
+        ClusteredHttpInvokerRequestExecutor executor = createRequestExecutor(selector);
         executor.setBeanClassLoader(getBeanClassLoader());
         setHttpInvokerRequestExecutor(executor);
     }
 
+    /**
+     * Creates the request executor according to the {@code cuba.remotingTransport} application property:
+     * <ul>
+     *     <li>{@code urlConnection} (default) - a new {@link java.net.HttpURLConnection} for each invocation</li>
+     *     <li>{@code httpClient} - {@link PooledHttpInvokerRequestExecutor}</li>
+     *     <li>fully qualified name of a {@link ClusteredHttpInvokerRequestExecutor} subclass having a constructor
+     *     with {@link ServerSelector} parameter</li>
+     * </ul>
+     */
+    protected ClusteredHttpInvokerRequestExecutor createRequestExecutor(ServerSelector selector) {
+        String transport = AppContext.getProperty("cuba.remotingTransport");
+        if (StringUtils.isBlank(transport) || "urlConnection".equals(transport)) {
+            return new ClusteredHttpInvokerRequestExecutor(selector);
+        }
+        if ("httpClient".equals(transport)) {
+            return new PooledHttpInvokerRequestExecutor(selector);
+        }
+        try {
+            Class<?> executorClass = ReflectionHelper.loadClass(transport);
+            return (ClusteredHttpInvokerRequestExecutor) executorClass
+                    .getConstructor(ServerSelector.class)
+                    .newInstance(selector);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to create HTTP invoker request executor " + transport, e);
+        }
+    }
+
     @Override
     protected Object recreateRemoteInvocationResult(RemoteInvocationResult result) throws Throwable {
         Throwable throwable = result.getException();
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.core.sys.remoting;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import com.haulmont.cuba.core.sys.AppContext;
+import com.haulmont.cuba.core.sys.remoting.discovery.ServerSelector;
+import com.haulmont.cuba.core.sys.serialization.SerializationException;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.StatusLine;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.perf4j.slf4j.Slf4JStopWatch;
+import org.springframework.remoting.httpinvoker.HttpInvokerClientConfiguration;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
+import org.springframework.util.StopWatch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+
+/**
+ * Executor that sends requests through a pooled Apache HttpClient with keep-alive connections shared by all
+ * remote service proxies. Invocations are serialized directly to the connection instead of being buffered, and
+ * compressed responses are accepted.
+ * <p>
+ * Used if the {@code cuba.remotingTransport} application property is set to {@code httpClient}.
+ * Size of the connection pool is defined by {@code cuba.remotingMaxConnections} and
+ * {@code cuba.remotingMaxConnectionsPerServer} application properties.
+ */
+public class PooledHttpInvokerRequestExecutor extends ClusteredHttpInvokerRequestExecutor {
+
+    private static volatile CloseableHttpClient sharedHttpClient;
+
+    public PooledHttpInvokerRequestExecutor(ServerSelector serverSelector) {
+        super(serverSelector);
+    }
+
+    protected CloseableHttpClient getHttpClient() {
+        CloseableHttpClient httpClient = sharedHttpClient;
+        if (httpClient == null) {
+            synchronized (PooledHttpInvokerRequestExecutor.class) {
+                httpClient = sharedHttpClient;
+                if (httpClient == null) {
+                    httpClient = createHttpClient();
+                    sharedHttpClient = httpClient;
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    protected CloseableHttpClient createHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(getIntProperty("cuba.remotingMaxConnections", 200));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty("cuba.remotingMaxConnectionsPerServer", 100));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(getIntProperty("cuba.connectionTimeout", -1))
+                .setSocketTimeout(getIntProperty("cuba.connectionReadTimeout", -1))
+                .build();
+
+        // content compression is enabled by default, responses are decompressed transparently
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement()
+                .build();
+    }
+
+    protected int getIntProperty(String name, int defaultValue) {
+        String value = AppContext.getProperty(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @Override
+    public RemoteInvocationResult executeRequest(HttpInvokerClientConfiguration config, RemoteInvocation invocation)
+            throws Exception {
+
+        return executeWithFailover(config, (url, context) -> {
+            org.perf4j.StopWatch callWatch = new Slf4JStopWatch(METRICS_TAG_PREFIX + config.getServiceUrl());
+            StopWatch sw = new StopWatch();
+
+            InvocationEntity requestEntity = new InvocationEntity(invocation);
+            HttpPost post = new HttpPost(url);
+            post.setEntity(requestEntity);
+
+            sw.start("waiting time");
+            try (CloseableHttpResponse response = getHttpClient().execute(post)) {
+                validateResponse(response);
+                HttpEntity responseEntity = response.getEntity();
+                if (responseEntity == null) {
+                    throw new NoHttpResponseException("Empty response from " + url);
+                }
+                sw.stop();
+
+                serverSelector.success(context);
+
+                RemoteInvocationResult result;
+                sw.start("reading time");
+                CountingInputStream responseInputStream = new CountingInputStream(responseEntity.getContent());
+                try (ObjectInputStream ois = createObjectInputStream(decorateInputStream(responseInputStream),
+                        config.getCodebaseUrl())) {
+                    result = doReadRemoteInvocationResult(ois);
+                }
+                sw.stop();
+                registerCall(config, callWatch, sw, requestEntity.getWrittenBytes(), responseInputStream.getCount());
+                return result;
+            }
+        });
+    }
+
+    protected void validateResponse(CloseableHttpResponse response) throws IOException {
+        StatusLine status = response.getStatusLine();
+        if (status.getStatusCode() >= HttpStatus.SC_MULTIPLE_CHOICES) {
+            throw new NoHttpResponseException(
+                    "Did not receive successful HTTP response: status code = " + status.getStatusCode() +
+                            ", status message = [" + status.getReasonPhrase() + "]");
+        }
+    }
+
+    /**
+     * Serializes the invocation directly to the connection output stream. The entity is repeatable, so the
+     * invocation can be sent again to another server on failover.
+     * <p>
+     * Only failures of the connection are thrown as {@link IOException}s and cause failover. Serialization errors,
+     * e.g. a not serializable argument, would be the same on any server, so they are thrown as
+     * {@link SerializationException} and the servers are not marked as failed.
+     */
+    protected class InvocationEntity extends AbstractHttpEntity {
+
+        protected final RemoteInvocation invocation;
+        protected long writtenBytes;
+
+        public InvocationEntity(RemoteInvocation invocation) {
+            this.invocation = invocation;
+            setContentType(PooledHttpInvokerRequestExecutor.this.getContentType());
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("Invocation entity can only be written to a stream");
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            ConnectionOutputStream connectionOutputStream = new ConnectionOutputStream(outputStream);
+            CountingOutputStream countingOutputStream = new CountingOutputStream(connectionOutputStream);
+            try {
+                writeRemoteInvocation(invocation, countingOutputStream);
+            } catch (IOException | RuntimeException e) {
+                if (connectionOutputStream.failure != null) {
+                    throw connectionOutputStream.failure;
+                }
+                throw e instanceof SerializationException ? (SerializationException) e
+                        : new SerializationException("Failed to serialize remote invocation", e);
+            }
+            writtenBytes = countingOutputStream.getCount();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+
+        public long getWrittenBytes() {
+            return writtenBytes;
+        }
+    }
+
+    /**
+     * Connection output stream that remembers its failure. It is not closed by the serialization, the connection
+     * stream is closed by HttpClient.
+     */
+    protected static class ConnectionOutputStream extends CloseShieldOutputStream {
+
+        protected IOException failure;
+
+        public ConnectionOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        protected void handleIOException(IOException e) throws IOException {
+            failure = e;
+            throw e;
+        }
+    }
+}
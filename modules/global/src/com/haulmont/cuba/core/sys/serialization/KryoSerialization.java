@@ -37,8 +37,8 @@ import com.haulmont.chile.core.model.impl.MetaPropertyImpl;
 import com.haulmont.cuba.core.entity.BaseEntityInternalAccess;
 import com.haulmont.cuba.core.entity.BaseGenericIdEntity;
 import com.haulmont.cuba.core.entity.Entity;
-import com.haulmont.cuba.core.global.AppBeans;
-import com.haulmont.cuba.core.global.Configuration;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import com.haulmont.cuba.core.global.*;
 import com.haulmont.cuba.core.sys.AppContext;
 import de.javakaffee.kryoserializers.*;
 import de.javakaffee.kryoserializers.cglib.CGLibProxySerializer;
@@ -61,18 +61,30 @@ import org.objenesis.strategy.InstantiatorStrategy;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.remoting.support.RemoteInvocation;
+import org.springframework.remoting.support.RemoteInvocationResult;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * The serialization implementation using Kryo serialization.
+ * <p>
+ * If {@link KryoSerializationConfig#getClassRegistrationEnabled()} is set, a fixed list of common classes is
+ * registered with stable ids and Kryo contexts are reused together with their input and output buffers.
+ * Entity classes are not registered and their names are written as usual, because application blocks have
+ * different metadata, e.g. the web block also loads GUI and web metadata.
  */
 public class KryoSerialization implements Serialization {
 
@@ -81,10 +93,74 @@ public class KryoSerialization implements Serialization {
     protected static final List<String> INCLUDED_VALUE_HOLDER_FIELDS =
             ImmutableList.of("value", "isInstantiated", "mapping", "sourceAttributeName", "relationshipSourceObject");
 
+    /**
+     * Id of the first class of {@link #COMMON_CLASSES}, ids below are used by Kryo and by serializers registered
+     * in {@link #newKryoInstance()}.
+     */
+    protected static final int FIRST_REGISTRATION_ID = 1000;
+
+    protected static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Output buffers grown above this size are not kept in the pool.
+     */
+    protected static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Classes registered with stable ids in all blocks. New classes must be added to the end of the list only.
+     */
+    protected static final List<Class<?>> COMMON_CLASSES = ImmutableList.of(
+            ArrayList.class, LinkedList.class, HashMap.class, LinkedHashMap.class, TreeMap.class,
+            HashSet.class, LinkedHashSet.class, UUID.class, Date.class, java.sql.Date.class, java.sql.Time.class,
+            java.sql.Timestamp.class, BigDecimal.class, BigInteger.class, Locale.class, Object[].class, byte[].class,
+            View.class, ViewProperty.class, LoadContext.class, LoadContext.Query.class, CommitContext.class,
+            ValueLoadContext.class, ValueLoadContext.Query.class, KeyValueEntity.class, Class[].class,
+            RemoteInvocation.class, RemoteInvocationResult.class);
+
     protected boolean onlySerializable;
     protected KryoSerializationConfig config;
     protected GenericObjectPool<Kryo> pool;
 
+    protected boolean classRegistrationEnabled;
+    protected int maxPoolSize;
+    protected ConcurrentLinkedQueue<KryoContext> contexts;
+    protected AtomicInteger idleContextsCount = new AtomicInteger();
+    protected ClassRegistrations classRegistrations;
+
+    /**
+     * Classes registered with stable ids in the given order starting from {@link #FIRST_REGISTRATION_ID}.
+     */
+    protected static class ClassRegistrations {
+
+        protected final List<Class<?>> classes;
+        protected final int checksum;
+
+        protected ClassRegistrations(List<Class<?>> classes) {
+            this.classes = classes;
+            int hash = 1;
+            for (Class<?> aClass : classes) {
+                hash = 31 * hash + aClass.getName().hashCode();
+            }
+            this.checksum = hash;
+        }
+    }
+
+    /**
+     * Kryo instance with reusable buffers. Used by one thread at a time.
+     */
+    protected static class KryoContext {
+
+        protected final Kryo kryo;
+        protected final ClassRegistrations registrations;
+        protected Output output = new Output(BUFFER_SIZE, -1);
+        protected final Input input = new Input(BUFFER_SIZE);
+
+        protected KryoContext(Kryo kryo, ClassRegistrations registrations) {
+            this.kryo = kryo;
+            this.registrations = registrations;
+        }
+    }
+
     public KryoSerialization() {
         this(true);
     }
@@ -100,10 +176,18 @@ public class KryoSerialization implements Serialization {
         Configuration configuration = AppBeans.get(Configuration.NAME);
         config = configuration.getConfig(KryoSerializationConfig.class);
 
-        int poolSize = config.getMaxPoolSize();
+        classRegistrationEnabled = config.getClassRegistrationEnabled();
+        maxPoolSize = config.getMaxPoolSize();
+        if (classRegistrationEnabled) {
+            classRegistrations = new ClassRegistrations(COMMON_CLASSES);
+            contexts = new ConcurrentLinkedQueue<>();
+            log.debug("Kryo context pool with class registration created");
+            return;
+        }
+
         GenericObjectPoolConfig<Kryo> poolConfig = new GenericObjectPoolConfig<>();
-        poolConfig.setMaxIdle(poolSize);
-        poolConfig.setMaxTotal(poolSize);
+        poolConfig.setMaxIdle(maxPoolSize);
+        poolConfig.setMaxTotal(maxPoolSize);
         poolConfig.setMaxWaitMillis(config.getMaxBorrowWaitMillis());
 
         String jmxName = "kryo-" + AppContext.getProperty("cuba.webContextName");
@@ -115,6 +199,10 @@ public class KryoSerialization implements Serialization {
     }
 
     protected Kryo newKryoInstance() {
+        return newKryoInstance(null);
+    }
+
+    protected Kryo newKryoInstance(@Nullable ClassRegistrations registrations) {
         Kryo kryo = new Kryo(new DefaultClassResolver(), new CubaMapReferenceResolver());
         kryo.setInstantiatorStrategy(new CubaInstantiatorStrategy());
         if (onlySerializable) {
@@ -166,17 +254,38 @@ public class KryoSerialization implements Serialization {
 
         registerEntitySerializer(kryo);
 
+        if (registrations != null) {
+            int id = FIRST_REGISTRATION_ID;
+            for (Class<?> aClass : registrations.classes) {
+                kryo.register(aClass, id++);
+            }
+        }
+
         return kryo;
     }
 
     @Override
     public void serialize(Object object, OutputStream os) {
+        if (classRegistrationEnabled) {
+            withContext(context -> {
+                Output output = context.output;
+                output.setOutputStream(os);
+                try {
+                    writeObject(context, output, object);
+                    output.flush();
+                } catch (Exception e) {
+                    throw new SerializationException(e);
+                } finally {
+                    output.setOutputStream(null);
+                }
+                return null;
+            });
+            return;
+        }
+
         withKryoFromPool(kryo -> {
             try (Output output = new CubaOutput(os)) {
-                if (object instanceof BaseGenericIdEntity
-                        && BaseEntityInternalAccess.isManaged((BaseGenericIdEntity) object)) {
-                    BaseEntityInternalAccess.setDetached((BaseGenericIdEntity) object, true);
-                }
+                detachManagedEntity(object);
                 kryo.writeClassAndObject(output, object);
             } catch (Exception e) {
                 throw new SerializationException(e);
@@ -187,6 +296,20 @@ public class KryoSerialization implements Serialization {
 
     @Override
     public Object deserialize(InputStream is) {
+        if (classRegistrationEnabled) {
+            return withContext(context -> {
+                Input input = context.input;
+                input.setInputStream(is);
+                try {
+                    return readObject(context, input);
+                } catch (Exception e) {
+                    throw new SerializationException(e);
+                } finally {
+                    input.setInputStream(null);
+                }
+            });
+        }
+
         return withKryoFromPool(kryo -> {
             try (Input input = new Input(is)) {
                 return kryo.readClassAndObject(input);
@@ -198,6 +321,19 @@ public class KryoSerialization implements Serialization {
 
     @Override
     public byte[] serialize(Object object) {
+        if (classRegistrationEnabled) {
+            return withContext(context -> {
+                Output output = context.output;
+                output.clear();
+                try {
+                    writeObject(context, output, object);
+                    return output.toBytes();
+                } catch (Exception e) {
+                    throw new SerializationException(e);
+                }
+            });
+        }
+
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         serialize(object, bos);
         return bos.toByteArray();
@@ -209,6 +345,16 @@ public class KryoSerialization implements Serialization {
             return null;
         }
 
+        if (classRegistrationEnabled) {
+            return withContext(context -> {
+                try {
+                    return readObject(context, new Input(bytes));
+                } catch (Exception e) {
+                    throw new SerializationException(e);
+                }
+            });
+        }
+
         return deserialize(new ByteArrayInputStream(bytes));
     }
 
@@ -217,11 +363,71 @@ public class KryoSerialization implements Serialization {
             return null;
         }
 
+        if (classRegistrationEnabled) {
+            return withContext(context -> context.kryo.copy(object));
+        }
+
         return withKryoFromPool(kryo -> {
             return kryo.copy(object);
         });
     }
 
+    protected void detachManagedEntity(Object object) {
+        if (object instanceof BaseGenericIdEntity
+                && BaseEntityInternalAccess.isManaged((BaseGenericIdEntity) object)) {
+            BaseEntityInternalAccess.setDetached((BaseGenericIdEntity) object, true);
+        }
+    }
+
+    /**
+     * Writes the checksum of class registrations followed by the object, so that data written with
+     * different registrations is rejected instead of being read as wrong classes.
+     */
+    protected void writeObject(KryoContext context, Output output, Object object) {
+        detachManagedEntity(object);
+        output.writeInt(context.registrations.checksum);
+        context.kryo.writeClassAndObject(output, object);
+    }
+
+    protected Object readObject(KryoContext context, Input input) {
+        int checksum = input.readInt();
+        if (checksum != context.registrations.checksum) {
+            throw new KryoException(String.format("Kryo class registrations do not match: %d, expected %d. " +
+                    "Make sure all application blocks have the same platform version and the same value " +
+                    "of cuba.kryo.classRegistrationEnabled", checksum, context.registrations.checksum));
+        }
+        return context.kryo.readClassAndObject(input);
+    }
+
+    protected <T> T withContext(Function<KryoContext, T> action) {
+        KryoContext context = borrowContext();
+        try {
+            return action.apply(context);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    protected KryoContext borrowContext() {
+        KryoContext context = contexts.poll();
+        if (context != null) {
+            idleContextsCount.decrementAndGet();
+            return context;
+        }
+        return new KryoContext(newKryoInstance(classRegistrations), classRegistrations);
+    }
+
+    protected void releaseContext(KryoContext context) {
+        if (context.output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+            context.output = new Output(BUFFER_SIZE, -1);
+        }
+        if (idleContextsCount.incrementAndGet() <= maxPoolSize) {
+            contexts.offer(context);
+        } else {
+            idleContextsCount.decrementAndGet();
+        }
+    }
+
     protected  <T> T withKryoFromPool(Function<Kryo, T> action) {
         Kryo kryo;
         try {
@@ -245,6 +451,10 @@ public class KryoSerialization implements Serialization {
             pool.close();
             pool = null;
         }
+        if (contexts != null) {
+            contexts.clear();
+            idleContextsCount.set(0);
+        }
     }
 
     protected void registerEntitySerializer(Kryo kryo) {
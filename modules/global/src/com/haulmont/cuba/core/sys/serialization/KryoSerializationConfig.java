@@ -9,6 +9,7 @@ import com.haulmont.cuba.core.config.Config;
 import com.haulmont.cuba.core.config.Property;
 import com.haulmont.cuba.core.config.Source;
 import com.haulmont.cuba.core.config.SourceType;
+import com.haulmont.cuba.core.config.defaults.DefaultBoolean;
 import com.haulmont.cuba.core.config.defaults.DefaultInt;
 import com.haulmont.cuba.core.config.defaults.DefaultLong;
 
@@ -31,4 +32,14 @@ public interface KryoSerializationConfig extends Config {
     @DefaultLong(10000)
     @Property("cuba.kryo.maxBorrowWaitMillis")
     long getMaxBorrowWaitMillis();
+
+    /**
+     * @return whether common classes, e.g. collections, dates, views and load contexts, are registered in Kryo
+     * with stable ids, so their names are not written to the serialized data. Entity classes are written by name,
+     * so blocks with different metadata can exchange data. In this mode, Kryo contexts and their buffers are
+     * reused through a non-blocking pool. Must be set to the same value in all blocks of the application.
+     */
+    @DefaultBoolean(false)
+    @Property("cuba.kryo.classRegistrationEnabled")
+    boolean getClassRegistrationEnabled();
 }
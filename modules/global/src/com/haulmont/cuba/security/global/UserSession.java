@@ -55,6 +55,9 @@ public class UserSession implements Serializable {
     protected Access permissionUndefinedAccessPolicy = Access.DENY;
     protected ConstraintsContainer accessConstraints;
 
+    protected String joinedRoleKey;
+    protected String constraintsKey;
+
     protected Map<String, Serializable> attributes;
 
     protected transient Map<String, Object> localAttributes;
@@ -113,6 +116,8 @@ public class UserSession implements Serializable {
         timeZone = src.timeZone;
         joinedRole = src.joinedRole;
         accessConstraints = src.accessConstraints;
+        joinedRoleKey = src.joinedRoleKey;
+        constraintsKey = src.constraintsKey;
         attributes = src.attributes;
         localAttributes = src.localAttributes;
         address = src.address;
@@ -467,6 +472,31 @@ public class UserSession implements Serializable {
      */
     public void setJoinedRole(RoleDefinition joinedRole) {
         this.joinedRole = joinedRole;
+        this.joinedRoleKey = null;
+    }
+
+    /**
+     * INTERNAL
+     * <p>
+     * Sets {@code joinedRole} shared between sessions with the same set of roles.
+     *
+     * @param joinedRole shared role definition, can be null if the session is received from the cluster and the
+     *                   definition is not resolved yet
+     * @param key        key of the shared role definition
+     */
+    public void setJoinedRole(@Nullable RoleDefinition joinedRole, @Nullable String key) {
+        this.joinedRole = joinedRole;
+        this.joinedRoleKey = key;
+    }
+
+    /**
+     * INTERNAL
+     *
+     * @return key of the shared {@code joinedRole} or null if the role is not shared
+     */
+    @Nullable
+    public String getJoinedRoleKey() {
+        return joinedRoleKey;
     }
 
     /**
@@ -485,6 +515,31 @@ public class UserSession implements Serializable {
      */
     public void setConstraints(ConstraintsContainer constraints) {
         this.accessConstraints = constraints;
+        this.constraintsKey = null;
+    }
+
+    /**
+     * INTERNAL
+     * <p>
+     * Applies access constraints shared between sessions of the same group.
+     *
+     * @param constraints shared constraints, can be null if the session is received from the cluster and the
+     *                    constraints are not resolved yet
+     * @param key         key of the shared constraints
+     */
+    public void setConstraints(@Nullable ConstraintsContainer constraints, @Nullable String key) {
+        this.accessConstraints = constraints;
+        this.constraintsKey = key;
+    }
+
+    /**
+     * INTERNAL
+     *
+     * @return key of the shared access constraints or null if the constraints are not shared
+     */
+    @Nullable
+    public String getConstraintsKey() {
+        return constraintsKey;
     }
 
     public Access getPermissionUndefinedAccessPolicy() {
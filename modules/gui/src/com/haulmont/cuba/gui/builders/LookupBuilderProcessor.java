@@ -332,6 +332,9 @@ public class LookupBuilderProcessor {
                 if (viewProperty != null) {
                     view = viewProperty.getView();
                     if (view != null && initializeMasterReference && inverseMetaProperty != null) {
+                        if (view.isFrozen()) {
+                            view = View.copyOnWrite(view);
+                        }
                         view.addProperty(inverseMetaProperty.getName());
                     }
                 }
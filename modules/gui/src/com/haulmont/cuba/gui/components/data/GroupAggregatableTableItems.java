@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2018 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data;
+
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.components.AggregationInfo;
+import com.haulmont.cuba.gui.data.GroupInfo;
+
+import java.util.Map;
+
+/**
+ * Group table items that are able to aggregate a group without enumerating its items.
+ */
+public interface GroupAggregatableTableItems<E extends Entity> extends GroupTableItems<E>, AggregatableTableItems<E> {
+
+    /**
+     * Perform aggregation of the group and return map with formatted string values.
+     *
+     * @param aggregationInfos aggregation infos
+     * @param groupId          group
+     * @return map with aggregation info and formatted string values
+     */
+    Map<AggregationInfo, String> aggregateGroup(AggregationInfo[] aggregationInfos, GroupInfo groupId);
+
+    /**
+     * Perform aggregation of the group and return map with aggregation info and aggregation value.
+     *
+     * @param aggregationInfos aggregation infos
+     * @param groupId          group
+     * @return map with aggregation info and aggregation value
+     */
+    Map<AggregationInfo, Object> aggregateGroupValues(AggregationInfo[] aggregationInfos, GroupInfo groupId);
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.aggregation;
+
+import com.haulmont.cuba.gui.components.AggregationInfo;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds JPQL queries that group and aggregate the rows of an entity query on the database side.
+ * <p>
+ * The source query is expected to be already filtered and to have no {@code order by} clause, e.g.
+ * {@code select e from sample$Order e where e.amount > :amount}. Its select clause is replaced with
+ * the grouping and aggregate expressions, the {@code where} clause is kept as is.
+ * <p>
+ * If the source query selects {@code distinct} entities, e.g. because it joins a collection, the rows are
+ * aggregated over the distinct identifiers selected by a subquery, so that joined rows are not counted twice:
+ * {@code select ... from sample$Order o_ where o_.id in (select distinct o.id from sample$Order o join ...)}.
+ * <p>
+ * References in grouping and aggregated paths are navigated through {@code left join}s, e.g.
+ * {@code select r0_.name, count(o) from sample$Order o left join o.customer r0_ ... group by r0_.name}, so that
+ * rows having a null reference are kept in a separate group and in the totals instead of being dropped by
+ * an implicit inner join.
+ */
+public class AggregationQueryBuilder {
+
+    public static final String GROUP_PROPERTY_PREFIX = "g";
+    public static final String AGGREGATE_PROPERTY_PREFIX = "a";
+    public static final String COUNT_PROPERTY = "cnt";
+
+    protected static final String DISTINCT_ALIAS_SUFFIX = "_";
+    protected static final String REFERENCE_ALIAS_PREFIX = "r";
+
+    protected static final Pattern SELECT_PATTERN =
+            Pattern.compile("^\\s*select\\s+(distinct\\s+)?.+?\\s+from\\s+", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    protected static final Pattern ENTITY_NAME_PATTERN = Pattern.compile("^\\s*([\\w$.]+)");
+    protected static final Pattern ENTITY_VARIABLE_PATTERN =
+            Pattern.compile("^\\s*[\\w$.]+\\s+(as\\s+)?\\w+", Pattern.CASE_INSENSITIVE);
+
+    protected final String query;
+    protected final String alias;
+
+    protected List<String> groupProperties = Collections.emptyList();
+    protected Set<String> referenceProperties = new HashSet<>();
+    protected List<AggregateExpression> aggregates = new ArrayList<>();
+
+    protected String entityName;
+    protected String primaryKeyName = "id";
+
+    public AggregationQueryBuilder(String query, String alias) {
+        this.query = query;
+        this.alias = alias;
+    }
+
+    /**
+     * @param groupProperties property paths relative to the main entity, in the grouping order
+     */
+    public AggregationQueryBuilder setGroupProperties(List<String> groupProperties) {
+        this.groupProperties = groupProperties;
+        return this;
+    }
+
+    /**
+     * Sets the entity name and its primary key property used to select distinct rows. If the entity name
+     * is not set, it is taken from the {@code from} clause of the source query.
+     */
+    public AggregationQueryBuilder setEntity(String entityName, String primaryKeyName) {
+        this.entityName = entityName;
+        this.primaryKeyName = primaryKeyName;
+        return this;
+    }
+
+    /**
+     * Marks grouping property paths that point to entities, so that they are selected through a
+     * {@code left join} as well.
+     */
+    public AggregationQueryBuilder addReferenceProperty(String propertyPath) {
+        referenceProperties.add(propertyPath);
+        return this;
+    }
+
+    public AggregationQueryBuilder addAggregate(AggregationInfo.Type type, String propertyPath) {
+        if (type == AggregationInfo.Type.CUSTOM) {
+            throw new IllegalArgumentException("Custom aggregation cannot be executed by the database");
+        }
+        aggregates.add(new AggregateExpression(type, propertyPath));
+        return this;
+    }
+
+    /**
+     * @return names of the result properties in the order of the select clause
+     */
+    public List<String> getResultProperties() {
+        List<String> properties = new ArrayList<>(groupProperties.size() + aggregates.size() + 1);
+        for (int i = 0; i < groupProperties.size(); i++) {
+            properties.add(GROUP_PROPERTY_PREFIX + i);
+        }
+        for (int i = 0; i < aggregates.size(); i++) {
+            properties.add(AGGREGATE_PROPERTY_PREFIX + i);
+        }
+        properties.add(COUNT_PROPERTY);
+        return properties;
+    }
+
+    public String build() {
+        Matcher matcher = SELECT_PATTERN.matcher(query);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unable to find select clause in query: " + query);
+        }
+        String fromClause = query.substring(matcher.end());
+        boolean distinct = matcher.group(1) != null;
+        String rowAlias = distinct ? alias + DISTINCT_ALIAS_SUFFIX : alias;
+
+        Map<String, String> joins = new LinkedHashMap<>();
+
+        StringBuilder sb = new StringBuilder("select ");
+        List<String> groupPaths = new ArrayList<>(groupProperties.size());
+        for (String property : groupProperties) {
+            String groupPath = path(rowAlias, property, referenceProperties.contains(property), joins);
+            groupPaths.add(groupPath);
+            sb.append(groupPath).append(", ");
+        }
+        for (AggregateExpression aggregate : aggregates) {
+            sb.append(aggregate.type.name().toLowerCase())
+                    .append("(").append(path(rowAlias, aggregate.propertyPath, false, joins)).append("), ");
+        }
+        sb.append("count(").append(rowAlias).append(") from ");
+        if (distinct) {
+            sb.append(getEntityName(fromClause)).append(" ").append(rowAlias);
+            appendJoins(sb, joins);
+            sb.append(" where ").append(rowAlias).append(".").append(primaryKeyName)
+                    .append(" in (select distinct ").append(alias).append(".").append(primaryKeyName)
+                    .append(" from ").append(fromClause).append(")");
+        } else if (joins.isEmpty()) {
+            sb.append(fromClause);
+        } else {
+            Matcher variableMatcher = ENTITY_VARIABLE_PATTERN.matcher(fromClause);
+            if (!variableMatcher.find()) {
+                throw new IllegalStateException("Unable to find entity variable in query: " + query);
+            }
+            sb.append(fromClause, 0, variableMatcher.end());
+            appendJoins(sb, joins);
+            sb.append(fromClause.substring(variableMatcher.end()));
+        }
+
+        if (!groupPaths.isEmpty()) {
+            String groupBy = String.join(", ", groupPaths);
+            sb.append(" group by ").append(groupBy);
+            sb.append(" order by ").append(groupBy);
+        }
+        return sb.toString();
+    }
+
+    protected void appendJoins(StringBuilder sb, Map<String, String> joins) {
+        for (String join : joins.values()) {
+            sb.append(" left join ").append(join);
+        }
+    }
+
+    protected String getEntityName(String fromClause) {
+        if (entityName != null) {
+            return entityName;
+        }
+        Matcher matcher = ENTITY_NAME_PATTERN.matcher(fromClause);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Unable to find entity name in query: " + query);
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * Returns the expression of the property path, registering {@code left join}s for its references.
+     *
+     * @param alias     alias of the main entity
+     * @param property  property path relative to the main entity
+     * @param reference whether the last property of the path is a reference that must be joined too
+     * @param joins     joined reference paths mapped to their join clauses, e.g. {@code o.customer r0_}
+     */
+    protected String path(String alias, String property, boolean reference, Map<String, String> joins) {
+        String[] names = property.split("\\.");
+        int joinedCount = reference ? names.length : names.length - 1;
+
+        String currentAlias = alias;
+        StringBuilder currentPath = new StringBuilder();
+        for (int i = 0; i < joinedCount; i++) {
+            if (currentPath.length() > 0) {
+                currentPath.append(".");
+            }
+            currentPath.append(names[i]);
+
+            String join = joins.get(currentPath.toString());
+            String joinAlias;
+            if (join == null) {
+                joinAlias = REFERENCE_ALIAS_PREFIX + joins.size() + "_";
+                joins.put(currentPath.toString(), currentAlias + "." + names[i] + " " + joinAlias);
+            } else {
+                joinAlias = join.substring(join.lastIndexOf(' ') + 1);
+            }
+            currentAlias = joinAlias;
+        }
+        return joinedCount == names.length ? currentAlias : currentAlias + "." + names[names.length - 1];
+    }
+
+    protected static class AggregateExpression {
+        protected final AggregationInfo.Type type;
+        protected final String propertyPath;
+
+        protected AggregateExpression(AggregationInfo.Type type, String propertyPath) {
+            this.type = type;
+            this.propertyPath = propertyPath;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.aggregation;
+
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.gui.components.AggregationInfo;
+import com.haulmont.cuba.gui.data.aggregation.Aggregation;
+import com.haulmont.cuba.gui.data.aggregation.Aggregations;
+import com.haulmont.cuba.gui.data.impl.AggregatableDelegate;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Aggregatable delegate that calculates aggregations supported by the database with a single
+ * {@link com.haulmont.cuba.core.global.ValueLoadContext} query over all rows of the loader's query
+ * instead of iterating over the loaded items. Custom aggregations are still calculated in memory.
+ *
+ * @param <K> item id type
+ */
+public abstract class DatabaseAggregatableDelegate<K> extends AggregatableDelegate<K> {
+
+    /**
+     * @return aggregation support or null if the aggregation should be performed in memory
+     */
+    @Nullable
+    protected abstract DatabaseAggregationSupport<?> getAggregationSupport();
+
+    @Override
+    protected Map<AggregationInfo, Object> doValuesAggregation(Collection<K> itemIds,
+                                                               AggregationInfo[] aggregationInfos) {
+        return doValuesAggregation(itemIds, aggregationInfos, Collections.emptyMap());
+    }
+
+    /**
+     * Calculates aggregations over the rows that have the given grouping values and formats the results.
+     *
+     * @param aggregationInfos aggregation infos
+     * @param itemIds          ids of loaded items used for custom aggregations
+     * @param groupValues      grouping values, empty map means totals over all rows
+     * @return map with aggregation info and formatted string values
+     */
+    public Map<AggregationInfo, String> aggregateGroup(AggregationInfo[] aggregationInfos, Collection<K> itemIds,
+                                                       Map<MetaPropertyPath, Object> groupValues) {
+        return formatAggregationValues(aggregationInfos,
+                doValuesAggregation(itemIds, aggregationInfos, groupValues));
+    }
+
+    /**
+     * Calculates aggregations over the rows that have the given grouping values.
+     *
+     * @param aggregationInfos aggregation infos
+     * @param itemIds          ids of loaded items used for custom aggregations
+     * @param groupValues      grouping values, empty map means totals over all rows
+     * @return map with aggregation info and aggregation value
+     */
+    public Map<AggregationInfo, Object> aggregateGroupValues(AggregationInfo[] aggregationInfos,
+                                                             Collection<K> itemIds,
+                                                             Map<MetaPropertyPath, Object> groupValues) {
+        return doValuesAggregation(itemIds, aggregationInfos, groupValues);
+    }
+
+    /**
+     * Calculates aggregations over the given loaded items in memory, e.g. for groups that are built from
+     * the items of the container.
+     *
+     * @param aggregationInfos aggregation infos
+     * @param itemIds          ids of loaded items
+     * @return map with aggregation info and formatted string values
+     */
+    public Map<AggregationInfo, String> aggregateInMemory(AggregationInfo[] aggregationInfos, Collection<K> itemIds) {
+        return formatAggregationValues(aggregationInfos, aggregateValuesInMemory(aggregationInfos, itemIds));
+    }
+
+    /**
+     * Calculates aggregations over the given loaded items in memory.
+     *
+     * @param aggregationInfos aggregation infos
+     * @param itemIds          ids of loaded items
+     * @return map with aggregation info and aggregation value
+     */
+    public Map<AggregationInfo, Object> aggregateValuesInMemory(AggregationInfo[] aggregationInfos,
+                                                                Collection<K> itemIds) {
+        return super.doValuesAggregation(itemIds, aggregationInfos);
+    }
+
+    protected Map<AggregationInfo, Object> doValuesAggregation(Collection<K> itemIds,
+                                                               AggregationInfo[] aggregationInfos,
+                                                               Map<MetaPropertyPath, Object> groupValues) {
+        DatabaseAggregationSupport<?> support = getAggregationSupport();
+        if (support == null) {
+            return super.doValuesAggregation(itemIds, aggregationInfos);
+        }
+
+        List<AggregationInfo> databaseAggregations = new ArrayList<>(aggregationInfos.length);
+        List<AggregationInfo> memoryAggregations = new ArrayList<>();
+        for (AggregationInfo aggregationInfo : aggregationInfos) {
+            if (DatabaseAggregationSupport.isSupported(aggregationInfo)) {
+                databaseAggregations.add(aggregationInfo);
+            } else {
+                memoryAggregations.add(aggregationInfo);
+            }
+        }
+
+        Map<AggregationInfo, Object> aggregationResults = new HashMap<>();
+        if (!memoryAggregations.isEmpty()) {
+            aggregationResults.putAll(super.doValuesAggregation(itemIds,
+                    memoryAggregations.toArray(new AggregationInfo[0])));
+        }
+        if (!databaseAggregations.isEmpty()) {
+            DatabaseAggregationSupport.GroupRow row = support.loadAggregates(databaseAggregations, groupValues);
+            for (AggregationInfo aggregationInfo : databaseAggregations) {
+                aggregationResults.put(aggregationInfo,
+                        convertValue(aggregationInfo, row.getAggregates().get(aggregationInfo)));
+            }
+        }
+        return aggregationResults;
+    }
+
+    /**
+     * Converts the value returned by the database to the type produced by the in-memory {@link Aggregation},
+     * e.g. {@code sum} of an Integer column is returned by the database as Long.
+     */
+    @Nullable
+    protected Object convertValue(AggregationInfo aggregationInfo, @Nullable Object value) {
+        if (aggregationInfo.getType() == AggregationInfo.Type.COUNT) {
+            return value == null ? 0 : ((Number) value).intValue();
+        }
+        if (!(value instanceof Number)) {
+            return value;
+        }
+
+        Aggregation aggregation = Aggregations.get(aggregationInfo.getPropertyPath().getRangeJavaClass());
+        Class resultClass = aggregation != null ? aggregation.getResultClass() : value.getClass();
+
+        Number number = (Number) value;
+        if (Long.class.equals(resultClass)) {
+            return number.longValue();
+        } else if (Integer.class.equals(resultClass)) {
+            return number.intValue();
+        } else if (Double.class.equals(resultClass)) {
+            return number.doubleValue();
+        } else if (BigDecimal.class.equals(resultClass) && !(value instanceof BigDecimal)) {
+            return new BigDecimal(number.toString());
+        }
+        return value;
+    }
+}
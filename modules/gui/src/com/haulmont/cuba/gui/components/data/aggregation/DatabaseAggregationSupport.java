@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.aggregation;
+
+import com.haulmont.chile.core.model.MetaClass;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.KeyValueEntity;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.gui.components.AggregationInfo;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+
+import java.util.*;
+
+import static com.haulmont.bali.util.Preconditions.checkNotNullArgument;
+
+/**
+ * Executes grouping and aggregation of the rows selected by a {@link CollectionLoader} query on the database
+ * side using {@link ValueLoadContext} queries, so that group rows and totals are obtained without loading
+ * the detail rows.
+ * <p>
+ * Only {@code COUNT}, {@code SUM}, {@code AVG}, {@code MIN} and {@code MAX} aggregations of local datatype
+ * properties are supported, see {@link #isSupported(AggregationInfo)}.
+ */
+public class DatabaseAggregationSupport<E extends Entity> {
+
+    protected static final String GROUP_PARAM_PREFIX = "_groupValue";
+    protected static final String GROUP_JOIN_ALIAS_PREFIX = "gv";
+
+    protected CollectionLoader<E> loader;
+
+    protected DataManager dataManager;
+    protected MetadataTools metadataTools;
+
+    public DatabaseAggregationSupport(CollectionLoader<E> loader) {
+        checkNotNullArgument(loader, "loader is null");
+
+        this.loader = loader;
+        this.dataManager = AppBeans.get(DataManager.NAME);
+        this.metadataTools = AppBeans.get(MetadataTools.NAME);
+    }
+
+    public CollectionLoader<E> getLoader() {
+        return loader;
+    }
+
+    /**
+     * @return true if the aggregation can be executed by the database
+     */
+    public static boolean isSupported(AggregationInfo aggregationInfo) {
+        if (aggregationInfo.getStrategy() != null
+                || aggregationInfo.getType() == AggregationInfo.Type.CUSTOM
+                || aggregationInfo.getPropertyPath() == null) {
+            return false;
+        }
+        return isSupported(aggregationInfo.getPropertyPath())
+                && aggregationInfo.getPropertyPath().getRange().isDatatype();
+    }
+
+    /**
+     * @return true if the property can be used in the {@code group by} clause
+     */
+    public static boolean isSupported(MetaPropertyPath propertyPath) {
+        for (MetaProperty metaProperty : propertyPath.getMetaProperties()) {
+            if (metaProperty.getRange().getCardinality().isMany()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads groups of all levels for the given grouping properties.
+     *
+     * @param groupProperties grouping properties
+     * @return rows of the deepest grouping level, each row contains values of all grouping properties
+     */
+    public List<GroupRow> loadGroups(List<MetaPropertyPath> groupProperties) {
+        LoadContext.Query query = createFilteredQuery(Collections.emptyMap());
+
+        AggregationQueryBuilder builder = createQueryBuilder(query);
+
+        List<String> paths = new ArrayList<>(groupProperties.size());
+        for (MetaPropertyPath groupProperty : groupProperties) {
+            String path = groupProperty.toPathString();
+            paths.add(path);
+            if (groupProperty.getRange().isClass()) {
+                builder.addReferenceProperty(path);
+            }
+        }
+        builder.setGroupProperties(paths);
+
+        List<GroupRow> rows = new ArrayList<>();
+        for (KeyValueEntity keyValueEntity : dataManager.loadValues(createValueLoadContext(query, builder))) {
+            Map<MetaPropertyPath, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < groupProperties.size(); i++) {
+                values.put(groupProperties.get(i),
+                        keyValueEntity.getValue(AggregationQueryBuilder.GROUP_PROPERTY_PREFIX + i));
+            }
+            rows.add(new GroupRow(values, getCount(keyValueEntity), Collections.emptyMap()));
+        }
+        return rows;
+    }
+
+    /**
+     * Calculates aggregates over the rows that have the given grouping values.
+     *
+     * @param aggregationInfos aggregations supported by the database
+     * @param groupValues      grouping values, empty map means totals over all rows
+     * @return row with aggregation results
+     */
+    public GroupRow loadAggregates(Collection<AggregationInfo> aggregationInfos,
+                                   Map<MetaPropertyPath, Object> groupValues) {
+        LoadContext.Query query = createFilteredQuery(groupValues);
+
+        AggregationQueryBuilder builder = createQueryBuilder(query);
+        for (AggregationInfo aggregationInfo : aggregationInfos) {
+            if (!isSupported(aggregationInfo)) {
+                throw new IllegalArgumentException("Aggregation cannot be executed by the database: "
+                        + aggregationInfo.getPropertyPath());
+            }
+            builder.addAggregate(aggregationInfo.getType(), aggregationInfo.getPropertyPath().toPathString());
+        }
+
+        List<KeyValueEntity> result = dataManager.loadValues(createValueLoadContext(query, builder));
+        if (result.isEmpty()) {
+            return new GroupRow(groupValues, 0, Collections.emptyMap());
+        }
+
+        KeyValueEntity keyValueEntity = result.get(0);
+        Map<AggregationInfo, Object> aggregates = new HashMap<>();
+        int i = 0;
+        for (AggregationInfo aggregationInfo : aggregationInfos) {
+            Object value = keyValueEntity.getValue(AggregationQueryBuilder.AGGREGATE_PROPERTY_PREFIX + i++);
+            aggregates.put(aggregationInfo, value);
+        }
+        return new GroupRow(groupValues, getCount(keyValueEntity), aggregates);
+    }
+
+    /**
+     * Loads the detail rows of a group using the loader's view.
+     *
+     * @param groupValues grouping values
+     * @return list of entities
+     */
+    public List<E> loadItems(Map<MetaPropertyPath, Object> groupValues) {
+        LoadContext<E> loadContext = loader.createLoadContext();
+        LoadContext.Query query = createFilteredQuery(loadContext, groupValues);
+        loadContext.setQuery(query);
+        return dataManager.loadList(loadContext);
+    }
+
+    protected LoadContext.Query createFilteredQuery(Map<MetaPropertyPath, Object> groupValues) {
+        return createFilteredQuery(loader.createLoadContext(), groupValues);
+    }
+
+    protected LoadContext.Query createFilteredQuery(LoadContext<E> loadContext,
+                                                    Map<MetaPropertyPath, Object> groupValues) {
+        LoadContext.Query query = loadContext.getQuery();
+        if (query == null) {
+            throw new IllegalStateException("Loader does not have a query: " + loader);
+        }
+
+        QueryTransformer transformer = QueryTransformerFactory.createTransformer(query.getQueryString());
+        transformer.removeOrderBy();
+
+        int paramIndex = 0;
+        int joinIndex = 0;
+        for (Map.Entry<MetaPropertyPath, Object> entry : groupValues.entrySet()) {
+            // references are joined explicitly, an implicit inner join would drop rows with null references
+            MetaProperty[] metaProperties = entry.getKey().getMetaProperties();
+            StringBuilder join = new StringBuilder();
+            String currentAlias = QueryTransformer.ALIAS_PLACEHOLDER;
+            for (int i = 0; i < metaProperties.length - 1; i++) {
+                String joinAlias = GROUP_JOIN_ALIAS_PREFIX + joinIndex++ + "_";
+                join.append(join.length() > 0 ? " " : "").append("left join ")
+                        .append(currentAlias).append(".").append(metaProperties[i].getName())
+                        .append(" ").append(joinAlias);
+                currentAlias = joinAlias;
+            }
+            String path = currentAlias + "." + metaProperties[metaProperties.length - 1].getName();
+
+            String where;
+            if (entry.getValue() == null) {
+                where = path + " is null";
+            } else {
+                String paramName = GROUP_PARAM_PREFIX + paramIndex++;
+                where = path + " = :" + paramName;
+                query.setParameter(paramName, entry.getValue());
+            }
+
+            if (join.length() > 0) {
+                transformer.addJoinAndWhere(join.toString(), where);
+            } else {
+                transformer.addWhere(where);
+            }
+        }
+
+        query.setQueryString(transformer.getResult());
+        query.setSort(null);
+        query.setFirstResult(0);
+        query.setMaxResults(0);
+        return query;
+    }
+
+    protected ValueLoadContext createValueLoadContext(LoadContext.Query query, AggregationQueryBuilder builder) {
+        ValueLoadContext.Query valueQuery = ValueLoadContext.createQuery(builder.build())
+                .setParameters(query.getParameters())
+                .setCondition(query.getCondition());
+
+        return ValueLoadContext.create()
+                .setQuery(valueQuery)
+                .setStoreName(metadataTools.getStoreName(loader.getContainer().getEntityMetaClass()))
+                .setProperties(builder.getResultProperties());
+    }
+
+    protected AggregationQueryBuilder createQueryBuilder(LoadContext.Query query) {
+        MetaClass metaClass = loader.getContainer().getEntityMetaClass();
+        String primaryKeyName = metadataTools.getPrimaryKeyName(metaClass);
+        if (primaryKeyName == null) {
+            throw new IllegalStateException("Entity does not have a primary key: " + metaClass);
+        }
+        return new AggregationQueryBuilder(query.getQueryString(), getEntityAlias(query))
+                .setEntity(metaClass.getName(), primaryKeyName);
+    }
+
+    protected String getEntityAlias(LoadContext.Query query) {
+        return QueryTransformerFactory.createParser(query.getQueryString()).getEntityAlias();
+    }
+
+    protected long getCount(KeyValueEntity keyValueEntity) {
+        Number count = keyValueEntity.getValue(AggregationQueryBuilder.COUNT_PROPERTY);
+        return count == null ? 0 : count.longValue();
+    }
+
+    /**
+     * Result row of a grouping or aggregation query.
+     */
+    public static class GroupRow {
+
+        protected final Map<MetaPropertyPath, Object> groupValues;
+        protected final long count;
+        protected final Map<AggregationInfo, Object> aggregates;
+
+        public GroupRow(Map<MetaPropertyPath, Object> groupValues, long count,
+                        Map<AggregationInfo, Object> aggregates) {
+            this.groupValues = groupValues;
+            this.count = count;
+            this.aggregates = aggregates;
+        }
+
+        public Map<MetaPropertyPath, Object> getGroupValues() {
+            return groupValues;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Map<AggregationInfo, Object> getAggregates() {
+            return aggregates;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.datagrid;
+
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.components.data.aggregation.DatabaseAggregatableDelegate;
+import com.haulmont.cuba.gui.components.data.aggregation.DatabaseAggregationSupport;
+import com.haulmont.cuba.gui.data.impl.AggregatableDelegate;
+import com.haulmont.cuba.gui.model.CollectionContainer;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+import com.haulmont.cuba.gui.model.HasLoader;
+
+/**
+ * DataGrid items that calculate footer aggregations on the database side over all rows selected by the query of
+ * the container's {@link CollectionLoader}, regardless of how many rows are actually loaded into the container.
+ */
+public class DatabaseAggregatableDataGridItems<E extends Entity> extends ContainerDataGridItems<E> {
+
+    protected DatabaseAggregationSupport<E> aggregationSupport;
+
+    public DatabaseAggregatableDataGridItems(CollectionContainer<E> container) {
+        super(container);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected DatabaseAggregationSupport<E> getAggregationSupport() {
+        if (aggregationSupport == null) {
+            if (!(container instanceof HasLoader) || !(((HasLoader) container).getLoader() instanceof CollectionLoader)) {
+                throw new IllegalStateException("Container must have a CollectionLoader: " + container);
+            }
+            aggregationSupport = new DatabaseAggregationSupport<>((CollectionLoader<E>) ((HasLoader) container).getLoader());
+        }
+        return aggregationSupport;
+    }
+
+    @Override
+    protected AggregatableDelegate createAggregatableDelegate() {
+        return new DatabaseAggregatableDelegate() {
+            @Override
+            protected DatabaseAggregationSupport<?> getAggregationSupport() {
+                return DatabaseAggregatableDataGridItems.this.getAggregationSupport();
+            }
+
+            @Override
+            public Object getItem(Object itemId) {
+                return container.getItem(itemId);
+            }
+
+            @Override
+            public Object getItemValue(MetaPropertyPath property, Object itemId) {
+                return container.getItem(itemId).getValueEx(property);
+            }
+        };
+    }
+}
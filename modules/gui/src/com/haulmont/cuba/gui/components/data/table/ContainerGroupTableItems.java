@@ -177,7 +177,7 @@ public class ContainerGroupTableItems<E extends Entity<K>, K>
         List<K> idsList = groupItems.get(groupId);
         if (containsGroup(groupId) && CollectionUtils.isNotEmpty(idsList)) {
             return idsList.stream()
-                    .map(id -> container.getItem(id))
+                    .map(this::getItemNN)
                     .collect(Collectors.toList());
         }
         return Collections.emptyList();
@@ -201,7 +201,7 @@ public class ContainerGroupTableItems<E extends Entity<K>, K>
             }
 
             for (K id : groupItems.getOrDefault(groupId, Collections.emptyList())) {
-                E item = container.getItem(id);
+                E item = getItemNN(id);
                 entities.add(item);
             }
 
@@ -222,7 +222,7 @@ public class ContainerGroupTableItems<E extends Entity<K>, K>
     @Override
     public GroupInfo getParentGroup(E item) {
         K id = item.getId();
-        if (container.getItemOrNull(id) == null) {
+        if (getItem(id) == null) {
             throw new IllegalArgumentException("Datasource doesn't contain passed entity");
         }
 
@@ -235,7 +235,7 @@ public class ContainerGroupTableItems<E extends Entity<K>, K>
     @Override
     public List<GroupInfo> getGroupPath(E item) {
         K id = item.getId();
-        if (container.getItemOrNull(id) == null) {
+        if (getItem(id) == null) {
             throw new IllegalArgumentException("Datasource doesn't contain passed entity");
         }
 
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.components.data.table;
+
+import com.google.common.collect.ImmutableList;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.components.AggregationInfo;
+import com.haulmont.cuba.gui.components.data.GroupAggregatableTableItems;
+import com.haulmont.cuba.gui.components.data.aggregation.DatabaseAggregatableDelegate;
+import com.haulmont.cuba.gui.components.data.aggregation.DatabaseAggregationSupport;
+import com.haulmont.cuba.gui.data.GroupInfo;
+import com.haulmont.cuba.gui.data.impl.AggregatableDelegate;
+import com.haulmont.cuba.gui.model.CollectionContainer;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+import com.haulmont.cuba.gui.model.DataContext;
+import com.haulmont.cuba.gui.model.HasLoader;
+import org.apache.commons.collections4.map.LinkedMap;
+
+import java.util.*;
+
+/**
+ * Group table items that group and aggregate rows on the database side.
+ * <p>
+ * Groups, group item counts and aggregation results are obtained by {@code group by} queries built from the
+ * query of the container's {@link CollectionLoader}, so the loader does not have to load the whole data set.
+ * Items of a group are loaded by a separate query when the group is expanded, i.e. when its item ids are
+ * requested for the first time, and are added to the container, so they can be selected and edited as usual.
+ * Items already present in the container are not replaced.
+ * <p>
+ * If some of grouping properties cannot be used in a {@code group by} clause, e.g. they contain a collection
+ * attribute, items loaded into the container are grouped in memory as in {@link ContainerGroupTableItems}.
+ */
+public class DatabaseGroupTableItems<E extends Entity<K>, K> extends ContainerGroupTableItems<E, K>
+        implements GroupAggregatableTableItems<E> {
+
+    protected DatabaseAggregationSupport<E> aggregationSupport;
+
+    protected boolean databaseGroups;
+    protected Map<GroupInfo, Long> groupCounts;
+    // set while items of an expanded group are added to the container, so that it is not regrouped
+    protected boolean loadingGroupItems;
+
+    public DatabaseGroupTableItems(CollectionContainer<E> container) {
+        super(container);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected DatabaseAggregationSupport<E> getAggregationSupport() {
+        if (aggregationSupport == null) {
+            if (!(container instanceof HasLoader) || !(((HasLoader) container).getLoader() instanceof CollectionLoader)) {
+                throw new IllegalStateException("Container must have a CollectionLoader: " + container);
+            }
+            aggregationSupport = new DatabaseAggregationSupport<>((CollectionLoader<E>) ((HasLoader) container).getLoader());
+        }
+        return aggregationSupport;
+    }
+
+    @Override
+    public AggregatableDelegate createAggregatableDelegate() {
+        return new DatabaseAggregatableDelegate() {
+            @Override
+            protected DatabaseAggregationSupport<?> getAggregationSupport() {
+                return DatabaseGroupTableItems.this.getAggregationSupport();
+            }
+
+            @Override
+            public Object getItem(Object itemId) {
+                return DatabaseGroupTableItems.this.getItem(itemId);
+            }
+
+            @Override
+            public Object getItemValue(MetaPropertyPath property, Object itemId) {
+                return DatabaseGroupTableItems.this.getItemValue(itemId, property);
+            }
+        };
+    }
+
+    @Override
+    protected void doGroup() {
+        List<MetaPropertyPath> properties = new ArrayList<>(groupProperties.length);
+        for (Object groupProperty : groupProperties) {
+            if (!(groupProperty instanceof MetaPropertyPath)
+                    || !DatabaseAggregationSupport.isSupported((MetaPropertyPath) groupProperty)) {
+                databaseGroups = false;
+                groupCounts = null;
+                super.doGroup();
+                return;
+            }
+            properties.add((MetaPropertyPath) groupProperty);
+        }
+
+        databaseGroups = true;
+        roots = new LinkedList<>();
+        parents = new LinkedHashMap<>();
+        children = new LinkedHashMap<>();
+        groupItems = new HashMap<>();
+        itemGroups = new HashMap<>();
+        groupCounts = new HashMap<>();
+
+        for (DatabaseAggregationSupport.GroupRow row : getAggregationSupport().loadGroups(properties)) {
+            LinkedMap<MetaPropertyPath, Object> groupValues = new LinkedMap<>();
+            GroupInfo parent = null;
+            List<GroupInfo> levelGroups = roots;
+
+            for (Map.Entry<MetaPropertyPath, Object> entry : row.getGroupValues().entrySet()) {
+                groupValues.put(entry.getKey(), entry.getValue());
+
+                GroupInfo<MetaPropertyPath> groupInfo = new GroupInfo<>(groupValues);
+                if (!parents.containsKey(groupInfo)) {
+                    parents.put(groupInfo, parent);
+                    levelGroups.add(groupInfo);
+                }
+                groupCounts.merge(groupInfo, row.getCount(), Long::sum);
+
+                levelGroups = children.computeIfAbsent(groupInfo, k -> new ArrayList<>());
+                parent = groupInfo;
+            }
+        }
+    }
+
+    /**
+     * @return true if current groups are obtained from the database
+     */
+    public boolean isDatabaseGroups() {
+        return hasGroups() && databaseGroups;
+    }
+
+    protected Map<MetaPropertyPath, Object> getGroupValues(GroupInfo groupId) {
+        Map<MetaPropertyPath, Object> groupValues = new LinkedHashMap<>();
+        for (Object groupProperty : groupProperties) {
+            MetaPropertyPath propertyPath = (MetaPropertyPath) groupProperty;
+            //noinspection unchecked
+            groupValues.put(propertyPath, groupId.getPropertyValue(propertyPath));
+            if (propertyPath.equals(groupId.getProperty())) {
+                break;
+            }
+        }
+        return groupValues;
+    }
+
+    protected List<K> loadGroupItems(GroupInfo groupId) {
+        List<K> itemIds = groupItems.get(groupId);
+        if (itemIds == null) {
+            List<E> items = getAggregationSupport().loadItems(getGroupValues(groupId));
+
+            itemIds = new ArrayList<>(items.size());
+            List<E> newItems = new ArrayList<>();
+            for (E item : items) {
+                if (!container.containsItem(item.getId())) {
+                    DataContext dataContext = getAggregationSupport().getLoader().getDataContext();
+                    newItems.add(dataContext != null ? dataContext.merge(item) : item);
+                }
+                itemGroups.put(item.getId(), groupId);
+                itemIds.add(item.getId());
+            }
+            groupItems.put(groupId, itemIds);
+
+            if (!newItems.isEmpty()) {
+                loadingGroupItems = true;
+                try {
+                    container.getMutableItems().addAll(newItems);
+                } finally {
+                    loadingGroupItems = false;
+                }
+            }
+        }
+        return itemIds;
+    }
+
+    @Override
+    protected void containerCollectionChanged(CollectionContainer.CollectionChangeEvent<E> e) {
+        if (!loadingGroupItems) {
+            super.containerCollectionChanged(e);
+        }
+    }
+
+    @Override
+    public Collection<K> getGroupItemIds(GroupInfo groupId) {
+        if (isDatabaseGroups() && containsGroup(groupId) && !hasChildren(groupId)) {
+            return ImmutableList.copyOf(loadGroupItems(groupId));
+        }
+        return super.getGroupItemIds(groupId);
+    }
+
+    @Override
+    public int getGroupItemsCount(GroupInfo groupId) {
+        if (isDatabaseGroups()) {
+            Long count = groupCounts.get(groupId);
+            return count == null ? 0 : count.intValue();
+        }
+        return super.getGroupItemsCount(groupId);
+    }
+
+    @Override
+    public List<E> getOwnChildItems(GroupInfo groupId) {
+        if (isDatabaseGroups() && containsGroup(groupId) && !hasChildren(groupId)) {
+            loadGroupItems(groupId);
+        }
+        return super.getOwnChildItems(groupId);
+    }
+
+    @Override
+    public List<E> getChildItems(GroupInfo groupId) {
+        if (isDatabaseGroups() && containsGroup(groupId) && !hasChildren(groupId)) {
+            loadGroupItems(groupId);
+        }
+        return super.getChildItems(groupId);
+    }
+
+    @Override
+    public Map<AggregationInfo, String> aggregateGroup(AggregationInfo[] aggregationInfos, GroupInfo groupId) {
+        if (!isDatabaseGroups()) {
+            // groups are built from the loaded items, so their aggregates are calculated from the same items
+            //noinspection unchecked
+            return ((DatabaseAggregatableDelegate) aggregatableDelegate).aggregateInMemory(aggregationInfos,
+                    getGroupItemIds(groupId));
+        }
+        //noinspection unchecked
+        return ((DatabaseAggregatableDelegate) aggregatableDelegate).aggregateGroup(aggregationInfos,
+                getGroupItemIdsForAggregation(aggregationInfos, groupId), getGroupValues(groupId));
+    }
+
+    @Override
+    public Map<AggregationInfo, Object> aggregateGroupValues(AggregationInfo[] aggregationInfos, GroupInfo groupId) {
+        if (!isDatabaseGroups()) {
+            //noinspection unchecked
+            return ((DatabaseAggregatableDelegate) aggregatableDelegate).aggregateValuesInMemory(aggregationInfos,
+                    getGroupItemIds(groupId));
+        }
+        //noinspection unchecked
+        return ((DatabaseAggregatableDelegate) aggregatableDelegate).aggregateGroupValues(aggregationInfos,
+                getGroupItemIdsForAggregation(aggregationInfos, groupId), getGroupValues(groupId));
+    }
+
+    /**
+     * Loads items of the group only if some of aggregations cannot be executed by the database.
+     */
+    protected Collection<K> getGroupItemIdsForAggregation(AggregationInfo[] aggregationInfos, GroupInfo groupId) {
+        for (AggregationInfo aggregationInfo : aggregationInfos) {
+            if (!DatabaseAggregationSupport.isSupported(aggregationInfo)) {
+                return getGroupItemIds(groupId);
+            }
+        }
+        return Collections.emptyList();
+    }
+}
@@ -238,7 +238,9 @@ public class WindowConfig {
         loadScreenConfigurations();
         loadScreensXml();
 
-        log.info("WindowConfig initialized in {} ms", System.currentTimeMillis() - startTime);
+        boolean useScanIndex = Boolean.parseBoolean(AppContext.getProperty(AbstractScanConfiguration.USE_SCAN_INDEX_PROP));
+        log.info("WindowConfig initialized in {} ms{}", System.currentTimeMillis() - startTime,
+                useScanIndex ? " using UI scan index" : "");
     }
 
     protected void loadScreenConfigurations() {
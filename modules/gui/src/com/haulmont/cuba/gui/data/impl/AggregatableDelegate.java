@@ -40,9 +40,14 @@ public abstract class AggregatableDelegate<K> {
     }
 
     protected Map<AggregationInfo, String> doAggregation(Collection<K> itemIds, AggregationInfo[] aggregationInfos) {
+        return formatAggregationValues(aggregationInfos, doValuesAggregation(itemIds, aggregationInfos));
+    }
+
+    protected Map<AggregationInfo, String> formatAggregationValues(AggregationInfo[] aggregationInfos,
+                                                                  Map<AggregationInfo, Object> aggregationValues) {
         Map<AggregationInfo, String> aggregationResults = new HashMap<>();
         for (AggregationInfo aggregationInfo : aggregationInfos) {
-            final Object value = doPropertyAggregation(aggregationInfo, itemIds);
+            final Object value = aggregationValues.get(aggregationInfo);
 
             String formattedValue;
             if (aggregationInfo.getFormatter() != null) {
@@ -92,6 +97,11 @@ public abstract class AggregatableDelegate<K> {
             throw new NullPointerException("Aggregation must be executed at least by one field");
         }
 
+        return doValuesAggregation(itemIds, aggregationInfos);
+    }
+
+    protected Map<AggregationInfo, Object> doValuesAggregation(Collection<K> itemIds,
+                                                               AggregationInfo[] aggregationInfos) {
         Map<AggregationInfo, Object> aggregationResults = new HashMap<>();
 
         for (AggregationInfo aggregationInfo : aggregationInfos) {
@@ -176,6 +176,16 @@ public abstract class BackgroundTask<T, V> {
         return null;
     }
 
+    /**
+     * Priority of the task in the queue of the execution environment. Waiting tasks with higher priority are
+     * started first, tasks of the same priority are started in turn for different users.
+     *
+     * @return task priority
+     */
+    public Priority getPriority() {
+        return Priority.NORMAL;
+    }
+
     /**
      * @return owner screen
      * @deprecated Use {@link #getOwnerScreen()}
@@ -263,6 +273,15 @@ public abstract class BackgroundTask<T, V> {
         void onCancel();
     }
 
+    /**
+     * Priority of a task in the queue of the execution environment.
+     */
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
     public static class ProgressListenerAdapter<T, V> implements ProgressListener<T, V> {
 
         @Override
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.gui.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Data provider for a file stored in the temporary directory of the client, e.g. a document written by
+ * {@link XlsxExporter}. If {@code deleteOnClose} is set, the file is deleted when the provided stream is closed,
+ * so the data can be provided only once.
+ */
+public class TempFileDataProvider implements ExportDataProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(TempFileDataProvider.class);
+
+    protected File file;
+    protected boolean deleteOnClose;
+
+    public TempFileDataProvider(File file) {
+        this(file, false);
+    }
+
+    public TempFileDataProvider(File file, boolean deleteOnClose) {
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    @Nullable
+    @Override
+    public InputStream provide() {
+        try {
+            if (deleteOnClose) {
+                return new DeleteOnCloseFileInputStream(file);
+            }
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            log.warn("Unable to read temp file " + file.getAbsolutePath());
+            return null;
+        }
+    }
+
+    protected static class DeleteOnCloseFileInputStream extends FileInputStream {
+
+        protected final File file;
+
+        public DeleteOnCloseFileInputStream(File file) throws FileNotFoundException {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (file.exists() && !file.delete()) {
+                    log.warn("Unable to delete temp file " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+}
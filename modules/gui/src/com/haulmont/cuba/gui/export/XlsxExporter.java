@@ -0,0 +1,901 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.gui.export;
+
+import com.haulmont.chile.core.datatypes.Datatype;
+import com.haulmont.chile.core.datatypes.Datatypes;
+import com.haulmont.chile.core.model.Instance;
+import com.haulmont.chile.core.model.MetaProperty;
+import com.haulmont.chile.core.model.MetaPropertyPath;
+import com.haulmont.chile.core.model.Range;
+import com.haulmont.chile.core.model.utils.InstanceUtils;
+import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.core.entity.IdProxy;
+import com.haulmont.cuba.core.entity.annotation.IgnoreUserTimeZone;
+import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.gui.components.*;
+import com.haulmont.cuba.gui.components.data.GroupTableItems;
+import com.haulmont.cuba.gui.components.data.TableItems;
+import com.haulmont.cuba.gui.components.data.TreeDataGridItems;
+import com.haulmont.cuba.gui.components.data.TreeTableItems;
+import com.haulmont.cuba.gui.components.data.meta.ContainerDataUnit;
+import com.haulmont.cuba.gui.components.data.meta.EntityDataGridItems;
+import com.haulmont.cuba.gui.components.data.meta.EntityDataUnit;
+import com.haulmont.cuba.gui.data.GroupInfo;
+import com.haulmont.cuba.gui.model.CollectionContainer;
+import com.haulmont.cuba.gui.model.CollectionLoader;
+import com.haulmont.cuba.gui.model.DataLoader;
+import com.haulmont.cuba.gui.model.HasLoader;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.dom4j.Element;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.text.ParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Exports {@link Table} and {@link DataGrid} to XLSX format and shows the result using {@link ExportDisplay}.
+ * <p>
+ * Unlike {@link ExcelExporter}, the document is created by the streaming workbook: only the last
+ * {@link #getRowAccessWindowSize()} rows are kept in memory, older rows are flushed to a temporary file, and
+ * all cells share a fixed set of cell styles. The resulting document is written to the temporary directory
+ * instead of a byte array and is deleted once it has been read.
+ * <p>
+ * If {@link #setLoadAllPages(boolean)} is set and the component is bound to a collection container with
+ * a {@link CollectionLoader}, rows are loaded by the loader query page by page, so the export contains all
+ * instances returned by the query and not only the loaded ones. Grouped and hierarchical components are always
+ * exported from their loaded items.
+ */
+public class XlsxExporter {
+
+    protected static final int COL_WIDTH_MAGIC = 48;
+
+    private static final int SPACE_COUNT = 10;
+
+    public static final int MAX_ROW_COUNT = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    protected static final String TEMP_FILE_PREFIX = "xlsx-export-";
+
+    protected static final long STALE_TEMP_FILE_AGE_MS = 60 * 60 * 1000L;
+
+    protected SXSSFWorkbook wb;
+    protected SXSSFSheet sheet;
+
+    protected Font boldFont;
+    protected Font stdFont;
+
+    protected CellStyle headerCellStyle;
+    protected CellStyle boldCellStyle;
+    protected CellStyle timeFormatCellStyle;
+    protected CellStyle dateFormatCellStyle;
+    protected CellStyle dateTimeFormatCellStyle;
+    protected CellStyle integerFormatCellStyle;
+    protected CellStyle doubleFormatCellStyle;
+
+    protected ExcelAutoColumnSizer[] sizers;
+
+    protected String trueStr;
+    protected String falseStr;
+
+    protected boolean exportAggregation = true;
+    protected boolean loadAllPages;
+    protected int rowAccessWindowSize = DEFAULT_ROW_ACCESS_WINDOW_SIZE;
+    protected int pageSize = DEFAULT_PAGE_SIZE;
+
+    protected final Messages messages;
+    protected final UserSessionSource userSessionSource;
+    protected final MetadataTools metadataTools;
+    protected final DataManager dataManager;
+    protected final GlobalConfig globalConfig;
+
+    protected boolean isRowNumberExceeded = false;
+
+    public XlsxExporter() {
+        messages = AppBeans.get(Messages.NAME);
+        userSessionSource = AppBeans.get(UserSessionSource.NAME);
+        metadataTools = AppBeans.get(MetadataTools.NAME);
+        dataManager = AppBeans.get(DataManager.NAME);
+        globalConfig = AppBeans.get(Configuration.class).getConfig(GlobalConfig.class);
+
+        trueStr = messages.getMessage(ExcelExporter.class, "excelExporter.true");
+        falseStr = messages.getMessage(ExcelExporter.class, "excelExporter.false");
+    }
+
+    public void exportTable(Table table, @Nullable ExportDisplay display) {
+        exportTable(table, table.getColumns(), display);
+    }
+
+    public void exportTable(Table table, List<Table.Column> columns, @Nullable ExportDisplay display) {
+        exportTable(table, columns, false, display, null, null, ExcelExporter.ExportMode.ALL_ROWS);
+    }
+
+    public void exportTable(Table table, List<Table.Column> columns, @Nullable ExportDisplay display,
+                            ExcelExporter.ExportMode exportMode) {
+        exportTable(table, columns, false, display, null, null, exportMode);
+    }
+
+    public void exportTable(Table<Entity> table, List<Table.Column> columns, Boolean exportExpanded,
+                            @Nullable ExportDisplay display, @Nullable List<String> filterDescription,
+                            @Nullable String fileName, ExcelExporter.ExportMode exportMode) {
+        if (display == null) {
+            throw new IllegalArgumentException("ExportDisplay is null");
+        }
+
+        createWorkbook();
+        try {
+            int r = createHeader(columns.stream().map(Table.Column::getCaption).collect(Collectors.toList()),
+                    filterDescription);
+
+            TableItems<Entity> tableItems = table.getItems();
+            boolean aggregation = table.isAggregatable() && exportAggregation && hasAggregatableColumn(table);
+
+            if (exportMode == ExcelExporter.ExportMode.SELECTED_ROWS && table.getSelected().size() > 0) {
+                Set<Entity> selected = table.getSelected();
+                for (Object itemId : tableItems.getItemIds()) {
+                    Entity item = tableItems.getItem(itemId);
+                    if (item == null || !selected.contains(item)) {
+                        continue;
+                    }
+                    if (checkIsRowNumberExceed(r)) {
+                        break;
+                    }
+                    createRow(table, columns, 0, ++r, item, 0);
+                }
+            } else {
+                if (aggregation && table.getAggregationStyle() == Table.AggregationStyle.TOP) {
+                    r = createAggregatableRow(columns, table.getAggregationResults(), ++r);
+                }
+
+                CollectionLoader<Entity> loader;
+                if (table instanceof TreeTable) {
+                    TreeTable treeTable = (TreeTable) table;
+                    TreeTableItems treeTableItems = (TreeTableItems) treeTable.getItems();
+                    for (Object itemId : treeTableItems.getRootItemIds()) {
+                        if (checkIsRowNumberExceed(r)) {
+                            break;
+                        }
+                        r = createHierarchicalRow(treeTable, columns, exportExpanded, r, itemId);
+                    }
+                } else if (table instanceof GroupTable && tableItems instanceof GroupTableItems
+                        && ((GroupTableItems) tableItems).hasGroups()) {
+                    GroupTableItems groupTableItems = (GroupTableItems) tableItems;
+                    for (Object groupInfo : groupTableItems.rootGroups()) {
+                        if (checkIsRowNumberExceed(r)) {
+                            break;
+                        }
+                        r = createGroupRow((GroupTable) table, columns, ++r, (GroupInfo) groupInfo, 0);
+                    }
+                } else if ((loader = getPagingLoader(tableItems)) != null) {
+                    r = createRowsFromLoader(loader, r, (entity, rowNumber) ->
+                            createRow(table, columns, 0, rowNumber, entity, 0));
+                } else {
+                    for (Object itemId : tableItems.getItemIds()) {
+                        if (checkIsRowNumberExceed(r)) {
+                            break;
+                        }
+                        createRow(table, columns, 0, ++r, tableItems.getItem(itemId), 0);
+                    }
+                }
+
+                if (aggregation && table.getAggregationStyle() == Table.AggregationStyle.BOTTOM) {
+                    r = createAggregatableRow(columns, table.getAggregationResults(), ++r);
+                }
+            }
+
+            if (fileName == null) {
+                fileName = messages.getTools().getEntityCaption(((EntityDataUnit) tableItems).getEntityMetaClass());
+            }
+            show(display, fileName, columns.size());
+        } finally {
+            disposeWorkbook();
+        }
+    }
+
+    public void exportDataGrid(DataGrid dataGrid, @Nullable ExportDisplay display) {
+        exportDataGrid(dataGrid, dataGrid.getColumns(), display);
+    }
+
+    public void exportDataGrid(DataGrid dataGrid, List<DataGrid.Column> columns, @Nullable ExportDisplay display) {
+        exportDataGrid(dataGrid, columns, display, null, null, ExcelExporter.ExportMode.ALL_ROWS);
+    }
+
+    public void exportDataGrid(DataGrid dataGrid, List<DataGrid.Column> columns, @Nullable ExportDisplay display,
+                               ExcelExporter.ExportMode exportMode) {
+        exportDataGrid(dataGrid, columns, display, null, null, exportMode);
+    }
+
+    public void exportDataGrid(DataGrid<Entity> dataGrid, List<DataGrid.Column> columns,
+                               @Nullable ExportDisplay display, @Nullable List<String> filterDescription,
+                               @Nullable String fileName, ExcelExporter.ExportMode exportMode) {
+        if (display == null) {
+            throw new IllegalArgumentException("ExportDisplay is null");
+        }
+
+        EntityDataGridItems<Entity> dataGridItems = (EntityDataGridItems) dataGrid.getItems();
+        if (dataGridItems == null) {
+            throw new IllegalStateException("DataGrid is not bound to data");
+        }
+
+        createWorkbook();
+        try {
+            int r = createHeader(columns.stream().map(DataGrid.Column::getCaption).collect(Collectors.toList()),
+                    filterDescription);
+
+            CollectionLoader<Entity> loader;
+            if (exportMode == ExcelExporter.ExportMode.SELECTED_ROWS && dataGrid.getSelected().size() > 0) {
+                Set<Entity> selected = dataGrid.getSelected();
+                List<Entity> ordered = dataGridItems.getItems()
+                        .filter(selected::contains)
+                        .collect(Collectors.toList());
+                for (Entity item : ordered) {
+                    if (checkIsRowNumberExceed(r)) {
+                        break;
+                    }
+                    createDataGridRow(dataGrid, columns, 0, ++r, item, 0);
+                }
+            } else if (dataGrid instanceof TreeDataGrid) {
+                TreeDataGrid<Entity> treeDataGrid = (TreeDataGrid<Entity>) dataGrid;
+                TreeDataGridItems<Entity> treeDataGridItems = (TreeDataGridItems<Entity>) dataGridItems;
+                List<Entity> items = treeDataGridItems.getChildren(null).collect(Collectors.toList());
+                for (Entity item : items) {
+                    if (checkIsRowNumberExceed(r)) {
+                        break;
+                    }
+                    r = createDataGridHierarchicalRow(treeDataGrid, treeDataGridItems, columns, r, item);
+                }
+            } else if ((loader = getPagingLoader(dataGridItems)) != null) {
+                r = createRowsFromLoader(loader, r, (entity, rowNumber) ->
+                        createDataGridRow(dataGrid, columns, 0, rowNumber, entity, 0));
+            } else {
+                List<Entity> items = dataGridItems.getItems().collect(Collectors.toList());
+                for (Entity item : items) {
+                    if (checkIsRowNumberExceed(r)) {
+                        break;
+                    }
+                    createDataGridRow(dataGrid, columns, 0, ++r, item, 0);
+                }
+            }
+
+            if (fileName == null) {
+                fileName = messages.getTools().getEntityCaption(dataGridItems.getEntityMetaClass());
+            }
+            show(display, fileName, columns.size());
+        } finally {
+            disposeWorkbook();
+        }
+    }
+
+    protected void createWorkbook() {
+        wb = new SXSSFWorkbook(rowAccessWindowSize);
+        wb.setCompressTempFiles(true);
+        sheet = wb.createSheet("Export");
+        isRowNumberExceeded = false;
+
+        createFonts();
+        createFormats();
+    }
+
+    protected void disposeWorkbook() {
+        if (wb != null) {
+            wb.dispose();
+            try {
+                wb.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to close document", e);
+            }
+            wb = null;
+            sheet = null;
+        }
+        if (sizers != null) {
+            for (ExcelAutoColumnSizer sizer : sizers) {
+                if (sizer != null) {
+                    sizer.dispose();
+                }
+            }
+            sizers = null;
+        }
+    }
+
+    protected void createFonts() {
+        stdFont = wb.createFont();
+        boldFont = wb.createFont();
+        boldFont.setBold(true);
+    }
+
+    /**
+     * Creates all cell styles of the document. The styles are shared by all cells, as the number of styles
+     * in a workbook is limited.
+     */
+    protected void createFormats() {
+        headerCellStyle = wb.createCellStyle();
+        headerCellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
+        headerCellStyle.setFont(boldFont);
+
+        boldCellStyle = wb.createCellStyle();
+        boldCellStyle.setFont(boldFont);
+
+        DataFormat format = wb.createDataFormat();
+
+        timeFormatCellStyle = wb.createCellStyle();
+        timeFormatCellStyle.setDataFormat(format.getFormat(messages.getMainMessage("excelExporter.timeFormat")));
+
+        dateFormatCellStyle = wb.createCellStyle();
+        dateFormatCellStyle.setDataFormat(format.getFormat(messages.getMainMessage("excelExporter.dateFormat")));
+
+        dateTimeFormatCellStyle = wb.createCellStyle();
+        dateTimeFormatCellStyle.setDataFormat(format.getFormat(messages.getMainMessage("excelExporter.dateTimeFormat")));
+
+        integerFormatCellStyle = wb.createCellStyle();
+        integerFormatCellStyle.setDataFormat(format.getFormat(messages.getMainMessage("excelExporter.integerFormat")));
+
+        doubleFormatCellStyle = wb.createCellStyle();
+        doubleFormatCellStyle.setDataFormat(format.getFormat(messages.getMainMessage("excelExporter.doubleFormat")));
+    }
+
+    /**
+     * Creates rows of the filter description and the row of column captions.
+     *
+     * @return number of the caption row
+     */
+    protected int createHeader(List<String> captions, @Nullable List<String> filterDescription) {
+        int r = 0;
+        if (filterDescription != null) {
+            for (r = 0; r < filterDescription.size(); r++) {
+                Cell cell = sheet.createRow(r).createCell(0);
+                cell.setCellValue(filterDescription.get(r));
+                if (r == 0) {
+                    cell.setCellStyle(boldCellStyle);
+                }
+            }
+            r++;
+        }
+
+        Row row = sheet.createRow(r);
+        sizers = new ExcelAutoColumnSizer[captions.size()];
+
+        float maxHeight = sheet.getDefaultRowHeightInPoints();
+        for (String caption : captions) {
+            int countOfReturnSymbols = StringUtils.countMatches(caption, "\n");
+            if (countOfReturnSymbols > 0) {
+                maxHeight = Math.max(maxHeight, (countOfReturnSymbols + 1) * sheet.getDefaultRowHeightInPoints());
+                headerCellStyle.setWrapText(true);
+            }
+        }
+        row.setHeightInPoints(maxHeight);
+
+        for (int c = 0; c < captions.size(); c++) {
+            String caption = captions.get(c);
+
+            Cell cell = row.createCell(c);
+            cell.setCellValue(caption);
+            cell.setCellStyle(headerCellStyle);
+
+            ExcelAutoColumnSizer sizer = new ExcelAutoColumnSizer();
+            sizer.notifyCellValue(caption, boldFont);
+            sizers[c] = sizer;
+        }
+        return r;
+    }
+
+    protected void show(ExportDisplay display, String fileName, int columnCount) {
+        for (int c = 0; c < columnCount; c++) {
+            sheet.setColumnWidth(c, sizers[c].getWidth() * COL_WIDTH_MAGIC);
+        }
+
+        File tempDir = new File(globalConfig.getTempDir());
+        deleteStaleFiles(tempDir);
+
+        File file = new File(tempDir, TEMP_FILE_PREFIX + UuidProvider.createUuid().toString());
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            wb.write(out);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(file);
+            throw new RuntimeException("Unable to write document", e);
+        }
+
+        display.show(new TempFileDataProvider(file, true), fileName + ".xlsx", ExportFormat.XLSX);
+    }
+
+    /**
+     * Deletes documents which have been written by previous exports but never read, e.g. if the download
+     * was cancelled. Documents that have been read are deleted when the stream is closed.
+     */
+    protected void deleteStaleFiles(File tempDir) {
+        long staleTime = System.currentTimeMillis() - STALE_TEMP_FILE_AGE_MS;
+        File[] files = tempDir.listFiles((dir, name) -> name.startsWith(TEMP_FILE_PREFIX));
+        if (files != null) {
+            for (File file : files) {
+                if (file.lastModified() < staleTime) {
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the loader whose query is used to export all pages, or null if the loaded items should be exported.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    protected CollectionLoader<Entity> getPagingLoader(Object items) {
+        if (!loadAllPages || !(items instanceof ContainerDataUnit)) {
+            return null;
+        }
+        CollectionContainer container = ((ContainerDataUnit) items).getContainer();
+        if (container instanceof HasLoader) {
+            DataLoader loader = ((HasLoader) container).getLoader();
+            if (loader instanceof CollectionLoader && loader.getQuery() != null) {
+                return (CollectionLoader<Entity>) loader;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads instances by the loader query page by page and creates a row for each instance. Instances of a page
+     * are not referenced after their rows are created.
+     *
+     * @return number of the last created row
+     */
+    protected int createRowsFromLoader(CollectionLoader<Entity> loader, int rowNumber, RowCreator rowCreator) {
+        LoadContext<Entity> loadContext = loader.createLoadContext();
+        LoadContext.Query query = loadContext.getQuery();
+        Function<LoadContext<Entity>, List<Entity>> delegate = loader.getLoadDelegate();
+
+        int firstResult = 0;
+        while (true) {
+            query.setFirstResult(firstResult);
+            query.setMaxResults(pageSize);
+
+            List<Entity> page = delegate != null ? delegate.apply(loadContext) : dataManager.loadList(loadContext);
+            for (Entity entity : page) {
+                if (checkIsRowNumberExceed(rowNumber)) {
+                    return rowNumber;
+                }
+                rowCreator.createRow(entity, ++rowNumber);
+            }
+            if (page.size() < pageSize) {
+                return rowNumber;
+            }
+            firstResult += pageSize;
+        }
+    }
+
+    protected interface RowCreator {
+        void createRow(Entity entity, int rowNumber);
+    }
+
+    protected int createHierarchicalRow(TreeTable table, List<Table.Column> columns,
+                                        Boolean exportExpanded, int rowNumber, Object itemId) {
+        TreeTableItems treeTableItems = (TreeTableItems) table.getItems();
+        createRow(table, columns, 0, ++rowNumber, (Entity) treeTableItems.getItem(itemId), table.getLevel(itemId));
+        if (BooleanUtils.isTrue(exportExpanded) && !table.isExpanded(itemId)
+                && !treeTableItems.getChildren(itemId).isEmpty()) {
+            return rowNumber;
+        }
+        Collection children = treeTableItems.getChildren(itemId);
+        if (children != null) {
+            for (Object id : children) {
+                if (checkIsRowNumberExceed(rowNumber)) {
+                    break;
+                }
+                if (BooleanUtils.isTrue(exportExpanded) && !table.isExpanded(id)
+                        && !treeTableItems.getChildren(id).isEmpty()) {
+                    createRow(table, columns, 0, ++rowNumber, (Entity) treeTableItems.getItem(id), table.getLevel(id));
+                    continue;
+                }
+                rowNumber = createHierarchicalRow(table, columns, exportExpanded, rowNumber, id);
+            }
+        }
+        return rowNumber;
+    }
+
+    protected int createAggregatableRow(List<Table.Column> columns, Map<Object, Object> results, int rowNumber) {
+        Row row = sheet.createRow(rowNumber);
+        for (int i = 0; i < columns.size(); i++) {
+            Table.Column column = columns.get(i);
+            AggregationInfo agr = column.getAggregation();
+            if (agr != null) {
+                Object key = agr.getPropertyPath() != null ? agr.getPropertyPath() : column.getId();
+                Object aggregationResult = results.get(key);
+                if (aggregationResult != null) {
+                    formatValueCell(row.createCell(i), aggregationResult, null, i, rowNumber, 0, null);
+                }
+            }
+        }
+        return rowNumber;
+    }
+
+    /**
+     * Creates the row of the group, rows of its nested groups and items. Rows of the group contents get
+     * the outline level of the group, as the rows of the group can be already flushed when it is completed.
+     */
+    @SuppressWarnings("unchecked")
+    protected int createGroupRow(GroupTable table, List<Table.Column> columns, int rowNumber,
+                                 GroupInfo groupInfo, int groupNumber) {
+        GroupTableItems<Entity> groupTableItems = (GroupTableItems) table.getItems();
+
+        Collection<?> groupItemIds = groupTableItems.getGroupItemIds(groupInfo);
+        if (groupItemIds.isEmpty()) {
+            return rowNumber - 1;
+        }
+
+        Row row = sheet.createRow(rowNumber);
+        if (groupNumber > 0) {
+            sheet.setRowOutlineLevel(rowNumber, groupNumber);
+        }
+        Map<Object, Object> aggregations = table.isAggregatable()
+                ? table.getAggregationResults(groupInfo)
+                : Collections.emptyMap();
+
+        for (int i = 0; i < columns.size(); i++) {
+            Table.Column column = columns.get(i);
+            if (i == groupNumber) {
+                Object val = groupInfo.getValue();
+                if (val == null) {
+                    val = messages.getMessage(ExcelExporter.class, "excelExporter.empty");
+                }
+
+                Integer groupChildCount = null;
+                if (table.isShowItemsCountForGroup()) {
+                    groupChildCount = groupItemIds.size();
+                }
+
+                Object captionValue = val;
+
+                Element xmlDescriptor = column.getXmlDescriptor();
+                if (xmlDescriptor != null && StringUtils.isNotEmpty(xmlDescriptor.attributeValue("captionProperty"))) {
+                    String captionProperty = xmlDescriptor.attributeValue("captionProperty");
+                    Instance item = groupTableItems.getItemNN(groupItemIds.iterator().next());
+                    captionValue = item.getValueEx(captionProperty);
+                }
+
+                GroupTable.GroupCellValueFormatter<Entity> groupCellValueFormatter = table.getGroupCellValueFormatter();
+                if (groupCellValueFormatter != null) {
+                    // disable separate "(N)" printing
+                    groupChildCount = null;
+
+                    List<Entity> groupItems = groupItemIds.stream()
+                            .map(groupTableItems::getItem)
+                            .collect(Collectors.toList());
+
+                    GroupTable.GroupCellContext<Entity> cellContext = new GroupTable.GroupCellContext<>(
+                            groupInfo, captionValue, metadataTools.format(captionValue), groupItems);
+
+                    captionValue = groupCellValueFormatter.format(cellContext);
+                }
+
+                MetaPropertyPath columnId = (MetaPropertyPath) column.getId();
+                formatValueCell(row.createCell(i), captionValue, columnId, i, rowNumber, 0, groupChildCount);
+            } else if (i > groupNumber) {
+                AggregationInfo agr = column.getAggregation();
+                if (agr != null) {
+                    Object key = agr.getPropertyPath() != null ? agr.getPropertyPath() : column.getId();
+                    Object aggregationResult = aggregations.get(key);
+                    if (aggregationResult != null) {
+                        formatValueCell(row.createCell(i), aggregationResult, null, i, rowNumber, 0, null);
+                    }
+                }
+            }
+        }
+
+        List<GroupInfo> children = groupTableItems.getChildren(groupInfo);
+        if (!children.isEmpty()) {
+            for (GroupInfo child : children) {
+                if (checkIsRowNumberExceed(rowNumber)) {
+                    break;
+                }
+                rowNumber = createGroupRow(table, columns, ++rowNumber, child, groupNumber + 1);
+            }
+        } else {
+            for (Object itemId : groupItemIds) {
+                if (checkIsRowNumberExceed(rowNumber)) {
+                    break;
+                }
+                createRow(table, columns, groupNumber + 1, ++rowNumber, groupTableItems.getItem(itemId), 0);
+                sheet.setRowOutlineLevel(rowNumber, groupNumber + 1);
+            }
+        }
+        return rowNumber;
+    }
+
+    protected void createRow(Table table, List<Table.Column> columns, int startColumn, int rowNumber,
+                             @Nullable Entity instance, int level) {
+        Row row = sheet.createRow(rowNumber);
+        if (instance == null || startColumn >= columns.size()) {
+            return;
+        }
+
+        for (int c = startColumn; c < columns.size(); c++) {
+            Table.Column column = columns.get(c);
+            Object cellValue = null;
+
+            MetaPropertyPath propertyPath = null;
+            Table.Printable printable = table.getPrintable(column);
+            if (column.getId() instanceof MetaPropertyPath) {
+                propertyPath = (MetaPropertyPath) column.getId();
+
+                if (printable != null) {
+                    cellValue = printable.getValue(instance);
+                } else {
+                    Element xmlDescriptor = column.getXmlDescriptor();
+                    if (xmlDescriptor != null && StringUtils.isNotEmpty(xmlDescriptor.attributeValue("captionProperty"))) {
+                        cellValue = InstanceUtils.getValueEx(instance, xmlDescriptor.attributeValue("captionProperty"));
+                    } else {
+                        cellValue = InstanceUtils.getValueEx(instance, propertyPath.getPath());
+                    }
+                    if (column.getFormatter() != null) {
+                        cellValue = column.getFormatter().apply(cellValue);
+                    }
+                }
+            } else if (printable != null) {
+                cellValue = printable.getValue(instance);
+            } else if (column.getValueProvider() != null) {
+                cellValue = column.getValueProvider().apply(instance);
+            }
+
+            formatValueCell(row.createCell(c), cellValue, propertyPath, c, rowNumber, level, null);
+        }
+    }
+
+    protected int createDataGridHierarchicalRow(TreeDataGrid<Entity> dataGrid, TreeDataGridItems<Entity> treeDataGridItems,
+                                                List<DataGrid.Column> columns, int rowNumber, Entity item) {
+        if (!checkIsRowNumberExceed(rowNumber)) {
+            createDataGridRow(dataGrid, columns, 0, ++rowNumber, item, dataGrid.getLevel(item));
+
+            List<Entity> children = treeDataGridItems.getChildren(item).collect(Collectors.toList());
+            for (Entity child : children) {
+                rowNumber = createDataGridHierarchicalRow(dataGrid, treeDataGridItems, columns, rowNumber, child);
+            }
+        }
+        return rowNumber;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void createDataGridRow(DataGrid dataGrid, List<DataGrid.Column> columns,
+                                     int startColumn, int rowNumber, Entity item, int level) {
+        Row row = sheet.createRow(rowNumber);
+        if (startColumn >= columns.size()) {
+            return;
+        }
+
+        for (int c = startColumn; c < columns.size(); c++) {
+            DataGrid.Column column = columns.get(c);
+            Object cellValue = null;
+
+            MetaPropertyPath propertyPath = null;
+            DataGrid.ColumnGenerator generator;
+            if (column.getPropertyPath() != null) {
+                propertyPath = column.getPropertyPath();
+
+                cellValue = InstanceUtils.getValueEx(item, propertyPath.getPath());
+
+                if (column.getFormatter() != null) {
+                    cellValue = column.getFormatter().apply(cellValue);
+                }
+            } else if ((generator = dataGrid.getColumnGenerator(column.getId())) != null) {
+                DataGrid.ColumnGeneratorEvent<Entity> event = new DataGrid.ColumnGeneratorEvent<>(dataGrid, item,
+                        column.getId(), entity -> {
+                            throw new UnsupportedOperationException("XlsxExporter doesn't provide instance container");
+                        });
+                cellValue = generator.getValue(event);
+
+                if (cellValue == null && Boolean.class.equals(generator.getType())) {
+                    cellValue = false;
+                }
+            }
+
+            formatValueCell(row.createCell(c), cellValue, propertyPath, c, rowNumber, level, null);
+        }
+    }
+
+    protected String createSpaceString(int level) {
+        return level == 0 ? "" : StringUtils.repeat(' ', level * SPACE_COUNT);
+    }
+
+    protected void formatValueCell(Cell cell, @Nullable Object cellValue, @Nullable MetaPropertyPath metaPropertyPath,
+                                   int sizersIndex, int notificationRequired, int level, @Nullable Integer groupChildCount) {
+        if (cellValue == null) {
+            if (metaPropertyPath != null
+                    && metaPropertyPath.getRange().isDatatype()
+                    && Boolean.class.equals(metaPropertyPath.getRange().asDatatype().getJavaClass())) {
+                cellValue = false;
+            } else {
+                return;
+            }
+        }
+
+        String childCountValue = groupChildCount != null ? " (" + groupChildCount + ")" : "";
+
+        if (cellValue instanceof IdProxy) {
+            cellValue = ((IdProxy) cellValue).get();
+        }
+
+        String str;
+        if (cellValue instanceof Number) {
+            Number n = (Number) cellValue;
+            Datatype datatype = null;
+            if (metaPropertyPath != null) {
+                Range range = metaPropertyPath.getMetaProperty().getRange();
+                if (range.isDatatype()) {
+                    datatype = range.asDatatype();
+                }
+            }
+            datatype = datatype == null ? Datatypes.getNN(n.getClass()) : datatype;
+
+            // level is used for TreeTable, so level with 0 doesn't create spacing
+            if (sizersIndex == 0 && level > 0) {
+                str = createSpaceString(level) + datatype.format(n);
+                cell.setCellValue(str);
+            } else {
+                str = datatype.format(n);
+                try {
+                    Number result = (Number) datatype.parse(str);
+                    if (result != null) {
+                        if (n instanceof Integer || n instanceof Long || n instanceof Byte || n instanceof Short) {
+                            cell.setCellValue(result.longValue());
+                            cell.setCellStyle(integerFormatCellStyle);
+                        } else {
+                            cell.setCellValue(result.doubleValue());
+                            cell.setCellStyle(doubleFormatCellStyle);
+                        }
+                    }
+                } catch (ParseException e) {
+                    throw new RuntimeException("Unable to parse numeric value", e);
+                }
+            }
+        } else if (cellValue instanceof Date) {
+            Class javaClass = null;
+            boolean supportTimezones = false;
+            TimeZone timeZone = userSessionSource.getUserSession().getTimeZone();
+            if (metaPropertyPath != null) {
+                MetaProperty metaProperty = metaPropertyPath.getMetaProperty();
+                if (metaProperty.getRange().isDatatype()) {
+                    javaClass = metaProperty.getRange().asDatatype().getJavaClass();
+                }
+                Boolean ignoreUserTimeZone = metadataTools.getMetaAnnotationValue(metaProperty, IgnoreUserTimeZone.class);
+                supportTimezones = timeZone != null
+                        && Objects.equals(Date.class, javaClass)
+                        && !Boolean.TRUE.equals(ignoreUserTimeZone);
+            }
+            Date date = (Date) cellValue;
+            if (supportTimezones) {
+                TimeZone currentTimeZone = LocaleUtil.getUserTimeZone();
+                try {
+                    LocaleUtil.setUserTimeZone(timeZone);
+                    cell.setCellValue(date);
+                } finally {
+                    if (Objects.equals(currentTimeZone, TimeZone.getDefault())) {
+                        LocaleUtil.resetUserTimeZone();
+                    } else {
+                        LocaleUtil.setUserTimeZone(currentTimeZone);
+                    }
+                }
+            } else {
+                cell.setCellValue(date);
+            }
+
+            if (Objects.equals(java.sql.Time.class, javaClass)) {
+                cell.setCellStyle(timeFormatCellStyle);
+            } else if (Objects.equals(java.sql.Date.class, javaClass)) {
+                cell.setCellStyle(dateFormatCellStyle);
+            } else {
+                cell.setCellStyle(dateTimeFormatCellStyle);
+            }
+            str = sizers[sizersIndex].isNotificationRequired(notificationRequired)
+                    ? Datatypes.getNN(Date.class).format(date)
+                    : null;
+        } else if (cellValue instanceof Boolean) {
+            str = (sizersIndex == 0 ? createSpaceString(level) : "") + ((Boolean) cellValue ? trueStr : falseStr);
+            cell.setCellValue(str);
+        } else if (cellValue instanceof Enum) {
+            str = (sizersIndex == 0 ? createSpaceString(level) : "") + messages.getMessage((Enum) cellValue);
+            cell.setCellValue(str + childCountValue);
+        } else if (cellValue instanceof Entity) {
+            String instanceName = metadataTools.getInstanceName((Entity) cellValue);
+            str = (sizersIndex == 0 ? createSpaceString(level) : "") + instanceName + childCountValue;
+            cell.setCellValue(str);
+        } else if (cellValue instanceof Collection) {
+            str = "";
+            cell.setCellValue(str);
+        } else {
+            str = (sizersIndex == 0 ? createSpaceString(level) : "") + cellValue.toString() + childCountValue;
+            cell.setCellValue(str);
+        }
+
+        if (str != null && sizers[sizersIndex].isNotificationRequired(notificationRequired)) {
+            sizers[sizersIndex].notifyCellValue(str, stdFont);
+        }
+    }
+
+    protected boolean checkIsRowNumberExceed(int r) {
+        return isRowNumberExceeded = r >= MAX_ROW_COUNT;
+    }
+
+    /**
+     * @return true if exported component contains more rows than an XLSX sheet can hold
+     */
+    public boolean isMaxRowNumberExceeded() {
+        return isRowNumberExceeded;
+    }
+
+    public boolean getExportAggregation() {
+        return exportAggregation;
+    }
+
+    public void setExportAggregation(boolean exportAggregation) {
+        this.exportAggregation = exportAggregation;
+    }
+
+    public boolean isLoadAllPages() {
+        return loadAllPages;
+    }
+
+    /**
+     * Sets whether all instances returned by the query of the component's {@link CollectionLoader} are exported
+     * page by page instead of the loaded items.
+     */
+    public void setLoadAllPages(boolean loadAllPages) {
+        this.loadAllPages = loadAllPages;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of instances loaded at once if {@link #setLoadAllPages(boolean)} is set.
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getRowAccessWindowSize() {
+        return rowAccessWindowSize;
+    }
+
+    /**
+     * Sets the number of rows kept in memory while the document is written.
+     */
+    public void setRowAccessWindowSize(int rowAccessWindowSize) {
+        this.rowAccessWindowSize = rowAccessWindowSize;
+    }
+
+    protected boolean hasAggregatableColumn(Table table) {
+        for (Object column : table.getColumns()) {
+            if (((Table.Column) column).getAggregation() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
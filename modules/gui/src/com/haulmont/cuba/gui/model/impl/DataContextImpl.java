@@ -16,6 +16,7 @@
 
 package com.haulmont.cuba.gui.model.impl;
 
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.haulmont.bali.events.EventHub;
 import com.haulmont.bali.events.Subscription;
@@ -25,8 +26,11 @@ import com.haulmont.chile.core.model.MetaProperty;
 import com.haulmont.chile.core.model.impl.AbstractInstance;
 import com.haulmont.cuba.core.entity.*;
 import com.haulmont.cuba.core.global.*;
+import com.haulmont.cuba.client.ClientConfig;
 import com.haulmont.cuba.core.sys.EntityReferencesNormalizer;
+import com.haulmont.cuba.core.sys.persistence.CubaEntityFetchGroup;
 import com.haulmont.cuba.core.sys.persistence.FetchGroupUtils;
+import com.haulmont.cuba.gui.model.CollectionChangeType;
 import com.haulmont.cuba.gui.model.DataContext;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.persistence.queries.FetchGroup;
@@ -64,6 +68,20 @@ public class DataContextImpl implements DataContext {
 
     protected Set<Entity> removedInstances = new HashSet<>();
 
+    /**
+     * Attributes changed in modified instances. Contains only instances whose changes are fully described by
+     * the changed attributes.
+     */
+    protected Map<Entity, Set<String>> changedAttributes = new HashMap<>();
+
+    /**
+     * Modified instances whose changes are not described by {@link #changedAttributes}, e.g. instances with
+     * changed collections or embedded attributes.
+     */
+    protected Set<Entity> fullyModifiedInstances = new HashSet<>();
+
+    protected Boolean deltaCommit;
+
     protected PropertyChangeListener propertyChangeListener = new PropertyChangeListener();
 
     protected boolean disableListeners;
@@ -74,6 +92,18 @@ public class DataContextImpl implements DataContext {
 
     protected Map<Entity, Map<String, EmbeddedPropertyChangeListener>> embeddedPropertyListeners = new WeakHashMap<>();
 
+    /**
+     * Reverse references: entity -> instances referring to it by a reference or a collection attribute.
+     * May contain stale referrers, so the references are checked on use.
+     */
+    protected Map<Entity, Set<Entity>> referrers = new IdentityHashMap<>();
+
+    /**
+     * Instances having collections which are not tracked by {@link #referrers}, e.g. collections set by
+     * application code or sets changed by {@code addAll()}.
+     */
+    protected Set<Entity> untrackedReferrers = Sets.newIdentityHashSet();
+
     public DataContextImpl(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
     }
@@ -98,6 +128,29 @@ public class DataContextImpl implements DataContext {
         return applicationContext.getBean(EntityReferencesNormalizer.NAME, EntityReferencesNormalizer.class);
     }
 
+    protected ClientConfig getClientConfig() {
+        return applicationContext.getBean(Configuration.NAME, Configuration.class).getConfig(ClientConfig.class);
+    }
+
+    /**
+     * @return true if only changed attributes of modified instances are sent to {@link DataManager} on commit
+     * @see ClientConfig#getDataContextDeltaCommit()
+     */
+    public boolean isDeltaCommit() {
+        if (deltaCommit == null) {
+            deltaCommit = getClientConfig().getDataContextDeltaCommit();
+        }
+        return deltaCommit;
+    }
+
+    /**
+     * Sets whether only changed attributes of modified instances are sent to {@link DataManager} on commit.
+     * Overrides the {@code cuba.gui.dataContextDeltaCommit} application property for this context.
+     */
+    public void setDeltaCommit(boolean deltaCommit) {
+        this.deltaCommit = deltaCommit;
+    }
+
     @Nullable
     @Override
     public DataContext getParent() {
@@ -318,6 +371,9 @@ public class DataContextImpl implements DataContext {
     }
 
     protected void setPropertyValue(Entity entity, MetaProperty property, @Nullable Object value, boolean checkEquals) {
+        if (property.getRange().isClass()) {
+            addReferrer(entity, value);
+        }
         if (!property.isReadOnly()) {
             ((AbstractInstance) entity).setValue(property.getName(), value, checkEquals);
         } else {
@@ -406,9 +462,10 @@ public class DataContextImpl implements DataContext {
                     dstList.add(internalMerge(srcRef, mergedSet, false));
                 }
             } else {
+                Set<Entity> dstSet = new HashSet<>(dstList);
                 for (Entity srcRef : list) {
                     Entity managedRef = internalMerge(srcRef, mergedSet, false);
-                    if (!dstList.contains(managedRef)) {
+                    if (dstSet.add(managedRef)) {
                         dstList.add(managedRef);
                     }
                 }
@@ -451,7 +508,10 @@ public class DataContextImpl implements DataContext {
     }
 
     protected List<Entity> createObservableList(List<Entity> list, Entity notifiedEntity) {
-        return new ObservableList<>(list, (changeType, changes) -> modified(notifiedEntity));
+        return new ObservableList<>(list, (changeType, changes) -> {
+            collectionChanged(notifiedEntity, changeType, changes);
+            modified(notifiedEntity);
+        });
     }
 
     protected Set<Entity> createObservableSet(Entity notifiedEntity) {
@@ -459,7 +519,62 @@ public class DataContextImpl implements DataContext {
     }
 
     protected ObservableSet<Entity> createObservableSet(Set<Entity> set, Entity notifiedEntity) {
-        return new ObservableSet<>(set, (changeType, changes) -> modified(notifiedEntity));
+        return new ObservableSet<>(set, (changeType, changes) -> {
+            collectionChanged(notifiedEntity, changeType, changes);
+            modified(notifiedEntity);
+        });
+    }
+
+    protected void collectionChanged(Entity owner, CollectionChangeType changeType, Collection<? extends Entity> changes) {
+        if (changeType == CollectionChangeType.ADD_ITEMS || changeType == CollectionChangeType.SET_ITEM) {
+            for (Entity item : changes) {
+                addReferrer(owner, item);
+            }
+        } else if (changeType == CollectionChangeType.REFRESH) {
+            // added items are not reported
+            untrackedReferrers.add(owner);
+        }
+    }
+
+    protected void addReferrer(Entity referrer, @Nullable Object value) {
+        if (value instanceof Entity) {
+            referrers.computeIfAbsent((Entity) value, e -> Sets.newIdentityHashSet()).add(referrer);
+        } else if (value instanceof Collection) {
+            for (Object item : (Collection) value) {
+                if (item instanceof Entity) {
+                    referrers.computeIfAbsent((Entity) item, e -> Sets.newIdentityHashSet()).add(referrer);
+                }
+            }
+            if (!(value instanceof ObservableList) && !(value instanceof ObservableSet)) {
+                untrackedReferrers.add(referrer);
+            }
+        }
+    }
+
+    /**
+     * Returns instances that may refer to the given entity, including the instances whose collections are not
+     * tracked. The caller must check the actual references.
+     */
+    protected Set<Entity> getReferrers(Entity entity) {
+        Set<Entity> result = Sets.newIdentityHashSet();
+        Set<Entity> entityReferrers = referrers.get(entity);
+        if (entityReferrers != null) {
+            result.addAll(entityReferrers);
+        }
+        Entity managed = find(entity);
+        if (managed != null && managed != entity) {
+            entityReferrers = referrers.get(managed);
+            if (entityReferrers != null) {
+                result.addAll(entityReferrers);
+            }
+        }
+        result.addAll(untrackedReferrers);
+        return result;
+    }
+
+    protected void removeReferrers(Entity entity) {
+        referrers.remove(entity);
+        untrackedReferrers.remove(entity);
     }
 
     @Override
@@ -467,42 +582,49 @@ public class DataContextImpl implements DataContext {
         checkNotNullArgument(entity, "entity is null");
 
         modifiedInstances.remove(entity);
+        forgetChanges(entity);
         if (!getEntityStates().isNew(entity) || parentContext != null) {
             removedInstances.add(entity);
         }
         removeListeners(entity);
         fireChangeListener(entity);
 
+        Set<Entity> entityReferrers = getReferrers(entity);
+
         Map<Object, Entity> entityMap = content.get(entity.getClass());
         if (entityMap != null) {
             Entity mergedEntity = entityMap.get(entity.getId());
             if (mergedEntity != null) {
                 entityMap.remove(entity.getId());
-                removeFromCollections(mergedEntity);
+                removeFromCollections(mergedEntity, entityReferrers);
+                removeReferrers(mergedEntity);
             }
         }
 
-        cleanupContextAfterRemoveEntity(this, entity);
+        cleanupContextAfterRemoveEntity(this, entity, entityReferrers);
+        removeReferrers(entity);
     }
 
     protected void removeFromCollections(Entity entityToRemove) {
-        for (Map.Entry<Class<?>, Map<Object, Entity>> entry : content.entrySet()) {
-            Class<?> entityClass = entry.getKey();
+        removeFromCollections(entityToRemove, getReferrers(entityToRemove));
+    }
 
-            MetaClass metaClass = getMetadata().getClassNN(entityClass);
+    protected void removeFromCollections(Entity entityToRemove, Set<Entity> entityReferrers) {
+        for (Entity entity : entityReferrers) {
+            if (find(entity) != entity) {
+                // not in the context anymore
+                continue;
+            }
+            MetaClass metaClass = getMetadata().getClassNN(entity.getClass());
             for (MetaProperty metaProperty : metaClass.getProperties()) {
                 if (metaProperty.getRange().isClass()
                         && metaProperty.getRange().getCardinality().isMany()
-                        && metaProperty.getRange().asClass().getJavaClass().isAssignableFrom(entityToRemove.getClass())) {
-
-                    Map<Object, Entity> entityMap = entry.getValue();
-                    for (Entity entity : entityMap.values()) {
-                        if (getEntityStates().isLoaded(entity, metaProperty.getName())) {
-                            Collection collection = entity.getValue(metaProperty.getName());
-                            if (collection != null) {
-                                collection.remove(entityToRemove);
-                            }
-                        }
+                        && metaProperty.getRange().asClass().getJavaClass().isAssignableFrom(entityToRemove.getClass())
+                        && getEntityStates().isLoaded(entity, metaProperty.getName())) {
+
+                    Collection collection = entity.getValue(metaProperty.getName());
+                    if (collection != null) {
+                        collection.remove(entityToRemove);
                     }
                 }
             }
@@ -519,8 +641,10 @@ public class DataContextImpl implements DataContext {
             if (mergedEntity != null) {
                 entityMap.remove(entity.getId());
                 removeListeners(entity);
+                removeReferrers(mergedEntity);
             }
             modifiedInstances.remove(entity);
+            forgetChanges(entity);
             removedInstances.remove(entity);
         }
     }
@@ -543,6 +667,8 @@ public class DataContextImpl implements DataContext {
         for (Entity entity : getAll()) {
             evict(entity);
         }
+        referrers.clear();
+        untrackedReferrers.clear();
     }
 
     @Override
@@ -584,8 +710,10 @@ public class DataContextImpl implements DataContext {
         }
         if (modified) {
             modifiedInstances.add(merged);
+            fullyModified(merged);
         } else {
             modifiedInstances.remove(merged);
+            forgetChanges(merged);
         }
     }
 
@@ -618,6 +746,8 @@ public class DataContextImpl implements DataContext {
         events.publish(PostCommitEvent.class, new PostCommitEvent(this, committedAndMerged));
 
         modifiedInstances.clear();
+        changedAttributes.clear();
+        fullyModifiedInstances.clear();
         removedInstances.clear();
 
         return committedAndMerged;
@@ -654,9 +784,16 @@ public class DataContextImpl implements DataContext {
         }
     }
 
+    @SuppressWarnings("unchecked")
     protected Set<Entity> commitToDataManager(CommitContext.ValidationMode validationMode, List<Class> validationGroups) {
+        Collection<Entity> commitInstances = filterCommittedInstances(modifiedInstances);
+        if (isDeltaCommit()) {
+            commitInstances = commitInstances.stream()
+                    .map(this::createDeltaInstance)
+                    .collect(Collectors.toList());
+        }
         CommitContext commitContext = new CommitContext(
-                filterCommittedInstances(modifiedInstances),
+                commitInstances,
                 filterCommittedInstances(removedInstances));
 
         getEntityReferencesNormalizer().updateReferences(commitContext.getCommitInstances());
@@ -682,11 +819,84 @@ public class DataContextImpl implements DataContext {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Creates a detached copy of the modified instance containing only its identifier, version and changed
+     * attributes. The middleware merges only the attributes loaded in the copy, and the version is checked
+     * by optimistic locking as for a complete instance.
+     *
+     * @return the copy, or the instance itself if its changes cannot be described by changed attributes
+     */
+    protected Entity createDeltaInstance(Entity entity) {
+        Set<String> attributes = changedAttributes.get(entity);
+        if (attributes == null
+                || !(entity instanceof BaseGenericIdEntity)
+                || !(entity instanceof FetchGroupTracker)
+                || getEntityStates().isNew(entity)) {
+            return entity;
+        }
+        Multimap<String, Object> filteredData = BaseEntityInternalAccess.getFilteredData(entity);
+        if (filteredData != null && !filteredData.isEmpty()) {
+            // filtered collection elements are restored on the middleware
+            return entity;
+        }
+
+        MetadataTools metadataTools = getMetadataTools();
+        MetaClass metaClass = getMetadata().getClassNN(entity.getClass());
+        Set<String> fetchGroupAttributes = new HashSet<>();
+        for (String attribute : attributes) {
+            MetaProperty property = metaClass.getProperty(attribute);
+            if (property == null                                      // dynamic attribute
+                    || property.isReadOnly()
+                    || metadataTools.isEmbedded(property)
+                    || property.getRange().getCardinality().isMany()) {
+                return entity;
+            }
+            if (metadataTools.isPersistent(property)) {
+                fetchGroupAttributes.add(attribute);
+            }
+        }
+        fetchGroupAttributes.add(metadataTools.getPrimaryKeyName(metaClass));
+        if (entity instanceof Versioned) {
+            fetchGroupAttributes.add("version");
+        }
+
+        Entity deltaInstance = copyEntity(entity);
+        for (String attribute : attributes) {
+            ((AbstractInstance) deltaInstance).setValue(attribute, entity.getValue(attribute), false);
+        }
+        ((FetchGroupTracker) deltaInstance)._persistence_setFetchGroup(new CubaEntityFetchGroup(fetchGroupAttributes));
+        return deltaInstance;
+    }
+
+    protected void attributeChanged(Entity entity, String attribute) {
+        if (!fullyModifiedInstances.contains(entity)) {
+            changedAttributes.computeIfAbsent(entity, e -> new HashSet<>()).add(attribute);
+        }
+    }
+
+    protected void fullyModified(Entity entity) {
+        fullyModifiedInstances.add(entity);
+        changedAttributes.remove(entity);
+    }
+
+    protected void forgetChanges(Entity entity) {
+        changedAttributes.remove(entity);
+        fullyModifiedInstances.remove(entity);
+    }
+
     protected Set<Entity> commitToParentContext() {
         HashSet<Entity> committedEntities = new HashSet<>();
         for (Entity entity : modifiedInstances) {
             Entity merged = parentContext.merge(entity);
             parentContext.modifiedInstances.add(merged);
+            Set<String> attributes = changedAttributes.get(entity);
+            if (attributes != null) {
+                for (String attribute : attributes) {
+                    parentContext.attributeChanged(merged, attribute);
+                }
+            } else {
+                parentContext.fullyModified(merged);
+            }
             committedEntities.add(merged);
         }
         for (Entity entity : removedInstances) {
@@ -697,11 +907,19 @@ public class DataContextImpl implements DataContext {
     }
 
     protected void cleanupContextAfterRemoveEntity(DataContextImpl context, Entity removedEntity) {
+        cleanupContextAfterRemoveEntity(context, removedEntity, context.getReferrers(removedEntity));
+    }
+
+    protected void cleanupContextAfterRemoveEntity(DataContextImpl context, Entity removedEntity,
+                                                   Set<Entity> entityReferrers) {
         EntityStates entityStates = getEntityStates();
         if (entityStates.isNew(removedEntity)) {
-            for (Entity modifiedInstance : new ArrayList<>(context.modifiedInstances)) {
-                if (entityStates.isNew(modifiedInstance) && entityHasReference(modifiedInstance, removedEntity)) {
-                    context.modifiedInstances.remove(modifiedInstance);
+            for (Entity referrer : entityReferrers) {
+                if (context.modifiedInstances.contains(referrer)
+                        && entityStates.isNew(referrer)
+                        && entityHasReference(referrer, removedEntity)) {
+                    context.modifiedInstances.remove(referrer);
+                    context.forgetChanges(referrer);
                 }
             }
         }
@@ -742,6 +960,7 @@ public class DataContextImpl implements DataContext {
     protected void modified(Entity entity) {
         if (!disableListeners) {
             modifiedInstances.add(entity);
+            fullyModified(entity);
             fireChangeListener(entity);
         }
     }
@@ -795,6 +1014,9 @@ public class DataContextImpl implements DataContext {
     protected class PropertyChangeListener implements Instance.PropertyChangeListener {
         @Override
         public void propertyChanged(Instance.PropertyChangeEvent e) {
+            if (e.getValue() instanceof Entity || e.getValue() instanceof Collection) {
+                addReferrer((Entity) e.getItem(), e.getValue());
+            }
             if (!disableListeners) {
                 // if id has been changed, update put the entity to the content with the new id
                 MetaProperty primaryKeyProperty = getMetadataTools().getPrimaryKeyProperty(e.getItem().getClass());
@@ -807,6 +1029,7 @@ public class DataContextImpl implements DataContext {
                 }
 
                 modifiedInstances.add((Entity) e.getItem());
+                attributeChanged((Entity) e.getItem(), e.getProperty());
                 fireChangeListener((Entity) e.getItem());
             }
         }
@@ -824,6 +1047,7 @@ public class DataContextImpl implements DataContext {
         public void propertyChanged(Instance.PropertyChangeEvent e) {
             if (!disableListeners) {
                 modifiedInstances.add(entity);
+                fullyModified(entity);
                 fireChangeListener(entity);
             }
         }
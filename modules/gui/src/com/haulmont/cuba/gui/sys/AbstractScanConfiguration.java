@@ -16,6 +16,9 @@
 
 package com.haulmont.cuba.gui.sys;
 
+import com.haulmont.cuba.core.sys.AppContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -25,13 +28,23 @@ import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.util.ClassUtils;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Stream;
 
 public abstract class AbstractScanConfiguration {
     public static final String DEFAULT_CLASS_RESOURCE_PATTERN = "**/*.class";
 
+    /**
+     * Application property that enables using {@link UiScanIndex} instead of classpath scanning.
+     */
+    public static final String USE_SCAN_INDEX_PROP = "cuba.gui.useScanIndex";
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractScanConfiguration.class);
+
     protected abstract MetadataReaderFactory getMetadataReaderFactory();
 
     protected abstract ResourceLoader getResourceLoader();
@@ -39,25 +52,102 @@ public abstract class AbstractScanConfiguration {
     protected abstract Environment getEnvironment();
 
     protected Stream<MetadataReader> scanPackage(String packageName) {
+        return Arrays.stream(getPackageResources(packageName))
+                .filter(Resource::isReadable)
+                .map(this::readResource);
+    }
+
+    /**
+     * Returns classes of the package having the annotation. If {@link #USE_SCAN_INDEX_PROP} is set, classes listed
+     * in {@link UiScanIndex} are read, and only packages not covered by the index are scanned. Classes listed in
+     * the index but missing in the classpath are skipped. Result should be additionally filtered by the annotation,
+     * as scanning returns all classes of the package.
+     *
+     * @param packageName package name
+     * @param annotation  annotation class name
+     */
+    protected Stream<MetadataReader> scanPackage(String packageName, String annotation) {
+        if (Boolean.parseBoolean(AppContext.getProperty(USE_SCAN_INDEX_PROP))) {
+            UiScanIndex index = UiScanIndex.load(getResourceLoader().getClassLoader());
+            if (index != null) {
+                String resolvedPackage = getEnvironment().resolveRequiredPlaceholders(packageName);
+                Set<String> classNames = index.getCandidateTypes(resolvedPackage, annotation);
+                log.debug("Using index for {} in package {}, scanning packages not covered by the index",
+                        annotation, packageName);
+
+                String basePath = resolveBasePackage(packageName);
+                Stream<MetadataReader> scanned = Arrays.stream(getPackageResources(packageName))
+                        .filter(Resource::isReadable)
+                        .filter(resource -> !isCovered(index, resource, basePath))
+                        .map(this::readResource)
+                        .filter(reader -> !classNames.contains(reader.getClassMetadata().getClassName()));
+
+                return Stream.concat(
+                        classNames.stream()
+                                .map(this::readIndexedClass)
+                                .filter(Objects::nonNull),
+                        scanned);
+            }
+        }
+        return scanPackage(packageName);
+    }
+
+    protected Resource[] getPackageResources(String packageName) {
         String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
                 resolveBasePackage(packageName) + '/' + DEFAULT_CLASS_RESOURCE_PATTERN;
         ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver(getResourceLoader());
-        Resource[] resources;
         try {
-            resources = resourcePatternResolver.getResources(packageSearchPath);
+            return resourcePatternResolver.getResources(packageSearchPath);
         } catch (IOException e) {
             throw new RuntimeException("Unable to scan package " + packageName, e);
         }
+    }
 
-        return Arrays.stream(resources)
-                .filter(Resource::isReadable)
-                .map(resource -> {
-                    try {
-                        return getMetadataReaderFactory().getMetadataReader(resource);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Unable to read resource " + resource, e);
-                    }
-                });
+    protected MetadataReader readResource(Resource resource) {
+        try {
+            return getMetadataReaderFactory().getMetadataReader(resource);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read resource " + resource, e);
+        }
+    }
+
+    /**
+     * Returns true if the class file found in the base package is covered by an index file of its classpath root.
+     * If the classpath root or the package cannot be determined from the resource URL, the class is considered
+     * not covered.
+     *
+     * @param index    index
+     * @param resource class file
+     * @param basePath resource path of the scanned package
+     */
+    protected boolean isCovered(UiScanIndex index, Resource resource, String basePath) {
+        String url;
+        try {
+            url = resource.getURL().toString();
+        } catch (IOException e) {
+            return false;
+        }
+
+        int jarSeparator = url.lastIndexOf("!/");
+        int start = jarSeparator >= 0
+                ? jarSeparator + 2
+                : url.lastIndexOf("/" + basePath + "/") + 1;
+        int end = url.lastIndexOf('/');
+        if (start <= 0 || end < start || !url.startsWith(basePath + "/", start)) {
+            return false;
+        }
+        return index.isCovered(url.substring(0, start), url.substring(start, end).replace('/', '.'));
+    }
+
+    protected MetadataReader readIndexedClass(String className) {
+        try {
+            return getMetadataReaderFactory().getMetadataReader(className);
+        } catch (FileNotFoundException e) {
+            log.warn("Class {} is listed in {} but not found, the index is stale", className, UiScanIndex.INDEX_LOCATION);
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read class " + className, e);
+        }
     }
 
     protected String resolveBasePackage(String basePackage) {
@@ -82,7 +82,7 @@ public class ActionsConfiguration extends AbstractScanConfiguration {
         log.trace("Scanning packages {}", basePackages);
 
         Stream<ActionDefinition> scannedActionsStream = basePackages.stream()
-                .flatMap(this::scanPackage)
+                .flatMap(basePackage -> scanPackage(basePackage, ActionType.class.getName()))
                 .filter(this::isCandidateUiController)
                 .map(this::extractActionDefinition);
 
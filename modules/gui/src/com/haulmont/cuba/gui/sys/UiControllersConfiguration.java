@@ -85,7 +85,7 @@ public class UiControllersConfiguration extends AbstractScanConfiguration {
         log.trace("Scanning packages {}", basePackages);
 
         Stream<UiControllerDefinition> scannedControllersStream = basePackages.stream()
-                .flatMap(this::scanPackage)
+                .flatMap(basePackage -> scanPackage(basePackage, UiController.class.getName()))
                 .filter(this::isCandidateUiController)
                 .map(this::toUiControllerDefinition);
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.gui.sys;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Index of UI controllers and action types generated at build time by {@link UiScanIndexProcessor}.
+ * <p>
+ * The index is loaded from all {@link #INDEX_LOCATION} resources of a class loader. Each entry of an index file
+ * contains a class name as the key and a comma-separated list of annotations of the class as the value.
+ * The {@link #PACKAGES_KEY} entry lists the packages compiled together with the indexed classes: the index file
+ * covers all classes of these packages located in the same classpath root (directory or JAR) as the index file.
+ * A package split between several roots is covered only in the roots having an index file, classes of other roots
+ * should be scanned. Index files without the list of packages are ignored.
+ */
+public class UiScanIndex {
+
+    public static final String INDEX_LOCATION = "META-INF/cuba-ui.index";
+
+    public static final String PACKAGES_KEY = "@packages";
+
+    private static final Logger log = LoggerFactory.getLogger(UiScanIndex.class);
+
+    private static final Map<ClassLoader, Optional<UiScanIndex>> cache = new ConcurrentReferenceHashMap<>();
+
+    // class names by annotation
+    protected final Map<String, Set<String>> types = new HashMap<>();
+
+    // covered packages by classpath root URL
+    protected final Map<String, Set<String>> coveredPackages = new HashMap<>();
+
+    /**
+     * @param indexFiles contents of index files by URL of their classpath roots
+     */
+    protected UiScanIndex(Map<String, Properties> indexFiles) {
+        for (Map.Entry<String, Properties> entry : indexFiles.entrySet()) {
+            Properties properties = entry.getValue();
+            String packages = properties.getProperty(PACKAGES_KEY);
+            if (packages == null) {
+                log.warn("UI scan index file in {} has no {} entry and is ignored, rebuild the module to update it",
+                        entry.getKey(), PACKAGES_KEY);
+                continue;
+            }
+            Set<String> rootPackages = coveredPackages.computeIfAbsent(entry.getKey(), k -> new HashSet<>());
+            for (String packageName : packages.split(",")) {
+                if (!packageName.trim().isEmpty()) {
+                    rootPackages.add(packageName.trim());
+                }
+            }
+
+            for (String className : properties.stringPropertyNames()) {
+                if (PACKAGES_KEY.equals(className)) {
+                    continue;
+                }
+                for (String annotation : properties.getProperty(className).split(",")) {
+                    types.computeIfAbsent(annotation.trim(), k -> new HashSet<>()).add(className);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the index from the class loader.
+     *
+     * @param classLoader class loader
+     * @return index or null if the class loader has no index files
+     */
+    @Nullable
+    public static UiScanIndex load(@Nullable ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : UiScanIndex.class.getClassLoader();
+        return cache.computeIfAbsent(loader, UiScanIndex::doLoad).orElse(null);
+    }
+
+    protected static Optional<UiScanIndex> doLoad(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+            if (!urls.hasMoreElements()) {
+                return Optional.empty();
+            }
+            Map<String, Properties> indexFiles = new LinkedHashMap<>();
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                String urlString = url.toString();
+                String root = urlString.substring(0, urlString.length() - INDEX_LOCATION.length());
+                indexFiles.put(root, PropertiesLoaderUtils.loadProperties(new UrlResource(url)));
+            }
+            log.debug("Loaded {} UI scan index files", indexFiles.size());
+            return Optional.of(new UiScanIndex(indexFiles));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load UI scan index from " + INDEX_LOCATION, e);
+        }
+    }
+
+    /**
+     * @param basePackage package name
+     * @param annotation  annotation class name
+     * @return names of the indexed classes having the annotation in the package and its subpackages
+     */
+    public Set<String> getCandidateTypes(String basePackage, String annotation) {
+        Set<String> classNames = types.get(annotation);
+        if (classNames == null) {
+            return Collections.emptySet();
+        }
+        String prefix = basePackage + ".";
+        Set<String> result = new HashSet<>();
+        for (String className : classNames) {
+            if (className.startsWith(prefix)) {
+                result.add(className);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param root        URL of the classpath root (directory or JAR) containing classes of the package, ending
+     *                    with a slash, for example {@code jar:file:/app/lib/app-web.jar!/}
+     * @param packageName package name
+     * @return true if all classes of the package in the classpath root are indexed, so they should not be scanned
+     */
+    public boolean isCovered(@Nullable String root, @Nullable String packageName) {
+        if (root == null || packageName == null) {
+            return false;
+        }
+        Set<String> packages = coveredPackages.get(root);
+        return packages != null && packages.contains(packageName);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.gui.sys;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that generates {@link UiScanIndex} of the compiled module. The index lists classes
+ * annotated with {@code @UiController} and {@code @ActionType} and the packages of all compiled classes.
+ * <p>
+ * Add the module containing this class to the {@code annotationProcessor} configuration of the project module
+ * and set {@code cuba.gui.useScanIndex = true} to use the index instead of classpath scanning.
+ */
+@SupportedAnnotationTypes({
+        UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION,
+        UiScanIndexProcessor.ACTION_TYPE_ANNOTATION
+})
+public class UiScanIndexProcessor extends AbstractProcessor {
+
+    // names are used instead of classes to avoid loading the annotations in the compiler
+    public static final String UI_CONTROLLER_ANNOTATION = "com.haulmont.cuba.gui.screen.UiController";
+    public static final String ACTION_TYPE_ANNOTATION = "com.haulmont.cuba.gui.components.ActionType";
+
+    protected final Map<String, Set<String>> entries = new TreeMap<>();
+
+    // packages of the compiled classes, they are covered by the index
+    protected final Set<String> packages = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getRootElements()) {
+            PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+            if (!packageElement.isUnnamed()) {
+                packages.add(packageElement.getQualifiedName().toString());
+            }
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS) {
+                    String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                    entries.computeIfAbsent(className, k -> new TreeSet<>())
+                            .add(annotation.getQualifiedName().toString());
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    protected void writeIndex() {
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", UiScanIndex.INDEX_LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(UiScanIndex.PACKAGES_KEY);
+                writer.write('=');
+                writer.write(String.join(",", packages));
+                writer.write('\n');
+                for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writer.write(String.join(",", entry.getValue()));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write " + UiScanIndex.INDEX_LOCATION + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.haulmont.cuba.gui.sys;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UiScanIndexTest {
+
+    private static final String APP_ROOT = "jar:file:/app/lib/app-web.jar!/";
+    private static final String ADDON_ROOT = "jar:file:/app/lib/addon-web.jar!/";
+    private static final String CLASSES_ROOT = "file:/app/build/classes/java/main/";
+
+    @Test
+    public void getCandidateTypes() {
+        Properties first = new Properties();
+        first.setProperty(UiScanIndex.PACKAGES_KEY, "com.company.app.web");
+        first.setProperty("com.company.app.web.CustomerBrowse", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION);
+        first.setProperty("com.company.app.web.CustomerAction", UiScanIndexProcessor.ACTION_TYPE_ANNOTATION);
+
+        Properties second = new Properties();
+        second.setProperty(UiScanIndex.PACKAGES_KEY, "com.company.app.web.order,com.company.application");
+        second.setProperty("com.company.app.web.order.OrderEdit$Fragment", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION);
+        second.setProperty("com.company.application.OtherScreen", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION);
+
+        Map<String, Properties> indexFiles = new LinkedHashMap<>();
+        indexFiles.put(APP_ROOT, first);
+        indexFiles.put(CLASSES_ROOT, second);
+        UiScanIndex index = new UiScanIndex(indexFiles);
+
+        assertEquals(new HashSet<>(Arrays.asList("com.company.app.web.CustomerBrowse", "com.company.app.web.order.OrderEdit$Fragment")),
+                index.getCandidateTypes("com.company.app", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION));
+
+        assertEquals(Collections.singleton("com.company.app.web.CustomerAction"),
+                index.getCandidateTypes("com.company.app.web", UiScanIndexProcessor.ACTION_TYPE_ANNOTATION));
+
+        assertTrue(index.getCandidateTypes("com.haulmont.cuba", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION).isEmpty());
+    }
+
+    @Test
+    public void coveredPackages() {
+        Properties first = new Properties();
+        first.setProperty(UiScanIndex.PACKAGES_KEY, "com.company.app.web,com.company.app.web.order");
+        first.setProperty("com.company.app.web.CustomerBrowse", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION);
+
+        // index file written without the list of packages is ignored
+        Properties second = new Properties();
+        second.setProperty("com.company.addon.web.AddonScreen", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION);
+
+        Map<String, Properties> indexFiles = new LinkedHashMap<>();
+        indexFiles.put(APP_ROOT, first);
+        indexFiles.put(ADDON_ROOT, second);
+        UiScanIndex index = new UiScanIndex(indexFiles);
+
+        assertTrue(index.isCovered(APP_ROOT, "com.company.app.web"));
+        assertTrue(index.isCovered(APP_ROOT, "com.company.app.web.order"));
+        assertFalse(index.isCovered(APP_ROOT, "com.company.app.web.customer"));
+        assertFalse(index.isCovered(APP_ROOT, "com.company.app"));
+        assertFalse(index.isCovered(ADDON_ROOT, "com.company.addon.web"));
+        assertFalse(index.isCovered(APP_ROOT, null));
+        assertFalse(index.isCovered(null, "com.company.app.web"));
+
+        // the package is split between roots, classes of the root without the index are not covered
+        assertFalse(index.isCovered(ADDON_ROOT, "com.company.app.web"));
+        assertFalse(index.isCovered(CLASSES_ROOT, "com.company.app.web"));
+
+        assertEquals(Collections.singleton("com.company.app.web.CustomerBrowse"),
+                index.getCandidateTypes("com.company", UiScanIndexProcessor.UI_CONTROLLER_ANNOTATION));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.gui.components.aggregation
+
+import com.haulmont.cuba.gui.components.AggregationInfo
+import com.haulmont.cuba.gui.components.data.aggregation.AggregationQueryBuilder
+import spock.lang.Specification
+
+class AggregationQueryBuilderTest extends Specification {
+
+    def "group query replaces select clause and adds group by"() {
+        def builder = new AggregationQueryBuilder('select o from sample$Order o where o.amount > :amount', 'o')
+                .setGroupProperties(['customer', 'status'])
+
+        expect:
+        builder.build() == 'select o.customer, o.status, count(o) from sample$Order o where o.amount > :amount' +
+                ' group by o.customer, o.status order by o.customer, o.status'
+        builder.getResultProperties() == ['g0', 'g1', 'cnt']
+    }
+
+    def "aggregate query without grouping"() {
+        def builder = new AggregationQueryBuilder('select o from sample$Order o', 'o')
+                .addAggregate(AggregationInfo.Type.SUM, 'amount')
+                .addAggregate(AggregationInfo.Type.MAX, 'date')
+
+        expect:
+        builder.build() == 'select sum(o.amount), max(o.date), count(o) from sample$Order o'
+        builder.getResultProperties() == ['a0', 'a1', 'cnt']
+    }
+
+    def "distinct query is aggregated over distinct ids"() {
+        def builder = new AggregationQueryBuilder('SELECT DISTINCT o FROM sample$Order o', 'o')
+                .addAggregate(AggregationInfo.Type.SUM, 'amount')
+
+        expect:
+        builder.build() == 'select sum(o_.amount), count(o_) from sample$Order o_' +
+                ' where o_.id in (select distinct o.id from sample$Order o)'
+    }
+
+    def "distinct query with join is grouped over distinct ids"() {
+        def builder = new AggregationQueryBuilder(
+                'select distinct o from sample$Order o join o.lines l where l.quantity > :quantity', 'o')
+                .setEntity('sample$Order', 'uuid')
+                .setGroupProperties(['customer'])
+                .addAggregate(AggregationInfo.Type.COUNT, 'amount')
+
+        expect:
+        builder.build() == 'select o_.customer, count(o_.amount), count(o_) from sample$Order o_' +
+                ' where o_.uuid in (select distinct o.uuid from sample$Order o join o.lines l where l.quantity > :quantity)' +
+                ' group by o_.customer order by o_.customer'
+        builder.getResultProperties() == ['g0', 'a0', 'cnt']
+    }
+
+    def "reference paths are navigated through left joins"() {
+        def builder = new AggregationQueryBuilder('select o from sample$Order o join o.lines l where l.quantity > 0', 'o')
+                .setGroupProperties(['customer.name', 'customer.address.city'])
+                .addAggregate(AggregationInfo.Type.SUM, 'customer.discount')
+
+        expect:
+        builder.build() == 'select r0_.name, r1_.city, sum(r0_.discount), count(o) from sample$Order o' +
+                ' left join o.customer r0_ left join r0_.address r1_ join o.lines l where l.quantity > 0' +
+                ' group by r0_.name, r1_.city order by r0_.name, r1_.city'
+    }
+
+    def "grouping by a reference selects the joined entity"() {
+        def builder = new AggregationQueryBuilder('select distinct o from sample$Order as o', 'o')
+                .setGroupProperties(['customer'])
+                .addReferenceProperty('customer')
+
+        expect:
+        builder.build() == 'select r0_, count(o_) from sample$Order o_ left join o_.customer r0_' +
+                ' where o_.id in (select distinct o.id from sample$Order as o)' +
+                ' group by r0_ order by r0_'
+    }
+
+    def "custom aggregation is not supported"() {
+        when:
+        new AggregationQueryBuilder('select o from sample$Order o', 'o')
+                .addAggregate(AggregationInfo.Type.CUSTOM, 'amount')
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -764,16 +764,31 @@ public class CubaGroupTable extends CubaTable implements GroupTableContainer {
     }
 
     public static class GroupAggregationContext extends Context {
+        private GroupTableContainer datasource;
         private Object groupId;
+        private Collection groupItemIds;
 
         public GroupAggregationContext(GroupTableContainer datasource, Object groupId) {
-            super(datasource.getGroupItemIds(groupId));
+            super(null);
+            this.datasource = datasource;
             this.groupId = groupId;
         }
 
         public Object getGroupId() {
             return groupId;
         }
+
+        /**
+         * Group item ids are requested lazily, so that aggregation that does not need them
+         * does not cause loading of group items.
+         */
+        @Override
+        public Collection getItemIds() {
+            if (groupItemIds == null) {
+                groupItemIds = datasource.getGroupItemIds(groupId);
+            }
+            return groupItemIds;
+        }
     }
 
     public static class GroupAggregationInputValueChangeContext extends AggregationInputValueChangeContext {
@@ -223,6 +223,39 @@ public interface WebConfig extends Config {
     @DefaultInteger(100)
     Integer getMaxActiveBackgroundTasksCount();
 
+    /**
+     * @return whether up to {@link #getMaxActiveBackgroundTasksCount()} background tasks run simultaneously.
+     * By default, the number of simultaneously running tasks is limited by {@link #getMinBackgroundThreadsCount()}
+     * and other tasks wait in the queue.
+     */
+    @Property("cuba.backgroundWorker.runMaxActiveTasks")
+    @DefaultBoolean(false)
+    boolean getRunMaxActiveBackgroundTasks();
+
+    /**
+     * @return maximum number of active background tasks started in one user session, 0 means no limit.
+     * Other tasks of the session wait in the queue.
+     */
+    @Property("cuba.backgroundWorker.maxActiveTasksPerSession")
+    @DefaultInt(0)
+    int getMaxActiveBackgroundTasksPerSession();
+
+    /**
+     * @return maximum number of active background tasks started by one user in all sessions, 0 means no limit.
+     * Other tasks of the user wait in the queue.
+     */
+    @Property("cuba.backgroundWorker.maxActiveTasksPerUser")
+    @DefaultInt(0)
+    int getMaxActiveBackgroundTasksPerUser();
+
+    /**
+     * @return minimum interval in milliseconds between UI updates with progress of a background task.
+     * Changes published within the interval are passed to the task together.
+     */
+    @Property("cuba.backgroundWorker.progressUpdateIntervalMs")
+    @DefaultInt(100)
+    int getBackgroundTaskProgressUpdateIntervalMs();
+
     @Property("cuba.backgroundWorker.maxClientLatencySeconds")
     @DefaultInt(60)
     int getClientBackgroundTasksLatencySeconds();
@@ -2770,14 +2770,24 @@ public abstract class WebAbstractTable<T extends com.vaadin.v7.ui.Table & CubaEn
 
         List<AggregationInfo> aggregationInfos = getAggregationInfos(container);
 
-        Map<AggregationInfo, Object> results = ((AggregatableTableItems<E>) getItems()).aggregateValues(
-                aggregationInfos.toArray(new AggregationInfo[0]),
-                context.getItemIds()
-        );
+        Map<AggregationInfo, Object> results = aggregateItemValues(aggregationInfos.toArray(new AggregationInfo[0]),
+                context);
 
         return convertAggregationKeyMapToColumnIdKeyMap(container, results);
     }
 
+    @SuppressWarnings("unchecked")
+    protected Map<AggregationInfo, Object> aggregateItemValues(AggregationInfo[] aggregationInfos,
+                                                               AggregationContainer.Context context) {
+        return ((AggregatableTableItems<E>) getItems()).aggregateValues(aggregationInfos, context.getItemIds());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<AggregationInfo, String> aggregateItems(AggregationInfo[] aggregationInfos,
+                                                          AggregationContainer.Context context) {
+        return ((AggregatableTableItems<E>) getItems()).aggregate(aggregationInfos, context.getItemIds());
+    }
+
     protected Map<Object, Object> __aggregate(AggregationContainer container, AggregationContainer.Context context) {
         if (!(getItems() instanceof AggregatableTableItems)) {
             throw new IllegalStateException("Table items must implement AggregatableTableItems in " +
@@ -2786,10 +2796,7 @@ public abstract class WebAbstractTable<T extends com.vaadin.v7.ui.Table & CubaEn
 
         List<AggregationInfo> aggregationInfos = getAggregationInfos(container);
 
-        Map<AggregationInfo, String> results = ((AggregatableTableItems<E>) getItems()).aggregate(
-                aggregationInfos.toArray(new AggregationInfo[0]),
-                context.getItemIds()
-        );
+        Map<AggregationInfo, String> results = aggregateItems(aggregationInfos.toArray(new AggregationInfo[0]), context);
 
         Map<Object, Object> resultsByColumns = convertAggregationKeyMapToColumnIdKeyMap(container, results);
 
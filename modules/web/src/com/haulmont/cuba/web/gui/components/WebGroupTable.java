@@ -23,9 +23,11 @@ import com.haulmont.chile.core.model.MetaClass;
 import com.haulmont.chile.core.model.MetaPropertyPath;
 import com.haulmont.cuba.core.app.dynamicattributes.DynamicAttributesUtils;
 import com.haulmont.cuba.core.entity.Entity;
+import com.haulmont.cuba.gui.components.AggregationInfo;
 import com.haulmont.cuba.gui.components.GroupTable;
 import com.haulmont.cuba.gui.components.Table;
 import com.haulmont.cuba.gui.components.columnmanager.GroupColumnManager;
+import com.haulmont.cuba.gui.components.data.GroupAggregatableTableItems;
 import com.haulmont.cuba.gui.components.data.GroupTableItems;
 import com.haulmont.cuba.gui.components.data.TableItems;
 import com.haulmont.cuba.gui.components.data.meta.EntityTableItems;
@@ -316,6 +318,28 @@ public class WebGroupTable<E extends Entity> extends WebAbstractTable<CubaGroupT
         }
     }
 
+    @Override
+    protected Map<AggregationInfo, Object> aggregateItemValues(AggregationInfo[] aggregationInfos,
+                                                               AggregationContainer.Context context) {
+        if (context instanceof GroupAggregationContext
+                && getItems() instanceof GroupAggregatableTableItems) {
+            GroupInfo groupInfo = (GroupInfo) ((GroupAggregationContext) context).getGroupId();
+            return ((GroupAggregatableTableItems<E>) getItems()).aggregateGroupValues(aggregationInfos, groupInfo);
+        }
+        return super.aggregateItemValues(aggregationInfos, context);
+    }
+
+    @Override
+    protected Map<AggregationInfo, String> aggregateItems(AggregationInfo[] aggregationInfos,
+                                                          AggregationContainer.Context context) {
+        if (context instanceof GroupAggregationContext
+                && getItems() instanceof GroupAggregatableTableItems) {
+            GroupInfo groupInfo = (GroupInfo) ((GroupAggregationContext) context).getGroupId();
+            return ((GroupAggregatableTableItems<E>) getItems()).aggregateGroup(aggregationInfos, groupInfo);
+        }
+        return super.aggregateItems(aggregationInfos, context);
+    }
+
     protected Object[] getNewColumnOrder(Object[] newGroupProperties) {
         List<Object> allProps = Lists.newArrayList(component.getVisibleColumns()); // mutable list required
         List<Object> newGroupProps = Arrays.asList(newGroupProperties);
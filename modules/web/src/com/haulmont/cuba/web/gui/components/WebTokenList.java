@@ -851,6 +851,9 @@ public class WebTokenList<V extends Entity>
                     }
                     MetaProperty inverseMetaProperty = metaPropertyPath.getMetaProperty().getInverse();
                     if (inverseMetaProperty != null && !inverseMetaProperty.getRange().getCardinality().isMany()) {
+                        if (curView.isFrozen()) {
+                            curView = View.copyOnWrite(curView);
+                        }
                         curView.addProperty(inverseMetaProperty.getName());
                     }
                 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.web.gui.executors.impl;
+
+import com.haulmont.cuba.gui.executors.BackgroundTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Starts background tasks on an executor limiting the number of active tasks in total, per user session and
+ * per user. Tasks exceeding the limits wait in the queue.
+ * <p>
+ * Waiting tasks with higher {@link BackgroundTask.Priority} are started first. Within a priority, a task of the
+ * user having the least number of active tasks is started, and users with equal numbers take turns, so a user
+ * with many waiting tasks does not delay tasks of other users.
+ */
+public class BackgroundTaskScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundTaskScheduler.class);
+
+    protected final Executor executor;
+
+    protected final int maxActiveTasks;
+    protected final int maxActiveTasksPerSession;
+    protected final int maxActiveTasksPerUser;
+
+    // waiting tasks by priority and user
+    protected final Map<BackgroundTask.Priority, LinkedHashMap<UUID, Deque<QueuedTask>>> queues =
+            new EnumMap<>(BackgroundTask.Priority.class);
+
+    protected final Map<UUID, Integer> activeTasksBySession = new HashMap<>();
+    protected final Map<UUID, Integer> activeTasksByUser = new HashMap<>();
+
+    // sequence number of the last started task by user, defines the turn of users
+    protected final Map<UUID, Long> lastStartedByUser = new HashMap<>();
+
+    protected int activeCount;
+    protected int queueSize;
+
+    protected final AtomicLong startedCount = new AtomicLong();
+    protected final AtomicLong totalWaitTime = new AtomicLong();
+    protected final AtomicLong maxWaitTime = new AtomicLong();
+
+    protected static class QueuedTask {
+
+        protected final Runnable runnable;
+        protected final UUID sessionId;
+        protected final UUID userId;
+        protected final Consumer<RejectedExecutionException> rejectionHandler;
+        protected final long queuedTs;
+
+        protected QueuedTask(Runnable runnable, UUID sessionId, UUID userId,
+                             @Nullable Consumer<RejectedExecutionException> rejectionHandler) {
+            this.runnable = runnable;
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.rejectionHandler = rejectionHandler;
+            this.queuedTs = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @param executor                  executor running the tasks, must be able to run {@code maxActiveTasks}
+     *                                  tasks simultaneously
+     * @param maxActiveTasks            maximum number of active tasks
+     * @param maxActiveTasksPerSession  maximum number of active tasks of a user session, 0 means no limit
+     * @param maxActiveTasksPerUser     maximum number of active tasks of a user, 0 means no limit
+     */
+    public BackgroundTaskScheduler(Executor executor, int maxActiveTasks,
+                                   int maxActiveTasksPerSession, int maxActiveTasksPerUser) {
+        this.executor = executor;
+        this.maxActiveTasks = maxActiveTasks;
+        this.maxActiveTasksPerSession = maxActiveTasksPerSession;
+        this.maxActiveTasksPerUser = maxActiveTasksPerUser;
+
+        for (BackgroundTask.Priority priority : BackgroundTask.Priority.values()) {
+            queues.put(priority, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Adds the task to the queue and starts it if the limits allow.
+     *
+     * @param runnable  task
+     * @param sessionId id of the user session that started the task
+     * @param userId    id of the user that started the task
+     * @param priority  task priority
+     */
+    public void submit(Runnable runnable, UUID sessionId, UUID userId, BackgroundTask.Priority priority) {
+        submit(runnable, sessionId, userId, priority, null);
+    }
+
+    /**
+     * Adds the task to the queue and starts it if the limits allow.
+     *
+     * @param runnable         task
+     * @param sessionId        id of the user session that started the task
+     * @param userId           id of the user that started the task
+     * @param priority         task priority
+     * @param rejectionHandler called if the executor rejects the task, e.g. when it is shut down
+     */
+    public synchronized void submit(Runnable runnable, UUID sessionId, UUID userId, BackgroundTask.Priority priority,
+                                    @Nullable Consumer<RejectedExecutionException> rejectionHandler) {
+        queues.get(priority)
+                .computeIfAbsent(userId, k -> new ArrayDeque<>())
+                .add(new QueuedTask(runnable, sessionId, userId, rejectionHandler));
+        queueSize++;
+
+        dispatch();
+    }
+
+    /**
+     * @return number of tasks waiting to be started
+     */
+    public synchronized int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return number of running tasks
+     */
+    public synchronized int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return number of tasks started since the application start
+     */
+    public long getStartedCount() {
+        return startedCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds tasks waited in the queue
+     */
+    public long getAvgWaitTime() {
+        long count = startedCount.get();
+        return count == 0 ? 0 : totalWaitTime.get() / count;
+    }
+
+    /**
+     * @return maximum time in milliseconds a task waited in the queue
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    protected synchronized void dispatch() {
+        while (activeCount < maxActiveTasks) {
+            QueuedTask task = pollNext();
+            if (task == null) {
+                return;
+            }
+            start(task);
+        }
+    }
+
+    /**
+     * Removes the next task to start from the queue. Within the highest priority having startable tasks, the task
+     * of the user with the least number of active tasks is taken, users with equal numbers take turns.
+     */
+    protected QueuedTask pollNext() {
+        for (BackgroundTask.Priority priority : BackgroundTask.Priority.values()) {
+            LinkedHashMap<UUID, Deque<QueuedTask>> userQueues = queues.get(priority);
+
+            UUID selectedUserId = null;
+            QueuedTask selectedTask = null;
+            int selectedActiveCount = Integer.MAX_VALUE;
+            long selectedLastStarted = Long.MAX_VALUE;
+
+            for (Map.Entry<UUID, Deque<QueuedTask>> entry : userQueues.entrySet()) {
+                UUID userId = entry.getKey();
+                int userActiveCount = activeTasksByUser.getOrDefault(userId, 0);
+                long userLastStarted = lastStartedByUser.getOrDefault(userId, -1L);
+                if (userActiveCount > selectedActiveCount
+                        || userActiveCount == selectedActiveCount && userLastStarted >= selectedLastStarted
+                        || !isQuotaAvailable(activeTasksByUser, userId, maxActiveTasksPerUser)) {
+                    continue;
+                }
+                for (QueuedTask task : entry.getValue()) {
+                    if (isQuotaAvailable(activeTasksBySession, task.sessionId, maxActiveTasksPerSession)) {
+                        selectedUserId = userId;
+                        selectedTask = task;
+                        selectedActiveCount = userActiveCount;
+                        selectedLastStarted = userLastStarted;
+                        break;
+                    }
+                }
+            }
+
+            if (selectedTask != null) {
+                Deque<QueuedTask> userQueue = userQueues.get(selectedUserId);
+                userQueue.remove(selectedTask);
+                if (userQueue.isEmpty()) {
+                    userQueues.remove(selectedUserId);
+                }
+                queueSize--;
+                return selectedTask;
+            }
+        }
+        return null;
+    }
+
+    protected boolean isQuotaAvailable(Map<UUID, Integer> activeTasks, UUID id, int maxActiveTasks) {
+        return maxActiveTasks <= 0 || activeTasks.getOrDefault(id, 0) < maxActiveTasks;
+    }
+
+    protected void start(QueuedTask task) {
+        activeCount++;
+        activeTasksBySession.merge(task.sessionId, 1, Integer::sum);
+        activeTasksByUser.merge(task.userId, 1, Integer::sum);
+
+        long waitTime = System.currentTimeMillis() - task.queuedTs;
+        lastStartedByUser.put(task.userId, startedCount.incrementAndGet());
+        totalWaitTime.addAndGet(waitTime);
+        maxWaitTime.accumulateAndGet(waitTime, Math::max);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.runnable.run();
+                } finally {
+                    finished(task);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Background task is rejected by executor", e);
+            release(task);
+            if (task.rejectionHandler != null) {
+                task.rejectionHandler.accept(e);
+            }
+        }
+    }
+
+    protected synchronized void finished(QueuedTask task) {
+        release(task);
+        dispatch();
+    }
+
+    protected void release(QueuedTask task) {
+        activeCount--;
+        activeTasksBySession.computeIfPresent(task.sessionId, (k, count) -> count > 1 ? count - 1 : null);
+        activeTasksByUser.computeIfPresent(task.userId, (k, count) -> count > 1 ? count - 1 : null);
+
+        if (!activeTasksByUser.containsKey(task.userId) && !isQueued(task.userId)) {
+            lastStartedByUser.remove(task.userId);
+        }
+    }
+
+    protected boolean isQueued(UUID userId) {
+        for (Map<UUID, Deque<QueuedTask>> userQueues : queues.values()) {
+            if (userQueues.containsKey(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -40,11 +40,9 @@ import org.springframework.stereotype.Component;
 import javax.annotation.Nonnull;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -52,6 +50,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Web implementation of {@link BackgroundWorker}
+ * <p>
+ * Tasks are started by {@link BackgroundTaskScheduler} that limits the number of active tasks per user session
+ * and per user and starts waiting tasks of different users in turn. Progress changes published by a task are
+ * passed to the UI at most once per {@link WebConfig#getBackgroundTaskProgressUpdateIntervalMs()}.
  */
 @Component(BackgroundWorker.NAME)
 public class WebBackgroundWorker implements BackgroundWorker {
@@ -72,6 +74,12 @@ public class WebBackgroundWorker implements BackgroundWorker {
 
     protected ExecutorService executorService;
 
+    protected BackgroundTaskScheduler scheduler;
+
+    protected ScheduledExecutorService progressExecutor;
+
+    protected long progressUpdateInterval;
+
     public WebBackgroundWorker() {
     }
 
@@ -88,20 +96,52 @@ public class WebBackgroundWorker implements BackgroundWorker {
         }
 
         WebConfig webConfig = configuration.getConfig(WebConfig.class);
-        this.executorService = new ThreadPoolExecutor(
-                webConfig.getMinBackgroundThreadsCount(),
-                webConfig.getMaxActiveBackgroundTasksCount(),
+        int minThreads = webConfig.getMinBackgroundThreadsCount();
+        // unless enabled explicitly, no more tasks run at once than the minimum number of threads
+        int maxActiveTasks = webConfig.getRunMaxActiveBackgroundTasks()
+                ? Math.max(webConfig.getMaxActiveBackgroundTasksCount(), minThreads)
+                : minThreads;
+
+        // the scheduler limits the number of active tasks, so each task gets a thread immediately
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                maxActiveTasks,
+                maxActiveTasks,
                 10L, TimeUnit.MINUTES,
                 new LinkedBlockingQueue<>(),
                 new ThreadFactoryBuilder()
                         .setNameFormat(THREAD_NAME_PREFIX + "%d")
                         .build()
         );
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        for (int i = 0; i < minThreads; i++) {
+            threadPoolExecutor.prestartCoreThread();
+        }
+        this.executorService = threadPoolExecutor;
+
+        this.scheduler = new BackgroundTaskScheduler(executorService, maxActiveTasks,
+                webConfig.getMaxActiveBackgroundTasksPerSession(),
+                webConfig.getMaxActiveBackgroundTasksPerUser());
+
+        this.progressUpdateInterval = webConfig.getBackgroundTaskProgressUpdateIntervalMs();
+        this.progressExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("BackgroundTaskProgress-%d")
+                        .setDaemon(true)
+                        .build()
+        );
     }
 
     @PreDestroy
     public void destroy() {
         executorService.shutdownNow();
+        progressExecutor.shutdownNow();
+    }
+
+    /**
+     * @return scheduler of background tasks, provides queue metrics
+     */
+    public BackgroundTaskScheduler getScheduler() {
+        return scheduler;
     }
 
     @Override
@@ -152,7 +192,7 @@ public class WebBackgroundWorker implements BackgroundWorker {
 
         private AppUI ui;
 
-        private FutureTask<V> future;
+        private TaskFuture future;
 
         private BackgroundTask<T, V> runnableTask;
         private Runnable finalizer;
@@ -162,6 +202,13 @@ public class WebBackgroundWorker implements BackgroundWorker {
 
         private SecurityContext securityContext;
         private String userLogin;
+        private UUID sessionId;
+        private UUID userId;
+
+        // progress changes not passed to the UI yet
+        private final List<T> pendingChanges = new ArrayList<>();
+        private final AtomicBoolean progressUpdateScheduled = new AtomicBoolean();
+        private volatile long lastProgressUpdateTs;
 
         private Map<String, Object> params;
         private TaskHandlerImpl<T, V> taskHandler;
@@ -179,15 +226,29 @@ public class WebBackgroundWorker implements BackgroundWorker {
 
             UserSession userSession = userSessionSource.getUserSession();
             this.userLogin = userSession.getUser().getLogin();
+            this.sessionId = userSession.getId();
+            this.userId = userSession.getUser().getId();
 
-            this.future = new FutureTask<V>(this) {
-                @Override
-                protected void done() {
-                    WebTaskExecutor.this.ui.access(() ->
-                            handleDone()
-                    );
-                }
-            };
+            this.future = new TaskFuture();
+        }
+
+        private class TaskFuture extends FutureTask<V> {
+
+            private TaskFuture() {
+                super(WebTaskExecutor.this);
+            }
+
+            @Override
+            protected void done() {
+                WebTaskExecutor.this.ui.access(() ->
+                        handleDone()
+                );
+            }
+
+            // completes the task with the exception if it cannot be started
+            private void fail(Throwable throwable) {
+                setException(throwable);
+            }
         }
 
         @Override
@@ -239,10 +300,41 @@ public class WebBackgroundWorker implements BackgroundWorker {
         @Override
         public final void handleProgress(T... changes) {
             if (changes != null) {
-                ui.access(() ->
-                        process(Arrays.asList(changes))
-                );
+                synchronized (pendingChanges) {
+                    Collections.addAll(pendingChanges, changes);
+                }
+
+                if (progressUpdateScheduled.compareAndSet(false, true)) {
+                    long delay = lastProgressUpdateTs + progressUpdateInterval - System.currentTimeMillis();
+                    if (delay > 0) {
+                        try {
+                            progressExecutor.schedule(() ->
+                                    ui.access(this::flushProgress), delay, TimeUnit.MILLISECONDS);
+                        } catch (RejectedExecutionException e) {
+                            ui.access(this::flushProgress);
+                        }
+                    } else {
+                        ui.access(this::flushProgress);
+                    }
+                }
+            }
+        }
+
+        @ExecutedOnUIThread
+        protected final void flushProgress() {
+            // changes published after this point schedule a new update
+            progressUpdateScheduled.set(false);
+            lastProgressUpdateTs = System.currentTimeMillis();
+
+            List<T> chunks;
+            synchronized (pendingChanges) {
+                if (pendingChanges.isEmpty()) {
+                    return;
+                }
+                chunks = new ArrayList<>(pendingChanges);
+                pendingChanges.clear();
             }
+            process(chunks);
         }
 
         @ExecutedOnUIThread
@@ -269,6 +361,9 @@ public class WebBackgroundWorker implements BackgroundWorker {
 
             log.debug("Done task. User: {}", userLogin);
 
+            // pass changes delayed by the progress update interval before the result
+            flushProgress();
+
             // do not allow to cancel task from done listeners and exception handler
             isClosed = true;
 
@@ -372,9 +467,7 @@ public class WebBackgroundWorker implements BackgroundWorker {
         @Override
         public final void startExecution() {
             // Start thread
-            executorService.execute(() ->
-                    future.run()
-            );
+            scheduler.submit(future, sessionId, userId, runnableTask.getPriority(), future::fail);
         }
 
         @Override
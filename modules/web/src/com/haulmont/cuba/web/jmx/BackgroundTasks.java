@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2008-2016 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.haulmont.cuba.web.jmx;
+
+import com.haulmont.cuba.gui.executors.BackgroundWorker;
+import com.haulmont.cuba.web.gui.executors.impl.BackgroundTaskScheduler;
+import com.haulmont.cuba.web.gui.executors.impl.WebBackgroundWorker;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+
+@Component("cuba_BackgroundTasksMBean")
+public class BackgroundTasks implements BackgroundTasksMBean {
+
+    @Inject
+    protected BackgroundWorker backgroundWorker;
+
+    @Override
+    public int getQueueSize() {
+        BackgroundTaskScheduler scheduler = getScheduler();
+        return scheduler != null ? scheduler.getQueueSize() : 0;
+    }
+
+    @Override
+    public int getActiveCount() {
+        BackgroundTaskScheduler scheduler = getScheduler();
+        return scheduler != null ? scheduler.getActiveCount() : 0;
+    }
+
+    @Override
+    public long getStartedCount() {
+        BackgroundTaskScheduler scheduler = getScheduler();
+        return scheduler != null ? scheduler.getStartedCount() : 0;
+    }
+
+    @Override
+    public long getAvgWaitTime() {
+        BackgroundTaskScheduler scheduler = getScheduler();
+        return scheduler != null ? scheduler.getAvgWaitTime() : 0;
+    }
+
+    @Override
+    public long getMaxWaitTime() {
+        BackgroundTaskScheduler scheduler = getScheduler();
+        return scheduler != null ? scheduler.getMaxWaitTime() : 0;
+    }
+
+    protected BackgroundTaskScheduler getScheduler() {
+        return backgroundWorker instanceof WebBackgroundWorker
+                ? ((WebBackgroundWorker) backgroundWorker).getScheduler()
+                : null;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.backgroundtasks
+
+import com.haulmont.cuba.gui.executors.BackgroundTask
+import com.haulmont.cuba.web.gui.executors.impl.BackgroundTaskScheduler
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.function.Consumer
+
+class BackgroundTaskSchedulerTest extends Specification {
+
+    List<Runnable> started = []
+    List<String> executed = []
+
+    Executor executor = { Runnable r -> started.add(r) } as Executor
+
+    def user1 = UUID.randomUUID()
+    def user2 = UUID.randomUUID()
+    def session1 = UUID.randomUUID()
+    def session2 = UUID.randomUUID()
+
+    def "users take turns"() {
+        def scheduler = new BackgroundTaskScheduler(executor, 1, 0, 0)
+
+        when:
+        submit(scheduler, 'u1-1', session1, user1)
+        submit(scheduler, 'u1-2', session1, user1)
+        submit(scheduler, 'u1-3', session1, user1)
+        submit(scheduler, 'u2-1', session2, user2)
+
+        then:
+        scheduler.activeCount == 1
+        scheduler.queueSize == 3
+
+        when:
+        runAll()
+
+        then:
+        executed == ['u1-1', 'u2-1', 'u1-2', 'u1-3']
+        scheduler.activeCount == 0
+        scheduler.queueSize == 0
+        scheduler.startedCount == 4
+    }
+
+    def "user quota leaves threads to other users"() {
+        def scheduler = new BackgroundTaskScheduler(executor, 3, 0, 1)
+
+        when:
+        submit(scheduler, 'u1-1', session1, user1)
+        submit(scheduler, 'u1-2', session1, user1)
+        submit(scheduler, 'u2-1', session2, user2)
+
+        then:
+        scheduler.activeCount == 2
+        scheduler.queueSize == 1
+
+        when:
+        runAll()
+
+        then:
+        executed == ['u1-1', 'u2-1', 'u1-2']
+    }
+
+    def "tasks with higher priority are started first"() {
+        def scheduler = new BackgroundTaskScheduler(executor, 1, 0, 0)
+
+        when:
+        submit(scheduler, 'first', session1, user1)
+        submit(scheduler, 'low', session1, user1, BackgroundTask.Priority.LOW)
+        submit(scheduler, 'normal', session2, user2)
+        submit(scheduler, 'high', session2, user2, BackgroundTask.Priority.HIGH)
+        runAll()
+
+        then:
+        executed == ['first', 'high', 'normal', 'low']
+    }
+
+    def "rejected task is reported to its rejection handler"() {
+        def rejectingExecutor = { Runnable r -> throw new RejectedExecutionException("shut down") } as Executor
+        def scheduler = new BackgroundTaskScheduler(rejectingExecutor, 1, 0, 0)
+        List<Exception> rejections = []
+
+        when:
+        scheduler.submit({ executed.add('task') } as Runnable, session1, user1, BackgroundTask.Priority.NORMAL,
+                { RejectedExecutionException e -> rejections.add(e) } as Consumer)
+
+        then:
+        rejections.size() == 1
+        executed.isEmpty()
+        scheduler.activeCount == 0
+        scheduler.queueSize == 0
+    }
+
+    void submit(BackgroundTaskScheduler scheduler, String name, UUID sessionId, UUID userId,
+                BackgroundTask.Priority priority = BackgroundTask.Priority.NORMAL) {
+        scheduler.submit({ executed.add(name) } as Runnable, sessionId, userId, priority)
+    }
+
+    void runAll() {
+        while (!started.isEmpty()) {
+            started.remove(0).run()
+        }
+    }
+}
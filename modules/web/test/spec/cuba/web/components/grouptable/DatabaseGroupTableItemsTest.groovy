@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.components.grouptable
+
+import com.haulmont.cuba.core.app.DataService
+import com.haulmont.cuba.core.entity.KeyValueEntity
+import com.haulmont.cuba.core.global.LoadContext
+import com.haulmont.cuba.core.global.Metadata
+import com.haulmont.cuba.core.global.ValueLoadContext
+import com.haulmont.cuba.gui.components.data.table.DatabaseGroupTableItems
+import com.haulmont.cuba.gui.data.GroupInfo
+import com.haulmont.cuba.gui.model.CollectionContainer
+import com.haulmont.cuba.gui.model.CollectionLoader
+import com.haulmont.cuba.gui.model.DataComponents
+import com.haulmont.cuba.security.entity.Group
+import com.haulmont.cuba.security.entity.User
+import com.haulmont.cuba.web.container.CubaTestContainer
+import com.haulmont.cuba.web.testsupport.TestContainer
+import com.haulmont.cuba.web.testsupport.proxy.TestServiceProxy
+import org.junit.ClassRule
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.function.Consumer
+
+import static com.haulmont.cuba.client.testsupport.TestSupport.reserialize
+
+@SuppressWarnings("GroovyAssignabilityCheck")
+class DatabaseGroupTableItemsTest extends Specification {
+
+    @Shared @ClassRule
+    public TestContainer cont = CubaTestContainer.Common.INSTANCE
+
+    private Metadata metadata
+    private DataComponents factory
+
+    private CollectionContainer<User> container
+    private DatabaseGroupTableItems<User, UUID> tableItems
+
+    private List<ValueLoadContext> valueLoadContexts = []
+    private List<LoadContext> loadContexts = []
+
+    private User user1
+    private User user2
+
+    void setup() {
+        metadata = cont.getBean(Metadata)
+        factory = cont.getBean(DataComponents)
+
+        def group = metadata.create(Group)
+        group.name = 'Company'
+
+        user1 = metadata.create(User)
+        user1.login = 'user1'
+        user1.group = group
+
+        user2 = metadata.create(User)
+        user2.login = 'user2'
+
+        def companyRow = new KeyValueEntity()
+        companyRow.setValue('g0', 'Company')
+        companyRow.setValue('cnt', 1L)
+
+        def nullRow = new KeyValueEntity()
+        nullRow.setValue('g0', null)
+        nullRow.setValue('cnt', 1L)
+
+        TestServiceProxy.mock(DataService, Mock(DataService) {
+            loadValues(_) >> { ValueLoadContext context ->
+                valueLoadContexts.add(context)
+                [companyRow, nullRow]
+            }
+            loadList(_) >> { LoadContext context ->
+                loadContexts.add(context)
+                context.query.queryString.contains('is null') ? [reserialize(user2)] : [reserialize(user1)]
+            }
+        })
+
+        CollectionLoader<User> loader = factory.createCollectionLoader()
+        container = factory.createCollectionContainer(User)
+        loader.setContainer(container)
+        loader.setQuery('select u from sec$User u')
+
+        tableItems = new DatabaseGroupTableItems<>(container)
+    }
+
+    void cleanup() {
+        TestServiceProxy.clear()
+    }
+
+    def "groups by a reference path are selected through a left join"() {
+        when:
+
+        tableItems.groupBy([metadata.getClassNN(User).getPropertyPath('group.name')] as Object[])
+
+        then:
+
+        tableItems.isDatabaseGroups()
+        tableItems.rootGroups().size() == 2
+
+        valueLoadContexts.size() == 1
+        valueLoadContexts[0].query.queryString.contains('left join u.group r0_')
+        valueLoadContexts[0].query.queryString.contains('group by r0_.name')
+    }
+
+    def "items of an expanded group are added to the container and can be selected"() {
+        Consumer itemSetChangeListener = Mock()
+
+        tableItems.groupBy([metadata.getClassNN(User).getPropertyPath('group.name')] as Object[])
+        tableItems.addItemSetChangeListener(itemSetChangeListener)
+
+        GroupInfo nullGroup = tableItems.rootGroups().find { it.value == null }
+
+        when:
+
+        def itemIds = tableItems.getGroupItemIds(nullGroup)
+
+        then:
+
+        itemIds == [user2.id]
+        tableItems.getGroupItemsCount(nullGroup) == 1
+
+        loadContexts.size() == 1
+        loadContexts[0].query.queryString.contains('left join u.group gv0_')
+        loadContexts[0].query.queryString.contains('gv0_.name is null')
+
+        container.containsItem(user2.id)
+        tableItems.size() == 1
+        tableItems.getItemIds() == [user2.id]
+
+        0 * itemSetChangeListener.accept(_)
+
+        when:
+
+        tableItems.setSelectedItem(tableItems.getItemNN(user2.id))
+
+        then:
+
+        tableItems.getSelectedItem() == user2
+        container.getItem() == user2
+    }
+}
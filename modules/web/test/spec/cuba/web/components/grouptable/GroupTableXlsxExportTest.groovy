@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2019 Haulmont.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package spec.cuba.web.components.grouptable
+
+import com.haulmont.cuba.gui.components.GroupTable
+import com.haulmont.cuba.gui.export.ExportDataProvider
+import com.haulmont.cuba.gui.export.ExportDisplay
+import com.haulmont.cuba.gui.export.ExportFormat
+import com.haulmont.cuba.gui.export.TempFileDataProvider
+import com.haulmont.cuba.gui.export.XlsxExporter
+import com.haulmont.cuba.gui.model.CollectionContainer
+import com.haulmont.cuba.gui.screen.OpenMode
+import com.haulmont.cuba.web.testmodel.sample.GoodStatistic
+import org.apache.poi.ss.usermodel.Cell
+import org.apache.poi.xssf.usermodel.XSSFWorkbook
+import spec.cuba.web.UiScreenSpec
+import spec.cuba.web.components.grouptable.screens.GroupTableXlsxExportScreen
+
+@SuppressWarnings(["GroovyAccessibility", "GroovyAssignabilityCheck"])
+class GroupTableXlsxExportTest extends UiScreenSpec {
+
+    void setup() {
+        exportScreensPackages(['spec.cuba.web.components.grouptable.screens'])
+    }
+
+    def "export grouped and aggregated rows to XLSX"() {
+        def screens = vaadinUi.screens
+        def mainWindow = screens.create("mainWindow", OpenMode.ROOT)
+        screens.show(mainWindow)
+
+        def screen = screens.create(GroupTableXlsxExportScreen)
+        screen.show()
+
+        def container = screen.screenData.getContainer("goodStatisticDc") as CollectionContainer<GoodStatistic>
+        container.setItems([
+                createStatistic("a", 1.5d),
+                createStatistic("a", 2.5d),
+                createStatistic("b", 3d)
+        ])
+
+        def groupTable = screen.window.getComponentNN("groupTable") as GroupTable<GoodStatistic>
+        groupTable.groupByColumns("name")
+
+        ExportDataProvider dataProvider = null
+        def display = Stub(ExportDisplay) {
+            show(_ as ExportDataProvider, _ as String, _ as ExportFormat) >> { args -> dataProvider = args[0] }
+        }
+
+        when:
+        new XlsxExporter().exportTable(groupTable, display)
+
+        then:
+        dataProvider instanceof TempFileDataProvider
+        File file = (dataProvider as TempFileDataProvider).file
+        file.exists()
+
+        when:
+        def stream = dataProvider.provide()
+        def workbook = new XSSFWorkbook(stream)
+        def sheet = workbook.getSheetAt(0)
+        stream.close()
+
+        then: "the document is deleted once it has been read"
+        !file.exists()
+
+        and: "the total aggregation row follows the header"
+        numericValue(sheet.getRow(1).getCell(1)) == 7d
+
+        and: "each group row contains the group value and its aggregation, followed by the group items"
+        sheet.getRow(2).getCell(0).stringCellValue.startsWith("a")
+        numericValue(sheet.getRow(2).getCell(1)) == 4d
+        numericValue(sheet.getRow(3).getCell(1)) == 1.5d
+        numericValue(sheet.getRow(4).getCell(1)) == 2.5d
+
+        sheet.getRow(5).getCell(0).stringCellValue.startsWith("b")
+        numericValue(sheet.getRow(5).getCell(1)) == 3d
+        numericValue(sheet.getRow(6).getCell(1)) == 3d
+
+        sheet.lastRowNum == 6
+
+        cleanup:
+        workbook?.close()
+    }
+
+    protected GoodStatistic createStatistic(String name, Double usages) {
+        def statistic = metadata.create(GoodStatistic)
+        statistic.name = name
+        statistic.usages = usages
+        return statistic
+    }
+
+    protected static double numericValue(Cell cell) {
+        try {
+            return cell.numericCellValue
+        } catch (IllegalStateException ignored) {
+            // aggregation results can be exported as formatted strings
+            return Double.parseDouble(cell.stringCellValue)
+        }
+    }
+}
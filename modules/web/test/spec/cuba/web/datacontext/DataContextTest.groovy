@@ -25,6 +25,7 @@ import com.haulmont.cuba.core.global.Metadata
 import com.haulmont.cuba.core.sys.persistence.CubaEntityFetchGroup
 import com.haulmont.cuba.gui.model.DataComponents
 import com.haulmont.cuba.gui.model.DataContext
+import com.haulmont.cuba.gui.model.impl.DataContextImpl
 import com.haulmont.cuba.gui.model.impl.NoopDataContext
 import com.haulmont.cuba.security.entity.Role
 import com.haulmont.cuba.security.entity.User
@@ -38,6 +39,7 @@ import org.eclipse.persistence.queries.FetchGroupTracker
 import org.junit.ClassRule
 import spock.lang.Shared
 import spock.lang.Specification
+import spock.lang.Timeout
 
 @SuppressWarnings(["GroovyAccessibility", "GroovyAssignabilityCheck"])
 class DataContextTest extends Specification {
@@ -493,6 +495,61 @@ class DataContextTest extends Specification {
         !order1_1.orderLines.contains(orderLine12_1)
     }
 
+    def "removed object is removed from collections changed after merge"() {
+
+        def dataContext = factory.createDataContext()
+
+        Order order1 = dataContext.merge(makeSaved(new Order(number: "111", orderLines: [])))
+        Order order2 = dataContext.merge(makeSaved(new Order(number: "222", orderLines: [])))
+        OrderLine orderLine = dataContext.merge(makeSaved(new OrderLine(quantity: 10)))
+
+        order1.orderLines.add(orderLine)
+        order2.orderLines = [orderLine]
+
+        when:
+
+        dataContext.remove(orderLine)
+
+        then:
+
+        order1.orderLines.isEmpty()
+        order2.orderLines.isEmpty()
+    }
+
+    @Timeout(30)
+    def "merge and remove in large composition"() {
+
+        def dataContext = factory.createDataContext()
+
+        Order order = new Order(number: "111", orderLines: [])
+        for (int i = 0; i < 10000; i++) {
+            order.orderLines.add(new OrderLine(order: order, quantity: i))
+        }
+        makeDetached(order)
+        makeDetached(order.orderLines as Entity[])
+
+        when: "merging the composition into the context twice"
+
+        Order mergedOrder = dataContext.merge(order)
+        Order mergedAgain = dataContext.merge(order)
+
+        then:
+
+        mergedAgain.is(mergedOrder)
+        mergedOrder.orderLines.size() == 10000
+
+        when: "removing every other line"
+
+        List<OrderLine> removedLines = mergedOrder.orderLines.findAll { it.quantity % 2 == 0 }
+        removedLines.each { dataContext.remove(it) }
+
+        then:
+
+        mergedOrder.orderLines.size() == 5000
+        mergedOrder.orderLines.every { it.quantity % 2 == 1 }
+        dataContext.getRemoved().size() == 5000
+    }
+
     def "system fields are preserved on merge"() {
 
         def dataContext = factory.createDataContext()
@@ -538,6 +595,74 @@ class DataContextTest extends Specification {
         dataContext.find(Order, order1.id).number == 'committed through delegate'
     }
 
+    def "delta commit sends only changed attributes"() {
+
+        Order order = new Order(number: '111', amount: 10, customer: new Customer(name: 'c1'), version: 3)
+        makeDetached(order, order.customer)
+
+        DataContextImpl dataContext = factory.createDataContext() as DataContextImpl
+        dataContext.setDeltaCommit(true)
+        CommitContext commitContext = null
+        dataContext.setCommitDelegate { CommitContext cc ->
+            commitContext = cc
+            cc.commitInstances.toSet()
+        }
+
+        Order mergedOrder = dataContext.merge(order)
+
+        when:
+
+        mergedOrder.number = '222'
+        dataContext.commit()
+
+        then:
+
+        commitContext.commitInstances.size() == 1
+
+        Order committedOrder = commitContext.commitInstances[0] as Order
+        !committedOrder.is(mergedOrder)
+        committedOrder.id == order.id
+        committedOrder.version == 3
+        committedOrder.number == '222'
+        entityStates.isLoaded(committedOrder, 'number')
+        !entityStates.isLoaded(committedOrder, 'amount')
+        !entityStates.isLoaded(committedOrder, 'customer')
+
+        commitContext.views[committedOrder].containsProperty('number')
+        !commitContext.views[committedOrder].containsProperty('amount')
+
+        dataContext.find(Order, order.id).is(mergedOrder)
+        mergedOrder.number == '222'
+        mergedOrder.amount == 10
+        !dataContext.hasChanges()
+    }
+
+    def "delta commit sends complete instance if a collection is changed"() {
+
+        Order order = new Order(number: '111', orderLines: [], version: 1)
+        makeDetached(order)
+
+        DataContextImpl dataContext = factory.createDataContext() as DataContextImpl
+        dataContext.setDeltaCommit(true)
+        CommitContext commitContext = null
+        dataContext.setCommitDelegate { CommitContext cc ->
+            commitContext = cc
+            cc.commitInstances.toSet()
+        }
+
+        Order mergedOrder = dataContext.merge(order)
+
+        when:
+
+        mergedOrder.number = '222'
+        mergedOrder.orderLines.add(dataContext.create(OrderLine))
+        dataContext.commit()
+
+        then:
+
+        commitContext.commitInstances.find { it instanceof Order }.is(mergedOrder)
+    }
+
     def "read-only context"() {
         def dataContext = new NoopDataContext()
         def order1 = new Order(number: "111")